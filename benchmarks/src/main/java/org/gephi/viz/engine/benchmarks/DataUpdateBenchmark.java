@@ -0,0 +1,116 @@
+package org.gephi.viz.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.pipeline.arrays.ArrayDrawNodeData;
+import org.gephi.viz.engine.pipeline.indirect.IndirectNodeData;
+import org.gephi.viz.engine.pipeline.instanced.InstancedEdgeData;
+import org.gephi.viz.engine.pipeline.instanced.InstancedNodeData;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the full world update of each pipeline data class: visible elements query, selection handling and fill of the next buffer. GL buffers are never touched.
+ *
+ * <p>
+ * With <code>change=rebuild</code> incremental updates are disabled and the data is rebuilt every time, <code>unchanged</code> measures the skip path when nothing changed and <code>nodesMoved</code> invalidates the nodes before each update, like a running layout.</p>
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class DataUpdateBenchmark {
+
+    @Param({"ArrayDrawNodeData", "InstancedNodeData", "InstancedNodeDataPacked", "IndirectNodeData", "InstancedEdgeData"})
+    public String data;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int elements;
+
+    @Param({"false", "true"})
+    public boolean someSelection;
+
+    @Param({"rebuild", "unchanged", "nodesMoved"})
+    public String change;
+
+    private Runnable update;
+    private GraphIndexImpl graphIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final boolean edges = data.endsWith("EdgeData");
+        final int nodesCount = edges ? Math.max(elements / 5, 100) : elements;
+        final int edgesCount = edges ? elements : 0;
+
+        final VizEngine engine = SyntheticGraphs.newEngine(SyntheticGraphs.newGraphModel(nodesCount, edgesCount));
+        if (someSelection) {
+            SyntheticGraphs.selectNodes(engine, 100);
+        }
+
+        graphIndex = engine.getLookup().lookup(GraphIndexImpl.class);
+        graphIndex.setIncrementalUpdates(!"rebuild".equals(change));
+
+        switch (data) {
+            case "ArrayDrawNodeData": {
+                final ArrayDrawNodeData nodeData = new ArrayDrawNodeData();
+                nodeData.initCPUBuffers();
+                update = () -> nodeData.update(engine, graphIndex);
+                break;
+            }
+            case "InstancedNodeData": {
+                final InstancedNodeData nodeData = new InstancedNodeData();
+                nodeData.initCPUBuffers();
+                update = () -> nodeData.update(engine, graphIndex);
+                break;
+            }
+            case "InstancedNodeDataPacked": {
+                final InstancedNodeData nodeData = new InstancedNodeData(true);
+                nodeData.initCPUBuffers();
+                update = () -> nodeData.update(engine, graphIndex);
+                break;
+            }
+            case "IndirectNodeData": {
+                final IndirectNodeData nodeData = new IndirectNodeData();
+                nodeData.initCPUBuffers();
+                update = () -> nodeData.update(engine, graphIndex);
+                break;
+            }
+            case "InstancedEdgeData": {
+                final InstancedEdgeData edgeData = new InstancedEdgeData();
+                edgeData.initCPUBuffers();
+                update = () -> edgeData.update(engine, graphIndex);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown data class " + data);
+        }
+
+        //Let the 3 direct buffers grow before measuring:
+        for (int i = 0; i < 3; i++) {
+            update.run();
+        }
+    }
+
+    @Benchmark
+    public void updateData() {
+        if ("nodesMoved".equals(change)) {
+            graphIndex.invalidateNodes();
+        }
+        update.run();
+    }
+}
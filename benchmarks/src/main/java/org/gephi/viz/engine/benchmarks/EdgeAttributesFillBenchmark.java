@@ -0,0 +1,137 @@
+package org.gephi.viz.engine.benchmarks;
+
+import static com.jogamp.opengl.GL.GL_FLOAT;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link AbstractEdgeData} undirected and directed fills, over all the edges of a mixed graph, into a direct buffer like {@link org.gephi.viz.engine.pipeline.instanced.InstancedEdgeData} does.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class EdgeAttributesFillBenchmark {
+
+    private static final int BATCH_EDGES_SIZE = 32768;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int edges;
+
+    @Param({"false", "true"})
+    public boolean someSelection;
+
+    @Param({"false", "true"})
+    public boolean parallelFill;
+
+    private VizEngine engine;
+    private Graph graph;
+    private Edge[] edgesArray;
+    private EdgeAttributesFiller filler;
+    private float[] batch;
+    private ManagedDirectBuffer directBuffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        engine = SyntheticGraphs.newEngine(SyntheticGraphs.newGraphModel(Math.max(edges / 5, 100), edges));
+        if (someSelection) {
+            SyntheticGraphs.selectNodes(engine, 100);
+        }
+
+        graph = engine.getGraphModel().getGraphVisible();
+        edgesArray = graph.getEdges().toArray();
+
+        filler = new EdgeAttributesFiller();
+        filler.setParallelFill(parallelFill);
+        batch = filler.newBatch(BATCH_EDGES_SIZE);
+        directBuffer = new ManagedDirectBuffer(GL_FLOAT, filler.attributesSize(edgesArray.length));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        directBuffer.destroy();
+    }
+
+    @Benchmark
+    public int updateUndirectedData() {
+        return filler.fillUndirected(engine, graph, edgesArray, batch, directBuffer.floatBuffer());
+    }
+
+    @Benchmark
+    public int updateDirectedData() {
+        return filler.fillDirected(engine, graph, edgesArray, batch, directBuffer.floatBuffer());
+    }
+
+    private static class EdgeAttributesFiller extends AbstractEdgeData {
+
+        public EdgeAttributesFiller() {
+            super(true);
+        }
+
+        public float[] newBatch(int batchEdges) {
+            return new float[ATTRIBS_STRIDE * batchEdges];
+        }
+
+        public int attributesSize(int edgesCount) {
+            return ATTRIBS_STRIDE * edgesCount;
+        }
+
+        public int fillUndirected(VizEngine engine, Graph graph, Edge[] edges, float[] batch, FloatBuffer directBuffer) {
+            final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+            final GraphSelection graphSelection = engine.getLookup().lookup(GraphSelection.class);
+
+            final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
+            final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || renderingOptions.getLightenNonSelectedFactor() >= 1);
+
+            return updateUndirectedData(
+                    graph,
+                    someEdgesSelection, hideNonSelected, edges.length, edges, graphSelection, graphSelection.getSelectedNodesCount() > 0, renderingOptions.isEdgeSelectionColor(),
+                    Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB()),
+                    Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB()),
+                    Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB()),
+                    batch, 0, directBuffer
+            );
+        }
+
+        public int fillDirected(VizEngine engine, Graph graph, Edge[] edges, float[] batch, FloatBuffer directBuffer) {
+            final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+            final GraphSelection graphSelection = engine.getLookup().lookup(GraphSelection.class);
+
+            final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
+            final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || renderingOptions.getLightenNonSelectedFactor() >= 1);
+
+            return updateDirectedData(
+                    graph,
+                    someEdgesSelection, hideNonSelected, edges.length, edges, graphSelection, graphSelection.getSelectedNodesCount() > 0, renderingOptions.isEdgeSelectionColor(),
+                    Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB()),
+                    Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB()),
+                    Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB()),
+                    batch, 0, directBuffer
+            );
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.gephi.viz.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.structure.GraphSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares filling the position, size and color of all nodes from the {@link Node} objects and from a {@link GraphSnapshot}, and measures building and refreshing the snapshot.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class GraphSnapshotBenchmark {
+
+    private static final int NODE_FLOATS = 4;
+    private static final int BATCH_NODES_SIZE = 32768;
+
+    @Param({"10000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"0", "5"})
+    public int edgesPerNode;
+
+    private Graph graph;
+    private Node[] nodesArray;
+    private GraphSnapshot snapshot;
+    private float[] batch;
+
+    @Setup
+    public void setup() {
+        graph = SyntheticGraphs.newGraphModel(nodes, nodes * edgesPerNode).getGraph();
+        nodesArray = graph.getNodes().toArray();
+        snapshot = GraphSnapshot.build(graph);
+        batch = new float[NODE_FLOATS * BATCH_NODES_SIZE];
+    }
+
+    @Benchmark
+    public int fillNodesFromObjects() {
+        final float[] batch = this.batch;
+        int index = 0;
+        int flushes = 0;
+        for (Node node : nodesArray) {
+            batch[index + 0] = node.x();
+            batch[index + 1] = node.y();
+            batch[index + 2] = node.size();
+            batch[index + 3] = Float.intBitsToFloat(node.getRGBA());
+            index += NODE_FLOATS;
+
+            if (index == batch.length) {
+                index = 0;
+                flushes++;
+            }
+        }
+
+        return flushes + index;
+    }
+
+    @Benchmark
+    public int fillNodesFromSnapshot() {
+        final float[] batch = this.batch;
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] nodesY = snapshot.getNodesY();
+        final float[] nodesSize = snapshot.getNodesSize();
+        final int[] nodesColor = snapshot.getNodesColor();
+        final int nodeCount = snapshot.getNodeCount();
+
+        int index = 0;
+        int flushes = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            batch[index + 0] = nodesX[i];
+            batch[index + 1] = nodesY[i];
+            batch[index + 2] = nodesSize[i];
+            batch[index + 3] = Float.intBitsToFloat(nodesColor[i]);
+            index += NODE_FLOATS;
+
+            if (index == batch.length) {
+                index = 0;
+                flushes++;
+            }
+        }
+
+        return flushes + index;
+    }
+
+    @Benchmark
+    public GraphSnapshot build() {
+        return GraphSnapshot.build(graph);
+    }
+
+    @Benchmark
+    public GraphSnapshot refreshNodes() {
+        snapshot.refreshNodes(graph);
+        return snapshot;
+    }
+}
@@ -0,0 +1,87 @@
+package org.gephi.viz.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.pipeline.common.AbstractNodeData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link AbstractNodeData#fillNodeAttributesData} or its packed variant alone, over all the nodes of a graph, writing into a batch array like the pipelines do.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class NodeAttributesFillBenchmark {
+
+    private static final int BATCH_NODES_SIZE = 32768;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int nodes;
+
+    @Param({"false", "true"})
+    public boolean someSelection;
+
+    @Param({"false", "true"})
+    public boolean packed;
+
+    private NodeAttributesFiller filler;
+    private Node[] nodesArray;
+    private float[] batch;
+
+    @Setup
+    public void setup() {
+        nodesArray = SyntheticGraphs.newGraphModel(nodes, 0).getGraph().getNodes().toArray();
+        filler = new NodeAttributesFiller(packed);
+        batch = filler.newBatch(BATCH_NODES_SIZE);
+    }
+
+    @Benchmark
+    public int fillNodeAttributesData() {
+        return filler.fillAll(batch, nodesArray, someSelection);
+    }
+
+    private static class NodeAttributesFiller extends AbstractNodeData {
+
+        public NodeAttributesFiller(boolean packed) {
+            super(true, packed);
+        }
+
+        public float[] newBatch(int batchNodes) {
+            return new float[packed ? PACKED_ATTRIBS_STRIDE * batchNodes : ATTRIBS_STRIDE * batchNodes * 2];
+        }
+
+        public int fillAll(float[] batch, Node[] nodes, boolean someSelection) {
+            int index = 0;
+            int flushes = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                //Select one of each 100 nodes when selection is active:
+                final boolean selected = someSelection && i % 100 == 0;
+                index = packed
+                        ? fillNodeAttributesDataPacked(batch, nodes[i], index, someSelection, selected)
+                        : fillNodeAttributesData(batch, nodes[i], index, someSelection, selected);
+
+                if (index == batch.length) {
+                    index = 0;
+                    flushes++;
+                }
+            }
+
+            return flushes + index;
+        }
+    }
+}
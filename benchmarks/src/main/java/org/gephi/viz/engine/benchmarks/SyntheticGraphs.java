@@ -0,0 +1,135 @@
+package org.gephi.viz.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.status.GraphRenderingOptionsImpl;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionImpl;
+import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.status.GraphSelectionNeighboursImpl;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.joml.Vector2f;
+
+/**
+ * Builds in-memory graphs and GL-less engines for the benchmarks.
+ *
+ * @author Eduardo Ramos
+ */
+public class SyntheticGraphs {
+
+    public static final float WORLD_SIZE = 2000;
+    public static final int VIEWPORT_WIDTH = 1920;
+    public static final int VIEWPORT_HEIGHT = 1080;
+
+    private static final long SEED = 42;
+
+    /**
+     * Creates a mixed graph with random positions, sizes and colors. Half of the edges are directed.
+     *
+     * Edges connect node <code>i % nodeCount</code> to the node <code>1 + i / nodeCount</code> positions ahead, so no parallel edges or self loops are created as long as <code>edgeCount &lt; nodeCount * nodeCount / 2</code>.
+     *
+     * @param nodeCount Nodes to create
+     * @param edgeCount Edges to create
+     * @return New graph model
+     */
+    public static GraphModel newGraphModel(int nodeCount, int edgeCount) {
+        if (nodeCount < 2) {
+            throw new IllegalArgumentException("nodeCount should be at least 2");
+        }
+        if (edgeCount >= (long) nodeCount * nodeCount / 2) {
+            throw new IllegalArgumentException("Too many edges for " + nodeCount + " nodes");
+        }
+
+        final Random random = new Random(SEED);
+
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getGraph();
+
+        final Node[] nodes = new Node[nodeCount];
+        final List<Node> nodesList = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            final Node node = factory.newNode();
+            node.setX((random.nextFloat() - 0.5f) * WORLD_SIZE);
+            node.setY((random.nextFloat() - 0.5f) * WORLD_SIZE);
+            node.setSize(1 + random.nextFloat() * 20);
+            node.setR(random.nextFloat());
+            node.setG(random.nextFloat());
+            node.setB(random.nextFloat());
+
+            nodes[i] = node;
+            nodesList.add(node);
+        }
+        graph.addAllNodes(nodesList);
+
+        final List<Edge> edgesList = new ArrayList<>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            final int source = i % nodeCount;
+            final int target = (source + 1 + i / nodeCount) % nodeCount;
+            final boolean directed = (i & 1) == 0;
+
+            edgesList.add(factory.newEdge(nodes[source], nodes[target], 0, 1 + random.nextInt(10), directed));
+        }
+        graph.addAllEdges(edgesList);
+
+        return graphModel;
+    }
+
+    /**
+     * Creates an engine that is never attached to a drawable, with the default status objects in its lookup and a view that contains the whole graph.
+     *
+     * @param graphModel Graph model
+     * @return New engine
+     */
+    public static VizEngine newEngine(GraphModel graphModel) {
+        final VizEngine engine = new VizEngine(graphModel);
+
+        engine.addToLookup(new GraphIndexImpl(engine));
+        engine.addToLookup(new GraphSelectionImpl(engine));
+        engine.addToLookup(new GraphSelectionNeighboursImpl(engine));
+        engine.addToLookup(new GraphRenderingOptionsImpl());
+
+        engine.setSize(VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+        engine.centerOn(new Vector2f(0, 0), WORLD_SIZE, WORLD_SIZE);
+
+        return engine;
+    }
+
+    /**
+     * Selects one of each <code>step</code> nodes, with their edges and neighbours, like hovering over them would do.
+     *
+     * @param engine Engine
+     * @param step Selection step
+     */
+    public static void selectNodes(VizEngine engine, int step) {
+        final Graph graph = engine.getGraphModel().getGraph();
+        final GraphSelection selection = engine.getLookup().lookup(GraphSelection.class);
+        final GraphSelectionNeighbours neighboursSelection = engine.getLookup().lookup(GraphSelectionNeighbours.class);
+
+        final List<Node> selectedNodes = new ArrayList<>();
+        final List<Node> neighbours = new ArrayList<>();
+        final List<Edge> selectedEdges = new ArrayList<>();
+
+        int i = 0;
+        for (Node node : graph.getNodes().toArray()) {
+            if (i++ % step != 0) {
+                continue;
+            }
+
+            selectedNodes.add(node);
+            neighbours.addAll(graph.getNeighbors(node).toCollection());
+            selectedEdges.addAll(graph.getEdges(node).toCollection());
+        }
+
+        selection.setSelectedNodes(selectedNodes);
+        selection.setSelectedEdges(selectedEdges);
+        neighboursSelection.setSelectedNodes(neighbours);
+    }
+}
@@ -0,0 +1,33 @@
+package org.gephi.viz.engine.demo;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.VizEngineFactory;
+
+/**
+ * Renders a graph without any window and exports it as PNG. Works with software GL (Mesa llvmpipe) by running with <code>LIBGL_ALWAYS_SOFTWARE=1</code>.
+ *
+ * @author Eduardo Ramos
+ */
+public class MainHeadless {
+
+    public static void main(String[] args) throws IOException {
+        final String graphFile = args.length > 0 ? args[0] : "samples/Les Miserables.gexf";
+        final String outputFile = args.length > 1 ? args[1] : "graph.png";
+
+        final VizEngine engine = VizEngineFactory.newOffscreenEngine(GraphLoader.load(graphFile), 1024, 768);
+
+        try {
+            engine.renderFrames(2);
+
+            final BufferedImage image = engine.readFrameImage();
+            ImageIO.write(image, "png", new File(outputFile));
+            System.out.println("Exported " + outputFile);
+        } finally {
+            engine.stop();
+        }
+    }
+}
@@ -9,12 +9,16 @@ import com.jogamp.newt.opengl.GLWindow;
 import com.jogamp.opengl.GL;
 import static com.jogamp.opengl.GL.GL_COLOR_BUFFER_BIT;
 import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLContext;
 import com.jogamp.opengl.GLEventListener;
+import com.jogamp.opengl.GLOffscreenAutoDrawable;
 import com.jogamp.opengl.awt.GLCanvas;
 import com.jogamp.opengl.awt.GLJPanel;
 import com.jogamp.opengl.util.Animator;
 import com.jogamp.opengl.util.FPSAnimator;
+import com.jogamp.opengl.util.awt.AWTGLReadBufferUtil;
 import java.awt.Color;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -22,19 +26,25 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.scheduler.BasicFPSAnimator;
 import org.gephi.viz.engine.spi.InputListener;
 import org.gephi.viz.engine.spi.PipelinedExecutor;
 import org.gephi.viz.engine.spi.Renderer;
 import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.status.EngineMetricsImpl;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.InputEventQueue;
 import org.gephi.viz.engine.util.gl.GlDebugOutput;
 import org.gephi.viz.engine.util.gl.capabilities.GLCapabilities;
 import org.gephi.viz.engine.util.gl.capabilities.Profile;
@@ -54,6 +64,7 @@ import org.openide.util.lookup.InstanceContent;
 public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyListener, com.jogamp.newt.event.MouseListener {
 
     public static final int DEFAULT_MAX_WORLD_UPDATES_PER_SECOND = 30;
+    public static final int DEFAULT_MAX_FRAMES_PER_SECOND_ON_DEMAND = 60;
 
     //State
     private int width = 0;
@@ -81,14 +92,27 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
     private final Set<WorldUpdater> allUpdaters = new LinkedHashSet<>();
     private final List<WorldUpdater> updatersPipeline = new ArrayList<>();
     private ExecutorService updatersThreadPool;
+    private final WorldUpdateScheduler worldUpdateScheduler = new WorldUpdateScheduler(this);
 
     //Input listeners:
-    private final List<NEWTEvent> eventsQueue = new ArrayList<>();
+    private final InputEventQueue eventsQueue = new InputEventQueue();
     private final Set<InputListener> allInuptListeners = new LinkedHashSet<>();
     private final List<InputListener> inputListenersPipeline = new ArrayList<>();
 
     //Animators
     private Animator animator;
+    private GLAutoDrawable animatedDrawable;
+
+    //Render on demand, with a capped rate animator that only draws frames when dirty:
+    private boolean renderOnDemand = false;
+    private int maxFramesPerSecondOnDemand = DEFAULT_MAX_FRAMES_PER_SECOND_ON_DEMAND;
+    private BasicFPSAnimator onDemandAnimator;
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private int lastDrawnGraphVersion = -1;
+    private int lastDrawnRenderingOptionsVersion = -1;
+
+    //Headless rendering, without animator:
+    private GLOffscreenAutoDrawable offscreenDrawable;
 
     //Graph:
     private final GraphModel graphModel;
@@ -101,10 +125,14 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
     private final InstanceContent instanceContent;
     private final AbstractLookup lookup;
 
+    //Metrics:
+    private final EngineMetrics metrics = new EngineMetricsImpl();
+
     public VizEngine(GraphModel graphModel) {
         this.graphModel = graphModel;
         this.instanceContent = new InstanceContent();
         this.lookup = new AbstractLookup(instanceContent);
+        this.instanceContent.add(metrics);
         loadModelViewProjection();
     }
 
@@ -115,6 +143,12 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
 
         drawable.addGLEventListener(this);
 
+        if (drawable instanceof GLOffscreenAutoDrawable) {
+            //No events and no animator, frames are rendered on demand with renderFrames
+            offscreenDrawable = (GLOffscreenAutoDrawable) drawable;
+            return;
+        }
+
         if (drawable instanceof GLWindow) {
             setup((GLWindow) drawable);
         } else if (drawable instanceof GLJPanel) {
@@ -125,6 +159,7 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
             System.out.println(drawable.getClass() + " event bridge not supported yet. Be sure to manually setup your events listener");
         }
 
+        animatedDrawable = drawable;
         animator = new Animator();
         animator.add(drawable);
         animator.setRunAsFastAsPossible(false);
@@ -133,17 +168,127 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
     }
 
     public synchronized void start() {
+        if (offscreenDrawable != null) {
+            throw new IllegalStateException("Offscreen engines are not animated, use renderFrames instead");
+        }
         if (animator == null) {
             throw new IllegalStateException("Call setup first!");
         }
-        animator.start();
+
+        if (renderOnDemand) {
+            if (onDemandAnimator != null) {
+                throw new IllegalStateException("Call stop first!");
+            }
+            requestRender();
+            onDemandAnimator = new BasicFPSAnimator(() -> {
+                if (isRenderNeeded()) {
+                    animatedDrawable.display();
+                }
+            }, new Object(), "VizEngine Animator", maxFramesPerSecondOnDemand);
+            onDemandAnimator.start();
+        } else {
+            animator.start();
+        }
     }
 
     public synchronized void stop() {
+        if (offscreenDrawable != null) {
+            shutdownUpdatersThreadPool();
+            offscreenDrawable.destroy();
+            offscreenDrawable = null;
+            return;
+        }
+
+        if (onDemandAnimator != null) {
+            try {
+                shutdownUpdatersThreadPool();
+            } finally {
+                onDemandAnimator.shutdown();
+                onDemandAnimator = null;
+            }
+            return;
+        }
+
         if (animator == null || !animator.isAnimating()) {
             throw new IllegalStateException("Call setup and start first!");
         }
 
+        try {
+            shutdownUpdatersThreadPool();
+        } finally {
+            animator.stop();
+        }
+    }
+
+    public boolean isRenderOnDemand() {
+        return renderOnDemand;
+    }
+
+    /**
+     * When enabled, frames are only drawn when something changed, at most {@link #getMaxFramesPerSecondOnDemand()} per second, instead of continuously. Changes are camera changes, input events, completed world updates, rendering options changes and graph index version changes. Without incremental updates in {@link GraphIndexImpl} graph changes can't be detected and frames are drawn at the max rate.
+     *
+     * <p>
+     * Call {@link #requestRender()} after any other change that should be drawn.</p>
+     *
+     * @param renderOnDemand Render on demand
+     */
+    public synchronized void setRenderOnDemand(boolean renderOnDemand) {
+        if ((animator != null && animator.isStarted()) || onDemandAnimator != null) {
+            throw new IllegalStateException("Call stop first!");
+        }
+        this.renderOnDemand = renderOnDemand;
+    }
+
+    public int getMaxFramesPerSecondOnDemand() {
+        return maxFramesPerSecondOnDemand;
+    }
+
+    public synchronized void setMaxFramesPerSecondOnDemand(int maxFramesPerSecondOnDemand) {
+        if (maxFramesPerSecondOnDemand < 1) {
+            throw new IllegalArgumentException("maxFramesPerSecondOnDemand should be at least 1");
+        }
+        this.maxFramesPerSecondOnDemand = maxFramesPerSecondOnDemand;
+        if (onDemandAnimator != null) {
+            onDemandAnimator.setFps(maxFramesPerSecondOnDemand);
+        }
+    }
+
+    /**
+     * Marks the engine dirty, so the next frame is drawn when rendering on demand. Can be called from any thread.
+     */
+    public void requestRender() {
+        dirty.set(true);
+    }
+
+    private boolean isRenderNeeded() {
+        boolean needed = dirty.getAndSet(false);
+
+        //Graphstore and rendering options changes are seen by polling their versions:
+        final GraphIndexImpl graphIndex = lookup.lookup(GraphIndexImpl.class);
+        if (graphIndex == null || !graphIndex.isIncrementalUpdates()) {
+            needed = true;
+        } else {
+            final int graphVersion = graphIndex.getVersion();
+            if (graphVersion != lastDrawnGraphVersion) {
+                lastDrawnGraphVersion = graphVersion;
+                needed = true;
+            }
+        }
+
+        final GraphRenderingOptions renderingOptions = lookup.lookup(GraphRenderingOptions.class);
+        if (renderingOptions != null && renderingOptions.getVersion() != lastDrawnRenderingOptionsVersion) {
+            lastDrawnRenderingOptionsVersion = renderingOptions.getVersion();
+            needed = true;
+        }
+
+        return needed;
+    }
+
+    private void shutdownUpdatersThreadPool() {
+        if (updatersThreadPool == null) {
+            return;
+        }
+
         try {
             updatersThreadPool.shutdown();
             boolean terminated = updatersThreadPool.awaitTermination(DEFAULT_MAX_WORLD_UPDATES_PER_SECOND, TimeUnit.SECONDS);
@@ -153,8 +298,56 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
         } catch (InterruptedException ex) {
             ex.printStackTrace();
             //NOOP
+        }
+    }
+
+    /**
+     * Renders frames on the calling thread, for engines set up with an offscreen drawable. Each frame waits until every updater delivered a world update started after the call, so the last frame always shows the current state of the graph.
+     *
+     * @param frames Number of frames to render
+     */
+    public synchronized void renderFrames(int frames) {
+        if (offscreenDrawable == null) {
+            throw new IllegalStateException("Only engines set up with an offscreen drawable can render frames on demand");
+        }
+
+        if (updatersThreadPool == null) {
+            //First display initializes the engine and schedules the first world update
+            offscreenDrawable.display();
+        }
+
+        worldUpdateScheduler.requestUpdate();
+        final long generation = worldUpdateScheduler.getGeneration();
+
+        for (int i = 0; i < frames; i++) {
+            //Updaters that were running when requested deliver stale data and run again:
+            do {
+                worldUpdateScheduler.scheduleAllUpdates().join();
+                offscreenDrawable.display();
+            } while (!worldUpdateScheduler.isDeliveredSince(generation));
+        }
+    }
+
+    /**
+     * Reads the last frame rendered with {@link #renderFrames(int)}.
+     *
+     * @return Frame image
+     */
+    public synchronized BufferedImage readFrameImage() {
+        if (offscreenDrawable == null) {
+            throw new IllegalStateException("Only engines set up with an offscreen drawable can read frames");
+        }
+
+        final GLContext context = offscreenDrawable.getContext();
+        if (context.makeCurrent() == GLContext.CONTEXT_NOT_CURRENT) {
+            throw new IllegalStateException("Could not make the offscreen context current");
+        }
+
+        try {
+            final AWTGLReadBufferUtil readBufferUtil = new AWTGLReadBufferUtil(offscreenDrawable.getGLProfile(), false);
+            return readBufferUtil.readPixelsToBufferedImage(context.getGL(), true);
         } finally {
-            animator.stop();
+            context.release();
         }
     }
 
@@ -357,6 +550,8 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
         modelViewProjectionMatrix.invertAffine(modelViewProjectionMatrixInverted);
 
         calculateWorldBoundaries();
+
+        requestRender();
     }
 
     private void loadModel() {
@@ -386,6 +581,16 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
         final GL gl = drawable.getGL();
         gl.glViewport(0, 0, width, height);
 
+        setSize(width, height);
+    }
+
+    /**
+     * Updates the viewport dimensions used for projection and view boundaries, without touching any GL state.
+     *
+     * @param width Width in pixels
+     * @param height Height in pixels
+     */
+    public void setSize(int width, int height) {
         this.width = width;
         this.height = height;
 
@@ -427,6 +632,7 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
         updatersPipeline.forEach((worldUpdater) -> {
             worldUpdater.init(drawable);
         });
+        worldUpdateScheduler.start(updatersPipeline, updatersThreadPool);
 
         renderersPipeline.forEach((renderer) -> {
             renderer.init(drawable);
@@ -446,72 +652,76 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
         renderersPipeline.forEach((renderer) -> {
             renderer.dispose(drawable);
         });
-    }
-
-    private CompletableFuture allUpdatersCompletableFuture = null;
 
-    private CompletableFuture<WorldUpdater> completableFutureOfUpdater(final WorldUpdater updater) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                updater.updateWorld();
-            } catch (Throwable t) {
-                t.printStackTrace();//TODO Logger
-            }
-            return updater;
-        }, updatersThreadPool);
+        System.out.println("Dispose input listeners");
+        inputListenersPipeline.forEach((inputListener) -> {
+            inputListener.dispose(drawable);
+        });
     }
 
     @Override
     public void display(GLAutoDrawable drawable) {
         final GL gl = drawable.getGL().getGL();
 
+        final long frameStart = System.nanoTime();
         processInputEvents();
+        metrics.getInputTimings().record(System.nanoTime() - frameStart);
 
         gl.glClearColor(backgroundColor[0], backgroundColor[1], backgroundColor[2], backgroundColor[3]);
         gl.glClear(GL_COLOR_BUFFER_BIT);
 
-        //Notify renderers when next world data update is done:
-        final boolean worldUpdateDone = allUpdatersCompletableFuture != null && allUpdatersCompletableFuture.isDone();
-        if (worldUpdateDone) {
-            allUpdatersCompletableFuture = null;
-
+        //Notify renderers when any updater is done, each one uploads the data that was published:
+        if (worldUpdateScheduler.pollCompletedUpdates()) {
+            final long uploadStart = System.nanoTime();
             for (Renderer renderer : renderersPipeline) {
+                final long start = System.nanoTime();
                 renderer.worldUpdated(drawable);
+                metrics.getWorldUpdatedTimings(renderer).record(System.nanoTime() - start);
             }
+            worldUpdateScheduler.recordUpload(System.nanoTime() - uploadStart);
         }
 
         //Call renderers for the current frame:
         for (RenderingLayer layer : RenderingLayer.values()) {
             for (Renderer renderer : renderersPipeline) {
                 if (renderer.getLayers().contains(layer)) {
+                    final long start = System.nanoTime();
                     renderer.render(drawable, layer);
+                    metrics.getRenderTimings(renderer, layer).record(System.nanoTime() - start);
                 }
             }
         }
 
-        //Schedule next world update:
-        if (!updatersThreadPool.isShutdown() && allUpdatersCompletableFuture == null) {
-            //Control max world updates per second
-            if (maxWorldUpdatesPerSecond >= 1) {
-                if (System.currentTimeMillis() < lastWorldUpdateMillis + 1000 / maxWorldUpdatesPerSecond) {
-                    //Skip world update
-                    return;
-                }
-            }
+        metrics.getFrameTimings().record(System.nanoTime() - frameStart);
 
-            final CompletableFuture[] futures = new CompletableFuture[updatersPipeline.size()];
-            for (int i = 0; i < futures.length; i++) {
-                final WorldUpdater worldUpdater = updatersPipeline.get(i);
-                futures[i] = completableFutureOfUpdater(worldUpdater);
+        //Schedule next world updates, offscreen engines schedule them in renderFrames:
+        if (!updatersThreadPool.isShutdown() && offscreenDrawable == null) {
+            if (worldUpdateScheduler.scheduleUpdates()) {
+                //Updaters waiting for their interval are scheduled in a later frame:
+                requestRender();
             }
+        }
+    }
 
-            allUpdatersCompletableFuture = CompletableFuture.allOf(futures);
+    /**
+     * Makes all world updaters run again, for changes that are not tracked by the graph index, the camera, the selection or the rendering options.
+     */
+    public void requestWorldUpdate() {
+        worldUpdateScheduler.requestUpdate();
+    }
 
-            lastWorldUpdateMillis = System.currentTimeMillis();
-        }
+    public WorldUpdateScheduler getWorldUpdateScheduler() {
+        return worldUpdateScheduler;
     }
 
-    private long lastWorldUpdateMillis = 0;
+    /**
+     * Timings and counters of this engine, also available in the lookup.
+     *
+     * @return Metrics
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
 
     public Lookup getLookup() {
         return lookup;
@@ -583,6 +793,7 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
         }
 
         System.arraycopy(color, 0, backgroundColor, 0, 4);
+        requestRender();
     }
 
     public int getMaxWorldUpdatesPerSecond() {
@@ -650,9 +861,10 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
             inputListener.frameStart();
         }
 
-        NEWTEvent[] events = eventsQueue.toArray(new NEWTEvent[0]);
-        eventsQueue.clear();
-        for (NEWTEvent event : events) {
+        //Consecutive moves, drags and wheel moves are coalesced:
+        final int eventsCount = eventsQueue.drain();
+        for (int i = 0; i < eventsCount; i++) {
+            final NEWTEvent event = eventsQueue.getDrainedEvent(i);
             if (event instanceof KeyEvent) {
                 final BiFunction<InputListener, KeyEvent, Boolean> f;
 
@@ -723,53 +935,58 @@ public class VizEngine implements GLEventListener, com.jogamp.newt.event.KeyList
         }
     }
 
+    private void queueEvent(NEWTEvent e) {
+        eventsQueue.offer(e);
+        requestRender();
+    }
+
     @Override
     public void keyPressed(KeyEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void mouseClicked(MouseEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void mouseEntered(MouseEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void mouseExited(MouseEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void mousePressed(MouseEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void mouseMoved(MouseEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void mouseDragged(MouseEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 
     @Override
     public void mouseWheelMoved(MouseEvent e) {
-        eventsQueue.add(e);
+        queueEvent(e);
     }
 }
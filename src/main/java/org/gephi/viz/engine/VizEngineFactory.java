@@ -2,6 +2,8 @@ package org.gephi.viz.engine;
 
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLCapabilities;
+import com.jogamp.opengl.GLDrawableFactory;
+import com.jogamp.opengl.GLOffscreenAutoDrawable;
 import com.jogamp.opengl.GLProfile;
 import static com.jogamp.opengl.GLProfile.GL2;
 import static com.jogamp.opengl.GLProfile.GL3;
@@ -35,6 +37,15 @@ public class VizEngineFactory {
     public static final String[] GL_PROFILE_LIST_MAX_PROGSHADER_CORE_OR_GL2 = new String[]{GL4, GL3, GLES3, GL2, GLES2};
 
     public static GLCapabilities createCapabilities() {
+        return createCapabilities(4);
+    }
+
+    /**
+     *
+     * @param numSamples Multisample anti-aliasing samples, 0 to disable it. Nodes drawn as quads are anti-aliased without it
+     * @return Capabilities
+     */
+    public static GLCapabilities createCapabilities(int numSamples) {
         GLProfile.getDefaultDevice();
 
         GLProfile glProfile = GLProfile.get(GL_PROFILE_LIST_MAX_PROGSHADER_CORE_OR_GL2, true);
@@ -47,12 +58,58 @@ public class VizEngineFactory {
         caps.setDoubleBuffered(true);
         caps.setHardwareAccelerated(true);
 
-        caps.setSampleBuffers(true);
-        caps.setNumSamples(4);
+        if (numSamples > 0) {
+            caps.setSampleBuffers(true);
+            caps.setNumSamples(numSamples);
+        }
 
         return caps;
     }
 
+    /**
+     * Capabilities for headless rendering into a FBO. Hardware acceleration is not required, so software implementations like Mesa llvmpipe can be used.
+     *
+     * @return Offscreen capabilities
+     */
+    public static GLCapabilities createOffscreenCapabilities() {
+        GLProfile.getDefaultDevice();
+
+        GLProfile glProfile = GLProfile.get(GL_PROFILE_LIST_MAX_PROGSHADER_CORE_OR_GL2, true);
+        GLCapabilities caps = new GLCapabilities(glProfile);
+
+        System.out.println("GL Profile: " + glProfile);
+
+        caps.setAlphaBits(8);
+        caps.setOnscreen(false);
+        caps.setFBO(true);
+        caps.setDoubleBuffered(false);
+        caps.setHardwareAccelerated(false);
+
+        return caps;
+    }
+
+    /**
+     * Creates an engine that renders into an offscreen drawable of the given size. There is no animator, frames are rendered with {@link VizEngine#renderFrames(int)} and read with {@link VizEngine#readFrameImage()}. Call {@link VizEngine#stop()} to release the drawable.
+     *
+     * @param graphModel Graph model
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @return Engine
+     */
+    public static VizEngine newOffscreenEngine(GraphModel graphModel, int width, int height) {
+        return newOffscreenEngine(graphModel, width, height, Arrays.asList(
+                new VizEngineDefaultConfigurator()
+        ));
+    }
+
+    public static VizEngine newOffscreenEngine(GraphModel graphModel, int width, int height, List<? extends VizEngineConfigurator> configurators) {
+        final GLCapabilities caps = createOffscreenCapabilities();
+        final GLOffscreenAutoDrawable drawable = GLDrawableFactory.getFactory(caps.getGLProfile())
+                .createOffscreenAutoDrawable(null, caps, null, width, height);
+
+        return newEngine(drawable, graphModel, configurators);
+    }
+
     public static VizEngine newEngine(GLAutoDrawable drawable, GraphModel graphModel) {
         return newEngine(drawable, graphModel, Arrays.asList(
                 new VizEngineDefaultConfigurator()
@@ -0,0 +1,290 @@
+package org.gephi.viz.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.TimingRecorder;
+
+/**
+ * Decides when each world updater runs. Only used from the GL thread, except {@link #requestUpdate()} that can be called from any thread.
+ *
+ * <ul>
+ * <li>Updaters don't run when the graph, the camera, the selection and the rendering options did not change since they last started. Changes can only be detected when incremental updates are enabled in {@link GraphIndexImpl}, otherwise updaters run at the max rate.</li>
+ * <li>Each updater waits an interval between runs, at least the one of {@link VizEngine#getMaxWorldUpdatesPerSecond()}, that grows with the measured cost of the updater and of the uploads in the GL thread compared to the frame budget.</li>
+ * <li>An updater that completes after the state changed has built stale data, it runs again right away without waiting for its interval.</li>
+ * <li>Updaters complete independently: the renderers are notified as soon as any of them completes, without waiting for the others.</li>
+ * </ul>
+ *
+ * <p>
+ * An updater only runs again after its completion was delivered to the renderers with {@link #pollCompletedUpdates()}, so at most one world update is published between two uploads of its data.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class WorldUpdateScheduler {
+
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 1_000_000_000L / 60;
+
+    //Updater threads should be idle at least half of the time:
+    private static final int UPDATE_COST_FACTOR = 2;
+    //Share of the frame budget that uploads can take, depending on the time used by rendering:
+    private static final double MIN_UPLOAD_SHARE = 0.1;
+    private static final double MAX_UPLOAD_SHARE = 0.5;
+    //Adaptive intervals never make updates slower than this:
+    private static final long MAX_ADAPTIVE_INTERVAL_NANOS = 500_000_000L;
+
+    private final VizEngine engine;
+    private final List<UpdaterState> states = new ArrayList<>();
+    private final TimingRecorder uploadTimings = new TimingRecorder();
+    private ExecutorService executor;
+    private long frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+    //Observed state, the generation increments every time it changes:
+    private final AtomicLong generation = new AtomicLong(1);
+    private boolean stateTracked = false;
+    private Rect2D viewBoundaries;
+    private int graphVersion;
+    private int selectionVersion;
+    private int neighboursSelectionVersion;
+    private int renderingOptionsVersion;
+
+    public WorldUpdateScheduler(VizEngine engine) {
+        this.engine = engine;
+    }
+
+    public void start(List<WorldUpdater> updaters, ExecutorService executor) {
+        this.executor = executor;
+        states.clear();
+        for (WorldUpdater updater : updaters) {
+            states.add(new UpdaterState(updater));
+        }
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Forces all updaters to run again, for changes that the state tracking can't see.
+     */
+    public void requestUpdate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Collects the updaters that completed since the last call. When it returns true, the renderers must be notified with {@link org.gephi.viz.engine.spi.Renderer#worldUpdated}.
+     *
+     * @return True if any updater completed
+     */
+    public boolean pollCompletedUpdates() {
+        boolean completed = false;
+        for (UpdaterState state : states) {
+            if (state.future != null && state.future.isDone()) {
+                state.future = null;
+                state.deliveredGeneration = state.startedGeneration;
+                //The state changed while it was running:
+                state.superseded = stateTracked && state.startedGeneration < generation.get();
+                state.intervalNanos = computeIntervalNanos(
+                        minIntervalNanos(),
+                        engine.getMetrics().getUpdateWorldTimings(state.updater).getP50Nanos(),
+                        uploadTimings.getP50Nanos(),
+                        engine.getMetrics().getFrameTimings().getP50Nanos(),
+                        frameBudgetNanos
+                );
+                completed = true;
+            }
+        }
+
+        return completed;
+    }
+
+    /**
+     * Records the time the renderers took to upload the world updates delivered by {@link #pollCompletedUpdates()}.
+     *
+     * @param nanos Duration
+     */
+    public void recordUpload(long nanos) {
+        uploadTimings.record(nanos);
+    }
+
+    /**
+     * Starts the updaters that need to run and are not running, and whose interval is elapsed.
+     *
+     * @return True if some updaters need to run but wait for their interval
+     */
+    public boolean scheduleUpdates() {
+        observeState();
+
+        final long currentGeneration = generation.get();
+        final long now = System.nanoTime();
+        boolean waiting = false;
+        for (UpdaterState state : states) {
+            if (state.future != null || state.startedGeneration >= currentGeneration) {
+                //Running, not delivered yet or nothing changed
+                continue;
+            }
+
+            if (!state.superseded && now < state.lastStartNanos + state.intervalNanos) {
+                waiting = true;
+                continue;
+            }
+
+            run(state, currentGeneration, now);
+        }
+
+        return waiting;
+    }
+
+    /**
+     * Starts every updater that did not start since the last call to {@link #requestUpdate()} and is not running, ignoring intervals.
+     *
+     * @return Future of the completion of all the running updaters
+     */
+    public CompletableFuture<Void> scheduleAllUpdates() {
+        final long currentGeneration = generation.get();
+        final long now = System.nanoTime();
+        final List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (UpdaterState state : states) {
+            if (state.future == null && state.startedGeneration < currentGeneration) {
+                run(state, currentGeneration, now);
+            }
+            if (state.future != null) {
+                futures.add(state.future);
+            }
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]));
+    }
+
+    /**
+     *
+     * @param generation Generation
+     * @return True if every updater that started at or after the generation has been delivered
+     */
+    public boolean isDeliveredSince(long generation) {
+        for (UpdaterState state : states) {
+            if (state.deliveredGeneration < generation) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public long getFrameBudgetNanos() {
+        return frameBudgetNanos;
+    }
+
+    public void setFrameBudgetNanos(long frameBudgetNanos) {
+        if (frameBudgetNanos <= 0) {
+            throw new IllegalArgumentException("frameBudgetNanos should be positive");
+        }
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    private void run(final UpdaterState state, final long currentGeneration, final long now) {
+        state.lastStartNanos = now;
+        state.superseded = false;
+        state.startedGeneration = currentGeneration;
+        state.future = CompletableFuture.runAsync(() -> {
+            final long start = System.nanoTime();
+            try {
+                state.updater.updateWorld();
+            } catch (Throwable t) {
+                //Still completes, so the updater runs again:
+                System.out.println("World updater " + state.updater.getName() + " failed");
+                t.printStackTrace();
+            }
+            engine.getMetrics().getUpdateWorldTimings(state.updater).record(System.nanoTime() - start);
+        }, executor);
+        //Once done, completion is delivered in the next frame:
+        state.future.whenComplete((result, error) -> engine.requestRender());
+    }
+
+    private void observeState() {
+        final GraphIndexImpl graphIndex = engine.getLookup().lookup(GraphIndexImpl.class);
+        stateTracked = graphIndex != null && graphIndex.isIncrementalUpdates();
+        if (!stateTracked) {
+            generation.incrementAndGet();
+            return;
+        }
+
+        final Rect2D newViewBoundaries = engine.getViewBoundaries();
+        final int newGraphVersion = graphIndex.getVersion();
+        final int newSelectionVersion = versionOf(engine.getLookup().lookup(GraphSelection.class));
+        final int newNeighboursSelectionVersion = versionOf(engine.getLookup().lookup(GraphSelectionNeighbours.class));
+        final int newRenderingOptionsVersion = versionOf(engine.getLookup().lookup(GraphRenderingOptions.class));
+
+        //View boundaries are replaced every time the camera or the viewport change:
+        if (viewBoundaries != newViewBoundaries
+                || graphVersion != newGraphVersion
+                || selectionVersion != newSelectionVersion
+                || neighboursSelectionVersion != newNeighboursSelectionVersion
+                || renderingOptionsVersion != newRenderingOptionsVersion) {
+            viewBoundaries = newViewBoundaries;
+            graphVersion = newGraphVersion;
+            selectionVersion = newSelectionVersion;
+            neighboursSelectionVersion = newNeighboursSelectionVersion;
+            renderingOptionsVersion = newRenderingOptionsVersion;
+            generation.incrementAndGet();
+        }
+    }
+
+    private long minIntervalNanos() {
+        final int maxWorldUpdatesPerSecond = engine.getMaxWorldUpdatesPerSecond();
+        return maxWorldUpdatesPerSecond >= 1 ? 1_000_000_000L / maxWorldUpdatesPerSecond : 0;
+    }
+
+    /**
+     * Interval between two runs of an updater.
+     *
+     * @param minIntervalNanos Interval of the max world updates per second
+     * @param updateNanos Usual duration of the updater
+     * @param uploadNanos Usual duration of the uploads of a world update in the GL thread
+     * @param frameNanos Usual duration of a frame
+     * @param frameBudgetNanos Target duration of a frame
+     * @return Interval in nanoseconds
+     */
+    public static long computeIntervalNanos(long minIntervalNanos, long updateNanos, long uploadNanos, long frameNanos, long frameBudgetNanos) {
+        final double freeShare = (frameBudgetNanos - frameNanos) / (double) frameBudgetNanos;
+        final double uploadShare = Math.max(MIN_UPLOAD_SHARE, Math.min(MAX_UPLOAD_SHARE, freeShare));
+
+        final long adaptiveInterval = Math.max(updateNanos * UPDATE_COST_FACTOR, (long) (uploadNanos / uploadShare));
+
+        return Math.max(minIntervalNanos, Math.min(adaptiveInterval, MAX_ADAPTIVE_INTERVAL_NANOS));
+    }
+
+    private static int versionOf(GraphSelection selection) {
+        return selection != null ? selection.getVersion() : 0;
+    }
+
+    private static int versionOf(GraphSelectionNeighbours neighboursSelection) {
+        return neighboursSelection != null ? neighboursSelection.getVersion() : 0;
+    }
+
+    private static int versionOf(GraphRenderingOptions renderingOptions) {
+        return renderingOptions != null ? renderingOptions.getVersion() : 0;
+    }
+
+    private static class UpdaterState {
+
+        private final WorldUpdater updater;
+        private CompletableFuture<Void> future;
+        private long startedGeneration = 0;
+        private long deliveredGeneration = 0;
+        private boolean superseded = false;
+        private long lastStartNanos = 0;
+        private long intervalNanos = 0;
+
+        public UpdaterState(WorldUpdater updater) {
+            this.updater = updater;
+        }
+    }
+}
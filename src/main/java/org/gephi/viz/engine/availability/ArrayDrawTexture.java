@@ -0,0 +1,26 @@
+package org.gephi.viz.engine.availability;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.DebugConstants;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class ArrayDrawTexture {
+
+    public static int getPreferenceInCategory() {
+        return 10;
+    }
+
+    public static boolean isAvailable(VizEngine engine, GLAutoDrawable drawable) {
+        if (DebugConstants.DEBUG_DISABLE_VERTEX_ARRAY_DRAWING || DebugConstants.DEBUG_DISABLE_VERTEX_TEXTURE_DRAWING) {
+            return false;
+        }
+
+        return drawable.getGLProfile().isGL2ES2()
+                && engine.getCapabilities().isVertexTextureFetchSupported();
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.gephi.viz.engine.availability;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.DebugConstants;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class IdBufferPicking {
+
+    public static int getPreferenceInCategory() {
+        return 100;
+    }
+
+    public static boolean isAvailable(VizEngine engine, GLAutoDrawable drawable) {
+        if (DebugConstants.DEBUG_DISABLE_GPU_PICKING) {
+            return false;
+        }
+
+        //Integer framebuffers, GLSL 3.30 and fence syncs:
+        return drawable.getGLProfile().isGL3()
+                && engine.getCapabilities().isInstancingSupported();
+    }
+}
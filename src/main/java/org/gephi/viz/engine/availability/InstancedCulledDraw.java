@@ -0,0 +1,26 @@
+package org.gephi.viz.engine.availability;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.DebugConstants;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class InstancedCulledDraw {
+
+    public static int getPreferenceInCategory() {
+        return 75;
+    }
+
+    public static boolean isAvailable(VizEngine engine, GLAutoDrawable drawable) {
+        if (DebugConstants.DEBUG_DISABLE_GPU_CULLING) {
+            return false;
+        }
+
+        return drawable.getGLProfile().isGL4()
+                && InstancedDraw.isAvailable(engine, drawable)
+                && engine.getCapabilities().isComputeCullingSupported();
+    }
+}
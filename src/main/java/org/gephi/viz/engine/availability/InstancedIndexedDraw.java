@@ -0,0 +1,28 @@
+package org.gephi.viz.engine.availability;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ * Only available with incremental updates: without them every world update copies the whole snapshot, and rebuilding the nodes buffer on top costs more than culling edges.
+ *
+ * @author Eduardo Ramos
+ */
+public class InstancedIndexedDraw {
+
+    public static int getPreferenceInCategory() {
+        return 90;
+    }
+
+    public static boolean isAvailable(VizEngine engine, GLAutoDrawable drawable) {
+        final GraphIndexImpl graphIndex = engine.getLookup().lookup(GraphIndexImpl.class);
+        if (graphIndex == null || !graphIndex.isIncrementalUpdates()) {
+            return false;
+        }
+
+        return drawable.getGLProfile().isGL4()
+                && InstancedDraw.isAvailable(engine, drawable)
+                && engine.getCapabilities().isVertexPullingSupported();
+    }
+}
@@ -0,0 +1,19 @@
+package org.gephi.viz.engine.availability;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class InstancedQuadDraw {
+
+    public static int getPreferenceInCategory() {
+        return 110;
+    }
+
+    public static boolean isAvailable(VizEngine engine, GLAutoDrawable drawable) {
+        return InstancedDraw.isAvailable(engine, drawable);
+    }
+}
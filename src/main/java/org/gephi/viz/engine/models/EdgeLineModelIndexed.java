@@ -0,0 +1,207 @@
+package org.gephi.viz.engine.models;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
+import org.gephi.viz.engine.util.Constants;
+import static org.gephi.viz.engine.util.Constants.*;
+import org.gephi.viz.engine.util.NumberUtils;
+import org.gephi.viz.engine.util.gl.GLShaderProgram;
+
+/**
+ * Edge lines that read the position, size and color of their nodes from a shader storage buffer, indexed by node position in the {@link org.gephi.viz.engine.structure.GraphSnapshot}. Each instance only has the indices of its nodes, its weight and its color.
+ *
+ * <p>
+ * With selection flags, the color bias and multiplier attributes are not used: the shaders read one byte of flags per instance from a second shader storage buffer and apply the selection colors themselves.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeLineModelIndexed {
+
+    public static final int ENDPOINTS_FLOATS = 2;
+    public static final int SIZE_FLOATS = 1;
+    public static final int COLOR_FLOATS = 1;
+    public static final int COLOR_BIAS_FLOATS = 1;
+    public static final int COLOR_MULTIPLIER_FLOATS = 1;
+
+    public static final int TOTAL_ATTRIBUTES_FLOATS
+            = ENDPOINTS_FLOATS
+            + SIZE_FLOATS
+            + COLOR_FLOATS
+            + COLOR_BIAS_FLOATS
+            + COLOR_MULTIPLIER_FLOATS;
+
+    //Position, size and color of each node:
+    public static final int NODE_FLOATS = 4;
+
+    //Binding of the nodes shader storage buffer:
+    public static final int NODES_BUFFER_BINDING = 0;
+    //Binding of the edge flags shader storage buffer:
+    public static final int EDGE_FLAGS_BUFFER_BINDING = 1;
+
+    //Edge flags:
+    public static final int FLAG_SELECTED = 1;
+    public static final int FLAG_SOURCE_SELECTED = 2;
+    public static final int FLAG_TARGET_SELECTED = 4;
+    public static final int FLAG_HIDDEN = 8;
+
+    //Selection state bits:
+    public static final int STATE_SOME_EDGES_SELECTION = 1;
+    public static final int STATE_SOME_NODES_SELECTION = 2;
+    public static final int STATE_EDGE_SELECTION_COLOR = 4;
+    public static final int STATE_DRAW_SELECTED = 8;
+
+    private final boolean directed;
+    private final boolean selectionFlags;
+    private GLShaderProgram program;
+
+    public EdgeLineModelIndexed(boolean directed) {
+        this(directed, false);
+    }
+
+    public EdgeLineModelIndexed(boolean directed, boolean selectionFlags) {
+        this.directed = directed;
+        this.selectionFlags = selectionFlags;
+    }
+
+    public int getVertexCount() {
+        return directed ? EdgeLineModelDirected.VERTEX_COUNT : EdgeLineModelUndirected.VERTEX_COUNT;
+    }
+
+    public int getVertexFloats() {
+        return directed ? EdgeLineModelDirected.VERTEX_FLOATS : EdgeLineModelUndirected.VERTEX_FLOATS;
+    }
+
+    public float[] getVertexData() {
+        return directed ? EdgeLineModelDirected.getVertexData() : EdgeLineModelUndirected.getVertexData();
+    }
+
+    public void initGLPrograms(GL2ES2 gl) {
+        initProgram(gl);
+    }
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "edge";
+
+    private static final String SHADERS_EDGE_LINE_UNDIRECTED_SOURCE = "edge-line-indexed-undirected";
+    private static final String SHADERS_EDGE_LINE_DIRECTED_SOURCE = "edge-line-indexed-directed";
+    private static final String SHADERS_EDGE_LINE_FLAGS_UNDIRECTED_SOURCE = "edge-line-indexed-flags-undirected";
+    private static final String SHADERS_EDGE_LINE_FLAGS_DIRECTED_SOURCE = "edge-line-indexed-flags-directed";
+    private static final String SHADERS_EDGE_LINE_FRAG_SOURCE = "edge-line-indexed";
+
+    private void initProgram(GL2ES2 gl) {
+        if (selectionFlags) {
+            initSelectionFlagsProgram(gl);
+            return;
+        }
+
+        program = new GLShaderProgram(SHADERS_ROOT, directed ? SHADERS_EDGE_LINE_DIRECTED_SOURCE : SHADERS_EDGE_LINE_UNDIRECTED_SOURCE, SHADERS_EDGE_LINE_FRAG_SOURCE)
+                .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+                .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+                .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+                .addUniformName(UNIFORM_NAME_EDGE_SCALE_MIN)
+                .addUniformName(UNIFORM_NAME_EDGE_SCALE_MAX)
+                .addUniformName(UNIFORM_NAME_MIN_WEIGHT)
+                .addUniformName(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR)
+                .addUniformName(UNIFORM_NAME_MIN_LENGTH)
+                .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_ENDPOINTS, SHADER_ENDPOINTS_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_COLOR_BIAS, SHADER_COLOR_BIAS_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_COLOR_MULTIPLIER, SHADER_COLOR_MULTIPLIER_LOCATION)
+                .init(gl);
+    }
+
+    private void initSelectionFlagsProgram(GL2ES2 gl) {
+        program = new GLShaderProgram(SHADERS_ROOT, directed ? SHADERS_EDGE_LINE_FLAGS_DIRECTED_SOURCE : SHADERS_EDGE_LINE_FLAGS_UNDIRECTED_SOURCE, SHADERS_EDGE_LINE_FRAG_SOURCE)
+                .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+                .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+                .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+                .addUniformName(UNIFORM_NAME_EDGE_SCALE_MIN)
+                .addUniformName(UNIFORM_NAME_EDGE_SCALE_MAX)
+                .addUniformName(UNIFORM_NAME_MIN_WEIGHT)
+                .addUniformName(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR)
+                .addUniformName(UNIFORM_NAME_MIN_LENGTH)
+                .addUniformName(UNIFORM_NAME_FIRST_EDGE)
+                .addUniformName(UNIFORM_NAME_SELECTION_STATE)
+                .addUniformName(UNIFORM_NAME_EDGE_BOTH_SELECTION_COLOR)
+                .addUniformName(UNIFORM_NAME_EDGE_OUT_SELECTION_COLOR)
+                .addUniformName(UNIFORM_NAME_EDGE_IN_SELECTION_COLOR)
+                .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_ENDPOINTS, SHADER_ENDPOINTS_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+                .init(gl);
+    }
+
+    public void drawInstanced(GL2ES3 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, int instanceCount, int instancesOffset, float scale, float minWeight, float maxWeight, float minLength) {
+        useProgram(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, scale, minWeight, maxWeight, minLength);
+        if (instancesOffset > 0) {
+            gl.glDrawArraysInstancedBaseInstance(GL.GL_TRIANGLES, 0, getVertexCount(), instanceCount, instancesOffset);
+        } else {
+            gl.glDrawArraysInstanced(GL.GL_TRIANGLES, 0, getVertexCount(), instanceCount);
+        }
+        stopUsingProgram(gl);
+    }
+
+    /**
+     * Draws with the selection flags program. The edge flags buffer has to be bound to {@link #EDGE_FLAGS_BUFFER_BINDING}.
+     *
+     * @param gl GL
+     * @param mvpFloats Model view projection matrix
+     * @param backgroundColorFloats Background color
+     * @param colorLightenFactor Lighten factor
+     * @param instanceCount Instances to draw
+     * @param instancesOffset First instance, also the first edge in the edge flags buffer
+     * @param scale Edge scale
+     * @param minWeight Min weight
+     * @param maxWeight Max weight
+     * @param minLength Min length in world units
+     * @param selectionState Bits of the selection state, like {@link #STATE_SOME_EDGES_SELECTION}
+     * @param selectionColorsFloats Both, out and in selection colors, 4 floats each
+     */
+    public void drawInstancedWithSelectionFlags(GL2ES3 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, int instanceCount, int instancesOffset, float scale, float minWeight, float maxWeight, float minLength, int selectionState, float[] selectionColorsFloats) {
+        if (!selectionFlags) {
+            throw new IllegalStateException("The model was not created with selection flags");
+        }
+
+        useProgram(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, scale, minWeight, maxWeight, minLength);
+        gl.glUniform1i(program.getUniformLocation(UNIFORM_NAME_FIRST_EDGE), instancesOffset);
+        gl.glUniform1i(program.getUniformLocation(UNIFORM_NAME_SELECTION_STATE), selectionState);
+        gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_EDGE_BOTH_SELECTION_COLOR), 1, selectionColorsFloats, 0);
+        gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_EDGE_OUT_SELECTION_COLOR), 1, selectionColorsFloats, 4);
+        gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_EDGE_IN_SELECTION_COLOR), 1, selectionColorsFloats, 8);
+
+        if (instancesOffset > 0) {
+            gl.glDrawArraysInstancedBaseInstance(GL.GL_TRIANGLES, 0, getVertexCount(), instanceCount, instancesOffset);
+        } else {
+            gl.glDrawArraysInstanced(GL.GL_TRIANGLES, 0, getVertexCount(), instanceCount);
+        }
+        stopUsingProgram(gl);
+    }
+
+    public void useProgram(GL2ES2 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, float scale, float minWeight, float maxWeight, float minLength) {
+        program.use(gl);
+        prepareProgramData(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, scale, minWeight, maxWeight, minLength);
+    }
+
+    public void stopUsingProgram(GL2ES2 gl) {
+        program.stopUsing(gl);
+    }
+
+    private void prepareProgramData(GL2ES2 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, float scale, float minWeight, float maxWeight, float minLength) {
+        gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
+        gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), 1, backgroundColorFloats, 0);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MIN), EDGE_SCALE_MIN * scale);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MAX), EDGE_SCALE_MAX * scale);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_MIN_WEIGHT), minWeight);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_MIN_LENGTH), minLength);
+
+        if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
+            gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), 1);
+        } else {
+            gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), maxWeight - minWeight);
+        }
+    }
+}
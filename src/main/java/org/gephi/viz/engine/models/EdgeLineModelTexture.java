@@ -0,0 +1,151 @@
+package org.gephi.viz.engine.models;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import org.gephi.viz.engine.util.Constants;
+import static org.gephi.viz.engine.util.Constants.*;
+import org.gephi.viz.engine.util.NumberUtils;
+import org.gephi.viz.engine.util.gl.GLShaderProgram;
+
+/**
+ * Edge lines that read their attributes from a float texture in the vertex shader, for GL versions without instancing. Each edge is {@link #TEXELS_PER_EDGE} RGBA texels in a row of the texture:
+ *
+ * <ol>
+ * <li>Source and target positions</li>
+ * <li>Size, color bias, color multiplier and target size, only for directed edges</li>
+ * <li>Source, target and element RGB, each packed in an integer float, then their alphas packed the same way</li>
+ * </ol>
+ *
+ * <p>
+ * Vertices come from a static buffer with the model of a batch of edges, where each vertex also has the index of its edge in the batch.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeLineModelTexture {
+
+    public static final int TEXELS_PER_EDGE = 3;
+    public static final int TEXEL_FLOATS = 4;
+    public static final int EDGE_FLOATS = TEXELS_PER_EDGE * TEXEL_FLOATS;
+
+    private final boolean directed;
+    private GLShaderProgram program;
+
+    public EdgeLineModelTexture(boolean directed) {
+        this.directed = directed;
+    }
+
+    public int getVertexCount() {
+        return directed ? EdgeLineModelDirected.VERTEX_COUNT : EdgeLineModelUndirected.VERTEX_COUNT;
+    }
+
+    /**
+     *
+     * @return Floats of each vertex of a batch, the model vertex and the edge index
+     */
+    public int getVertexFloats() {
+        return (directed ? EdgeLineModelDirected.VERTEX_FLOATS : EdgeLineModelUndirected.VERTEX_FLOATS) + 1;
+    }
+
+    /**
+     *
+     * @param batchEdges Edges of a batch
+     * @return Model vertices of every edge of a batch, each followed by the edge index in the batch
+     */
+    public float[] getBatchVertexData(int batchEdges) {
+        final float[] modelData = directed ? EdgeLineModelDirected.getVertexData() : EdgeLineModelUndirected.getVertexData();
+        final int modelVertexFloats = getVertexFloats() - 1;
+        final int vertexCount = getVertexCount();
+
+        final float[] data = new float[batchEdges * vertexCount * getVertexFloats()];
+        int index = 0;
+        for (int edge = 0; edge < batchEdges; edge++) {
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                System.arraycopy(modelData, vertex * modelVertexFloats, data, index, modelVertexFloats);
+                index += modelVertexFloats;
+                data[index++] = edge;
+            }
+        }
+
+        return data;
+    }
+
+    public void initGLPrograms(GL2ES2 gl) {
+        initProgram(gl);
+    }
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "edge";
+
+    private static final String SHADERS_EDGE_TEXTURE_UNDIRECTED_SOURCE = "edge-texture-undirected";
+    private static final String SHADERS_EDGE_TEXTURE_DIRECTED_SOURCE = "edge-texture-directed";
+    private static final String SHADERS_EDGE_LINE_UNDIRECTED_SOURCE = "edge-line-undirected";
+    private static final String SHADERS_EDGE_LINE_DIRECTED_SOURCE = "edge-line-directed";
+
+    private void initProgram(GL2ES2 gl) {
+        program = new GLShaderProgram(SHADERS_ROOT,
+                directed ? SHADERS_EDGE_TEXTURE_DIRECTED_SOURCE : SHADERS_EDGE_TEXTURE_UNDIRECTED_SOURCE,
+                directed ? SHADERS_EDGE_LINE_DIRECTED_SOURCE : SHADERS_EDGE_LINE_UNDIRECTED_SOURCE)
+                .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+                .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+                .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+                .addUniformName(UNIFORM_NAME_EDGE_SCALE_MIN)
+                .addUniformName(UNIFORM_NAME_EDGE_SCALE_MAX)
+                .addUniformName(UNIFORM_NAME_MIN_WEIGHT)
+                .addUniformName(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR)
+                .addUniformName(UNIFORM_NAME_EDGES_TEXTURE)
+                .addUniformName(UNIFORM_NAME_EDGES_TEXTURE_LAYOUT)
+                .addUniformName(UNIFORM_NAME_FIRST_EDGE)
+                .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+                .init(gl);
+    }
+
+    /**
+     * Uses the program with the edges texture of the given unit.
+     *
+     * @param gl GL
+     * @param mvpFloats Model view projection matrix
+     * @param backgroundColorFloats Background color
+     * @param colorLightenFactor Lighten factor
+     * @param scale Edge scale
+     * @param minWeight Min weight
+     * @param maxWeight Max weight
+     * @param textureUnit Texture unit of the edges texture, starting from 0
+     * @param edgesPerRow Edges in each row of the texture
+     * @param textureWidth Texture width
+     * @param textureHeight Texture height
+     */
+    public void useProgram(GL2ES2 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, float scale, float minWeight, float maxWeight, int textureUnit, int edgesPerRow, int textureWidth, int textureHeight) {
+        program.use(gl);
+        gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
+        gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), 1, backgroundColorFloats, 0);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MIN), EDGE_SCALE_MIN * scale);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MAX), EDGE_SCALE_MAX * scale);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_MIN_WEIGHT), minWeight);
+
+        if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
+            gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), 1);
+        } else {
+            gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), maxWeight - minWeight);
+        }
+
+        gl.glUniform1i(program.getUniformLocation(UNIFORM_NAME_EDGES_TEXTURE), textureUnit);
+        gl.glUniform3f(program.getUniformLocation(UNIFORM_NAME_EDGES_TEXTURE_LAYOUT), edgesPerRow, 1f / textureWidth, 1f / textureHeight);
+    }
+
+    /**
+     * Draws a batch of edges. The batch vertices buffer has to be bound to {@link Constants#SHADER_VERT_LOCATION}.
+     *
+     * @param gl GL
+     * @param firstEdge Index in the texture of the first edge
+     * @param edgesCount Edges to draw, at most the edges of the batch vertices buffer
+     */
+    public void drawBatch(GL2ES2 gl, int firstEdge, int edgesCount) {
+        //Exact for edge indices up to 2^24:
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_FIRST_EDGE), firstEdge);
+        gl.glDrawArrays(GL.GL_TRIANGLES, 0, edgesCount * getVertexCount());
+    }
+
+    public void stopUsingProgram(GL2ES2 gl) {
+        program.stopUsing(gl);
+    }
+}
@@ -3,6 +3,7 @@ package org.gephi.viz.engine.models;
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2ES2;
 import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL4;
 import org.gephi.viz.engine.util.Constants;
 import static org.gephi.viz.engine.util.Constants.*;
 import org.gephi.viz.engine.util.NumberUtils;
@@ -95,6 +96,15 @@ public class EdgeLineModelUndirected {
         stopUsingProgram(gl);
     }
 
+    /**
+     * Draws with an indirect command of the bound draw indirect buffer, which sets the instances count and base instance.
+     */
+    public void drawIndirect(GL4 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, long commandOffsetBytes, float scale, float minWeight, float maxWeight) {
+        useProgram(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, scale, minWeight, maxWeight);
+        gl.glDrawArraysIndirect(GL.GL_TRIANGLES, commandOffsetBytes);
+        stopUsingProgram(gl);
+    }
+
     public void useProgram(GL2ES2 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, float scale, float minWeight, float maxWeight) {
         //Line:
         program.use(gl);
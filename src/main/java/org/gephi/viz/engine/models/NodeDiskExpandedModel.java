@@ -0,0 +1,131 @@
+package org.gephi.viz.engine.models;
+
+import com.jogamp.opengl.GL;
+import static com.jogamp.opengl.GL.GL_FLOAT;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_BYTE;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_SHORT;
+import com.jogamp.opengl.GL2ES2;
+import org.gephi.viz.engine.util.Constants;
+import static org.gephi.viz.engine.util.Constants.*;
+import org.gephi.viz.engine.util.gl.GLShaderProgram;
+
+/**
+ * Node disks expanded on the CPU into world coordinates vertices, for GL versions without instancing. Each vertex is {@link #VERTEX_FLOATS}: position, color and flags. Disks are indexed triangle fans drawn in batches of at most {@link #MAX_BATCH_VERTICES} vertices, so indices fit in unsigned shorts as GL ES 2 requires.
+ *
+ * @author Eduardo Ramos
+ */
+public class NodeDiskExpandedModel {
+
+    public static final int POSITION_FLOATS = 2;
+    public static final int COLOR_FLOATS = 1;
+    public static final int FLAGS_FLOATS = 1;
+
+    public static final int VERTEX_FLOATS
+            = POSITION_FLOATS
+            + COLOR_FLOATS
+            + FLAGS_FLOATS;
+
+    public static final int MAX_BATCH_VERTICES = 65536;
+
+    /**
+     * Flag for nodes selected while there is a selection.
+     */
+    public static final int FLAG_SELECTED = 1;
+    /**
+     * Flag for the vertices of the inside circle.
+     */
+    public static final int FLAG_INSIDE = 2;
+
+    private GLShaderProgram program;
+
+    public void initGLPrograms(GL2ES2 gl) {
+        initProgram(gl);
+    }
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "node";
+
+    private static final String SHADERS_NODE_EXPANDED_SOURCE = "node-expanded";
+    private static final String SHADERS_NODE_CIRCLE_SOURCE = "node";
+
+    private void initProgram(GL2ES2 gl) {
+        program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_EXPANDED_SOURCE, SHADERS_NODE_CIRCLE_SOURCE)
+                .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+                .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+                .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+                .addUniformName(UNIFORM_NAME_BORDER_DARKEN_FACTOR)
+                .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_FLAGS, SHADER_FLAGS_LOCATION)
+                .init(gl);
+    }
+
+    /**
+     * Uses the program and enables the vertex attributes.
+     *
+     * @param gl GL
+     * @param mvpFloats Model view projection matrix
+     * @param backgroundColorFloats Background color
+     * @param colorLightenFactor Lighten factor
+     */
+    public void useProgram(GL2ES2 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor) {
+        program.use(gl);
+        gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
+        gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), 1, backgroundColorFloats, 0);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_BORDER_DARKEN_FACTOR), NODER_BORDER_DARKEN_FACTOR);
+
+        gl.glEnableVertexAttribArray(SHADER_VERT_LOCATION);
+        gl.glEnableVertexAttribArray(SHADER_COLOR_LOCATION);
+        gl.glEnableVertexAttribArray(SHADER_FLAGS_LOCATION);
+    }
+
+    /**
+     * Draws a batch. The vertices and indices buffers have to be bound.
+     *
+     * @param gl GL
+     * @param firstVertex First vertex of the batch, indices are relative to it
+     * @param firstIndex First index of the batch
+     * @param indexCount Indices of the batch
+     */
+    public void drawBatch(GL2ES2 gl, int firstVertex, int firstIndex, int indexCount) {
+        final int stride = VERTEX_FLOATS * Float.BYTES;
+        long offset = (long) firstVertex * stride;
+
+        //No base vertex in GL ES 2, the batch starts where the attributes point:
+        gl.glVertexAttribPointer(SHADER_VERT_LOCATION, POSITION_FLOATS, GL_FLOAT, false, stride, offset);
+        offset += POSITION_FLOATS * Float.BYTES;
+
+        gl.glVertexAttribPointer(SHADER_COLOR_LOCATION, COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
+        offset += COLOR_FLOATS * Float.BYTES;
+
+        gl.glVertexAttribPointer(SHADER_FLAGS_LOCATION, 1, GL_UNSIGNED_BYTE, false, stride, offset);
+
+        gl.glDrawElements(GL.GL_TRIANGLES, indexCount, GL_UNSIGNED_SHORT, (long) firstIndex * Short.BYTES);
+    }
+
+    public void stopUsingProgram(GL2ES2 gl) {
+        gl.glDisableVertexAttribArray(SHADER_VERT_LOCATION);
+        gl.glDisableVertexAttribArray(SHADER_COLOR_LOCATION);
+        gl.glDisableVertexAttribArray(SHADER_FLAGS_LOCATION);
+
+        program.stopUsing(gl);
+    }
+
+    /**
+     * Points of a circle of radius 1, without the center.
+     *
+     * @param pointsAmount Points, one per triangle of the disk
+     * @return X and Y of every point
+     */
+    public static float[] generateCirclePoints(int pointsAmount) {
+        final double twicePi = 2.0 * Math.PI;
+
+        final float[] data = new float[pointsAmount * 2];
+        for (int i = 0; i < pointsAmount; i++) {
+            data[i * 2] = (float) Math.cos(i * twicePi / pointsAmount);
+            data[i * 2 + 1] = (float) Math.sin(i * twicePi / pointsAmount);
+        }
+
+        return data;
+    }
+}
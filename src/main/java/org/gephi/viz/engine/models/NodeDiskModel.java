@@ -10,6 +10,11 @@ import org.gephi.viz.engine.util.gl.GLConstants;
 import org.gephi.viz.engine.util.gl.GLShaderProgram;
 
 /**
+ * Disk drawn for every node: a border circle and an inside circle.
+ *
+ * <p>
+ * In the default layout each node is 2 instances of {@link #TOTAL_ATTRIBUTES_FLOATS}, one per circle. In the packed layout each node is 1 instance of {@link #PACKED_TOTAL_ATTRIBUTES_FLOATS}: the vertex data contains both circles, with a third vertex component telling them apart, and color bias and multiplier are derived in the shader from a flags byte.</p>
+ *
  * @author Eduardo Ramos
  */
 public class NodeDiskModel {
@@ -28,7 +33,24 @@ public class NodeDiskModel {
             + COLOR_MULTIPLIER_FLOATS
             + SIZE_FLOATS;
 
+    //Packed layout:
+    public static final int PACKED_VERTEX_FLOATS = 3;
+    public static final int FLAGS_FLOATS = 1;
+
+    public static final int PACKED_TOTAL_ATTRIBUTES_FLOATS
+            = POSITION_FLOATS
+            + COLOR_FLOATS
+            + SIZE_FLOATS
+            + FLAGS_FLOATS;
+
+    /**
+     * Flag of the packed layout for nodes selected while there is a selection.
+     */
+    public static final int FLAG_SELECTED = 1;
+
     private final int triangleAmount;
+    private final boolean packed;
+    private final float insideCircleSize;
     private final float[] vertexData;
     private final int vertexCount;
 
@@ -36,11 +58,32 @@ public class NodeDiskModel {
 
     public NodeDiskModel(int triangleAmount) {
         this.triangleAmount = triangleAmount;
+        this.packed = false;
+        this.insideCircleSize = 1;
         this.vertexData = generateFilledCircle(triangleAmount);
 
         this.vertexCount = triangleAmount * 3;
     }
 
+    /**
+     * Model for the packed attributes layout.
+     *
+     * @param triangleAmount Triangles of each circle
+     * @param insideCircleSize Size of the inside circle relative to the node size
+     */
+    public NodeDiskModel(int triangleAmount, float insideCircleSize) {
+        this.triangleAmount = triangleAmount;
+        this.packed = true;
+        this.insideCircleSize = insideCircleSize;
+        this.vertexData = generateBorderAndInsideCircles(triangleAmount);
+
+        this.vertexCount = triangleAmount * 3 * 2;
+    }
+
+    public boolean isPacked() {
+        return packed;
+    }
+
     public int getTriangleAmount() {
         return triangleAmount;
     }
@@ -60,8 +103,25 @@ public class NodeDiskModel {
     private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "node";
 
     private static final String SHADERS_NODE_CIRCLE_SOURCE = "node";
+    private static final String SHADERS_NODE_CIRCLE_PACKED_SOURCE = "node-packed";
 
     private void initProgram(GL2ES2 gl) {
+        if (packed) {
+            program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_CIRCLE_PACKED_SOURCE, SHADERS_NODE_CIRCLE_SOURCE)
+                    .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+                    .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+                    .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+                    .addUniformName(UNIFORM_NAME_BORDER_DARKEN_FACTOR)
+                    .addUniformName(UNIFORM_NAME_INSIDE_CIRCLE_SIZE)
+                    .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+                    .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+                    .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+                    .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+                    .addAttribLocation(ATTRIB_NAME_FLAGS, SHADER_FLAGS_LOCATION)
+                    .init(gl);
+            return;
+        }
+
         program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_CIRCLE_SOURCE, SHADERS_NODE_CIRCLE_SOURCE)
                 .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
                 .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
@@ -105,6 +165,10 @@ public class NodeDiskModel {
         gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
         gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), 1, backgroundColorFloats, 0);
         gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
+        if (packed) {
+            gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_BORDER_DARKEN_FACTOR), NODER_BORDER_DARKEN_FACTOR);
+            gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_INSIDE_CIRCLE_SIZE), insideCircleSize);
+        }
     }
 
     public void stopUsingProgram(GL2ES2 gl) {
@@ -115,6 +179,24 @@ public class NodeDiskModel {
         return program;
     }
 
+    private static float[] generateBorderAndInsideCircles(int triangleAmount) {
+        final float[] circle = generateFilledCircle(triangleAmount);
+        final int circleVertexCount = circle.length / VERTEX_FLOATS;
+
+        final float[] data = new float[circleVertexCount * 2 * PACKED_VERTEX_FLOATS];
+        int index = 0;
+        //Border circle first, then inside circle drawn over it:
+        for (int inside = 0; inside <= 1; inside++) {
+            for (int i = 0; i < circleVertexCount; i++) {
+                data[index++] = circle[i * VERTEX_FLOATS];//X
+                data[index++] = circle[i * VERTEX_FLOATS + 1];//Y
+                data[index++] = inside;
+            }
+        }
+
+        return data;
+    }
+
     private static float[] generateFilledCircle(int triangleAmount) {
         final double twicePi = 2.0 * Math.PI;
 
@@ -0,0 +1,63 @@
+package org.gephi.viz.engine.models;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES3;
+import org.gephi.viz.engine.util.Constants;
+import static org.gephi.viz.engine.util.Constants.*;
+import org.gephi.viz.engine.util.gl.GLShaderProgram;
+
+/**
+ * Draws the ids of instanced nodes for picking, reading the same vertex and attributes buffers as {@link NodeDiskModel}. Only the border circle vertices are drawn, which cover the whole node.
+ *
+ * <p>
+ * Needs GLSL 3.30.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class NodePickingModel {
+
+    private GLShaderProgram program;
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "picking";
+
+    private static final String SHADERS_NODE_PICKING_SOURCE = "node-picking";
+
+    public void initGLPrograms(GL2ES3 gl) {
+        program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_PICKING_SOURCE, SHADERS_NODE_PICKING_SOURCE)
+                .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+                .addUniformName(UNIFORM_NAME_FIRST_ID)
+                .addUniformName(UNIFORM_NAME_INSTANCES_PER_NODE)
+                .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+                .init(gl);
+    }
+
+    public boolean isInitialized() {
+        return program != null;
+    }
+
+    /**
+     *
+     * @param gl GL
+     * @param mvpFloats Model view projection matrix
+     * @param firstId Id of the first node
+     * @param instancesPerNode Consecutive instances of each node
+     * @param vertexCount Vertices of the border circle, starting at the first vertex
+     * @param instanceCount Instances to draw
+     * @param instancesOffset Base instance
+     */
+    public void drawInstanced(GL2ES3 gl, float[] mvpFloats, int firstId, int instancesPerNode, int vertexCount, int instanceCount, int instancesOffset) {
+        program.use(gl);
+        gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
+        gl.glUniform1ui(program.getUniformLocation(UNIFORM_NAME_FIRST_ID), firstId);
+        gl.glUniform1i(program.getUniformLocation(UNIFORM_NAME_INSTANCES_PER_NODE), instancesPerNode);
+
+        if (instancesOffset > 0) {
+            gl.glDrawArraysInstancedBaseInstance(GL.GL_TRIANGLES, 0, vertexCount, instanceCount, instancesOffset);
+        } else {
+            gl.glDrawArraysInstanced(GL.GL_TRIANGLES, 0, vertexCount, instanceCount);
+        }
+        program.stopUsing(gl);
+    }
+}
@@ -0,0 +1,108 @@
+package org.gephi.viz.engine.models;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
+import org.gephi.viz.engine.util.Constants;
+import static org.gephi.viz.engine.util.Constants.*;
+import org.gephi.viz.engine.util.gl.GLShaderProgram;
+
+/**
+ * Node drawn as a single quad, the fragment shader computes the disk, its border and anti-aliasing from the distance to the center. Uses the packed attributes layout of {@link NodeDiskModel}.
+ *
+ * @author Eduardo Ramos
+ */
+public class NodeQuadModel {
+
+    public static final int VERTEX_FLOATS = 2;
+    public static final int VERTEX_COUNT = 6;
+
+    private final float insideCircleSize;
+
+    private GLShaderProgram program;
+
+    /**
+     *
+     * @param insideCircleSize Size of the inside circle relative to the node size
+     */
+    public NodeQuadModel(float insideCircleSize) {
+        this.insideCircleSize = insideCircleSize;
+    }
+
+    public static float[] getVertexData() {
+        return new float[]{
+            //First triangle:
+            -1, -1,
+            1, -1,
+            1, 1,
+            //Second triangle:
+            -1, -1,
+            1, 1,
+            -1, 1
+        };
+    }
+
+    public void initGLPrograms(GL2ES2 gl) {
+        initProgram(gl);
+    }
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "node";
+
+    private static final String SHADERS_NODE_QUAD_SOURCE = "node-quad";
+
+    private void initProgram(GL2ES2 gl) {
+        program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_QUAD_SOURCE, SHADERS_NODE_QUAD_SOURCE)
+                .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+                .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+                .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+                .addUniformName(UNIFORM_NAME_BORDER_DARKEN_FACTOR)
+                .addUniformName(UNIFORM_NAME_INSIDE_CIRCLE_SIZE)
+                .addUniformName(UNIFORM_NAME_PIXEL_WORLD_SIZE)
+                .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_FLAGS, SHADER_FLAGS_LOCATION)
+                .init(gl);
+    }
+
+    /**
+     * Draws the nodes with alpha blending for the anti-aliased edges of the disks.
+     *
+     * @param gl GL
+     * @param mvpFloats Model view projection matrix
+     * @param backgroundColorFloats Background color
+     * @param colorLightenFactor Lighten factor
+     * @param zoom Current zoom, used to make anti-aliasing one pixel wide
+     * @param instanceCount Instances to draw
+     * @param instancesOffset First instance
+     */
+    public void drawInstanced(GL2ES3 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, float zoom, int instanceCount, int instancesOffset) {
+        useProgram(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, zoom);
+
+        gl.glEnable(GL.GL_BLEND);
+        gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+        if (instancesOffset > 0) {
+            gl.glDrawArraysInstancedBaseInstance(GL.GL_TRIANGLES, 0, VERTEX_COUNT, instanceCount, instancesOffset);
+        } else {
+            gl.glDrawArraysInstanced(GL.GL_TRIANGLES, 0, VERTEX_COUNT, instanceCount);
+        }
+        gl.glDisable(GL.GL_BLEND);
+
+        stopUsingProgram(gl);
+    }
+
+    public void useProgram(GL2ES2 gl, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, float zoom) {
+        program.use(gl);
+        gl.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), 1, false, mvpFloats, 0);
+        gl.glUniform4fv(program.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), 1, backgroundColorFloats, 0);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_BORDER_DARKEN_FACTOR), NODER_BORDER_DARKEN_FACTOR);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_INSIDE_CIRCLE_SIZE), insideCircleSize);
+        gl.glUniform1f(program.getUniformLocation(UNIFORM_NAME_PIXEL_WORLD_SIZE), 1f / zoom);
+    }
+
+    public void stopUsingProgram(GL2ES2 gl) {
+        program.stopUsing(gl);
+    }
+}
@@ -2,18 +2,10 @@ package org.gephi.viz.engine.pipeline;
 
 import com.jogamp.newt.event.MouseEvent;
 import com.jogamp.opengl.GLAutoDrawable;
-import java.util.Collection;
-import java.util.Iterator;
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.Graph;
-import org.gephi.graph.api.Node;
-import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.spi.InputListener;
-import org.gephi.viz.engine.status.GraphRenderingOptions;
-import org.gephi.viz.engine.status.GraphSelection;
-import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.status.GraphPicking;
 import org.gephi.viz.engine.structure.GraphIndex;
 import org.joml.Vector2f;
 
@@ -24,6 +16,8 @@ import org.joml.Vector2f;
 public class DefaultEventListener implements InputListener {
 
     private final VizEngine engine;
+    private final SelectionService selectionService;
+    private final boolean selectOnClick;
 
     private static final short MOUSE_LEFT_BUTTON = MouseEvent.BUTTON1;
     private static final short MOUSE_WHEEL_BUTTON = MouseEvent.BUTTON2;
@@ -32,7 +26,18 @@ public class DefaultEventListener implements InputListener {
     private boolean mouseLeftButtonPresed = false;
 
     public DefaultEventListener(VizEngine engine) {
+        this(engine, false);
+    }
+
+    /**
+     *
+     * @param engine Engine
+     * @param selectOnClick True to select the node under a left click right away, without waiting for the hover delay
+     */
+    public DefaultEventListener(VizEngine engine, boolean selectOnClick) {
         this.engine = engine;
+        this.selectionService = new SelectionService(engine);
+        this.selectOnClick = selectOnClick;
     }
 
     private MouseEvent lastMovedPosition = null;
@@ -44,12 +49,25 @@ public class DefaultEventListener implements InputListener {
 
     @Override
     public void frameEnd() {
+        //TODO: move to independent selection input listener
+        final GraphPicking picking = engine.getLookup().lookup(GraphPicking.class);
+        final boolean gpuPicking = picking != null && picking.isAvailable();
+
         if (lastMovedPosition != null) {
-            //TODO: move to independent selection input listener
-            final Vector2f worldCoords = engine.screenCoordinatesToWorldCoordinates(lastMovedPosition.getX(), lastMovedPosition.getY());
+            if (gpuPicking) {
+                //Resolved some frames later:
+                picking.requestPick(lastMovedPosition.getX(), lastMovedPosition.getY());
+            } else {
+                //Hit test and neighbourhood resolved in the selection service:
+                selectionService.requestHover(engine.screenCoordinatesToWorldCoordinates(lastMovedPosition.getX(), lastMovedPosition.getY()));
+            }
+        }
 
-            selectNodesUnderPosition(worldCoords);
+        if (gpuPicking && picking.pollPick()) {
+            selectionService.requestNode(picking.getPickedNode());
         }
+
+        selectionService.applyCompletedSelection();
     }
 
     @Override
@@ -74,12 +92,14 @@ public class DefaultEventListener implements InputListener {
             processZoomEvent(-10, x, y);
             return true;
         } else if (leftClick) {
-            //TODO: move to independent selection input listener
             final Vector2f worldCoords = engine.screenCoordinatesToWorldCoordinates(x, y);
             System.out.println(String.format(
                     "Click on %s %s = %s, %s", x, y, worldCoords.x, worldCoords.y
             ));
 
+            if (selectOnClick) {
+                selectionService.requestClick(worldCoords);
+            }
             return true;
         }
 
@@ -155,48 +175,6 @@ public class DefaultEventListener implements InputListener {
     private int lastX;
     private int lastY;
 
-    private void selectNodesUnderPosition(Vector2f worldCoords) {
-        final GraphIndex index = engine.getLookup().lookup(GraphIndex.class);
-        final GraphSelection selection = engine.getLookup().lookup(GraphSelection.class);
-        final GraphSelectionNeighbours neighboursSelection = engine.getLookup().lookup(GraphSelectionNeighbours.class);
-        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
-        final Graph graph = engine.getGraphModel().getGraphVisible();
-
-        final NodeIterable iterable = index.getNodesUnderPosition(worldCoords.x, worldCoords.y);
-        final Iterator<Node> iterator = iterable.iterator();
-
-        try {
-            if (iterator.hasNext()) {
-                //Select the node:
-                final Node frontNode = iterator.next();
-
-                //Select edges of node:
-                final Collection<Edge> selectedEdges = graph.getEdges(frontNode).toCollection();
-
-                //Add neighbours of node:
-                final Collection<Node> selectedNeighbours;
-                if (renderingOptions.isAutoSelectNeighbours()) {
-                    selectedNeighbours = graph.getNeighbors(frontNode).toCollection();
-                } else {
-                    selectedNeighbours = null;
-                }
-
-                //Select everything as atomically as possible:
-                selection.setSelectedNode(frontNode);
-                selection.setSelectedEdges(selectedEdges);
-                neighboursSelection.setSelectedNodes(selectedNeighbours);
-            } else {
-                selection.clearSelectedNodes();
-                selection.clearSelectedEdges();
-                neighboursSelection.clearSelectedNodes();
-            }
-        } finally {
-            if (iterator.hasNext()) {
-                iterable.doBreak();
-            }
-        }
-    }
-
     protected void processCameraMoveEvent(int x, int y) {
         float zoom = engine.getZoom();
 
@@ -272,4 +250,9 @@ public class DefaultEventListener implements InputListener {
     public void init(GLAutoDrawable drawable) {
         //NOOP
     }
+
+    @Override
+    public void dispose(GLAutoDrawable drawable) {
+        selectionService.shutdown();
+    }
 }
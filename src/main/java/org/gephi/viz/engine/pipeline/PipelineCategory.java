@@ -7,4 +7,5 @@ package org.gephi.viz.engine.pipeline;
 public class PipelineCategory {
     public static final String NODE = "Node";
     public static final String EDGE = "Edge";
+    public static final String PICKING = "Picking";
 }
@@ -0,0 +1,383 @@
+package org.gephi.viz.engine.pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionImpl;
+import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.status.GraphSelectionNeighboursImpl;
+import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.util.ElementBitSet;
+import org.joml.Vector2f;
+
+/**
+ * Resolves hover and click selections on its own thread, so hit testing and collecting the edges and neighbours of hubs never stall the GL thread.
+ *
+ * <p>
+ * Hover requests are debounced: moves arriving within {@link #DEFAULT_HOVER_DELAY_MILLIS} are coalesced and only the latest position is resolved. Every request supersedes the previous ones, which stop computing as soon as they notice it. The latest completed selection is applied to {@link GraphSelection} and {@link GraphSelectionNeighbours} on the GL thread by {@link #applyCompletedSelection()}, all at once. With the default implementations, the selection sets are built on the selection thread and the GL thread only swaps them in.</p>
+ *
+ * <p>
+ * When {@link GraphRenderingOptions#getAutoSelectNeighboursDepth()} is more than 1 the neighbourhood is expanded one hop at a time, with the nodes of big frontiers expanded in parallel. Small frontiers, like the front node alone, are expanded on the selection thread. The graph read lock is held while expanding each frontier chunk, not across hops, so writers are not blocked for the whole collection.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class SelectionService {
+
+    public static final long DEFAULT_HOVER_DELAY_MILLIS = 8;
+
+    //Frontiers smaller than this are expanded on the selection thread:
+    private static final int PARALLEL_FRONTIER_MIN = 256;
+    private static final int PARALLEL_FRONTIER_CHUNK = 128;
+
+    private final VizEngine engine;
+    private final long hoverDelayMillis;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Request> pendingRequest = new AtomicReference<>();
+    private final AtomicBoolean hoverScheduled = new AtomicBoolean(false);
+    private final AtomicReference<Selection> completedSelection = new AtomicReference<>();
+    private ScheduledExecutorService executor;
+
+    //GL thread only:
+    private long appliedGeneration = 0;
+
+    public SelectionService(VizEngine engine) {
+        this(engine, DEFAULT_HOVER_DELAY_MILLIS);
+    }
+
+    public SelectionService(VizEngine engine, long hoverDelayMillis) {
+        if (hoverDelayMillis < 0) {
+            throw new IllegalArgumentException("hoverDelayMillis should be >= 0");
+        }
+        this.engine = engine;
+        this.hoverDelayMillis = hoverDelayMillis;
+    }
+
+    /**
+     * Requests selecting the front node under a world position once the mouse settles. Replaces any previous request.
+     *
+     * @param worldCoords World position
+     */
+    public void requestHover(Vector2f worldCoords) {
+        pendingRequest.set(new Request(generation.incrementAndGet(), true, worldCoords.x, worldCoords.y, null));
+
+        if (!hoverScheduled.getAndSet(true)) {
+            getExecutor().schedule(this::resolvePendingRequest, hoverDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Requests selecting the front node under a world position right away. Replaces any previous request.
+     *
+     * @param worldCoords World position
+     */
+    public void requestClick(Vector2f worldCoords) {
+        pendingRequest.set(new Request(generation.incrementAndGet(), true, worldCoords.x, worldCoords.y, null));
+        getExecutor().execute(this::resolvePendingRequest);
+    }
+
+    /**
+     * Requests selecting a node already found, for example by GPU picking, with its edges and neighbours. Replaces any previous request.
+     *
+     * @param node Node or null to clear the selection
+     */
+    public void requestNode(Node node) {
+        pendingRequest.set(new Request(generation.incrementAndGet(), false, 0, 0, node));
+        getExecutor().execute(this::resolvePendingRequest);
+    }
+
+    /**
+     * Applies the latest completed selection, if any, to {@link GraphSelection} and {@link GraphSelectionNeighbours}. Only for the GL thread.
+     *
+     * @return True if the selection changed
+     */
+    public boolean applyCompletedSelection() {
+        final Selection completed = completedSelection.getAndSet(null);
+        if (completed == null || completed.generation <= appliedGeneration) {
+            return false;
+        }
+        appliedGeneration = completed.generation;
+
+        final GraphSelection selection = engine.getLookup().lookup(GraphSelection.class);
+        final GraphSelectionNeighbours neighboursSelection = engine.getLookup().lookup(GraphSelectionNeighbours.class);
+
+        if (completed.nodesSet != null && selection instanceof GraphSelectionImpl && neighboursSelection instanceof GraphSelectionNeighboursImpl) {
+            //One swap and version change each, before world updates are scheduled again in this frame:
+            ((GraphSelectionNeighboursImpl) neighboursSelection).replaceSelectedNodes(completed.neighboursSet);
+            ((GraphSelectionImpl) selection).replaceSelection(completed.nodesSet, completed.edgesSet);
+        } else if (completed.node != null) {
+            selection.setSelectedNode(completed.node);
+            selection.setSelectedEdges(completed.edges, completed.edges.length);
+            neighboursSelection.setSelectedNodes(completed.neighbours, completed.neighbours.length);
+        } else {
+            selection.clearSelectedNodes();
+            selection.clearSelectedEdges();
+            neighboursSelection.clearSelectedNodes();
+        }
+
+        return true;
+    }
+
+    /**
+     * Stops the selection thread, dropping the requests not resolved yet.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        pendingRequest.set(null);
+        completedSelection.set(null);
+        hoverScheduled.set(false);
+    }
+
+    private synchronized ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+                final Thread thread = new Thread(r, "Selection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private void resolvePendingRequest() {
+        hoverScheduled.set(false);
+
+        final Request request = pendingRequest.getAndSet(null);
+        if (request == null) {
+            return;
+        }
+
+        final BooleanSupplier superseded = () -> generation.get() != request.generation;
+
+        try {
+            final Node node = !request.atPosition ? request.node : findFrontNode(request.x, request.y);
+
+            final Selection selection;
+            if (node != null) {
+                final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+                final Graph graph = engine.getGraphModel().getGraphVisible();
+
+                final boolean neighbours = renderingOptions.isAutoSelectNeighbours();
+                final int depth = neighbours ? renderingOptions.getAutoSelectNeighboursDepth() : 1;
+
+                selection = collectNeighbourhood(request.generation, graph, node, depth, neighbours, superseded);
+            } else {
+                selection = new Selection(request.generation, null, new Edge[0], new Node[0]);
+            }
+
+            if (selection != null && !superseded.getAsBoolean()) {
+                selection.buildSets();
+                completedSelection.set(selection);
+                engine.requestRender();
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private Node findFrontNode(float x, float y) {
+        final GraphIndex index = engine.getLookup().lookup(GraphIndex.class);
+
+        final NodeIterable iterable = index.getNodesUnderPosition(x, y);
+        final Iterator<Node> iterator = iterable.iterator();
+
+        try {
+            return iterator.hasNext() ? iterator.next() : null;
+        } finally {
+            if (iterator.hasNext()) {
+                iterable.doBreak();
+            }
+        }
+    }
+
+    /**
+     * Collects the edges and neighbours within some hops of a node. Edges are the ones of every node closer than {@code depth} hops, each one collected once. Neighbours are the nodes reached in up to {@code depth} hops.
+     *
+     * @param generation Generation of the request
+     * @param graph Graph
+     * @param node Front node
+     * @param depth Number of hops, at least 1
+     * @param collectNeighbours False to only collect the edges of the front node
+     * @param superseded Checked between nodes, stops collecting when it returns true
+     * @return Selection or null if it was superseded
+     */
+    static Selection collectNeighbourhood(long generation, Graph graph, Node node, int depth, boolean collectNeighbours, BooleanSupplier superseded) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth should be >= 1");
+        }
+
+        //Hop count of every reached node, only concurrent once a frontier is expanded in parallel:
+        Map<Node, Integer> hops = new HashMap<>();
+        hops.put(node, 0);
+
+        final Frontier collected = new Frontier();
+        List<Node> frontier = Arrays.asList(node);
+        for (int hop = 0; hop < depth && !frontier.isEmpty(); hop++) {
+            if (superseded.getAsBoolean()) {
+                return null;
+            }
+
+            final Frontier next;
+            if (frontier.size() < PARALLEL_FRONTIER_MIN) {
+                next = expand(graph, frontier, 0, frontier.size(), hop, hops, superseded);
+            } else {
+                if (!(hops instanceof ConcurrentHashMap)) {
+                    hops = new ConcurrentHashMap<>(hops);
+                }
+
+                final List<Node> currentFrontier = frontier;
+                final int currentHop = hop;
+                final Map<Node, Integer> currentHops = hops;
+                final int chunks = (frontier.size() + PARALLEL_FRONTIER_CHUNK - 1) / PARALLEL_FRONTIER_CHUNK;
+
+                final Frontier[] expanded = new Frontier[chunks];
+                IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                    expanded[chunk] = expand(
+                            graph, currentFrontier,
+                            chunk * PARALLEL_FRONTIER_CHUNK,
+                            Math.min((chunk + 1) * PARALLEL_FRONTIER_CHUNK, currentFrontier.size()),
+                            currentHop, currentHops, superseded
+                    );
+                });
+
+                next = new Frontier();
+                for (Frontier chunkFrontier : expanded) {
+                    next.merge(chunkFrontier);
+                }
+            }
+
+            collected.edges.addAll(next.edges);
+            collected.nodes.addAll(next.nodes);
+            frontier = next.nodes;
+        }
+
+        if (superseded.getAsBoolean()) {
+            return null;
+        }
+
+        final Edge[] edges = collected.edges.toArray(new Edge[0]);
+        final Node[] neighbours = collectNeighbours ? collected.nodes.toArray(new Node[0]) : new Node[0];
+        return new Selection(generation, node, edges, neighbours);
+    }
+
+    private static Frontier expand(Graph graph, List<Node> frontier, int start, int end, int hop, Map<Node, Integer> hops, BooleanSupplier superseded) {
+        final Frontier next = new Frontier();
+
+        //Locked on the thread expanding the chunk, so parallel chunks never wait for a lock held by the selection thread:
+        graph.readLock();
+        try {
+            for (int i = start; i < end; i++) {
+                if (superseded.getAsBoolean()) {
+                    break;
+                }
+
+                final Node source = frontier.get(i);
+                for (Edge edge : graph.getEdges(source)) {
+                    final Node other = graph.getOpposite(source, edge);
+                    final Integer otherHop = hops.putIfAbsent(other, hop + 1);
+
+                    if (otherHop == null) {
+                        next.nodes.add(other);
+                        next.edges.add(edge);
+                    } else if (otherHop > hop) {
+                        next.edges.add(edge);
+                    } else if (otherHop == hop && source.getStoreId() <= other.getStoreId()) {
+                        //Edges inside the frontier are seen from both sides, and self loops once:
+                        next.edges.add(edge);
+                    }
+                    //Edges to nodes closer to the front node were collected from them
+                }
+            }
+        } finally {
+            graph.readUnlock();
+        }
+
+        return next;
+    }
+
+    private static class Frontier {
+
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<Edge> edges = new ArrayList<>();
+
+        private void merge(Frontier other) {
+            nodes.addAll(other.nodes);
+            edges.addAll(other.edges);
+        }
+    }
+
+    private static class Request {
+
+        private final long generation;
+        private final boolean atPosition;
+        private final float x;
+        private final float y;
+        private final Node node;
+
+        private Request(long generation, boolean atPosition, float x, float y, Node node) {
+            this.generation = generation;
+            this.atPosition = atPosition;
+            this.x = x;
+            this.y = y;
+            this.node = node;
+        }
+    }
+
+    /**
+     * Front node with its edges and neighbours, ready to be applied.
+     */
+    static class Selection {
+
+        final long generation;
+        final Node node;
+        final Edge[] edges;
+        final Node[] neighbours;
+
+        //Built on the selection thread, so hubs don't take the GL thread time:
+        ElementBitSet<Node> nodesSet;
+        ElementBitSet<Edge> edgesSet;
+        ElementBitSet<Node> neighboursSet;
+
+        Selection(long generation, Node node, Edge[] edges, Node[] neighbours) {
+            this.generation = generation;
+            this.node = node;
+            this.edges = edges;
+            this.neighbours = neighbours;
+        }
+
+        void buildSets() {
+            nodesSet = new ElementBitSet<>();
+            if (node != null) {
+                nodesSet.add(node);
+            }
+
+            edgesSet = new ElementBitSet<>();
+            edgesSet.addAll(edges, edges.length);
+
+            neighboursSet = new ElementBitSet<>();
+            neighboursSet.addAll(neighbours, neighbours.length);
+        }
+    }
+}
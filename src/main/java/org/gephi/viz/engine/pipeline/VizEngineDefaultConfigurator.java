@@ -3,20 +3,34 @@ package org.gephi.viz.engine.pipeline;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.pipeline.arrays.ArrayDrawEdgeData;
 import org.gephi.viz.engine.pipeline.arrays.ArrayDrawNodeData;
+import org.gephi.viz.engine.pipeline.arrays.ArrayDrawTextureEdgeData;
 import org.gephi.viz.engine.pipeline.arrays.renderers.EdgeRendererArrayDraw;
+import org.gephi.viz.engine.pipeline.arrays.renderers.EdgeRendererArrayDrawTexture;
 import org.gephi.viz.engine.pipeline.arrays.renderers.NodeRendererArrayDraw;
 import org.gephi.viz.engine.pipeline.arrays.updaters.EdgesUpdaterArrayDrawRendering;
+import org.gephi.viz.engine.pipeline.arrays.updaters.EdgesUpdaterArrayDrawTextureRendering;
 import org.gephi.viz.engine.pipeline.arrays.updaters.NodesUpdaterArrayDrawRendering;
 import org.gephi.viz.engine.pipeline.indirect.IndirectNodeData;
 import org.gephi.viz.engine.pipeline.indirect.renderers.NodeRendererIndirect;
 import org.gephi.viz.engine.pipeline.indirect.updaters.NodesUpdaterIndirectRendering;
+import org.gephi.viz.engine.pipeline.instanced.InstancedCulledEdgeData;
 import org.gephi.viz.engine.pipeline.instanced.InstancedEdgeData;
+import org.gephi.viz.engine.pipeline.instanced.InstancedIndexedEdgeData;
 import org.gephi.viz.engine.pipeline.instanced.InstancedNodeData;
+import org.gephi.viz.engine.pipeline.instanced.InstancedQuadNodeData;
 import org.gephi.viz.engine.pipeline.instanced.renderers.EdgeRendererInstanced;
+import org.gephi.viz.engine.pipeline.instanced.renderers.EdgeRendererInstancedCulled;
+import org.gephi.viz.engine.pipeline.instanced.renderers.EdgeRendererInstancedIndexed;
 import org.gephi.viz.engine.pipeline.instanced.renderers.NodeRendererInstanced;
+import org.gephi.viz.engine.pipeline.instanced.renderers.NodeRendererInstancedQuad;
+import org.gephi.viz.engine.pipeline.instanced.updaters.EdgesUpdaterInstancedCulledRendering;
+import org.gephi.viz.engine.pipeline.instanced.updaters.EdgesUpdaterInstancedIndexedRendering;
 import org.gephi.viz.engine.pipeline.instanced.updaters.EdgesUpdaterInstancedRendering;
+import org.gephi.viz.engine.pipeline.instanced.updaters.NodesUpdaterInstancedQuadRendering;
 import org.gephi.viz.engine.pipeline.instanced.updaters.NodesUpdaterInstancedRendering;
+import org.gephi.viz.engine.pipeline.picking.PickingRenderer;
 import org.gephi.viz.engine.spi.VizEngineConfigurator;
+import org.gephi.viz.engine.status.GraphPickingImpl;
 import org.gephi.viz.engine.status.GraphRenderingOptionsImpl;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.status.GraphSelectionImpl;
@@ -30,21 +44,49 @@ import org.gephi.viz.engine.structure.GraphIndexImpl;
  */
 public class VizEngineDefaultConfigurator implements VizEngineConfigurator {
 
+    private final boolean packedAttributes;
+    private final boolean quadNodes;
+
+    public VizEngineDefaultConfigurator() {
+        this(false);
+    }
+
+    /**
+     *
+     * @param packedAttributes True to use the packed attributes layout for instanced nodes, which halves their upload bandwidth and memory
+     */
+    public VizEngineDefaultConfigurator(boolean packedAttributes) {
+        this(packedAttributes, false);
+    }
+
+    /**
+     *
+     * @param packedAttributes True to use the packed attributes layout for instanced nodes, which halves their upload bandwidth and memory
+     * @param quadNodes True to prefer drawing nodes as single anti-aliased quads, which does not need multisampling
+     */
+    public VizEngineDefaultConfigurator(boolean packedAttributes, boolean quadNodes) {
+        this.packedAttributes = packedAttributes;
+        this.quadNodes = quadNodes;
+    }
+
     @Override
     public void configure(VizEngine engine) {
         final GraphIndexImpl graphIndex = new GraphIndexImpl(engine);
         final GraphSelection graphSelection = new GraphSelectionImpl(engine);
         final GraphSelectionNeighbours graphSelectionNeighbours = new GraphSelectionNeighboursImpl(engine);
         final GraphRenderingOptionsImpl renderingOptions = new GraphRenderingOptionsImpl();
+        final GraphPickingImpl graphPicking = new GraphPickingImpl();
 
         engine.addToLookup(graphIndex);
         engine.addToLookup(graphSelection);
         engine.addToLookup(graphSelectionNeighbours);
         engine.addToLookup(renderingOptions);
+        engine.addToLookup(graphPicking);
 
         setupIndirectRendering(engine, graphIndex);
         setupInstancedRendering(engine, graphIndex);
         setupVertexArrayRendering(engine, graphIndex);
+        setupPicking(engine, graphPicking);
 
         setupInputListeners(engine);
     }
@@ -59,15 +101,34 @@ public class VizEngineDefaultConfigurator implements VizEngineConfigurator {
 
     private void setupInstancedRendering(VizEngine engine, GraphIndexImpl graphIndex) {
         //Nodes:
-        final InstancedNodeData nodeData = new InstancedNodeData();
+        final InstancedNodeData nodeData = new InstancedNodeData(packedAttributes);
         engine.addRenderer(new NodeRendererInstanced(engine, nodeData));
         engine.addWorldUpdater(new NodesUpdaterInstancedRendering(engine, nodeData, graphIndex));
 
-        //Edges:
+        if (quadNodes) {
+            final InstancedQuadNodeData quadNodeData = new InstancedQuadNodeData();
+            engine.addRenderer(new NodeRendererInstancedQuad(engine, quadNodeData));
+            engine.addWorldUpdater(new NodesUpdaterInstancedQuadRendering(engine, quadNodeData, graphIndex));
+        }
+
+        //Edges, without selection overlay like every default pipeline so node and edge highlights are delivered together:
         final InstancedEdgeData indirectEdgeData = new InstancedEdgeData();
 
         engine.addRenderer(new EdgeRendererInstanced(engine, indirectEdgeData));
         engine.addWorldUpdater(new EdgesUpdaterInstancedRendering(engine, indirectEdgeData, graphIndex));
+
+        //Edges culled on the GPU, preferred when compute shaders are available:
+        final InstancedCulledEdgeData culledEdgeData = new InstancedCulledEdgeData();
+
+        engine.addRenderer(new EdgeRendererInstancedCulled(engine, culledEdgeData));
+        engine.addWorldUpdater(new EdgesUpdaterInstancedCulledRendering(engine, culledEdgeData, graphIndex));
+
+        //Edges reading their nodes from a nodes buffer, preferred when shader storage buffers are available and incremental updates are enabled before starting the engine.
+        //Selection is kept in a separate flags buffer, so selection changes do not rebuild the edges buffer:
+        final InstancedIndexedEdgeData indexedEdgeData = new InstancedIndexedEdgeData(true);
+
+        engine.addRenderer(new EdgeRendererInstancedIndexed(engine, indexedEdgeData));
+        engine.addWorldUpdater(new EdgesUpdaterInstancedIndexedRendering(engine, indexedEdgeData, graphIndex));
     }
 
     private void setupVertexArrayRendering(VizEngine engine, GraphIndexImpl graphIndex) {
@@ -80,6 +141,16 @@ public class VizEngineDefaultConfigurator implements VizEngineConfigurator {
         final ArrayDrawEdgeData edgeData = new ArrayDrawEdgeData();
         engine.addRenderer(new EdgeRendererArrayDraw(engine, edgeData));
         engine.addWorldUpdater(new EdgesUpdaterArrayDrawRendering(engine, edgeData, graphIndex));
+
+        //Edges reading their attributes from a float texture, preferred when vertex texture fetch is available:
+        final ArrayDrawTextureEdgeData textureEdgeData = new ArrayDrawTextureEdgeData();
+        engine.addRenderer(new EdgeRendererArrayDrawTexture(engine, textureEdgeData));
+        engine.addWorldUpdater(new EdgesUpdaterArrayDrawTextureRendering(engine, textureEdgeData, graphIndex));
+    }
+
+    private void setupPicking(VizEngine engine, GraphPickingImpl graphPicking) {
+        //Ids of the nodes drawn by the instanced and indirect pipelines, others fall back to graph index queries:
+        engine.addRenderer(new PickingRenderer(engine, graphPicking));
     }
 
     private void setupInputListeners(VizEngine engine) {
@@ -8,11 +8,15 @@ import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.models.EdgeLineModelDirected;
 import org.gephi.viz.engine.models.EdgeLineModelUndirected;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.pipeline.common.DataUpdateTracker;
+import org.gephi.viz.engine.pipeline.common.EdgesFrame;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndex;
@@ -20,6 +24,7 @@ import org.gephi.viz.engine.structure.GraphIndexImpl;
 import org.gephi.viz.engine.util.ArrayUtils;
 import org.gephi.viz.engine.util.BufferUtils;
 import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.util.TripleBufferExchange;
 import org.gephi.viz.engine.util.gl.GLBufferMutable;
 
 /**
@@ -45,11 +50,22 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
     }
 
     public void update(VizEngine engine, GraphIndexImpl graphIndex) {
-        updateData(
+        final Rect2D area = updateTracker.nextUpdateArea(engine, graphIndex);
+        if (area == null) {
+            //Nothing changed since last update
+            return;
+        }
+
+        final EdgesFrame frame = updateData(
+                area,
+                engine.getZoom(),
                 graphIndex,
                 engine.getLookup().lookup(GraphRenderingOptions.class),
-                engine.getLookup().lookup(GraphSelection.class)
+                engine.getLookup().lookup(GraphSelection.class),
+                engine.getMetrics()
         );
+
+        engine.getMetrics().setVisibleEdgesCount(frame.getTotalCount());
     }
 
     public void drawArrays(GL2ES2 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
@@ -76,12 +92,12 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
         final float colorLightenFactor;
 
         if (layer == RenderingLayer.BACK) {
-            instanceCount = undirectedInstanceCounter.unselectedCountToDraw;
+            instanceCount = drawnFrame.getUndirectedUnselectedCount();
             instancesOffset = 0;
             colorLightenFactor = lightenNonSelectedFactor;
         } else {
-            instanceCount = undirectedInstanceCounter.selectedCountToDraw;
-            instancesOffset = undirectedInstanceCounter.unselectedCountToDraw;
+            instanceCount = drawnFrame.getUndirectedSelectedCount();
+            instancesOffset = drawnFrame.getUndirectedUnselectedCount();
             colorLightenFactor = 0;
         }
 
@@ -117,6 +133,7 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
                 attributesGLBuffer.bind(gl);
                 attributesGLBuffer.update(gl, batchUpdateBuffer);
                 attributesGLBuffer.unbind(gl);
+                engine.getMetrics().addBytesUploaded((long) drawBatchCount * ATTRIBS_STRIDE * VERTEX_COUNT_UNDIRECTED * Float.BYTES);
 
                 lineModelUndirected.drawArraysMultipleInstance(gl, drawBatchCount);
             }
@@ -132,12 +149,12 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
         final float colorLightenFactor;
 
         if (layer == RenderingLayer.BACK) {
-            instanceCount = directedInstanceCounter.unselectedCountToDraw;
-            instancesOffset = undirectedInstanceCounter.totalToDraw();
+            instanceCount = drawnFrame.getDirectedUnselectedCount();
+            instancesOffset = drawnFrame.getUndirectedCount();
             colorLightenFactor = lightenNonSelectedFactor;
         } else {
-            instanceCount = directedInstanceCounter.selectedCountToDraw;
-            instancesOffset = undirectedInstanceCounter.totalToDraw() + directedInstanceCounter.unselectedCountToDraw;
+            instanceCount = drawnFrame.getDirectedSelectedCount();
+            instancesOffset = drawnFrame.getUndirectedCount() + drawnFrame.getDirectedUnselectedCount();
             colorLightenFactor = 0;
         }
 
@@ -173,6 +190,7 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
                 attributesGLBuffer.bind(gl);
                 attributesGLBuffer.update(gl, batchUpdateBuffer);
                 attributesGLBuffer.unbind(gl);
+                engine.getMetrics().addBytesUploaded((long) drawBatchCount * ATTRIBS_STRIDE * VERTEX_COUNT_DIRECTED * Float.BYTES);
 
                 lineModelDirected.drawArraysMultipleInstance(gl, drawBatchCount);
             }
@@ -183,8 +201,10 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
     }
 
     //Triple buffering to ensure CPU and GPU don't access the same buffer at the same time:
-    private static final int NUM_BUFFERS = 3;
-    private int currentBufferIndex = 0;
+    private static final int NUM_BUFFERS = TripleBufferExchange.SLOTS;
+    private final TripleBufferExchange<EdgesFrame> frames = new TripleBufferExchange<>();
+    private EdgesFrame drawnFrame = EdgesFrame.empty(-1);
+    private final DataUpdateTracker updateTracker = new DataUpdateTracker(true);
     private final float[][] attributesBuffersList = new float[NUM_BUFFERS][];
 
     private static final int BATCH_EDGES_SIZE = 65536;
@@ -240,17 +260,20 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
     }
 
     public void updateBuffers() {
-        currentAttributesBuffer = attributesBuffersList[currentBufferIndex];
-        undirectedInstanceCounter.promoteCountToDraw();
-        directedInstanceCounter.promoteCountToDraw();
+        if (frames.acquire()) {
+            drawnFrame = frames.getReadFrame();
+            currentAttributesBuffer = attributesBuffersList[drawnFrame.getSlot()];
+        }
         //TODO: Persistent buffer if available?
     }
 
-    private void updateData(final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
+    private EdgesFrame updateData(final Rect2D area, final float zoom, final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection, final EngineMetrics metrics) {
+        final int nextBufferIndex = frames.getWriteSlot();
+
         if (!renderingOptions.isShowEdges()) {
             undirectedInstanceCounter.clearCount();
             directedInstanceCounter.clearCount();
-            return;
+            return frames.publish(EdgesFrame.empty(nextBufferIndex));
         }
 
         graphIndex.indexEdges();
@@ -267,16 +290,16 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
 
         final int totalEdges = graphIndex.getEdgeCount();
 
-        final byte nextBufferIndex = (byte) ((currentBufferIndex + 1) % 3);
-
-        final float[] attribs
-                = attributesBuffersList[nextBufferIndex]
-                = ArrayUtils.ensureCapacityNoCopy(attributesBuffersList[nextBufferIndex], totalEdges * ATTRIBS_STRIDE);
+        final float[] attribs = ArrayUtils.ensureCapacityNoCopy(attributesBuffersList[nextBufferIndex], totalEdges * ATTRIBS_STRIDE);
+        if (attribs != attributesBuffersList[nextBufferIndex]) {
+            attributesBuffersList[nextBufferIndex] = attribs;
+            metrics.addBufferGrowth();
+        }
 
-        graphIndex.getVisibleEdges(edgesCallback);
+        graphIndex.getEdgesInArea(area, edgesCallback);
 
         final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
-        final int visibleEdgesCount = edgesCallback.getCount();
+        final int visibleEdgesCount = removeShortEdges(visibleEdgesArray, edgesCallback.getCount(), renderingOptions.getEdgeMinScreenLength() / zoom);
 
         final Graph graph = graphIndex.getGraph();
 
@@ -293,11 +316,15 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
                 attribs, attribsIndex
         );
 
-        currentBufferIndex = nextBufferIndex;
+        return frames.publish(new EdgesFrame(nextBufferIndex, undirectedInstanceCounter, directedInstanceCounter));
     }
 
     @Override
     public void dispose(GL gl) {
+        updateTracker.reset();
+        frames.reset();
+        drawnFrame = EdgesFrame.empty(-1);
+        currentAttributesBuffer = null;
         super.dispose(gl);
         attributesDrawBufferBatchOneCopyPerVertex = null;
         attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer.destroy();
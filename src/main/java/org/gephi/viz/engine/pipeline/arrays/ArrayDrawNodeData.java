@@ -2,327 +2,535 @@ package org.gephi.viz.engine.pipeline.arrays;
 
 import com.jogamp.opengl.GL;
 import static com.jogamp.opengl.GL.GL_FLOAT;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_SHORT;
 import com.jogamp.opengl.GL2ES2;
 import com.jogamp.opengl.util.GLBuffers;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.VizEngine;
-import org.gephi.viz.engine.models.NodeDiskModel;
+import org.gephi.viz.engine.models.NodeDiskExpandedModel;
+import static org.gephi.viz.engine.models.NodeDiskExpandedModel.*;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.AbstractNodeData;
-import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.pipeline.common.DataUpdateTracker;
+import org.gephi.viz.engine.pipeline.common.NodesFrame;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.status.GraphSelectionNeighbours;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
-import org.gephi.viz.engine.util.BufferUtils;
-import static org.gephi.viz.engine.util.Constants.*;
 import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.util.TripleBufferExchange;
+import org.gephi.viz.engine.util.gl.GLBuffer;
 import org.gephi.viz.engine.util.gl.GLBufferMutable;
 
 /**
+ * Nodes for GL versions without instancing. The disks of the nodes are expanded into vertices by the world updater, with a level of detail chosen for the current zoom, and drawn with one call per batch of vertices.
+ *
+ * <p>
+ * All the nodes are built as without selection, and the selected nodes are built again into a second buffer drawn over them. Both are built by the world updater and uploaded in the GL thread.</p>
  *
  * @author Eduardo Ramos
  */
 public class ArrayDrawNodeData extends AbstractNodeData {
 
-    private final NodeDiskModel diskModel64 = new NodeDiskModel(64);
-    private final NodeDiskModel diskModel32 = new NodeDiskModel(32);
-    private final NodeDiskModel diskModel16 = new NodeDiskModel(16);
-    private final NodeDiskModel diskModel8 = new NodeDiskModel(8);
-
-    private final int circleVertexCount64;
-    private final int circleVertexCount32;
-    private final int circleVertexCount16;
-    private final int circleVertexCount8;
-    private final int firstVertex64;
-    private final int firstVertex32;
-    private final int firstVertex16;
-    private final int firstVertex8;
+    private final NodeDiskExpandedModel diskModel = new NodeDiskExpandedModel();
 
-    private final InstanceCounter instanceCounter = new InstanceCounter();
+    //Circle points of each level of detail, from the finest:
+    private static final float[][] CIRCLE_POINTS = {
+        NodeDiskExpandedModel.generateCirclePoints(64),
+        NodeDiskExpandedModel.generateCirclePoints(32),
+        NodeDiskExpandedModel.generateCirclePoints(16),
+        NodeDiskExpandedModel.generateCirclePoints(8)
+    };
 
     private IntBuffer bufferName;
 
     private static final int VERT_BUFFER = 0;
+    private static final int INDICES_BUFFER = 1;
+    private static final int SELECTION_VERT_BUFFER = 2;
+    private static final int SELECTION_INDICES_BUFFER = 3;
+
+    private GLBuffer indicesGLBuffer;
+    private GLBuffer selectionVertexGLBuffer;
+    private GLBuffer selectionIndicesGLBuffer;
 
     public ArrayDrawNodeData() {
+        this(false);
+    }
+
+    /**
+     *
+     * @param selectionOverlay True to only rebuild the selected nodes when the selection changes, instead of all the nodes. Highlights then don't wait for a rebuild of all the nodes, but they are not delivered with the ones of the edges anymore unless the edges pipeline does the same
+     */
+    public ArrayDrawNodeData(boolean selectionOverlay) {
         super(false);
-        circleVertexCount64 = diskModel64.getVertexCount();
-        circleVertexCount32 = diskModel32.getVertexCount();
-        circleVertexCount16 = diskModel16.getVertexCount();
-        circleVertexCount8 = diskModel8.getVertexCount();
-
-        firstVertex64 = 0;
-        firstVertex32 = circleVertexCount64;
-        firstVertex16 = firstVertex32 + circleVertexCount32;
-        firstVertex8 = firstVertex16 + circleVertexCount16;
+        this.selectionOverlay = selectionOverlay;
+        //Levels of detail depend on the zoom:
+        this.updateTracker = new DataUpdateTracker(true, true, true, !selectionOverlay);
     }
 
     public void init(GL2ES2 gl) {
         initBuffers(gl);
-        diskModel64.initGLPrograms(gl);
+        diskModel.initGLPrograms(gl);
     }
 
     public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
-        updateData(spatialIndex,
-                engine.getLookup().lookup(GraphRenderingOptions.class),
-                engine.getLookup().lookup(GraphSelection.class),
-                engine.getLookup().lookup(GraphSelectionNeighbours.class),
-                engine.getZoom()
-        );
+        metrics = engine.getMetrics();
+
+        final Rect2D area = updateTracker.nextUpdateArea(engine, spatialIndex);
+        if (area != null) {
+            final NodesFrame frame = updateData(area, spatialIndex, engine.getZoom(),
+                    engine.getLookup().lookup(GraphRenderingOptions.class)
+            );
+
+            metrics.setVisibleNodesCount(frame.getTotalCount());
+        }
+
+        //Without selection overlay, selected nodes are rebuilt with all the nodes:
+        final boolean selectionChanged = selectionOverlay ? selectionUpdateTracker.nextUpdateArea(engine, spatialIndex) != null : area != null;
+        if (selectionChanged) {
+            updateSelectionData(engine, spatialIndex);
+        }
+    }
+
+    private void updateSelectionData(VizEngine engine, GraphIndexImpl graphIndex) {
+        final int writeSlot = selectionFrames.getWriteSlot();
+        final NodeDisks disks = selectionDisksList[writeSlot];
+
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        final GraphSelection selection = engine.getLookup().lookup(GraphSelection.class);
+
+        final boolean someSelection = selection.getSelectedNodesCount() > 0;
+        final boolean hideNonSelected = someSelection && (renderingOptions.isHideNonSelected() || renderingOptions.getLightenNonSelectedFactor() >= 1);
+
+        if (!someSelection || !renderingOptions.isShowNodes()) {
+            disks.clear();
+            selectionFrames.publish(new SelectionFrame(writeSlot, someSelection, hideNonSelected));
+            return;
+        }
+
+        final Graph graph = graphIndex.getGraph();
+        final int count;
+        graph.readLock();
+        try {
+            count = collectSelectedNodes(graph, selection, engine.getLookup().lookup(GraphSelectionNeighbours.class));
+        } finally {
+            graph.readUnlockAll();
+        }
+
+        if (disks.build(selectedNodesArray, count, engine.getZoom(), true)) {
+            metrics.addBufferGrowth();
+        }
+        Arrays.fill(selectedNodesArray, 0, count, null);
+
+        selectionFrames.publish(new SelectionFrame(writeSlot, someSelection, hideNonSelected));
     }
 
     public void drawArrays(GL2ES2 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
         final float[] backgroundColorFloats = engine.getBackgroundColor();
-        final float zoom = engine.getZoom();
 
-        final int instanceCount;
-        final int instancesOffset;
+        final NodeDisks disks;
         final float colorLightenFactor;
+        final GLBuffer verticesBuffer;
+        final GLBuffer indicesBuffer;
 
         if (layer == RenderingLayer.BACK) {
-            instanceCount = instanceCounter.unselectedCountToDraw * 2;
-            instancesOffset = 0;
-            colorLightenFactor = engine.getLookup().lookup(GraphRenderingOptions.class).getLightenNonSelectedFactor();
+            //All the nodes, lightened when some are selected:
+            disks = drawnSelectionFrame.hideNonSelected ? null : drawnDisks;
+            colorLightenFactor = drawnSelectionFrame.someSelection ? engine.getLookup().lookup(GraphRenderingOptions.class).getLightenNonSelectedFactor() : 0;
+            verticesBuffer = vertexGLBuffer;
+            indicesBuffer = indicesGLBuffer;
         } else {
-            instanceCount = instanceCounter.selectedCountToDraw * 2;
-            instancesOffset = instanceCounter.unselectedCountToDraw * 2;
+            //Selected nodes, over them:
+            disks = drawnSelectionDisks;
             colorLightenFactor = 0;
+            verticesBuffer = selectionVertexGLBuffer;
+            indicesBuffer = selectionIndicesGLBuffer;
         }
 
-        if (instanceCount > 0) {
-            setupVertexArrayAttributes(engine, gl);
-            diskModel64.useProgram(gl, mvpFloats, backgroundColorFloats, colorLightenFactor);
-
-            final float[] attrs = new float[ATTRIBS_STRIDE];
-            int index = instancesOffset * ATTRIBS_STRIDE;
-
-            //We have to perform one draw call per intance because repeating the attributes without instancing per each vertex would use too much memory:
-            currentAttributesBuffer.position(index);
-            for (int i = 0; i < instanceCount; i++) {
-                currentAttributesBuffer.get(attrs);
-
-                //Choose LOD:
-                final float size = attrs[5];
-                final float observedSize = size * zoom;
-
-                final int circleVertexCount;
-                final int firstVertex;
-                if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
-                    circleVertexCount = circleVertexCount64;
-                    firstVertex = firstVertex64;
-                } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
-                    circleVertexCount = circleVertexCount32;
-                    firstVertex = firstVertex32;
-                } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
-                    circleVertexCount = circleVertexCount16;
-                    firstVertex = firstVertex16;
-                } else {
-                    circleVertexCount = circleVertexCount8;
-                    firstVertex = firstVertex8;
-                }
+        if (disks == null || disks.getBatchesCount() == 0) {
+            return;
+        }
+
+        diskModel.useProgram(gl, mvpFloats, backgroundColorFloats, colorLightenFactor);
+        verticesBuffer.bind(gl);
+        indicesBuffer.bind(gl);
 
-                //Define instance attributes:
-                gl.glVertexAttrib2fv(SHADER_POSITION_LOCATION, attrs, 0);
+        for (int i = 0; i < disks.getBatchesCount(); i++) {
+            diskModel.drawBatch(gl, disks.getBatchFirstVertex(i), disks.getBatchFirstIndex(i), disks.getBatchIndexCount(i));
+        }
 
-                //No vertexAttribArray, we have to unpack rgba manually:
-                final int argb = Float.floatToRawIntBits(attrs[2]);
+        indicesBuffer.unbind(gl);
+        verticesBuffer.unbind(gl);
+        diskModel.stopUsingProgram(gl);
+    }
 
-                final int a = ((argb >> 24) & 0xFF);
-                final int r = ((argb >> 16) & 0xFF);
-                final int g = ((argb >> 8) & 0xFF);
-                final int b = (argb & 0xFF);
+    private NodesFrame drawnFrame = NodesFrame.empty(-1);
+    private NodeDisks drawnDisks;
+    private SelectionFrame drawnSelectionFrame = SelectionFrame.empty(-1);
+    private NodeDisks drawnSelectionDisks;
 
-                gl.glVertexAttrib4f(SHADER_COLOR_LOCATION, b, g, r, a);
+    public void updateBuffers(GL2ES2 gl) {
+        if (frames.acquire()) {
+            drawnFrame = frames.getReadFrame();
+            drawnDisks = disksList[drawnFrame.getSlot()];
 
-                gl.glVertexAttrib1fv(SHADER_COLOR_BIAS_LOCATION, attrs, 3);
-                gl.glVertexAttrib1fv(SHADER_COLOR_MULTIPLIER_LOCATION, attrs, 4);
-                gl.glVertexAttrib1f(SHADER_SIZE_LOCATION, size);
+            upload(gl, drawnDisks, vertexGLBuffer, indicesGLBuffer, metrics);
+        }
 
-                //Draw the instance:
-                diskModel64.drawArraysSingleInstance(gl, firstVertex, circleVertexCount);
-            }
+        if (selectionFrames.acquire()) {
+            drawnSelectionFrame = selectionFrames.getReadFrame();
+            drawnSelectionDisks = selectionDisksList[drawnSelectionFrame.getSlot()];
 
-            diskModel64.stopUsingProgram(gl);
-            unsetupVertexArrayAttributes(gl);
+            upload(gl, drawnSelectionDisks, selectionVertexGLBuffer, selectionIndicesGLBuffer, metrics);
         }
     }
 
-    private FloatBuffer currentAttributesBuffer;
+    private static void upload(GL2ES2 gl, NodeDisks disks, GLBuffer verticesBuffer, GLBuffer indicesBuffer, EngineMetrics metrics) {
+        if (disks.getBatchesCount() == 0) {
+            return;
+        }
+
+        //Only the used part of the buffers:
+        final long verticesBytes = (long) disks.getVertexCount() * VERTEX_FLOATS * Float.BYTES;
+        final long indicesBytes = (long) disks.getIndexCount() * Short.BYTES;
 
-    public void updateBuffers() {
-        currentAttributesBuffer = attributesBuffersList[currentBufferIndex].floatBuffer();
-        instanceCounter.promoteCountToDraw();
+        verticesBuffer.bind(gl);
+        verticesBuffer.update(gl, disks.vertices.floatBuffer(), verticesBytes);
+        verticesBuffer.unbind(gl);
+
+        indicesBuffer.bind(gl);
+        indicesBuffer.update(gl, disks.indices.shortBuffer(), indicesBytes);
+        indicesBuffer.unbind(gl);
+
+        metrics.addBytesUploaded(verticesBytes + indicesBytes);
     }
 
     //Triple buffering to ensure CPU and GPU don't access the same buffer at the same time:
-    private static final int NUM_BUFFERS = 3;
-    private int currentBufferIndex = 0;
-    private final ManagedDirectBuffer[] attributesBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
+    private static final int NUM_BUFFERS = TripleBufferExchange.SLOTS;
+    private final TripleBufferExchange<NodesFrame> frames = new TripleBufferExchange<>();
+    private final DataUpdateTracker updateTracker;
+    private final NodeDisks[] disksList = new NodeDisks[NUM_BUFFERS];
+    private EngineMetrics metrics;
 
-    private float[] attributesBufferBatch;
-    private static final int BATCH_NODES_SIZE = 32768;
+    //Selected nodes, drawn again over all the nodes:
+    private static final int SELECTION_INITIAL_VERTICES = 4096;
+    private final boolean selectionOverlay;
+    private final TripleBufferExchange<SelectionFrame> selectionFrames = new TripleBufferExchange<>();
+    private final DataUpdateTracker selectionUpdateTracker = new DataUpdateTracker(true, false);
+    private final NodeDisks[] selectionDisksList = new NodeDisks[NUM_BUFFERS];
 
-    private void initBuffers(GL2ES2 gl) {
-        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_NODES_SIZE * 2];
+    private static final int INITIAL_VERTICES = 65536;
 
-        bufferName = GLBuffers.newDirectIntBuffer(3);
+    private void initBuffers(GL2ES2 gl) {
+        initCPUBuffers();
 
-        final float[] circleVertexData = new float[diskModel64.getVertexData().length + diskModel32.getVertexData().length + diskModel16.getVertexData().length + diskModel8.getVertexData().length];
-        int offset = 0;
-        System.arraycopy(diskModel64.getVertexData(), 0, circleVertexData, offset, diskModel64.getVertexData().length);
-        offset += diskModel64.getVertexData().length;
-        System.arraycopy(diskModel32.getVertexData(), 0, circleVertexData, offset, diskModel32.getVertexData().length);
-        offset += diskModel32.getVertexData().length;
-        System.arraycopy(diskModel16.getVertexData(), 0, circleVertexData, offset, diskModel16.getVertexData().length);
-        offset += diskModel16.getVertexData().length;
-        System.arraycopy(diskModel8.getVertexData(), 0, circleVertexData, offset, diskModel8.getVertexData().length);
-        final FloatBuffer circleVertexBuffer = GLBuffers.newDirectFloatBuffer(circleVertexData);
+        bufferName = GLBuffers.newDirectIntBuffer(4);
 
         gl.glGenBuffers(bufferName.capacity(), bufferName);
 
-        vertexGLBuffer = new GLBufferMutable(bufferName.get(VERT_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-        vertexGLBuffer.bind(gl);
-        vertexGLBuffer.init(gl, circleVertexBuffer, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
-        vertexGLBuffer.unbind(gl);
+        vertexGLBuffer = initGLBuffer(gl, bufferName.get(VERT_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY, INITIAL_VERTICES * VERTEX_FLOATS * Float.BYTES);
+        indicesGLBuffer = initGLBuffer(gl, bufferName.get(INDICES_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ELEMENT_INDICES, INITIAL_VERTICES * 3 * Short.BYTES);
+        selectionVertexGLBuffer = initGLBuffer(gl, bufferName.get(SELECTION_VERT_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY, SELECTION_INITIAL_VERTICES * VERTEX_FLOATS * Float.BYTES);
+        selectionIndicesGLBuffer = initGLBuffer(gl, bufferName.get(SELECTION_INDICES_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ELEMENT_INDICES, SELECTION_INITIAL_VERTICES * 3 * Short.BYTES);
+    }
+
+    private static GLBuffer initGLBuffer(GL2ES2 gl, int name, int type, long sizeBytes) {
+        final GLBuffer buffer = new GLBufferMutable(name, type);
+        buffer.bind(gl);
+        buffer.init(gl, sizeBytes, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        buffer.unbind(gl);
 
-        BufferUtils.destroyDirectBuffer(circleVertexBuffer);
+        return buffer;
+    }
 
+    /**
+     * Allocates the CPU side buffers filled by {@link #update(VizEngine, GraphIndexImpl)}. It does not need a GL context.
+     */
+    public void initCPUBuffers() {
         for (int i = 0; i < NUM_BUFFERS; i++) {
-            attributesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_NODES_SIZE * 2);
+            disksList[i] = new NodeDisks(INITIAL_VERTICES);
+            selectionDisksList[i] = new NodeDisks(SELECTION_INITIAL_VERTICES);
         }
     }
 
-    private void updateData(final GraphIndexImpl spatialIndex, final GraphRenderingOptions renderingOptions, final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection, final float zoom) {
+    private NodesFrame updateData(final Rect2D area, final GraphIndexImpl spatialIndex, final float zoom, final GraphRenderingOptions renderingOptions) {
+        final int writeSlot = frames.getWriteSlot();
+        final NodeDisks disks = disksList[writeSlot];
+
         if (!renderingOptions.isShowNodes()) {
-            instanceCounter.clearCount();
-            return;
+            disks.clear();
+            return frames.publish(NodesFrame.empty(writeSlot));
         }
 
         spatialIndex.indexNodes();
 
-        //Selection:
-        final boolean someSelection = selection.getSelectedNodesCount() > 0;
-        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
-        final boolean hideNonSelected = someSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
-
-        final int totalNodes = spatialIndex.getNodeCount();
-
-        final byte nextBufferIndex = (byte) ((currentBufferIndex + 1) % 3);
-        final ManagedDirectBuffer attributesBuffer = attributesBuffersList[nextBufferIndex];
-
-        attributesBuffer.ensureCapacity(totalNodes * ATTRIBS_STRIDE * 2);
-
-        final FloatBuffer attribs = attributesBuffer.floatBuffer();
-
-        spatialIndex.getVisibleNodes(nodesCallback);
+        spatialIndex.getNodesInArea(area, nodesCallback);
 
         final Node[] visibleNodesArray = nodesCallback.getNodesArray();
         final int visibleNodesCount = nodesCallback.getCount();
 
-        int newNodesCountUnselected = 0;
-        int newNodesCountSelected = 0;
-
         float maxNodeSize = 0;
         for (int j = 0; j < visibleNodesCount; j++) {
             final float size = visibleNodesArray[j].size();
             maxNodeSize = size >= maxNodeSize ? size : maxNodeSize;
         }
 
-        int index = 0;
-        if (someSelection) {
-            if (hideNonSelected) {
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
+        //All the nodes as without selection. Selected nodes are drawn again over them from their own buffer, so this data does not change with the selection:
+        if (disks.build(visibleNodesArray, visibleNodesCount, zoom, false)) {
+            metrics.addBufferGrowth();
+        }
 
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (!selected) {
-                        continue;
-                    }
+        return frames.publish(new NodesFrame(writeSlot, visibleNodesCount, 0, maxNodeSize));
+    }
 
-                    newNodesCountSelected++;
+    private static int getLevelOfDetail(final float observedSize) {
+        if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
+            return 0;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
+            return 1;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
 
-                    index = fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
+    /**
+     * Selected nodes written into a slot of the selection disks, with the selection state of all the nodes.
+     */
+    private static class SelectionFrame implements TripleBufferExchange.Frame {
 
-                    if (index == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch, 0, attributesBufferBatch.length);
-                        index = 0;
-                    }
-                }
-            } else {
-                //First non-selected (bottom):
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
-
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (selected) {
-                        continue;
-                    }
+        private final int slot;
+        private final boolean someSelection;
+        private final boolean hideNonSelected;
 
-                    newNodesCountUnselected++;
+        public SelectionFrame(int slot, boolean someSelection, boolean hideNonSelected) {
+            this.slot = slot;
+            this.someSelection = someSelection;
+            this.hideNonSelected = hideNonSelected;
+        }
 
-                    index = fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, false);
+        public static SelectionFrame empty(int slot) {
+            return new SelectionFrame(slot, false, false);
+        }
 
-                    if (index == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch, 0, attributesBufferBatch.length);
-                        index = 0;
-                    }
-                }
+        @Override
+        public int getSlot() {
+            return slot;
+        }
+    }
 
-                //Then selected ones (up):
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
+    /**
+     * Disks of some nodes expanded into vertices and indices, with the batches to draw them.
+     */
+    private static class NodeDisks {
+
+        private static final int STAGING_VERTICES = 8192;
+        private static final int INITIAL_BATCHES = 16;
+
+        private final ManagedDirectBuffer vertices;
+        private final ManagedDirectBuffer indices;
+        private final float[] verticesStaging = new float[STAGING_VERTICES * VERTEX_FLOATS];
+        private final short[] indicesStaging = new short[STAGING_VERTICES * 3];
+
+        private int vertexCount = 0;
+        private int indexCount = 0;
+        private int batchesCount = 0;
+        private int[] batchFirstVertex = new int[INITIAL_BATCHES];
+        private int[] batchFirstIndex = new int[INITIAL_BATCHES];
+        private int[] batchIndexCount = new int[INITIAL_BATCHES];
+
+        public NodeDisks(int initialVertices) {
+            vertices = new ManagedDirectBuffer(GL_FLOAT, initialVertices * VERTEX_FLOATS);
+            indices = new ManagedDirectBuffer(GL_UNSIGNED_SHORT, initialVertices * 3);
+        }
 
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (!selected) {
-                        continue;
-                    }
+        /**
+         * Replaces the disks with the ones of the given nodes.
+         *
+         * @param nodes Nodes
+         * @param count Nodes count
+         * @param zoom Zoom, for the level of detail
+         * @param selected True to flag the nodes as selected
+         * @return True if the buffers had to grow
+         */
+        public boolean build(final Node[] nodes, final int count, final float zoom, final boolean selected) {
+            //Count first so the buffers grow at most once:
+            int totalVertices = 0;
+            int totalIndices = 0;
+            for (int i = 0; i < count; i++) {
+                final int points = CIRCLE_POINTS[getLevelOfDetail(nodes[i].size() * zoom)].length / 2;
+                totalVertices += (points + 1) * 2;
+                totalIndices += points * 3 * 2;
+            }
 
-                    newNodesCountSelected++;
+            boolean grown = vertices.ensureCapacity(totalVertices * VERTEX_FLOATS);
+            grown |= indices.ensureCapacity(totalIndices);
+
+            final FloatBuffer verticesBuffer = vertices.floatBuffer();
+            final ShortBuffer indicesBuffer = indices.shortBuffer();
+
+            final float borderFlags = Float.intBitsToFloat(selected ? FLAG_SELECTED : 0);
+            final float insideFlags = Float.intBitsToFloat((selected ? FLAG_SELECTED : 0) | FLAG_INSIDE);
+
+            clear();
+            int batchVertex = 0;
+            int batchIndex = 0;
+            int verticesIndex = 0;
+            int indicesIndex = 0;
+            for (int i = 0; i < count; i++) {
+                final Node node = nodes[i];
+                final float x = node.x();
+                final float y = node.y();
+                final float size = node.size();
+                final float color = Float.intBitsToFloat(node.getRGBA());
+                final float[] circlePoints = CIRCLE_POINTS[getLevelOfDetail(size * zoom)];
+                final int points = circlePoints.length / 2;
+                final int nodeVertices = (points + 1) * 2;
+
+                //A node never spans two batches:
+                if (vertexCount - batchVertex + nodeVertices > MAX_BATCH_VERTICES) {
+                    addBatch(batchVertex, batchIndex);
+                    batchVertex = vertexCount;
+                    batchIndex = indexCount;
+                }
 
-                    index = fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
+                if (verticesIndex + nodeVertices * VERTEX_FLOATS > verticesStaging.length) {
+                    verticesBuffer.put(verticesStaging, 0, verticesIndex);
+                    verticesIndex = 0;
+                }
+                if (indicesIndex + points * 3 * 2 > indicesStaging.length) {
+                    indicesBuffer.put(indicesStaging, 0, indicesIndex);
+                    indicesIndex = 0;
+                }
 
-                    if (index == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch, 0, attributesBufferBatch.length);
-                        index = 0;
+                //Border circle first, then inside circle drawn over it:
+                for (int inside = 0; inside <= 1; inside++) {
+                    final float radius = inside == 0 ? size : size * INSIDE_CIRCLE_SIZE;
+                    final float flags = inside == 0 ? borderFlags : insideFlags;
+                    final int center = vertexCount - batchVertex;
+
+                    verticesStaging[verticesIndex++] = x;
+                    verticesStaging[verticesIndex++] = y;
+                    verticesStaging[verticesIndex++] = color;
+                    verticesStaging[verticesIndex++] = flags;
+
+                    for (int p = 0; p < points; p++) {
+                        verticesStaging[verticesIndex++] = x + circlePoints[p * 2] * radius;
+                        verticesStaging[verticesIndex++] = y + circlePoints[p * 2 + 1] * radius;
+                        verticesStaging[verticesIndex++] = color;
+                        verticesStaging[verticesIndex++] = flags;
+
+                        //Unsigned short indices:
+                        indicesStaging[indicesIndex++] = (short) center;
+                        indicesStaging[indicesIndex++] = (short) (center + 1 + p);
+                        indicesStaging[indicesIndex++] = (short) (center + 1 + (p + 1) % points);
                     }
+
+                    vertexCount += points + 1;
+                    indexCount += points * 3;
                 }
             }
-        } else {
-            //Just all nodes, no selection active:
-            for (int j = 0; j < visibleNodesCount; j++) {
-                final Node node = visibleNodesArray[j];
 
-                newNodesCountSelected++;
+            //Remaining:
+            verticesBuffer.put(verticesStaging, 0, verticesIndex);
+            indicesBuffer.put(indicesStaging, 0, indicesIndex);
+            if (indexCount > batchIndex) {
+                addBatch(batchVertex, batchIndex);
+            }
 
-                index = fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
+            return grown;
+        }
 
-                if (index == attributesBufferBatch.length) {
-                    attribs.put(attributesBufferBatch, 0, attributesBufferBatch.length);
-                    index = 0;
-                }
+        private void addBatch(int firstVertex, int firstIndex) {
+            if (batchesCount == batchFirstVertex.length) {
+                batchFirstVertex = Arrays.copyOf(batchFirstVertex, batchesCount * 2);
+                batchFirstIndex = Arrays.copyOf(batchFirstIndex, batchesCount * 2);
+                batchIndexCount = Arrays.copyOf(batchIndexCount, batchesCount * 2);
             }
+
+            batchFirstVertex[batchesCount] = firstVertex;
+            batchFirstIndex[batchesCount] = firstIndex;
+            batchIndexCount[batchesCount] = indexCount - firstIndex;
+            batchesCount++;
+        }
+
+        public void clear() {
+            vertexCount = 0;
+            indexCount = 0;
+            batchesCount = 0;
+        }
+
+        public int getVertexCount() {
+            return vertexCount;
+        }
+
+        public int getIndexCount() {
+            return indexCount;
+        }
+
+        public int getBatchesCount() {
+            return batchesCount;
         }
 
-        //Remaining:
-        if (index > 0) {
-            attribs.put(attributesBufferBatch, 0, index);
+        public int getBatchFirstVertex(int batch) {
+            return batchFirstVertex[batch];
         }
 
-        currentBufferIndex = nextBufferIndex;
-        instanceCounter.unselectedCount = newNodesCountUnselected;
-        instanceCounter.selectedCount = newNodesCountSelected;
+        public int getBatchFirstIndex(int batch) {
+            return batchFirstIndex[batch];
+        }
+
+        public int getBatchIndexCount(int batch) {
+            return batchIndexCount[batch];
+        }
+
+        public void destroy() {
+            vertices.destroy();
+            indices.destroy();
+        }
     }
 
     @Override
     public void dispose(GL gl) {
+        updateTracker.reset();
+        selectionUpdateTracker.reset();
+        frames.reset();
+        selectionFrames.reset();
+        drawnFrame = NodesFrame.empty(-1);
+        drawnDisks = null;
+        drawnSelectionFrame = SelectionFrame.empty(-1);
+        drawnSelectionDisks = null;
         super.dispose(gl);
-        attributesBufferBatch = null;
-        for (ManagedDirectBuffer buffer : attributesBuffersList) {
-            if (buffer != null) {
-                buffer.destroy();
+
+        if (indicesGLBuffer != null) {
+            indicesGLBuffer.destroy(gl);
+            indicesGLBuffer = null;
+        }
+        if (selectionVertexGLBuffer != null) {
+            selectionVertexGLBuffer.destroy(gl);
+            selectionVertexGLBuffer = null;
+        }
+        if (selectionIndicesGLBuffer != null) {
+            selectionIndicesGLBuffer.destroy(gl);
+            selectionIndicesGLBuffer = null;
+        }
+
+        for (int i = 0; i < NUM_BUFFERS; i++) {
+            if (disksList[i] != null) {
+                disksList[i].destroy();
+                disksList[i] = null;
+            }
+            if (selectionDisksList[i] != null) {
+                selectionDisksList[i].destroy();
+                selectionDisksList[i] = null;
             }
         }
     }
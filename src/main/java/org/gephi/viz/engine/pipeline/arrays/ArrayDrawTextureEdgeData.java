@@ -0,0 +1,447 @@
+package org.gephi.viz.engine.pipeline.arrays;
+
+import com.jogamp.opengl.GL;
+import static com.jogamp.opengl.GL.GL_FLOAT;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.util.GLBuffers;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.models.EdgeLineModelTexture;
+import static org.gephi.viz.engine.models.EdgeLineModelTexture.*;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.pipeline.common.DataUpdateTracker;
+import org.gephi.viz.engine.pipeline.common.EdgesFrame;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.ArrayUtils;
+import static org.gephi.viz.engine.util.Constants.SHADER_VERT_LOCATION;
+import org.gephi.viz.engine.util.BufferUtils;
+import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.util.TripleBufferExchange;
+import org.gephi.viz.engine.util.gl.GLBuffer;
+import org.gephi.viz.engine.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.util.gl.capabilities.GLCapabilities;
+
+/**
+ * Edges for GL versions without instancing, that pull their attributes from a float texture in the vertex shader. The texture is uploaded once per world update, with one copy of the attributes of each edge, instead of copying the attributes once per vertex and uploading them every frame. Needs vertex texture fetch and float textures.
+ *
+ * <p>
+ * Edges that don't fit in one texture of the max texture size are split into several textures, drawn in several passes.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class ArrayDrawTextureEdgeData extends AbstractEdgeData {
+
+    private final EdgeLineModelTexture textureModelUndirected = new EdgeLineModelTexture(false);
+    private final EdgeLineModelTexture textureModelDirected = new EdgeLineModelTexture(true);
+
+    private IntBuffer bufferName;
+
+    private static final int VERT_BUFFER_UNDIRECTED = 0;
+    private static final int VERT_BUFFER_DIRECTED = 1;
+
+    private static final int TEXTURE_UNIT = 0;
+    private static final int MAX_EDGES_PER_ROW = 1024;
+    //Edge indices are floats in the shaders:
+    private static final int MAX_EDGES = 1 << 24;
+
+    private int[] textureNames = new int[0];
+    private int[] textureHeights = new int[0];
+    private int edgesPerRow;
+    private int textureWidth;
+    private int maxTextureHeight;
+    private int edgesPerTexture;
+
+    public ArrayDrawTextureEdgeData() {
+        super(false);
+    }
+
+    public void init(GL2ES2 gl, GLCapabilities capabilities) {
+        //Programs of the attributes per vertex are not needed:
+        textureModelUndirected.initGLPrograms(gl);
+        textureModelDirected.initGLPrograms(gl);
+        initBuffers(gl, capabilities.getVersion().MAX_TEXTURE_SIZE);
+    }
+
+    public void update(VizEngine engine, GraphIndexImpl graphIndex) {
+        final Rect2D area = updateTracker.nextUpdateArea(engine, graphIndex);
+        if (area == null) {
+            //Nothing changed since last update
+            return;
+        }
+
+        metrics = engine.getMetrics();
+
+        final EdgesFrame frame = updateData(
+                area,
+                engine.getZoom(),
+                graphIndex,
+                engine.getLookup().lookup(GraphRenderingOptions.class),
+                engine.getLookup().lookup(GraphSelection.class)
+        );
+
+        metrics.setVisibleEdgesCount(frame.getTotalCount());
+    }
+
+    public void drawArrays(GL2ES2 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
+        GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+
+        final float[] backgroundColorFloats = engine.getBackgroundColor();
+        final float edgeScale = renderingOptions.getEdgeScale();
+        float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+
+        final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
+
+        final float minWeight = graphIndex.getEdgesMinWeight();
+        final float maxWeight = graphIndex.getEdgesMaxWeight();
+
+        final int undirectedCount;
+        final int undirectedOffset;
+        final int directedCount;
+        final int directedOffset;
+        final float colorLightenFactor;
+
+        if (layer == RenderingLayer.BACK) {
+            undirectedCount = drawnFrame.getUndirectedUnselectedCount();
+            undirectedOffset = 0;
+            directedCount = drawnFrame.getDirectedUnselectedCount();
+            directedOffset = drawnFrame.getUndirectedCount();
+            colorLightenFactor = lightenNonSelectedFactor;
+        } else {
+            undirectedCount = drawnFrame.getUndirectedSelectedCount();
+            undirectedOffset = drawnFrame.getUndirectedUnselectedCount();
+            directedCount = drawnFrame.getDirectedSelectedCount();
+            directedOffset = drawnFrame.getUndirectedCount() + drawnFrame.getDirectedUnselectedCount();
+            colorLightenFactor = 0;
+        }
+
+        if (undirectedCount <= 0 && directedCount <= 0) {
+            return;
+        }
+
+        gl.glActiveTexture(GL.GL_TEXTURE0 + TEXTURE_UNIT);
+
+        draw(gl, textureModelUndirected, vertexGLBufferUndirected, undirectedOffset, undirectedCount,
+                mvpFloats, backgroundColorFloats, colorLightenFactor, edgeScale, minWeight, maxWeight);
+        draw(gl, textureModelDirected, vertexGLBufferDirected, directedOffset, directedCount,
+                mvpFloats, backgroundColorFloats, colorLightenFactor, edgeScale, minWeight, maxWeight);
+
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 0);
+    }
+
+    private void draw(GL2ES2 gl, EdgeLineModelTexture model, GLBuffer batchVertexGLBuffer, int offset, int count, float[] mvpFloats, float[] backgroundColorFloats, float colorLightenFactor, float edgeScale, float minWeight, float maxWeight) {
+        if (count <= 0) {
+            return;
+        }
+
+        batchVertexGLBuffer.bind(gl);
+        gl.glEnableVertexAttribArray(SHADER_VERT_LOCATION);
+        gl.glVertexAttribPointer(SHADER_VERT_LOCATION, model.getVertexFloats(), GL_FLOAT, false, 0, 0);
+
+        //One pass per texture with edges of the range, edge indices are relative to their texture:
+        final int maxIndex = offset + count;
+        for (int texture = offset / edgesPerTexture; texture * edgesPerTexture < maxIndex; texture++) {
+            final int textureFirstEdge = texture * edgesPerTexture;
+            final int firstIndex = Math.max(offset, textureFirstEdge);
+            final int lastIndex = Math.min(maxIndex, textureFirstEdge + edgesPerTexture);
+
+            gl.glBindTexture(GL.GL_TEXTURE_2D, textureNames[texture]);
+            model.useProgram(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, edgeScale, minWeight, maxWeight, TEXTURE_UNIT, edgesPerRow, textureWidth, textureHeights[texture]);
+
+            for (int edgeBase = firstIndex; edgeBase < lastIndex; edgeBase += BATCH_EDGES_SIZE) {
+                model.drawBatch(gl, edgeBase - textureFirstEdge, Math.min(lastIndex - edgeBase, BATCH_EDGES_SIZE));
+            }
+        }
+
+        gl.glDisableVertexAttribArray(SHADER_VERT_LOCATION);
+        batchVertexGLBuffer.unbind(gl);
+
+        model.stopUsingProgram(gl);
+    }
+
+    //Triple buffering to ensure CPU and GPU don't access the same buffer at the same time:
+    private static final int NUM_BUFFERS = TripleBufferExchange.SLOTS;
+    private final TripleBufferExchange<EdgesFrame> frames = new TripleBufferExchange<>();
+    private EdgesFrame drawnFrame = EdgesFrame.empty(-1);
+    private final DataUpdateTracker updateTracker = new DataUpdateTracker(true);
+    private final ManagedDirectBuffer[] textureBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
+    private EngineMetrics metrics;
+
+    private static final int BATCH_EDGES_SIZE = 65536;
+
+    //Filled by the world updater before converting to the texture layout:
+    private float[] attributesBuffer;
+
+    private void initBuffers(GL2ES2 gl, int maxTextureSize) {
+        initCPUBuffers();
+
+        bufferName = GLBuffers.newDirectIntBuffer(2);
+
+        gl.glGenBuffers(bufferName.capacity(), bufferName);
+
+        vertexGLBufferUndirected = initBatchVertexBuffer(gl, bufferName.get(VERT_BUFFER_UNDIRECTED), textureModelUndirected);
+        vertexGLBufferDirected = initBatchVertexBuffer(gl, bufferName.get(VERT_BUFFER_DIRECTED), textureModelDirected);
+
+        edgesPerRow = Math.min(MAX_EDGES_PER_ROW, Integer.highestOneBit(maxTextureSize / TEXELS_PER_EDGE));//Power of two for exact divisions in the shaders
+        textureWidth = edgesPerRow * TEXELS_PER_EDGE;
+        maxTextureHeight = maxTextureSize;
+        edgesPerTexture = Math.min(edgesPerRow * maxTextureHeight, MAX_EDGES);
+
+        ensureTextures(gl, 1);
+        ensureTextureHeight(gl, 0, 1);
+    }
+
+    private void ensureTextures(GL2ES2 gl, int count) {
+        final int previousCount = textureNames.length;
+        if (count <= previousCount) {
+            return;
+        }
+
+        textureNames = Arrays.copyOf(textureNames, count);
+        textureHeights = Arrays.copyOf(textureHeights, count);
+        gl.glGenTextures(count - previousCount, textureNames, previousCount);
+
+        for (int i = previousCount; i < count; i++) {
+            gl.glBindTexture(GL.GL_TEXTURE_2D, textureNames[i]);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER, GL.GL_NEAREST);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_NEAREST);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_WRAP_S, GL.GL_CLAMP_TO_EDGE);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_WRAP_T, GL.GL_CLAMP_TO_EDGE);
+        }
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 0);
+    }
+
+    private static GLBuffer initBatchVertexBuffer(GL2ES2 gl, int name, EdgeLineModelTexture model) {
+        final FloatBuffer vertexData = GLBuffers.newDirectFloatBuffer(model.getBatchVertexData(BATCH_EDGES_SIZE));
+
+        final GLBuffer buffer = new GLBufferMutable(name, GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        buffer.bind(gl);
+        buffer.init(gl, vertexData, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+        buffer.unbind(gl);
+        BufferUtils.destroyDirectBuffer(vertexData);
+
+        return buffer;
+    }
+
+    private boolean ensureTextureHeight(GL2ES2 gl, int texture, int rows) {
+        if (rows <= textureHeights[texture]) {
+            return false;
+        }
+
+        final int newHeight = Math.min(GLBuffers.getNextPowerOf2(rows), maxTextureHeight);
+
+        //GL ES 2 only has unsized formats, float with OES_texture_float:
+        final int internalFormat = gl.isGLES() ? GL.GL_RGBA : GL.GL_RGBA32F;
+
+        gl.glBindTexture(GL.GL_TEXTURE_2D, textureNames[texture]);
+        gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, internalFormat, textureWidth, newHeight, 0, GL.GL_RGBA, GL_FLOAT, null);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 0);
+
+        textureHeights[texture] = newHeight;
+        return true;
+    }
+
+    /**
+     * Allocates the CPU side buffers filled by {@link #update(VizEngine, GraphIndexImpl)}. It does not need a GL context.
+     */
+    public void initCPUBuffers() {
+        attributesBuffer = new float[ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
+
+        for (int i = 0; i < NUM_BUFFERS; i++) {
+            textureBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, EDGE_FLOATS * BATCH_EDGES_SIZE);
+        }
+    }
+
+    public void updateBuffers(GL2ES2 gl, VizEngine engine) {
+        if (frames.acquire()) {
+            drawnFrame = frames.getReadFrame();
+
+            final int totalCount = drawnFrame.getTotalCount();
+            final int texturesCount = (totalCount + edgesPerTexture - 1) / edgesPerTexture;
+            if (texturesCount > 1) {
+                engine.getMetrics().addTextureOverflow();
+            }
+            ensureTextures(gl, texturesCount);
+
+            final FloatBuffer data = textureBuffersList[drawnFrame.getSlot()].floatBuffer();
+            for (int texture = 0; texture < texturesCount; texture++) {
+                final int firstEdge = texture * edgesPerTexture;
+                if (uploadTexture(gl, texture, data, firstEdge, Math.min(totalCount - firstEdge, edgesPerTexture))) {
+                    engine.getMetrics().addBufferGrowth();
+                }
+            }
+
+            metrics.addBytesUploaded((long) totalCount * EDGE_FLOATS * Float.BYTES);
+        }
+    }
+
+    private boolean uploadTexture(GL2ES2 gl, int texture, FloatBuffer data, int firstEdge, int edgesCount) {
+        final int fullRows = edgesCount / edgesPerRow;
+        final int lastRowEdges = edgesCount % edgesPerRow;
+        final boolean grown = ensureTextureHeight(gl, texture, fullRows + (lastRowEdges > 0 ? 1 : 0));
+
+        gl.glBindTexture(GL.GL_TEXTURE_2D, textureNames[texture]);
+        if (fullRows > 0) {
+            data.position(firstEdge * EDGE_FLOATS);
+            gl.glTexSubImage2D(GL.GL_TEXTURE_2D, 0, 0, 0, textureWidth, fullRows, GL.GL_RGBA, GL_FLOAT, data);
+        }
+        if (lastRowEdges > 0) {
+            data.position((firstEdge + fullRows * edgesPerRow) * EDGE_FLOATS);
+            gl.glTexSubImage2D(GL.GL_TEXTURE_2D, 0, 0, fullRows, lastRowEdges * TEXELS_PER_EDGE, 1, GL.GL_RGBA, GL_FLOAT, data);
+        }
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 0);
+
+        return grown;
+    }
+
+    private EdgesFrame updateData(final Rect2D area, final float zoom, final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
+        final int nextBufferIndex = frames.getWriteSlot();
+
+        if (!renderingOptions.isShowEdges()) {
+            undirectedInstanceCounter.clearCount();
+            directedInstanceCounter.clearCount();
+            return frames.publish(EdgesFrame.empty(nextBufferIndex));
+        }
+
+        graphIndex.indexEdges();
+
+        //Selection:
+        final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
+        final boolean someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
+        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
+        final float edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
+        final float edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
+        final float edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
+
+        final int totalEdges = graphIndex.getEdgeCount();
+
+        attributesBuffer = ArrayUtils.ensureCapacityNoCopy(attributesBuffer, totalEdges * ATTRIBS_STRIDE);
+        final float[] attribs = attributesBuffer;
+
+        graphIndex.getEdgesInArea(area, edgesCallback);
+
+        final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
+        final int visibleEdgesCount = removeShortEdges(visibleEdgesArray, edgesCallback.getCount(), renderingOptions.getEdgeMinScreenLength() / zoom);
+
+        final Graph graph = graphIndex.getGraph();
+
+        int attribsIndex = 0;
+        attribsIndex = updateUndirectedData(
+                graph,
+                someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray,
+                graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
+                attribs, attribsIndex
+        );
+        updateDirectedData(
+                graph, someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray,
+                graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
+                attribs, attribsIndex
+        );
+
+        final int undirectedCount = undirectedInstanceCounter.total();
+        final int directedCount = directedInstanceCounter.total();
+
+        final ManagedDirectBuffer textureBuffer = textureBuffersList[nextBufferIndex];
+        if (textureBuffer.ensureCapacity((undirectedCount + directedCount) * EDGE_FLOATS)) {
+            metrics.addBufferGrowth();
+        }
+        final FloatBuffer textureData = textureBuffer.floatBuffer();
+        fillTextureData(attribs, 0, undirectedCount, false, textureData);
+        fillTextureData(attribs, undirectedCount, directedCount, true, textureData);
+
+        return frames.publish(new EdgesFrame(nextBufferIndex, undirectedInstanceCounter, directedInstanceCounter));
+    }
+
+    private final float[] textureDataBatch = new float[EDGE_FLOATS * 1024];
+
+    /**
+     * Converts the attributes of the vertex attribute layouts of {@link AbstractEdgeData} to the texture layout of {@link EdgeLineModelTexture}. Shaders of GL ES 2 can't read the bits of a float, so colors are converted to integer floats.
+     */
+    private void fillTextureData(final float[] attribs, final int firstEdge, final int count, final boolean directed, final FloatBuffer textureData) {
+        int batchIndex = 0;
+        for (int edge = firstEdge; edge < firstEdge + count; edge++) {
+            final int index = edge * ATTRIBS_STRIDE;
+
+            final int sourceColor = Float.floatToRawIntBits(attribs[index + 5]);
+            final int targetColor;
+            final int color;
+            final float colorBias;
+            final float colorMultiplier;
+            final float targetSize;
+            if (directed) {
+                targetColor = sourceColor;
+                color = Float.floatToRawIntBits(attribs[index + 6]);
+                colorBias = attribs[index + 7];
+                colorMultiplier = attribs[index + 8];
+                targetSize = attribs[index + 9];
+            } else {
+                targetColor = Float.floatToRawIntBits(attribs[index + 6]);
+                color = Float.floatToRawIntBits(attribs[index + 7]);
+                colorBias = attribs[index + 8];
+                colorMultiplier = attribs[index + 9];
+                targetSize = 0;
+            }
+
+            //Positions:
+            textureDataBatch[batchIndex++] = attribs[index];
+            textureDataBatch[batchIndex++] = attribs[index + 1];
+            textureDataBatch[batchIndex++] = attribs[index + 2];
+            textureDataBatch[batchIndex++] = attribs[index + 3];
+
+            //Size and color transformation:
+            textureDataBatch[batchIndex++] = attribs[index + 4];
+            textureDataBatch[batchIndex++] = colorBias;
+            textureDataBatch[batchIndex++] = colorMultiplier;
+            textureDataBatch[batchIndex++] = targetSize;
+
+            //ARGB colors, RGB and alphas as 24 bits integers that floats represent exactly:
+            textureDataBatch[batchIndex++] = sourceColor & 0xFFFFFF;
+            textureDataBatch[batchIndex++] = targetColor & 0xFFFFFF;
+            textureDataBatch[batchIndex++] = color & 0xFFFFFF;
+            textureDataBatch[batchIndex++] = ((sourceColor >>> 24) << 16) | ((targetColor >>> 24) << 8) | (color >>> 24);
+
+            if (batchIndex == textureDataBatch.length) {
+                textureData.put(textureDataBatch, 0, batchIndex);
+                batchIndex = 0;
+            }
+        }
+
+        //Remaining:
+        if (batchIndex > 0) {
+            textureData.put(textureDataBatch, 0, batchIndex);
+        }
+    }
+
+    @Override
+    public void dispose(GL gl) {
+        updateTracker.reset();
+        frames.reset();
+        drawnFrame = EdgesFrame.empty(-1);
+        super.dispose(gl);
+
+        if (textureNames.length > 0) {
+            gl.glDeleteTextures(textureNames.length, textureNames, 0);
+            textureNames = new int[0];
+            textureHeights = new int[0];
+        }
+
+        attributesBuffer = null;
+        for (int i = 0; i < textureBuffersList.length; i++) {
+            if (textureBuffersList[i] != null) {
+                textureBuffersList[i].destroy();
+                textureBuffersList[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.gephi.viz.engine.pipeline.arrays.renderers;
+
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GLAutoDrawable;
+import java.util.EnumSet;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.availability.ArrayDrawTexture;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.pipeline.arrays.ArrayDrawTextureEdgeData;
+import org.gephi.viz.engine.spi.Renderer;
+import org.gephi.viz.engine.util.Constants;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeRendererArrayDrawTexture implements Renderer {
+
+    private final VizEngine engine;
+    private final ArrayDrawTextureEdgeData edgeData;
+
+    public EdgeRendererArrayDrawTexture(VizEngine engine, ArrayDrawTextureEdgeData edgeData) {
+        this.engine = engine;
+        this.edgeData = edgeData;
+    }
+
+    @Override
+    public void init(GLAutoDrawable drawable) {
+        edgeData.init(drawable.getGL().getGL2ES2(), engine.getCapabilities());
+    }
+
+    @Override
+    public void worldUpdated(GLAutoDrawable drawable) {
+        edgeData.updateBuffers(drawable.getGL().getGL2ES2(), engine);
+    }
+
+    private final float[] mvpFloats = new float[16];
+
+    @Override
+    public void render(GLAutoDrawable drawable, RenderingLayer layer) {
+        final GL2ES2 gl = drawable.getGL().getGL2ES2();
+
+        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+
+        edgeData.drawArrays(gl, layer, engine, mvpFloats);
+    }
+
+    @Override
+    public EnumSet<RenderingLayer> getLayers() {
+        return EnumSet.of(RenderingLayer.BACK, RenderingLayer.MIDDLE);
+    }
+
+    @Override
+    public int getOrder() {
+        return Constants.RENDERING_ORDER_EDGES;
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.EDGE;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return ArrayDrawTexture.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Vertex Texture)";
+    }
+
+    @Override
+    public boolean isAvailable(GLAutoDrawable drawable) {
+        return ArrayDrawTexture.isAvailable(engine, drawable);
+    }
+}
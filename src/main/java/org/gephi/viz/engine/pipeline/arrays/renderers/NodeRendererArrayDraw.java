@@ -32,7 +32,7 @@ public class NodeRendererArrayDraw implements Renderer {
 
     @Override
     public void worldUpdated(GLAutoDrawable drawable) {
-        nodeData.updateBuffers();
+        nodeData.updateBuffers(drawable.getGL().getGL2ES2());
     }
 
     private final float[] mvpFloats = new float[16];
@@ -0,0 +1,67 @@
+package org.gephi.viz.engine.pipeline.arrays.updaters;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.availability.ArrayDrawTexture;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.pipeline.arrays.ArrayDrawTextureEdgeData;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgesUpdaterArrayDrawTextureRendering implements WorldUpdater {
+
+    private final VizEngine engine;
+    private final ArrayDrawTextureEdgeData edgeData;
+    private final GraphIndexImpl spatialIndex;
+
+    public EdgesUpdaterArrayDrawTextureRendering(VizEngine engine, ArrayDrawTextureEdgeData edgeData, GraphIndexImpl spatialIndex) {
+        this.engine = engine;
+        this.edgeData = edgeData;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void init(GLAutoDrawable drawable) {
+        edgeData.init(drawable.getGL().getGL2ES2(), engine.getCapabilities());
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable drawable) {
+        edgeData.dispose(drawable.getGL().getGL2ES2());
+    }
+
+    @Override
+    public void updateWorld() {
+        edgeData.update(engine, spatialIndex);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.EDGE;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return ArrayDrawTexture.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Vertex Texture)";
+    }
+
+    @Override
+    public boolean isAvailable(GLAutoDrawable drawable) {
+        return ArrayDrawTexture.isAvailable(engine, drawable);
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+}
@@ -5,6 +5,8 @@ import static com.jogamp.opengl.GL.GL_FLOAT;
 import static com.jogamp.opengl.GL.GL_UNSIGNED_BYTE;
 import com.jogamp.opengl.GL2ES2;
 import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Node;
@@ -34,6 +36,7 @@ public class AbstractEdgeData {
     protected GLBuffer vertexGLBufferUndirected;
     protected GLBuffer vertexGLBufferDirected;
     protected GLBuffer attributesGLBuffer;
+    protected GLBuffer selectionAttributesGLBuffer;
 
     protected final EdgesCallback edgesCallback = new EdgesCallback();
 
@@ -58,6 +61,37 @@ public class AbstractEdgeData {
         lineModelUndirected.initGLPrograms(gl);
     }
 
+    /**
+     * Edges level of detail. Removes in place the edges shorter than the given length, which at the current zoom would be hidden by their nodes.
+     *
+     * @param edges Edges
+     * @param count Count of edges in the array
+     * @param minLength Minimum length in world units, 0 to keep all edges
+     * @return New count of edges in the array
+     */
+    protected static int removeShortEdges(final Edge[] edges, final int count, final float minLength) {
+        if (minLength <= 0) {
+            return count;
+        }
+
+        final float minLengthSquared = minLength * minLength;
+
+        int newCount = 0;
+        for (int i = 0; i < count; i++) {
+            final Edge edge = edges[i];
+            final Node source = edge.getSource();
+            final Node target = edge.getTarget();
+
+            final float dx = target.x() - source.x();
+            final float dy = target.y() - source.y();
+            if (dx * dx + dy * dy >= minLengthSquared) {
+                edges[newCount++] = edge;
+            }
+        }
+
+        return newCount;
+    }
+
     protected int updateDirectedData(
             final Graph graph,
             final boolean someEdgesSelection, final boolean hideNonSelected, final int visibleEdgesCount, final Edge[] visibleEdgesArray, final GraphSelection graphSelection, final boolean someNodesSelection, final boolean edgeSelectionColor, final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor,
@@ -81,6 +115,10 @@ public class AbstractEdgeData {
 
         saveSelectionState(someNodesSelection, edgeSelectionColor, graphSelection, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor);
 
+        if (isParallelFillApplicable(visibleEdgesCount, index, directBuffer)) {
+            return updateDataParallel(true, directedInstanceCounter, someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, attribs, index, directBuffer);
+        }
+
         int newEdgesCountUnselected = 0;
         int newEdgesCountSelected = 0;
         if (someEdgesSelection) {
@@ -202,6 +240,10 @@ public class AbstractEdgeData {
 
         saveSelectionState(someNodesSelection, edgeSelectionColor, graphSelection, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor);
 
+        if (isParallelFillApplicable(visibleEdgesCount, index, directBuffer)) {
+            return updateDataParallel(false, undirectedInstanceCounter, someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, attribs, index, directBuffer);
+        }
+
         int newEdgesCountUnselected = 0;
         int newEdgesCountSelected = 0;
         //Undirected edges:
@@ -300,6 +342,172 @@ public class AbstractEdgeData {
         return index;
     }
 
+    //Parallel fill:
+    private static final int PARALLEL_FILL_MIN_EDGES = 65536;
+    private static final int PARALLEL_FILL_MIN_CHUNK_EDGES = 8192;
+    private static final int PARALLEL_FILL_BATCH_EDGES = 1024;
+
+    private boolean parallelFill = true;
+    private int[] parallelFillUnselectedOffsets = new int[0];
+    private int[] parallelFillSelectedOffsets = new int[0];
+    private final ThreadLocal<float[]> parallelFillBatch = ThreadLocal.withInitial(() -> new float[ATTRIBS_STRIDE * PARALLEL_FILL_BATCH_EDGES]);
+
+    public boolean isParallelFill() {
+        return parallelFill;
+    }
+
+    public void setParallelFill(boolean parallelFill) {
+        this.parallelFill = parallelFill;
+    }
+
+    private boolean isParallelFillApplicable(final int visibleEdgesCount, final int index, final FloatBuffer directBuffer) {
+        //With a direct buffer, data pending in attribs (index > 0) must be flushed first, so keep the serial path for that case
+        return parallelFill
+                && visibleEdgesCount >= PARALLEL_FILL_MIN_EDGES
+                && (directBuffer == null || index == 0)
+                && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Fills the same layout as the serial loops, in parallel chunks of visibleEdgesArray. A first pass counts the edges of each chunk, then the prefix sums of the counts give every chunk its own region of the output to write into: unselected edges first, then selected ones.
+     */
+    private int updateDataParallel(
+            final boolean directed, final InstanceCounter instanceCounter,
+            final boolean someEdgesSelection, final boolean hideNonSelected, final int visibleEdgesCount, final Edge[] visibleEdgesArray, final GraphSelection graphSelection,
+            final float[] attribs, final int index, final FloatBuffer directBuffer
+    ) {
+        final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        final int chunkSize = Math.max(PARALLEL_FILL_MIN_CHUNK_EDGES, (visibleEdgesCount + parallelism * 4 - 1) / (parallelism * 4));
+        final int chunks = (visibleEdgesCount + chunkSize - 1) / chunkSize;
+
+        if (parallelFillUnselectedOffsets.length < chunks) {
+            parallelFillUnselectedOffsets = new int[chunks];
+            parallelFillSelectedOffsets = new int[chunks];
+        }
+        final int[] unselectedOffsets = parallelFillUnselectedOffsets;
+        final int[] selectedOffsets = parallelFillSelectedOffsets;
+
+        //Count:
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            final int start = chunk * chunkSize;
+            final int end = Math.min(visibleEdgesCount, start + chunkSize);
+
+            int unselected = 0;
+            int selected = 0;
+            for (int j = start; j < end; j++) {
+                final Edge edge = visibleEdgesArray[j];
+                if (edge.isDirected() != directed) {
+                    continue;
+                }
+
+                if (someEdgesSelection && !graphSelection.isEdgeSelected(edge)) {
+                    unselected++;
+                } else {
+                    selected++;
+                }
+            }
+
+            unselectedOffsets[chunk] = unselected;
+            selectedOffsets[chunk] = selected;
+        });
+
+        //Prefix sums:
+        int totalUnselected = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final int count = unselectedOffsets[chunk];
+            unselectedOffsets[chunk] = totalUnselected;
+            totalUnselected += count;
+        }
+
+        if (hideNonSelected) {
+            totalUnselected = 0;
+        }
+
+        int totalSelected = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final int count = selectedOffsets[chunk];
+            selectedOffsets[chunk] = totalUnselected + totalSelected;
+            totalSelected += count;
+        }
+
+        //Fill, non-selected (bottom) and selected (up) edges of each chunk are separate tasks:
+        final int basePosition = directBuffer != null ? directBuffer.position() : index;
+        final boolean fillUnselected = someEdgesSelection && !hideNonSelected;
+        final int tasks = fillUnselected ? chunks * 2 : chunks;
+
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            final boolean selected = task < chunks;
+            final int chunk = selected ? task : task - chunks;
+            final int start = chunk * chunkSize;
+            final int end = Math.min(visibleEdgesCount, start + chunkSize);
+            final int offset = (selected ? selectedOffsets[chunk] : unselectedOffsets[chunk]) * ATTRIBS_STRIDE;
+
+            final float[] buffer;
+            final FloatBuffer chunkDirectBuffer;
+            int chunkIndex;
+            if (directBuffer != null) {
+                buffer = parallelFillBatch.get();
+                chunkDirectBuffer = directBuffer.duplicate();
+                chunkDirectBuffer.position(basePosition + offset);
+                chunkIndex = 0;
+            } else {
+                buffer = attribs;
+                chunkDirectBuffer = null;
+                chunkIndex = basePosition + offset;
+            }
+
+            for (int j = start; j < end; j++) {
+                final Edge edge = visibleEdgesArray[j];
+                if (edge.isDirected() != directed) {
+                    continue;
+                }
+
+                if (someEdgesSelection && graphSelection.isEdgeSelected(edge) != selected) {
+                    continue;
+                }
+
+                chunkIndex = fillEdgeAttributesData(directed, someEdgesSelection, buffer, edge, chunkIndex, selected);
+
+                if (chunkDirectBuffer != null && chunkIndex == buffer.length) {
+                    chunkDirectBuffer.put(buffer, 0, buffer.length);
+                    chunkIndex = 0;
+                }
+            }
+
+            //Remaining:
+            if (chunkDirectBuffer != null && chunkIndex > 0) {
+                chunkDirectBuffer.put(buffer, 0, chunkIndex);
+            }
+        });
+
+        instanceCounter.unselectedCount = totalUnselected;
+        instanceCounter.selectedCount = totalSelected;
+
+        final int totalFloats = (totalUnselected + totalSelected) * ATTRIBS_STRIDE;
+        if (directBuffer != null) {
+            directBuffer.position(basePosition + totalFloats);
+            return 0;
+        } else {
+            return index + totalFloats;
+        }
+    }
+
+    private int fillEdgeAttributesData(final boolean directed, final boolean someEdgesSelection, final float[] buffer, final Edge edge, final int index, final boolean selected) {
+        if (directed) {
+            if (someEdgesSelection) {
+                return fillDirectedEdgeAttributesDataWithSelection(buffer, edge, index, selected);
+            } else {
+                return fillDirectedEdgeAttributesDataWithoutSelection(buffer, edge, index);
+            }
+        } else {
+            if (someEdgesSelection) {
+                return fillUndirectedEdgeAttributesDataWithSelection(buffer, edge, index, selected);
+            } else {
+                return fillUndirectedEdgeAttributesDataWithoutSelection(buffer, edge, index);
+            }
+        }
+    }
+
     private void checkBufferIndexing(final FloatBuffer directBuffer, final float[] attribs, final int index) {
         if (directBuffer != null) {
             if (attribs.length % ATTRIBS_STRIDE != 0) {
@@ -503,10 +711,12 @@ public class AbstractEdgeData {
 
     private UndirectedEdgesVAO undirectedEdgesVAO;
     private DirectedEdgesVAO directedEdgesVAO;
+    private UndirectedEdgesVAO undirectedSelectionEdgesVAO;
+    private DirectedEdgesVAO directedSelectionEdgesVAO;
 
     public void setupUndirectedVertexArrayAttributes(VizEngine engine, GL2ES2 gl) {
         if (undirectedEdgesVAO == null) {
-            undirectedEdgesVAO = new UndirectedEdgesVAO(engine.getCapabilities());
+            undirectedEdgesVAO = new UndirectedEdgesVAO(engine.getCapabilities(), false);
         }
 
         undirectedEdgesVAO.use(gl);
@@ -518,7 +728,7 @@ public class AbstractEdgeData {
 
     public void setupDirectedVertexArrayAttributes(VizEngine engine, GL2ES2 gl) {
         if (directedEdgesVAO == null) {
-            directedEdgesVAO = new DirectedEdgesVAO(engine.getCapabilities());
+            directedEdgesVAO = new DirectedEdgesVAO(engine.getCapabilities(), false);
         }
 
         directedEdgesVAO.use(gl);
@@ -528,6 +738,68 @@ public class AbstractEdgeData {
         directedEdgesVAO.stopUsing(gl);
     }
 
+    /**
+     * Like {@link #setupUndirectedVertexArrayAttributes(VizEngine, GL2ES2)}, reading the per instance attributes from {@link #selectionAttributesGLBuffer}.
+     *
+     * @param engine Engine
+     * @param gl GL
+     */
+    public void setupUndirectedSelectionVertexArrayAttributes(VizEngine engine, GL2ES2 gl) {
+        if (undirectedSelectionEdgesVAO == null) {
+            undirectedSelectionEdgesVAO = new UndirectedEdgesVAO(engine.getCapabilities(), true);
+        }
+
+        undirectedSelectionEdgesVAO.use(gl);
+    }
+
+    public void unsetupUndirectedSelectionVertexArrayAttributes(GL2ES2 gl) {
+        undirectedSelectionEdgesVAO.stopUsing(gl);
+    }
+
+    /**
+     * Like {@link #setupDirectedVertexArrayAttributes(VizEngine, GL2ES2)}, reading the per instance attributes from {@link #selectionAttributesGLBuffer}.
+     *
+     * @param engine Engine
+     * @param gl GL
+     */
+    public void setupDirectedSelectionVertexArrayAttributes(VizEngine engine, GL2ES2 gl) {
+        if (directedSelectionEdgesVAO == null) {
+            directedSelectionEdgesVAO = new DirectedEdgesVAO(engine.getCapabilities(), true);
+        }
+
+        directedSelectionEdgesVAO.use(gl);
+    }
+
+    public void unsetupDirectedSelectionVertexArrayAttributes(GL2ES2 gl) {
+        directedSelectionEdgesVAO.stopUsing(gl);
+    }
+
+    /**
+     *
+     * @return Buffer with the per instance attributes used by the vertex arrays
+     */
+    protected GLBuffer getVertexAttributesGLBuffer() {
+        return attributesGLBuffer;
+    }
+
+    protected void resetVertexArrayAttributes(GL2ES2 gl) {
+        if (undirectedEdgesVAO != null) {
+            undirectedEdgesVAO.reset(gl);
+        }
+
+        if (directedEdgesVAO != null) {
+            directedEdgesVAO.reset(gl);
+        }
+
+        if (undirectedSelectionEdgesVAO != null) {
+            undirectedSelectionEdgesVAO.reset(gl);
+        }
+
+        if (directedSelectionEdgesVAO != null) {
+            directedSelectionEdgesVAO.reset(gl);
+        }
+    }
+
     public void dispose(GL gl) {
         if (vertexGLBufferUndirected != null) {
             vertexGLBufferUndirected.destroy(gl);
@@ -541,13 +813,21 @@ public class AbstractEdgeData {
             attributesGLBuffer.destroy(gl);
         }
 
+        if (selectionAttributesGLBuffer != null) {
+            selectionAttributesGLBuffer.destroy(gl);
+            selectionAttributesGLBuffer = null;
+        }
+
         edgesCallback.reset();
     }
 
     private class UndirectedEdgesVAO extends GLVertexArrayObject {
 
-        public UndirectedEdgesVAO(GLCapabilities capabilities) {
+        private final boolean selection;
+
+        public UndirectedEdgesVAO(GLCapabilities capabilities, boolean selection) {
             super(capabilities);
+            this.selection = selection;
         }
 
         @Override
@@ -558,7 +838,8 @@ public class AbstractEdgeData {
             }
             vertexGLBufferUndirected.unbind(gl);
 
-            attributesGLBuffer.bind(gl);
+            final GLBuffer instanceAttributesGLBuffer = selection ? selectionAttributesGLBuffer : getVertexAttributesGLBuffer();
+            instanceAttributesGLBuffer.bind(gl);
             {
                 int stride = ATTRIBS_STRIDE * Float.BYTES;
                 int offset = 0;
@@ -586,7 +867,7 @@ public class AbstractEdgeData {
                 gl.glVertexAttribPointer(SHADER_COLOR_MULTIPLIER_LOCATION, EdgeLineModelUndirected.COLOR_MULTIPLIER_FLOATS, GL_FLOAT, false, stride, offset);
                 offset += EdgeLineModelUndirected.COLOR_MULTIPLIER_FLOATS * Float.BYTES;
             }
-            attributesGLBuffer.unbind(gl);
+            instanceAttributesGLBuffer.unbind(gl);
         }
 
         @Override
@@ -626,8 +907,11 @@ public class AbstractEdgeData {
 
     private class DirectedEdgesVAO extends GLVertexArrayObject {
 
-        public DirectedEdgesVAO(GLCapabilities capabilities) {
+        private final boolean selection;
+
+        public DirectedEdgesVAO(GLCapabilities capabilities, boolean selection) {
             super(capabilities);
+            this.selection = selection;
         }
 
         @Override
@@ -638,7 +922,8 @@ public class AbstractEdgeData {
             }
             vertexGLBufferDirected.unbind(gl);
 
-            attributesGLBuffer.bind(gl);
+            final GLBuffer instanceAttributesGLBuffer = selection ? selectionAttributesGLBuffer : getVertexAttributesGLBuffer();
+            instanceAttributesGLBuffer.bind(gl);
             {
                 int stride = ATTRIBS_STRIDE * Float.BYTES;
                 int offset = 0;
@@ -676,7 +961,7 @@ public class AbstractEdgeData {
                     GLFunctions.glVertexAttribDivisor(gl, SHADER_TARGET_SIZE_LOCATION, 1);
                 }
             }
-            attributesGLBuffer.unbind(gl);
+            instanceAttributesGLBuffer.unbind(gl);
         }
 
         @Override
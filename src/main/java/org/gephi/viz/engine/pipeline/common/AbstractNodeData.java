@@ -4,9 +4,14 @@ import com.jogamp.opengl.GL;
 import static com.jogamp.opengl.GL.GL_FLOAT;
 import static com.jogamp.opengl.GL.GL_UNSIGNED_BYTE;
 import com.jogamp.opengl.GL2ES2;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Node;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.models.NodeDiskModel;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionNeighbours;
 import org.gephi.viz.engine.structure.NodesCallback;
 import org.gephi.viz.engine.util.Constants;
 import static org.gephi.viz.engine.util.Constants.*;
@@ -30,13 +35,34 @@ public abstract class AbstractNodeData {
     protected GLBuffer vertexGLBuffer;
     protected GLBuffer attributesGLBuffer;
     protected final NodesCallback nodesCallback = new NodesCallback();
+    protected Node[] selectedNodesArray = new Node[64];
+
+    //Drawing group of each visible node, or -1 if hidden:
+    private byte[] visibleNodesGroups = new byte[0];
+    private int[] groupOffsets = new int[0];
 
     protected static final int ATTRIBS_STRIDE = NodeDiskModel.TOTAL_ATTRIBUTES_FLOATS;
+    protected static final int PACKED_ATTRIBS_STRIDE = NodeDiskModel.PACKED_TOTAL_ATTRIBUTES_FLOATS;
 
     protected final boolean instanced;
+    protected final boolean packed;
 
     public AbstractNodeData(boolean instanced) {
+        this(instanced, false);
+    }
+
+    /**
+     *
+     * @param instanced Instanced rendering
+     * @param packed Use the packed attributes layout of {@link NodeDiskModel}, one instance per node. Only for instanced rendering
+     */
+    public AbstractNodeData(boolean instanced, boolean packed) {
+        if (packed && !instanced) {
+            throw new IllegalArgumentException("Packed attributes are only supported with instanced rendering");
+        }
+
         this.instanced = instanced;
+        this.packed = packed;
     }
 
     protected int fillNodeAttributesData(final float[] buffer, final Node node, final int index, final boolean someSelection, final boolean selected) {
@@ -100,6 +126,174 @@ public abstract class AbstractNodeData {
         return nextIndex + ATTRIBS_STRIDE;
     }
 
+    protected int fillNodeAttributesDataPacked(final float[] buffer, final Node node, final int index, final boolean someSelection, final boolean selected) {
+        //Position:
+        buffer[index + 0] = node.x();
+        buffer[index + 1] = node.y();
+
+        //Color:
+        buffer[index + 2] = Float.intBitsToFloat(node.getRGBA());
+
+        //Size:
+        buffer[index + 3] = node.size();
+
+        //Flags, only the first byte is read:
+        buffer[index + 4] = Float.intBitsToFloat(someSelection && selected ? NodeDiskModel.FLAG_SELECTED : 0);
+
+        return index + PACKED_ATTRIBS_STRIDE;
+    }
+
+    protected int fillNodeData(final float[] buffer, final Node node, final int index, final boolean someSelection, final boolean selected) {
+        if (packed) {
+            return fillNodeAttributesDataPacked(buffer, node, index, someSelection, selected);
+        } else {
+            return fillNodeAttributesData(buffer, node, index, someSelection, selected);
+        }
+    }
+
+    /**
+     * Level of detail of a node, used to group the nodes by {@link #sortNodesForDrawing}. Lower levels are drawn first.
+     *
+     * @param observedSize Node size on screen
+     * @return Level of detail, lower than the levels count
+     */
+    protected int levelOfDetail(final float observedSize) {
+        return 0;
+    }
+
+    /**
+     * Sorts the visible nodes in drawing order with one counting sort: first non-selected (bottom), then selected ones (up), each of them by {@link #levelOfDetail(float)}. All nodes are drawn as selected when there is no selection, and hidden non-selected nodes are left out.
+     *
+     * @param nodes Visible nodes
+     * @param count Visible nodes count
+     * @param sortedNodes Array to write the sorted nodes, at least <code>count</code> long
+     * @param groupCounts Filled with the nodes count of each group, the non-selected levels of detail and then the selected ones
+     * @param zoom Zoom
+     * @param hideNonSelected Leave out non-selected nodes
+     * @param selection Selection
+     * @param neighboursSelection Neighbours selection
+     * @return Sorted nodes count
+     */
+    protected int sortNodesForDrawing(final Node[] nodes, final int count, final Node[] sortedNodes, final int[] groupCounts, final float zoom, final boolean hideNonSelected, final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection) {
+        final int levelsCount = groupCounts.length / 2;
+        final boolean someSelection = selection.getSelectedNodesCount() > 0;
+
+        if (visibleNodesGroups.length < count) {
+            visibleNodesGroups = new byte[nodes.length];
+        }
+        if (groupOffsets.length != groupCounts.length) {
+            groupOffsets = new int[groupCounts.length];
+        }
+
+        Arrays.fill(groupCounts, 0);
+        for (int j = 0; j < count; j++) {
+            final Node node = nodes[j];
+
+            final boolean selected = !someSelection || selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
+            if (hideNonSelected && !selected) {
+                visibleNodesGroups[j] = -1;
+            } else {
+                final int group = (selected ? levelsCount : 0) + levelOfDetail(node.size() * zoom);
+                visibleNodesGroups[j] = (byte) group;
+                groupCounts[group]++;
+            }
+        }
+
+        int sortedCount = 0;
+        for (int group = 0; group < groupCounts.length; group++) {
+            groupOffsets[group] = sortedCount;
+            sortedCount += groupCounts[group];
+        }
+
+        for (int j = 0; j < count; j++) {
+            final int group = visibleNodesGroups[j];
+            if (group >= 0) {
+                sortedNodes[groupOffsets[group]++] = nodes[j];
+            }
+        }
+
+        return sortedCount;
+    }
+
+    /**
+     * Fills the attributes of nodes sorted by {@link #sortNodesForDrawing}, through a batch array.
+     *
+     * @param attribs Attributes buffer
+     * @param batch Batch array, a multiple of the floats per node long
+     * @param sortedNodes Sorted nodes
+     * @param count Sorted nodes count
+     * @param unselectedCount Count of the non-selected nodes, sorted first
+     * @param someSelection True if there is some selection
+     * @return Biggest size of the filled nodes
+     */
+    protected float fillSortedNodesData(final FloatBuffer attribs, final float[] batch, final Node[] sortedNodes, final int count, final int unselectedCount, final boolean someSelection) {
+        float maxNodeSize = 0;
+        int index = 0;
+        for (int j = 0; j < count; j++) {
+            final Node node = sortedNodes[j];
+            maxNodeSize = Math.max(maxNodeSize, node.size());
+
+            index = fillNodeData(batch, node, index, someSelection, j >= unselectedCount);
+
+            if (index == batch.length) {
+                attribs.put(batch, 0, batch.length);
+                index = 0;
+            }
+        }
+
+        //Remaining:
+        if (index > 0) {
+            attribs.put(batch, 0, index);
+        }
+
+        return maxNodeSize;
+    }
+
+    /**
+     * Collects into {@link #selectedNodesArray} the selected nodes and then the selected neighbours that are in the graph, without duplicates. It iterates the selection, so call it from the GL thread, where input listeners change it.
+     *
+     * @param graph Visible graph
+     * @param selection Selection
+     * @param neighboursSelection Neighbours selection
+     * @return Count of collected nodes
+     */
+    protected int collectSelectedNodes(final Graph graph, final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection) {
+        int count = 0;
+        for (Node node : selection.getSelectedNodes()) {
+            count = addSelectedNode(graph, node, count);
+        }
+
+        for (Node node : neighboursSelection.getSelectedNodes()) {
+            if (!selection.isNodeSelected(node)) {
+                count = addSelectedNode(graph, node, count);
+            }
+        }
+
+        return count;
+    }
+
+    private int addSelectedNode(final Graph graph, final Node node, final int count) {
+        //Removed from the graph or filtered out:
+        if (node == null || !graph.contains(node)) {
+            return count;
+        }
+
+        if (count == selectedNodesArray.length) {
+            selectedNodesArray = Arrays.copyOf(selectedNodesArray, count * 2);
+        }
+        selectedNodesArray[count] = node;
+
+        return count + 1;
+    }
+
+    /**
+     *
+     * @return Floats of each vertex in {@link #vertexGLBuffer}
+     */
+    protected int getVertexFloats() {
+        return packed ? NodeDiskModel.PACKED_VERTEX_FLOATS : NodeDiskModel.VERTEX_FLOATS;
+    }
+
     private NodesVAO nodesVAO;
 
     public void setupVertexArrayAttributes(VizEngine engine, GL2ES2 gl) {
@@ -114,6 +308,12 @@ public abstract class AbstractNodeData {
         nodesVAO.stopUsing(gl);
     }
 
+    protected void resetVertexArrayAttributes(GL2ES2 gl) {
+        if (nodesVAO != null) {
+            nodesVAO.reset(gl);
+        }
+    }
+
     public void dispose(GL gl) {
         if (vertexGLBuffer != null) {
             vertexGLBuffer.destroy(gl);
@@ -124,6 +324,7 @@ public abstract class AbstractNodeData {
         }
         
         nodesCallback.reset();
+        Arrays.fill(selectedNodesArray, null);
     }
 
     private class NodesVAO extends GLVertexArrayObject {
@@ -136,11 +337,29 @@ public abstract class AbstractNodeData {
         protected void configure(GL2ES2 gl) {
             vertexGLBuffer.bind(gl);
             {
-                gl.glVertexAttribPointer(SHADER_VERT_LOCATION, NodeDiskModel.VERTEX_FLOATS, GL_FLOAT, false, 0, 0);
+                gl.glVertexAttribPointer(SHADER_VERT_LOCATION, getVertexFloats(), GL_FLOAT, false, 0, 0);
             }
             vertexGLBuffer.unbind(gl);
 
-            if (instanced) {
+            if (packed) {
+                attributesGLBuffer.bind(gl);
+                {
+                    final int stride = PACKED_ATTRIBS_STRIDE * Float.BYTES;
+                    int offset = 0;
+
+                    gl.glVertexAttribPointer(SHADER_POSITION_LOCATION, NodeDiskModel.POSITION_FLOATS, GL_FLOAT, false, stride, offset);
+                    offset += NodeDiskModel.POSITION_FLOATS * Float.BYTES;
+
+                    gl.glVertexAttribPointer(SHADER_COLOR_LOCATION, NodeDiskModel.COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
+                    offset += NodeDiskModel.COLOR_FLOATS * Float.BYTES;
+
+                    gl.glVertexAttribPointer(SHADER_SIZE_LOCATION, NodeDiskModel.SIZE_FLOATS, GL_FLOAT, false, stride, offset);
+                    offset += NodeDiskModel.SIZE_FLOATS * Float.BYTES;
+
+                    gl.glVertexAttribPointer(SHADER_FLAGS_LOCATION, 1, GL_UNSIGNED_BYTE, false, stride, offset);
+                }
+                attributesGLBuffer.unbind(gl);
+            } else if (instanced) {
                 attributesGLBuffer.bind(gl);
                 {
                     final int stride = ATTRIBS_STRIDE * Float.BYTES;
@@ -166,7 +385,15 @@ public abstract class AbstractNodeData {
 
         @Override
         protected int[] getUsedAttributeLocations() {
-            if (instanced) {
+            if (packed) {
+                return new int[]{
+                    SHADER_VERT_LOCATION,
+                    SHADER_POSITION_LOCATION,
+                    SHADER_COLOR_LOCATION,
+                    SHADER_SIZE_LOCATION,
+                    SHADER_FLAGS_LOCATION
+                };
+            } else if (instanced) {
                 return new int[]{
                     SHADER_VERT_LOCATION,
                     SHADER_POSITION_LOCATION,
@@ -184,7 +411,14 @@ public abstract class AbstractNodeData {
 
         @Override
         protected int[] getInstancedAttributeLocations() {
-            if (instanced) {
+            if (packed) {
+                return new int[]{
+                    SHADER_POSITION_LOCATION,
+                    SHADER_COLOR_LOCATION,
+                    SHADER_SIZE_LOCATION,
+                    SHADER_FLAGS_LOCATION
+                };
+            } else if (instanced) {
                 return new int[]{
                     SHADER_POSITION_LOCATION,
                     SHADER_COLOR_LOCATION,
@@ -0,0 +1,158 @@
+package org.gephi.viz.engine.pipeline.common;
+
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ * Decides if the data of a world updater has to be rebuilt, and for which area of the world, when incremental updates are enabled in {@link GraphIndexImpl}.
+ *
+ * <p>
+ * Data is built for the view boundaries plus a margin, so panning inside that area does not need a rebuild.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class DataUpdateTracker {
+
+    private static final float AREA_MARGIN = 0.25f;
+    private static final float MAX_AREA_TO_VIEW_RATIO = 2.5f;
+
+    public static final Rect2D WHOLE_WORLD_AREA = new Rect2D(-Float.MAX_VALUE / 2, -Float.MAX_VALUE / 2, Float.MAX_VALUE / 2, Float.MAX_VALUE / 2);
+
+    private final boolean zoomDependent;
+    private final boolean viewDependent;
+    private final boolean nodesDependent;
+    private final boolean selectionDependent;
+
+    private boolean updated = false;
+    private int graphVersion;
+    private int selectionVersion;
+    private int neighboursSelectionVersion;
+    private int renderingOptionsVersion;
+    private float zoom;
+    private Rect2D area;
+
+    /**
+     *
+     * @param zoomDependent True if the built data depends on the zoom, like levels of detail chosen on the CPU
+     */
+    public DataUpdateTracker(boolean zoomDependent) {
+        this(zoomDependent, true);
+    }
+
+    /**
+     *
+     * @param zoomDependent True if the built data depends on the zoom, like levels of detail chosen on the CPU
+     * @param viewDependent False to build the data for the whole world when incremental updates are enabled, for example when the GPU culls it
+     */
+    public DataUpdateTracker(boolean zoomDependent, boolean viewDependent) {
+        this(zoomDependent, viewDependent, true);
+    }
+
+    /**
+     *
+     * @param zoomDependent True if the built data depends on the zoom, like levels of detail chosen on the CPU
+     * @param viewDependent False to build the data for the whole world when incremental updates are enabled, for example when the GPU culls it
+     * @param nodesDependent False if the built data only references nodes by index, so it is kept on {@link GraphIndexImpl#invalidateNodes()}
+     */
+    public DataUpdateTracker(boolean zoomDependent, boolean viewDependent, boolean nodesDependent) {
+        this(zoomDependent, viewDependent, nodesDependent, true);
+    }
+
+    /**
+     *
+     * @param zoomDependent True if the built data depends on the zoom, like levels of detail chosen on the CPU
+     * @param viewDependent False to build the data for the whole world when incremental updates are enabled, for example when the GPU culls it
+     * @param nodesDependent False if the built data only references nodes by index, so it is kept on {@link GraphIndexImpl#invalidateNodes()}
+     * @param selectionDependent False if the built data does not change with the selection, for example when selected elements are drawn from a separate buffer
+     */
+    public DataUpdateTracker(boolean zoomDependent, boolean viewDependent, boolean nodesDependent, boolean selectionDependent) {
+        this.zoomDependent = zoomDependent;
+        this.viewDependent = viewDependent;
+        this.nodesDependent = nodesDependent;
+        this.selectionDependent = selectionDependent;
+    }
+
+    /**
+     * Returns the area to build the data for, or null if the last built data is still valid.
+     *
+     * @param engine Engine
+     * @param graphIndex Graph index
+     * @return Area or null
+     */
+    public Rect2D nextUpdateArea(VizEngine engine, GraphIndexImpl graphIndex) {
+        final Rect2D viewBoundaries = engine.getViewBoundaries();
+        if (!graphIndex.isIncrementalUpdates()) {
+            updated = false;
+            return viewBoundaries;
+        }
+
+        final int newGraphVersion = nodesDependent ? graphIndex.getVersion() : graphIndex.getEdgesVersion();
+        final int newSelectionVersion = selectionDependent ? versionOf(engine.getLookup().lookup(GraphSelection.class)) : 0;
+        final int newNeighboursSelectionVersion = selectionDependent ? versionOf(engine.getLookup().lookup(GraphSelectionNeighbours.class)) : 0;
+        final int newRenderingOptionsVersion = versionOf(engine.getLookup().lookup(GraphRenderingOptions.class));
+        final float newZoom = engine.getZoom();
+
+        if (updated
+                && graphVersion == newGraphVersion
+                && selectionVersion == newSelectionVersion
+                && neighboursSelectionVersion == newNeighboursSelectionVersion
+                && renderingOptionsVersion == newRenderingOptionsVersion
+                && (!zoomDependent || zoom == newZoom)
+                && (!viewDependent || isAreaValidForView(viewBoundaries))) {
+            engine.getMetrics().addSkippedDataUpdate();
+            return null;
+        }
+
+        final float marginX = (viewBoundaries.maxX - viewBoundaries.minX) * AREA_MARGIN;
+        final float marginY = (viewBoundaries.maxY - viewBoundaries.minY) * AREA_MARGIN;
+
+        updated = true;
+        graphVersion = newGraphVersion;
+        selectionVersion = newSelectionVersion;
+        neighboursSelectionVersion = newNeighboursSelectionVersion;
+        renderingOptionsVersion = newRenderingOptionsVersion;
+        zoom = newZoom;
+        if (!viewDependent) {
+            area = WHOLE_WORLD_AREA;
+            return area;
+        }
+
+        area = new Rect2D(
+                viewBoundaries.minX - marginX,
+                viewBoundaries.minY - marginY,
+                viewBoundaries.maxX + marginX,
+                viewBoundaries.maxY + marginY
+        );
+
+        return area;
+    }
+
+    public void reset() {
+        updated = false;
+    }
+
+    private boolean isAreaValidForView(Rect2D viewBoundaries) {
+        return contains(area, viewBoundaries)
+                && (area.maxX - area.minX) <= (viewBoundaries.maxX - viewBoundaries.minX) * MAX_AREA_TO_VIEW_RATIO;
+    }
+
+    private static boolean contains(Rect2D outer, Rect2D inner) {
+        return outer.minX <= inner.minX && outer.minY <= inner.minY && outer.maxX >= inner.maxX && outer.maxY >= inner.maxY;
+    }
+
+    private static int versionOf(GraphSelection selection) {
+        return selection != null ? selection.getVersion() : 0;
+    }
+
+    private static int versionOf(GraphSelectionNeighbours neighboursSelection) {
+        return neighboursSelection != null ? neighboursSelection.getVersion() : 0;
+    }
+
+    private static int versionOf(GraphRenderingOptions renderingOptions) {
+        return renderingOptions != null ? renderingOptions.getVersion() : 0;
+    }
+}
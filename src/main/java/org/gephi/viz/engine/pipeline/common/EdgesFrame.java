@@ -0,0 +1,71 @@
+package org.gephi.viz.engine.pipeline.common;
+
+import org.gephi.viz.engine.util.TripleBufferExchange;
+
+/**
+ * Immutable description of the edges written by a world update into a buffer slot, published to the GL thread through a {@link TripleBufferExchange}. Undirected edges come first, each group with its unselected edges before the selected ones.
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgesFrame implements TripleBufferExchange.Frame {
+
+    private final int slot;
+    private final int undirectedUnselectedCount;
+    private final int undirectedSelectedCount;
+    private final int directedUnselectedCount;
+    private final int directedSelectedCount;
+
+    public EdgesFrame(int slot, InstanceCounter undirectedCounter, InstanceCounter directedCounter) {
+        this(slot, undirectedCounter.unselectedCount, undirectedCounter.selectedCount, directedCounter.unselectedCount, directedCounter.selectedCount);
+    }
+
+    public EdgesFrame(int slot, int undirectedUnselectedCount, int undirectedSelectedCount, int directedUnselectedCount, int directedSelectedCount) {
+        this.slot = slot;
+        this.undirectedUnselectedCount = undirectedUnselectedCount;
+        this.undirectedSelectedCount = undirectedSelectedCount;
+        this.directedUnselectedCount = directedUnselectedCount;
+        this.directedSelectedCount = directedSelectedCount;
+    }
+
+    /**
+     *
+     * @param slot Slot
+     * @return Frame without edges
+     */
+    public static EdgesFrame empty(int slot) {
+        return new EdgesFrame(slot, 0, 0, 0, 0);
+    }
+
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getUndirectedUnselectedCount() {
+        return undirectedUnselectedCount;
+    }
+
+    public int getUndirectedSelectedCount() {
+        return undirectedSelectedCount;
+    }
+
+    public int getUndirectedCount() {
+        return undirectedUnselectedCount + undirectedSelectedCount;
+    }
+
+    public int getDirectedUnselectedCount() {
+        return directedUnselectedCount;
+    }
+
+    public int getDirectedSelectedCount() {
+        return directedSelectedCount;
+    }
+
+    public int getDirectedCount() {
+        return directedUnselectedCount + directedSelectedCount;
+    }
+
+    public int getTotalCount() {
+        return getUndirectedCount() + getDirectedCount();
+    }
+}
@@ -1,6 +1,7 @@
 package org.gephi.viz.engine.pipeline.common;
 
 /**
+ * Counts of a world update while it is being written. They are handed to the GL thread as part of an immutable frame, see {@link NodesFrame} and {@link EdgesFrame}.
  *
  * @author Eduardo Ramos
  */
@@ -8,13 +9,6 @@ public class InstanceCounter {
 
     public int unselectedCount = 0;
     public int selectedCount = 0;
-    public int unselectedCountToDraw = 0;
-    public int selectedCountToDraw = 0;
-
-    public void promoteCountToDraw() {
-        unselectedCountToDraw = unselectedCount;
-        selectedCountToDraw = selectedCount;
-    }
 
     public void clearCount() {
         unselectedCount = 0;
@@ -24,8 +18,4 @@ public class InstanceCounter {
     public int total() {
         return unselectedCount + selectedCount;
     }
-    
-    public int totalToDraw() {
-        return unselectedCountToDraw + selectedCountToDraw;
-    }
 }
@@ -0,0 +1,57 @@
+package org.gephi.viz.engine.pipeline.common;
+
+import org.gephi.viz.engine.util.TripleBufferExchange;
+
+/**
+ * Immutable description of the nodes written by a world update into a buffer slot, published to the GL thread through a {@link TripleBufferExchange}.
+ *
+ * @author Eduardo Ramos
+ */
+public class NodesFrame implements TripleBufferExchange.Frame {
+
+    private final int slot;
+    private final int unselectedCount;
+    private final int selectedCount;
+    private final float maxNodeSize;
+
+    public NodesFrame(int slot, int unselectedCount, int selectedCount, float maxNodeSize) {
+        this.slot = slot;
+        this.unselectedCount = unselectedCount;
+        this.selectedCount = selectedCount;
+        this.maxNodeSize = maxNodeSize;
+    }
+
+    /**
+     *
+     * @param slot Slot
+     * @return Frame without nodes
+     */
+    public static NodesFrame empty(int slot) {
+        return new NodesFrame(slot, 0, 0, 0);
+    }
+
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getUnselectedCount() {
+        return unselectedCount;
+    }
+
+    public int getSelectedCount() {
+        return selectedCount;
+    }
+
+    public int getTotalCount() {
+        return unselectedCount + selectedCount;
+    }
+
+    /**
+     *
+     * @return Max size of the nodes or 0 if the writer does not compute it
+     */
+    public float getMaxNodeSize() {
+        return maxNodeSize;
+    }
+}
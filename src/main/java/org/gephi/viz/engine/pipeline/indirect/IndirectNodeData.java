@@ -1,34 +1,45 @@
 package org.gephi.viz.engine.pipeline.indirect;
 
 import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL3;
 import static com.jogamp.opengl.GL.GL_FLOAT;
 import static com.jogamp.opengl.GL.GL_UNSIGNED_INT;
 import com.jogamp.opengl.GL4;
 import com.jogamp.opengl.util.GLBuffers;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.models.NodeDiskModel;
+import org.gephi.viz.engine.models.NodePickingModel;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.AbstractNodeData;
-import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.pipeline.common.DataUpdateTracker;
+import org.gephi.viz.engine.pipeline.common.NodesFrame;
+import org.gephi.viz.engine.pipeline.picking.PickingNodes;
+import org.gephi.viz.engine.pipeline.picking.PickingSource;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.status.GraphSelectionNeighbours;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 import org.gephi.viz.engine.util.BufferUtils;
 import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.util.TripleBufferExchange;
 import org.gephi.viz.engine.util.gl.GLBuffer;
 import org.gephi.viz.engine.util.gl.GLBufferImmutable;
 import org.gephi.viz.engine.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.util.gl.GLPersistentBufferRing;
+import org.gephi.viz.engine.util.gl.capabilities.GLCapabilities;
 import static org.gephi.viz.engine.util.gl.GLConstants.INDIRECT_DRAW_COMMAND_INTS_COUNT;
 
 /**
  *
  * @author Eduardo Ramos
  */
-public class IndirectNodeData extends AbstractNodeData {
+public class IndirectNodeData extends AbstractNodeData implements PickingSource {
 
     private final NodeDiskModel diskModel64;
     private final NodeDiskModel diskModel32;
@@ -44,7 +55,8 @@ public class IndirectNodeData extends AbstractNodeData {
     private final int firstVertex16;
     private final int firstVertex8;
 
-    private final InstanceCounter instanceCounter = new InstanceCounter();
+    private final NodePickingModel pickingModel = new NodePickingModel();
+    private final PickingNodes pickingNodes = new PickingNodes(NUM_BUFFERS);
 
     public IndirectNodeData() {
         super(true);
@@ -70,18 +82,28 @@ public class IndirectNodeData extends AbstractNodeData {
     private static final int ATTRIBS_BUFFER = 1;
     private static final int INDIRECT_DRAW_BUFFER = 2;
 
-    public void init(GL4 gl) {
-        initBuffers(gl);
+    public void init(GL4 gl, GLCapabilities capabilities) {
+        initBuffers(gl, capabilities.isPersistentBufferSupported());
         diskModel64.initGLPrograms(gl);
     }
 
     public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
-        updateData(engine.getZoom(),
+        metrics = engine.getMetrics();
+
+        final Rect2D area = updateTracker.nextUpdateArea(engine, spatialIndex);
+        if (area == null) {
+            //Nothing changed since last update
+            return;
+        }
+
+        final NodesFrame frame = updateData(area, engine.getZoom(),
                 spatialIndex,
                 engine.getLookup().lookup(GraphRenderingOptions.class),
                 engine.getLookup().lookup(GraphSelection.class),
                 engine.getLookup().lookup(GraphSelectionNeighbours.class)
         );
+
+        metrics.setVisibleNodesCount(frame.getTotalCount());
     }
 
     public void drawIndirect(GL4 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
@@ -92,12 +114,12 @@ public class IndirectNodeData extends AbstractNodeData {
         final float colorLightenFactor;
 
         if (layer == RenderingLayer.BACK) {
-            instanceCount = instanceCounter.unselectedCountToDraw * 2;
-            instancesOffset = 0;
+            instanceCount = drawnFrame.getUnselectedCount() * 2;
+            instancesOffset = commandsBaseOffset;
             colorLightenFactor = engine.getLookup().lookup(GraphRenderingOptions.class).getLightenNonSelectedFactor();
         } else {
-            instanceCount = instanceCounter.selectedCountToDraw * 2;
-            instancesOffset = instanceCounter.unselectedCountToDraw * 2;
+            instanceCount = drawnFrame.getSelectedCount() * 2;
+            instancesOffset = commandsBaseOffset + drawnFrame.getUnselectedCount() * 2;
             colorLightenFactor = 0;
         }
 
@@ -110,9 +132,41 @@ public class IndirectNodeData extends AbstractNodeData {
         }
     }
 
+    @Override
+    public int drawPicking(GL3 gl, VizEngine engine, float[] mvpFloats, int firstId) {
+        final int nodesCount = drawnFrame.getTotalCount();
+        if (nodesCount == 0) {
+            return 0;
+        }
+
+        if (!pickingModel.isInitialized()) {
+            pickingModel.initGLPrograms(gl);
+        }
+
+        //Same instances as the indirect commands, which start at the drawn region:
+        setupVertexArrayAttributes(engine, gl);
+        pickingModel.drawInstanced(gl, mvpFloats, firstId, 2, circleVertexCount64, nodesCount * 2, commandsBaseOffset);
+        unsetupVertexArrayAttributes(gl);
+
+        return nodesCount;
+    }
+
+    @Override
+    public long getPickingVersion() {
+        return pickingNodes.getVersion(Math.max(drawnFrame.getSlot(), 0));
+    }
+
+    @Override
+    public Element getPickedElement(long version, int index) {
+        return pickingNodes.getNode(version, index);
+    }
+
     //Triple buffering to ensure CPU and GPU don't access the same buffer at the same time:
-    private static final int NUM_BUFFERS = 3;
-    private int currentBufferIndex = 0;
+    private static final int NUM_BUFFERS = TripleBufferExchange.SLOTS;
+    private final TripleBufferExchange<RegionNodesFrame> frames = new TripleBufferExchange<>();
+    private RegionNodesFrame drawnFrame = RegionNodesFrame.empty(-1, 0);
+    private final DataUpdateTracker updateTracker = new DataUpdateTracker(true);
+    private EngineMetrics metrics;
     private final ManagedDirectBuffer[] attributesBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
     private final ManagedDirectBuffer[] commandsBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
 
@@ -122,11 +176,19 @@ public class IndirectNodeData extends AbstractNodeData {
     private int[] commandsBufferBatch;
     private static final int BATCH_NODES_SIZE = 32768;
 
-    private void initBuffers(GL4 gl) {
-        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_NODES_SIZE * 2];
-        commandsBufferBatch = new int[INDIRECT_DRAW_COMMAND_INTS_COUNT * BATCH_NODES_SIZE * 2];
+    //Persistent mapped attributes and commands, one region per buffer index, written directly by the world updater when they fit:
+    private GLPersistentBufferRing attributesPersistentRing;
+    private GLPersistentBufferRing commandsPersistentRing;
+    private int persistentRingRegionInstances = 0;
+    private int commandsBaseOffset = 0;
+    //Updates too big for the rings, marked with no region instances. Only used in the GL thread:
+    private GLBufferMutable fallbackAttributesGLBuffer;
+    private GLBufferMutable fallbackCommandsGLBuffer;
 
-        bufferName = GLBuffers.newDirectIntBuffer(3);
+    private void initBuffers(GL4 gl, boolean persistent) {
+        initCPUBuffers();
+
+        bufferName = GLBuffers.newDirectIntBuffer(persistent ? 1 : 3);
 
         final float[] circleVertexData = new float[diskModel64.getVertexData().length + diskModel32.getVertexData().length + diskModel16.getVertexData().length + diskModel8.getVertexData().length];
         int offset = 0;
@@ -150,15 +212,35 @@ public class IndirectNodeData extends AbstractNodeData {
         BufferUtils.destroyDirectBuffer(circleVertexBuffer);
 
         //Initialize for batch nodes size:
-        attributesGLBuffer = new GLBufferMutable(bufferName.get(ATTRIBS_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-        attributesGLBuffer.bind(gl);
-        attributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE * 2, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
-        attributesGLBuffer.unbind(gl);
+        if (persistent) {
+            persistentRingRegionInstances = BATCH_NODES_SIZE * 2;
+
+            attributesPersistentRing = new GLPersistentBufferRing(GLBufferMutable.GL_BUFFER_TYPE_ARRAY, NUM_BUFFERS);
+            attributesPersistentRing.init(gl, (long) ATTRIBS_STRIDE * Float.BYTES * persistentRingRegionInstances);
+            attributesGLBuffer = attributesPersistentRing.getBuffer();
+
+            commandsPersistentRing = new GLPersistentBufferRing(GLBufferMutable.GL_BUFFER_TYPE_DRAW_INDIRECT, NUM_BUFFERS);
+            commandsPersistentRing.init(gl, (long) INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES * persistentRingRegionInstances);
+            commandsGLBuffer = commandsPersistentRing.getBuffer();
+        } else {
+            attributesGLBuffer = new GLBufferMutable(bufferName.get(ATTRIBS_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+            attributesGLBuffer.bind(gl);
+            attributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE * 2, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+            attributesGLBuffer.unbind(gl);
 
-        commandsGLBuffer = new GLBufferMutable(bufferName.get(INDIRECT_DRAW_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_DRAW_INDIRECT);
-        commandsGLBuffer.bind(gl);
-        commandsGLBuffer.init(gl, INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES * BATCH_NODES_SIZE * 2, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
-        commandsGLBuffer.unbind(gl);
+            commandsGLBuffer = new GLBufferMutable(bufferName.get(INDIRECT_DRAW_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_DRAW_INDIRECT);
+            commandsGLBuffer.bind(gl);
+            commandsGLBuffer.init(gl, INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES * BATCH_NODES_SIZE * 2, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+            commandsGLBuffer.unbind(gl);
+        }
+    }
+
+    /**
+     * Allocates the CPU side buffers filled by {@link #update(VizEngine, GraphIndexImpl)}. It does not need a GL context.
+     */
+    public void initCPUBuffers() {
+        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_NODES_SIZE * 2];
+        commandsBufferBatch = new int[INDIRECT_DRAW_COMMAND_INTS_COUNT * BATCH_NODES_SIZE * 2];
 
         for (int i = 0; i < NUM_BUFFERS; i++) {
             attributesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_NODES_SIZE * 2);
@@ -167,23 +249,133 @@ public class IndirectNodeData extends AbstractNodeData {
     }
 
     public void updateBuffers(GL4 gl) {
-        attributesGLBuffer.bind(gl);
-        attributesGLBuffer.update(gl, attributesBuffersList[currentBufferIndex].floatBuffer());
-        attributesGLBuffer.unbind(gl);
+        if (!frames.acquire()) {
+            return;
+        }
+
+        final RegionNodesFrame previousFrame = drawnFrame;
+        drawnFrame = frames.getReadFrame();
+
+        if (attributesPersistentRing != null) {
+            updatePersistentBuffers(gl, previousFrame);
+        } else {
+            final int bufferIndex = drawnFrame.getSlot();
+
+            //Only the used part of the buffers:
+            final long instances = (long) drawnFrame.getTotalCount() * 2;
+
+            attributesGLBuffer.bind(gl);
+            attributesGLBuffer.update(gl, attributesBuffersList[bufferIndex].floatBuffer(), instances * ATTRIBS_STRIDE * Float.BYTES);
+            attributesGLBuffer.unbind(gl);
+
+            commandsGLBuffer.bind(gl);
+            commandsGLBuffer.update(gl, commandsBuffersList[bufferIndex].intBuffer(), instances * INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES);
+            commandsGLBuffer.unbind(gl);
+            metrics.addBytesUploaded(instances * (ATTRIBS_STRIDE * Float.BYTES + INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES));
+        }
+    }
+
+    private void updatePersistentBuffers(GL4 gl, RegionNodesFrame previousFrame) {
+        final int bufferIndex = drawnFrame.getSlot();
+
+        final int regionInstances = drawnFrame.regionInstances;
+        if (regionInstances == 0) {
+            //Too big for the rings, written to the CPU buffers with base instances from 0. Upload them to mutable buffers instead:
+            if (fallbackAttributesGLBuffer == null) {
+                final int[] fallbackBufferNames = new int[2];
+                gl.glGenBuffers(2, fallbackBufferNames, 0);
+
+                fallbackAttributesGLBuffer = new GLBufferMutable(fallbackBufferNames[0], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+                fallbackAttributesGLBuffer.bind(gl);
+                fallbackAttributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE * 2, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+                fallbackAttributesGLBuffer.unbind(gl);
+
+                fallbackCommandsGLBuffer = new GLBufferMutable(fallbackBufferNames[1], GLBufferMutable.GL_BUFFER_TYPE_DRAW_INDIRECT);
+                fallbackCommandsGLBuffer.bind(gl);
+                fallbackCommandsGLBuffer.init(gl, INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES * BATCH_NODES_SIZE * 2, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+                fallbackCommandsGLBuffer.unbind(gl);
+            }
+
+            final long instances = (long) drawnFrame.getTotalCount() * 2;
+
+            fallbackAttributesGLBuffer.bind(gl);
+            fallbackAttributesGLBuffer.update(gl, attributesBuffersList[bufferIndex].floatBuffer(), instances * ATTRIBS_STRIDE * Float.BYTES);
+            fallbackAttributesGLBuffer.unbind(gl);
 
-        commandsGLBuffer.bind(gl);
-        commandsGLBuffer.update(gl, commandsBuffersList[currentBufferIndex].intBuffer());
-        commandsGLBuffer.unbind(gl);
+            fallbackCommandsGLBuffer.bind(gl);
+            fallbackCommandsGLBuffer.update(gl, commandsBuffersList[bufferIndex].intBuffer(), instances * INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES);
+            fallbackCommandsGLBuffer.unbind(gl);
+            metrics.addBytesUploaded(instances * (ATTRIBS_STRIDE * Float.BYTES + INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES));
 
-        instanceCounter.promoteCountToDraw();
-        //TODO: Persistent buffer if available?
+            if (attributesGLBuffer != fallbackAttributesGLBuffer) {
+                attributesGLBuffer = fallbackAttributesGLBuffer;
+                commandsGLBuffer = fallbackCommandsGLBuffer;
+                resetVertexArrayAttributes(gl);
+            }
+
+            if (previousFrame.getSlot() >= 0) {
+                attributesPersistentRing.fenceRegion(gl, previousFrame.getSlot());
+                commandsPersistentRing.fenceRegion(gl, previousFrame.getSlot());
+            }
+            commandsBaseOffset = 0;
+
+            final int nextBufferIndex = frames.getIdleSlot();
+            attributesPersistentRing.waitRegion(gl, nextBufferIndex);
+            commandsPersistentRing.waitRegion(gl, nextBufferIndex);
+            return;
+        }
+
+        if (regionInstances != persistentRingRegionInstances) {
+            //Last update did not fit and was written to the CPU buffers. Grow the rings and copy it once.
+            //Its commands base instances already account for the new region size:
+            attributesPersistentRing.resize(gl, (long) ATTRIBS_STRIDE * Float.BYTES * regionInstances);
+            commandsPersistentRing.resize(gl, (long) INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES * regionInstances);
+            metrics.addBufferGrowth();
+            persistentRingRegionInstances = regionInstances;
+            attributesGLBuffer = attributesPersistentRing.getBuffer();
+            commandsGLBuffer = commandsPersistentRing.getBuffer();
+            resetVertexArrayAttributes(gl);
+
+            final int instances = drawnFrame.getTotalCount() * 2;
+
+            final FloatBuffer attribsData = attributesBuffersList[bufferIndex].floatBuffer().duplicate();
+            attribsData.limit(instances * ATTRIBS_STRIDE);
+            attributesPersistentRing.floatRegion(bufferIndex).put(attribsData);
+
+            final IntBuffer commandsData = commandsBuffersList[bufferIndex].intBuffer().duplicate();
+            commandsData.limit(instances * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+            commandsPersistentRing.intRegion(bufferIndex).put(commandsData);
+            metrics.addBytesUploaded((long) instances * (ATTRIBS_STRIDE * Float.BYTES + INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES));
+        } else {
+            if (attributesGLBuffer != attributesPersistentRing.getBuffer()) {
+                //Back from the mutable buffers:
+                attributesGLBuffer = attributesPersistentRing.getBuffer();
+                commandsGLBuffer = commandsPersistentRing.getBuffer();
+                resetVertexArrayAttributes(gl);
+            }
+
+            if (previousFrame.getSlot() >= 0) {
+                //Released by this acquire, the GPU may still be drawing it:
+                attributesPersistentRing.fenceRegion(gl, previousFrame.getSlot());
+                commandsPersistentRing.fenceRegion(gl, previousFrame.getSlot());
+            }
+        }
+
+        commandsBaseOffset = bufferIndex * persistentRingRegionInstances;
+
+        //The regions of the next update must not be read by the GPU anymore.
+        //There is at most one world update between acquires, so the writer is not using them yet:
+        final int nextBufferIndex = frames.getIdleSlot();
+        attributesPersistentRing.waitRegion(gl, nextBufferIndex);
+        commandsPersistentRing.waitRegion(gl, nextBufferIndex);
     }
 
-    private void updateData(final float zoom, final GraphIndexImpl spatialIndex, final GraphRenderingOptions renderingOptions, final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection) {
+    private RegionNodesFrame updateData(final Rect2D area, final float zoom, final GraphIndexImpl spatialIndex, final GraphRenderingOptions renderingOptions, final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection) {
+        final int nextBufferIndex = frames.getWriteSlot();
+
         //TODO: unify this copy-paste in nodes renderers...
         if (!renderingOptions.isShowNodes()) {
-            instanceCounter.clearCount();
-            return;
+            return frames.publish(RegionNodesFrame.empty(nextBufferIndex, persistentRingRegionInstances));
         }
 
         spatialIndex.indexNodes();
@@ -195,17 +387,45 @@ public class IndirectNodeData extends AbstractNodeData {
 
         final int totalNodes = spatialIndex.getNodeCount();
 
-        final byte nextBufferIndex = (byte) ((currentBufferIndex + 1) % 3);
-        final ManagedDirectBuffer attributesBuffer = attributesBuffersList[nextBufferIndex];
-        final ManagedDirectBuffer commandsBuffer = commandsBuffersList[nextBufferIndex];
+        final FloatBuffer attribs;
+        final IntBuffer commands;
+        final int regionInstances;
+        final int baseInstance;
+        if (attributesPersistentRing != null && totalNodes * 2 <= persistentRingRegionInstances) {
+            regionInstances = persistentRingRegionInstances;
+            baseInstance = nextBufferIndex * persistentRingRegionInstances;
 
-        attributesBuffer.ensureCapacity(totalNodes * ATTRIBS_STRIDE * 2);
-        commandsBuffer.ensureCapacity(totalNodes * INDIRECT_DRAW_COMMAND_INTS_COUNT * 2);
+            attribs = attributesPersistentRing.floatRegion(nextBufferIndex);
+            commands = commandsPersistentRing.intRegion(nextBufferIndex);
+        } else {
+            final long nextRegionInstances = GLBufferMutable.getNextPowerOf2(totalNodes * 2L);
+            if (attributesPersistentRing != null
+                    && attributesPersistentRing.canHoldRegionSize((long) ATTRIBS_STRIDE * Float.BYTES * nextRegionInstances)
+                    && commandsPersistentRing.canHoldRegionSize((long) INDIRECT_DRAW_COMMAND_INTS_COUNT * Integer.BYTES * nextRegionInstances)) {
+                //The rings will grow to this region size before drawing, see updatePersistentBuffers:
+                regionInstances = (int) nextRegionInstances;
+                baseInstance = nextBufferIndex * regionInstances;
+            } else {
+                //No rings, or too big for them and drawn from mutable buffers:
+                regionInstances = 0;
+                baseInstance = 0;
+            }
 
-        final FloatBuffer attribs = attributesBuffer.floatBuffer();
-        final IntBuffer commands = commandsBuffer.intBuffer();
+            final ManagedDirectBuffer attributesBuffer = attributesBuffersList[nextBufferIndex];
+            final ManagedDirectBuffer commandsBuffer = commandsBuffersList[nextBufferIndex];
 
-        spatialIndex.getVisibleNodes(nodesCallback);
+            if (attributesBuffer.ensureCapacity(totalNodes * ATTRIBS_STRIDE * 2)) {
+                metrics.addBufferGrowth();
+            }
+            if (commandsBuffer.ensureCapacity(totalNodes * INDIRECT_DRAW_COMMAND_INTS_COUNT * 2)) {
+                metrics.addBufferGrowth();
+            }
+
+            attribs = attributesBuffer.floatBuffer();
+            commands = commandsBuffer.intBuffer();
+        }
+
+        spatialIndex.getNodesInArea(area, nodesCallback);
 
         final Node[] visibleNodesArray = nodesCallback.getNodesArray();
         final int visibleNodesCount = nodesCallback.getCount();
@@ -213,9 +433,13 @@ public class IndirectNodeData extends AbstractNodeData {
         int newNodesCountUnselected = 0;
         int newNodesCountSelected = 0;
 
+        //Nodes in drawing order, for picking:
+        final Node[] pickingNodesArray = pickingNodes.beginWrite(nextBufferIndex, visibleNodesCount);
+        int pickingNodesCount = 0;
+
         int index = 0;
         int commandIndex = 0;
-        int instanceId = 0;
+        int instanceId = baseInstance;
         final int stride = ATTRIBS_STRIDE * 2;
         final int commandsStride = 8;
 
@@ -230,6 +454,7 @@ public class IndirectNodeData extends AbstractNodeData {
                     }
 
                     newNodesCountSelected++;
+                    pickingNodesArray[pickingNodesCount++] = node;
 
                     fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
 
@@ -260,6 +485,7 @@ public class IndirectNodeData extends AbstractNodeData {
                     }
 
                     newNodesCountUnselected++;
+                    pickingNodesArray[pickingNodesCount++] = node;
 
                     fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, false);
 
@@ -290,6 +516,7 @@ public class IndirectNodeData extends AbstractNodeData {
                     }
 
                     newNodesCountSelected++;
+                    pickingNodesArray[pickingNodesCount++] = node;
 
                     fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
 
@@ -316,6 +543,7 @@ public class IndirectNodeData extends AbstractNodeData {
                 final Node node = visibleNodesArray[j];
 
                 newNodesCountSelected++;
+                pickingNodesArray[pickingNodesCount++] = node;
 
                 fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
 
@@ -346,9 +574,9 @@ public class IndirectNodeData extends AbstractNodeData {
             commands.put(commandsBufferBatch, 0, commandIndex);
         }
 
-        currentBufferIndex = nextBufferIndex;
-        instanceCounter.unselectedCount = newNodesCountUnselected;
-        instanceCounter.selectedCount = newNodesCountSelected;
+        pickingNodes.endWrite(nextBufferIndex, pickingNodesCount);
+
+        return frames.publish(new RegionNodesFrame(nextBufferIndex, newNodesCountUnselected, newNodesCountSelected, regionInstances));
     }
 
     private void fillNodeCommandData(final Node node, final float zoom, final int index, final int instanceId) {
@@ -385,11 +613,47 @@ public class IndirectNodeData extends AbstractNodeData {
         commandsBufferBatch[index + 7] = instanceId + 1;//base instance
     }
 
+    /**
+     * Nodes frame with the persistent ring region size its base instances were computed for.
+     */
+    private static class RegionNodesFrame extends NodesFrame {
+
+        private final int regionInstances;
+
+        public RegionNodesFrame(int slot, int unselectedCount, int selectedCount, int regionInstances) {
+            super(slot, unselectedCount, selectedCount, 0);
+            this.regionInstances = regionInstances;
+        }
+
+        public static RegionNodesFrame empty(int slot, int regionInstances) {
+            return new RegionNodesFrame(slot, 0, 0, regionInstances);
+        }
+    }
+
     @Override
     public void dispose(GL gl) {
+        updateTracker.reset();
+        frames.reset();
+        drawnFrame = RegionNodesFrame.empty(-1, 0);
+        if (attributesPersistentRing != null) {
+            if (fallbackAttributesGLBuffer != null) {
+                fallbackAttributesGLBuffer.destroy(gl);
+                fallbackCommandsGLBuffer.destroy(gl);
+                fallbackAttributesGLBuffer = null;
+                fallbackCommandsGLBuffer = null;
+            }
+            attributesPersistentRing.destroy(gl.getGL4());
+            commandsPersistentRing.destroy(gl.getGL4());
+            attributesPersistentRing = null;
+            commandsPersistentRing = null;
+            attributesGLBuffer = null;
+            commandsGLBuffer = null;
+        }
+
         super.dispose(gl);
         attributesBufferBatch = null;
         commandsBufferBatch = null;
+        pickingNodes.clear();
 
         for (ManagedDirectBuffer buffer : attributesBuffersList) {
             if (buffer != null) {
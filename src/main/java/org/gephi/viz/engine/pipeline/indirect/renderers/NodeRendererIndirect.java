@@ -27,6 +27,12 @@ public class NodeRendererIndirect implements Renderer {
 
     @Override
     public void init(GLAutoDrawable drawable) {
+        engine.addToLookup(nodeData);
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable drawable) {
+        engine.removeFromLookup(nodeData);
     }
 
     @Override
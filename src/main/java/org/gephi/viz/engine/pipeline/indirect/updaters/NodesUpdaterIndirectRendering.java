@@ -26,7 +26,7 @@ public class NodesUpdaterIndirectRendering implements WorldUpdater {
 
     @Override
     public void init(GLAutoDrawable drawable) {
-        nodeData.init(drawable.getGL().getGL4());
+        nodeData.init(drawable.getGL().getGL4(), engine.getCapabilities());
     }
 
     @Override
@@ -0,0 +1,264 @@
+package org.gephi.viz.engine.pipeline.instanced;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL4;
+import com.jogamp.opengl.util.GLBuffers;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.pipeline.common.EdgesFrame;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.BufferUtils;
+import org.gephi.viz.engine.util.Constants;
+import static org.gephi.viz.engine.util.Constants.EDGE_SCALE_MAX;
+import org.gephi.viz.engine.util.gl.GLBuffer;
+import org.gephi.viz.engine.util.gl.GLBufferMutable;
+import static org.gephi.viz.engine.util.gl.GLConstants.INDIRECT_DRAW_COMMAND_BYTES;
+import static org.gephi.viz.engine.util.gl.GLConstants.INDIRECT_DRAW_COMMAND_INTS_COUNT;
+import org.gephi.viz.engine.util.gl.GLShaderProgram;
+import org.gephi.viz.engine.util.gl.capabilities.GLCapabilities;
+
+/**
+ * Instanced edges culled on the GPU. When incremental updates are enabled in {@link GraphIndexImpl} the attributes of all the edges are built and uploaded only when the graph, selection or rendering options change. Before drawing, a compute shader copies the edges inside the view and longer than {@link GraphRenderingOptions#getEdgeMinScreenLength()} to another buffer and counts them into indirect draw commands, so panning and zooming don't need any CPU work.
+ *
+ * <p>
+ * Visible edges are compacted in parallel, so their drawing order inside each selection group may change between frames.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class InstancedCulledEdgeData extends InstancedEdgeData {
+
+    //Undirected unselected, undirected selected, directed unselected and directed selected:
+    private static final int GROUPS_COUNT = 4;
+    private static final int CULLING_WORK_GROUP_SIZE = 256;
+
+    private static final int SSBO_BINDING_INPUT = 0;
+    private static final int SSBO_BINDING_CULLED = 1;
+    private static final int SSBO_BINDING_COMMANDS = 2;
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "edge";
+    private static final String SHADERS_EDGE_CULLING_SOURCE = "edge-culling";
+
+    private static final String UNIFORM_NAME_VIEW_RECT = "viewRect";
+    private static final String UNIFORM_NAME_MIN_LENGTH = "minLength";
+    private static final String UNIFORM_NAME_ATTRIBS_STRIDE = "attribsStride";
+    private static final String UNIFORM_NAME_INSTANCES_OFFSET = "instancesOffset";
+    private static final String UNIFORM_NAME_INSTANCES_COUNT = "instancesCount";
+    private static final String UNIFORM_NAME_COMMAND_INDEX = "commandIndex";
+
+    private GLShaderProgram cullingProgram;
+    private IntBuffer bufferName;
+    private GLBufferMutable culledAttributesGLBuffer;
+    private GLBufferMutable commandsGLBuffer;
+    private IntBuffer commandsBuffer;
+
+    private final int[] groupOffsets = new int[GROUPS_COUNT];
+    private final int[] groupCounts = new int[GROUPS_COUNT];
+    private final float[] culledMvpFloats = new float[16];
+    private EdgesFrame culledFrame;
+    private boolean cullingNeeded = true;
+
+    public InstancedCulledEdgeData() {
+        //Selected edges are culled with the others, in their own group:
+        super(false, false);
+    }
+
+    @Override
+    public void init(GL2ES3 gl, GLCapabilities capabilities) {
+        super.init(gl, capabilities);
+
+        final GL4 gl4 = gl.getGL4();
+
+        cullingProgram = GLShaderProgram.newComputeProgram(SHADERS_ROOT, SHADERS_EDGE_CULLING_SOURCE)
+                .addUniformName(UNIFORM_NAME_VIEW_RECT)
+                .addUniformName(UNIFORM_NAME_MIN_LENGTH)
+                .addUniformName(UNIFORM_NAME_ATTRIBS_STRIDE)
+                .addUniformName(UNIFORM_NAME_INSTANCES_OFFSET)
+                .addUniformName(UNIFORM_NAME_INSTANCES_COUNT)
+                .addUniformName(UNIFORM_NAME_COMMAND_INDEX)
+                .init(gl4);
+
+        bufferName = GLBuffers.newDirectIntBuffer(2);
+        gl4.glGenBuffers(bufferName.capacity(), bufferName);
+
+        culledAttributesGLBuffer = new GLBufferMutable(bufferName.get(0), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        culledAttributesGLBuffer.bind(gl4);
+        culledAttributesGLBuffer.init(gl4, attributesGLBuffer.size(), GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        culledAttributesGLBuffer.unbind(gl4);
+
+        commandsBuffer = GLBuffers.newDirectIntBuffer(GROUPS_COUNT * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+        commandsGLBuffer = new GLBufferMutable(bufferName.get(1), GLBufferMutable.GL_BUFFER_TYPE_DRAW_INDIRECT);
+        commandsGLBuffer.bind(gl4);
+        commandsGLBuffer.init(gl4, commandsBuffer, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        commandsGLBuffer.unbind(gl4);
+    }
+
+    @Override
+    protected boolean isPersistentBuffersAllowed() {
+        //All the edges are uploaded once, the compute shader reads them from a plain buffer
+        return false;
+    }
+
+    @Override
+    protected GLBuffer getVertexAttributesGLBuffer() {
+        return culledAttributesGLBuffer;
+    }
+
+    @Override
+    public void updateBuffers(GL2ES3 gl) {
+        super.updateBuffers(gl);
+
+        final EdgesFrame frame = getDrawnFrame();
+        if (frame == culledFrame) {
+            //No new world update, the culled edges are still valid for the same view
+            return;
+        }
+
+        groupOffsets[0] = 0;
+        groupCounts[0] = frame.getUndirectedUnselectedCount();
+        groupOffsets[1] = groupOffsets[0] + groupCounts[0];
+        groupCounts[1] = frame.getUndirectedSelectedCount();
+        groupOffsets[2] = groupOffsets[1] + groupCounts[1];
+        groupCounts[2] = frame.getDirectedUnselectedCount();
+        groupOffsets[3] = groupOffsets[2] + groupCounts[2];
+        groupCounts[3] = frame.getDirectedSelectedCount();
+
+        culledFrame = frame;
+        cullingNeeded = true;
+    }
+
+    @Override
+    public void drawInstanced(GL2ES3 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
+        final GL4 gl4 = gl.getGL4();
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+
+        final float edgeScale = renderingOptions.getEdgeScale();
+
+        //Edges are drawn in BACK and then MIDDLE layers, cull once per frame:
+        if (layer == RenderingLayer.BACK && (cullingNeeded || !Arrays.equals(culledMvpFloats, mvpFloats))) {
+            cull(gl4, engine.getViewBoundaries(), EDGE_SCALE_MAX * edgeScale, renderingOptions.getEdgeMinScreenLength() / engine.getZoom());
+
+            System.arraycopy(mvpFloats, 0, culledMvpFloats, 0, culledMvpFloats.length);
+            cullingNeeded = false;
+        }
+
+        final float[] backgroundColorFloats = engine.getBackgroundColor();
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+
+        final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
+
+        final float minWeight = graphIndex.getEdgesMinWeight();
+        final float maxWeight = graphIndex.getEdgesMaxWeight();
+
+        final int undirectedGroup;
+        final int directedGroup;
+        final float colorLightenFactor;
+        if (layer == RenderingLayer.BACK) {
+            undirectedGroup = 0;
+            directedGroup = 2;
+            colorLightenFactor = lightenNonSelectedFactor;
+        } else {
+            undirectedGroup = 1;
+            directedGroup = 3;
+            colorLightenFactor = 0;
+        }
+
+        commandsGLBuffer.bind(gl4);
+        if (groupCounts[undirectedGroup] > 0) {
+            setupUndirectedVertexArrayAttributes(engine, gl4);
+            lineModelUndirected.drawIndirect(gl4, mvpFloats, backgroundColorFloats, colorLightenFactor, (long) undirectedGroup * INDIRECT_DRAW_COMMAND_BYTES, edgeScale, minWeight, maxWeight);
+            unsetupUndirectedVertexArrayAttributes(gl4);
+        }
+
+        if (groupCounts[directedGroup] > 0) {
+            setupDirectedVertexArrayAttributes(engine, gl4);
+            lineModelDirected.drawIndirect(gl4, mvpFloats, backgroundColorFloats, colorLightenFactor, (long) directedGroup * INDIRECT_DRAW_COMMAND_BYTES, edgeScale, minWeight, maxWeight);
+            unsetupDirectedVertexArrayAttributes(gl4);
+        }
+        commandsGLBuffer.unbind(gl4);
+    }
+
+    private void cull(GL4 gl, Rect2D viewBoundaries, float margin, float minLength) {
+        //Reset the commands, instance counts are incremented by the compute shader:
+        commandsBuffer.clear();
+        for (int group = 0; group < GROUPS_COUNT; group++) {
+            commandsBuffer.put(group < 2 ? VERTEX_COUNT_UNDIRECTED : VERTEX_COUNT_DIRECTED);//count
+            commandsBuffer.put(0);//instanceCount
+            commandsBuffer.put(0);//first
+            commandsBuffer.put(groupOffsets[group]);//baseInstance
+        }
+        commandsBuffer.rewind();
+
+        commandsGLBuffer.bind(gl);
+        commandsGLBuffer.update(gl, commandsBuffer);
+        commandsGLBuffer.unbind(gl);
+
+        culledAttributesGLBuffer.bind(gl);
+        culledAttributesGLBuffer.ensureCapacity(gl, attributesGLBuffer.size());
+        culledAttributesGLBuffer.unbind(gl);
+
+        gl.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, SSBO_BINDING_INPUT, attributesGLBuffer.getId());
+        gl.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, SSBO_BINDING_CULLED, culledAttributesGLBuffer.getId());
+        gl.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, SSBO_BINDING_COMMANDS, commandsGLBuffer.getId());
+
+        cullingProgram.use(gl);
+        gl.glUniform4f(cullingProgram.getUniformLocation(UNIFORM_NAME_VIEW_RECT),
+                viewBoundaries.minX - margin, viewBoundaries.minY - margin,
+                viewBoundaries.maxX + margin, viewBoundaries.maxY + margin
+        );
+        gl.glUniform1f(cullingProgram.getUniformLocation(UNIFORM_NAME_MIN_LENGTH), minLength);
+        gl.glUniform1i(cullingProgram.getUniformLocation(UNIFORM_NAME_ATTRIBS_STRIDE), ATTRIBS_STRIDE);
+
+        for (int group = 0; group < GROUPS_COUNT; group++) {
+            final int count = groupCounts[group];
+            if (count == 0) {
+                continue;
+            }
+
+            gl.glUniform1i(cullingProgram.getUniformLocation(UNIFORM_NAME_INSTANCES_OFFSET), groupOffsets[group]);
+            gl.glUniform1i(cullingProgram.getUniformLocation(UNIFORM_NAME_INSTANCES_COUNT), count);
+            gl.glUniform1i(cullingProgram.getUniformLocation(UNIFORM_NAME_COMMAND_INDEX), group);
+            gl.glDispatchCompute((count + CULLING_WORK_GROUP_SIZE - 1) / CULLING_WORK_GROUP_SIZE, 1, 1);
+        }
+        cullingProgram.stopUsing(gl);
+
+        for (int binding = SSBO_BINDING_INPUT; binding <= SSBO_BINDING_COMMANDS; binding++) {
+            gl.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, binding, 0);
+        }
+
+        //Culled attributes and commands must be written before drawing with them:
+        gl.glMemoryBarrier(GL4.GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT | GL4.GL_COMMAND_BARRIER_BIT);
+    }
+
+    @Override
+    public void dispose(GL gl) {
+        if (culledAttributesGLBuffer != null) {
+            culledAttributesGLBuffer.destroy(gl);
+            culledAttributesGLBuffer = null;
+        }
+
+        if (commandsGLBuffer != null) {
+            commandsGLBuffer.destroy(gl);
+            commandsGLBuffer = null;
+        }
+
+        if (commandsBuffer != null) {
+            BufferUtils.destroyDirectBuffer(commandsBuffer);
+            commandsBuffer = null;
+        }
+
+        if (bufferName != null) {
+            BufferUtils.destroyDirectBuffer(bufferName);
+            bufferName = null;
+        }
+
+        culledFrame = null;
+        cullingNeeded = true;
+        super.dispose(gl);
+    }
+}
@@ -3,23 +3,33 @@ package org.gephi.viz.engine.pipeline.instanced;
 import com.jogamp.opengl.GL;
 import static com.jogamp.opengl.GL.GL_FLOAT;
 import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL4;
 import com.jogamp.opengl.util.GLBuffers;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.Arrays;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.models.EdgeLineModelDirected;
 import org.gephi.viz.engine.models.EdgeLineModelUndirected;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.pipeline.common.DataUpdateTracker;
+import org.gephi.viz.engine.pipeline.common.EdgesFrame;
+import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndex;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 import org.gephi.viz.engine.util.BufferUtils;
 import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.util.TripleBufferExchange;
 import org.gephi.viz.engine.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.util.gl.GLPersistentBufferRing;
+import org.gephi.viz.engine.util.gl.capabilities.GLCapabilities;
 
 /**
  *
@@ -34,20 +44,122 @@ public class InstancedEdgeData extends AbstractEdgeData {
     private static final int ATTRIBS_BUFFER = 2;
 
     public InstancedEdgeData() {
+        this(true, false);
+    }
+
+    /**
+     *
+     * @param viewDependent False to build the data of all the edges when incremental updates are enabled, instead of only the ones around the view. Short edges are then not removed on the CPU either
+     * @param selectionOverlay True to build the data of all the edges as without selection, and draw the selected edges over them from a small buffer. Selection changes then only rebuild the selected edges in the world updater, but highlights are not delivered with the ones of the nodes anymore unless the nodes pipeline does the same
+     */
+    protected InstancedEdgeData(boolean viewDependent, boolean selectionOverlay) {
         super(true);
+        this.viewDependent = viewDependent;
+        this.selectionOverlay = selectionOverlay;
+        //Removing short edges depends on the zoom:
+        this.updateTracker = new DataUpdateTracker(viewDependent, viewDependent, true, !selectionOverlay);
     }
 
-    public void init(GL2ES3 gl) {
+    public void init(GL2ES3 gl, GLCapabilities capabilities) {
         super.init(gl);
-        initBuffers(gl);
+        initBuffers(gl, gl.isGL4() && capabilities.isPersistentBufferSupported() && isPersistentBuffersAllowed());
+    }
+
+    protected boolean isPersistentBuffersAllowed() {
+        return true;
     }
 
     public void update(VizEngine engine, GraphIndexImpl graphIndex) {
-        updateData(
+        metrics = engine.getMetrics();
+
+        if (selectionOverlay && selectionUpdateTracker.nextUpdateArea(engine, graphIndex) != null) {
+            updateSelectionData(engine, graphIndex);
+        }
+
+        final Rect2D area = updateTracker.nextUpdateArea(engine, graphIndex);
+        if (area == null) {
+            //Nothing changed since last update
+            return;
+        }
+
+        final EdgesFrame frame = updateData(
+                area,
+                engine.getZoom(),
                 graphIndex,
                 engine.getLookup().lookup(GraphRenderingOptions.class),
                 engine.getLookup().lookup(GraphSelection.class)
         );
+
+        metrics.setVisibleEdgesCount(frame.getTotalCount());
+    }
+
+    /**
+     * Rebuilds the attributes of the selected edges, in the world updater. Selected edges are few, so this is done when only the selection changed without rebuilding all the edges.
+     */
+    private void updateSelectionData(VizEngine engine, GraphIndexImpl graphIndex) {
+        final int writeSlot = selectionFrames.getWriteSlot();
+
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        final GraphSelection graphSelection = engine.getLookup().lookup(GraphSelection.class);
+
+        final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
+        final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || renderingOptions.getLightenNonSelectedFactor() >= 1);
+
+        selectionFiller.clearCounts();
+        if (!someEdgesSelection || !renderingOptions.isShowEdges()) {
+            selectionFrames.publish(new SelectionEdgesFrame(writeSlot, selectionFiller, someEdgesSelection, hideNonSelected));
+            return;
+        }
+
+        final Graph graph = graphIndex.getGraph();
+        graph.readLock();
+        try {
+            fillSelectionData(writeSlot, graph, renderingOptions, graphSelection);
+        } finally {
+            graph.readUnlockAll();
+        }
+
+        selectionFrames.publish(new SelectionEdgesFrame(writeSlot, selectionFiller, someEdgesSelection, hideNonSelected));
+    }
+
+    private void fillSelectionData(final int writeSlot, final Graph graph, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
+        int count = 0;
+        for (Edge edge : graphSelection.getSelectedEdges()) {
+            //Removed from the graph or filtered out:
+            if (edge == null || !graph.contains(edge)) {
+                continue;
+            }
+
+            if (count == selectedEdgesArray.length) {
+                selectedEdgesArray = Arrays.copyOf(selectedEdgesArray, count * 2);
+            }
+            selectedEdgesArray[count++] = edge;
+        }
+
+        final ManagedDirectBuffer selectionAttributesBuffer = selectionAttributesBuffersList[writeSlot];
+        if (selectionAttributesBuffer.ensureCapacity(count * ATTRIBS_STRIDE)) {
+            metrics.addBufferGrowth();
+        }
+        final FloatBuffer attribs = selectionAttributesBuffer.floatBuffer();
+
+        final boolean someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
+        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
+        final float edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
+        final float edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
+        final float edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
+
+        //Only selected edges, hiding the non selected ones:
+        selectionFiller.updateUndirectedData(
+                graph,
+                true, true, count, selectedEdgesArray, graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
+                selectionAttributesBatch, 0, attribs
+        );
+        selectionFiller.updateDirectedData(
+                graph,
+                true, true, count, selectedEdgesArray, graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
+                selectionAttributesBatch, 0, attribs
+        );
+        Arrays.fill(selectedEdgesArray, 0, count, null);
     }
 
     public void drawInstanced(GL2ES3 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
@@ -62,6 +174,11 @@ public class InstancedEdgeData extends AbstractEdgeData {
         final float minWeight = graphIndex.getEdgesMinWeight();
         final float maxWeight = graphIndex.getEdgesMaxWeight();
 
+        if (selectionOverlay && layer != RenderingLayer.BACK) {
+            drawSelection(engine, gl, mvpFloats, backgroundColorFloats, edgeScale, minWeight, maxWeight);
+            return;
+        }
+
         drawUndirected(engine, layer, gl, mvpFloats, backgroundColorFloats, lightenNonSelectedFactor, edgeScale, minWeight, maxWeight);
         drawDirected(engine, layer, gl, mvpFloats, backgroundColorFloats, lightenNonSelectedFactor, edgeScale, minWeight, maxWeight);
     }
@@ -71,13 +188,18 @@ public class InstancedEdgeData extends AbstractEdgeData {
         final int instancesOffset;
         final float colorLightenFactor;
 
-        if (layer == RenderingLayer.BACK) {
-            instanceCount = undirectedInstanceCounter.unselectedCountToDraw;
-            instancesOffset = 0;
+        if (selectionOverlay) {
+            //All the edges, lightened when some are selected:
+            instanceCount = drawnSelectionFrame.hideNonSelected ? 0 : drawnFrame.getUndirectedCount();
+            instancesOffset = attributesBaseInstance;
+            colorLightenFactor = drawnSelectionFrame.someEdgesSelection ? lightenNonSelectedFactor : 0;
+        } else if (layer == RenderingLayer.BACK) {
+            instanceCount = drawnFrame.getUndirectedUnselectedCount();
+            instancesOffset = attributesBaseInstance;
             colorLightenFactor = lightenNonSelectedFactor;
         } else {
-            instanceCount = undirectedInstanceCounter.selectedCountToDraw;
-            instancesOffset = undirectedInstanceCounter.unselectedCountToDraw;
+            instanceCount = drawnFrame.getUndirectedSelectedCount();
+            instancesOffset = attributesBaseInstance + drawnFrame.getUndirectedUnselectedCount();
             colorLightenFactor = 0;
         }
 
@@ -93,13 +215,18 @@ public class InstancedEdgeData extends AbstractEdgeData {
         final int instancesOffset;
         final float colorLightenFactor;
 
-        if (layer == RenderingLayer.BACK) {
-            instanceCount = directedInstanceCounter.unselectedCountToDraw;
-            instancesOffset = undirectedInstanceCounter.totalToDraw();
+        if (selectionOverlay) {
+            //All the edges, lightened when some are selected:
+            instanceCount = drawnSelectionFrame.hideNonSelected ? 0 : drawnFrame.getDirectedCount();
+            instancesOffset = attributesBaseInstance + drawnFrame.getUndirectedCount();
+            colorLightenFactor = drawnSelectionFrame.someEdgesSelection ? lightenNonSelectedFactor : 0;
+        } else if (layer == RenderingLayer.BACK) {
+            instanceCount = drawnFrame.getDirectedUnselectedCount();
+            instancesOffset = attributesBaseInstance + drawnFrame.getUndirectedCount();
             colorLightenFactor = lightenNonSelectedFactor;
         } else {
-            instanceCount = directedInstanceCounter.selectedCountToDraw;
-            instancesOffset = undirectedInstanceCounter.totalToDraw() + directedInstanceCounter.unselectedCountToDraw;
+            instanceCount = drawnFrame.getDirectedSelectedCount();
+            instancesOffset = attributesBaseInstance + drawnFrame.getUndirectedCount() + drawnFrame.getDirectedUnselectedCount();
             colorLightenFactor = 0;
         }
 
@@ -110,18 +237,56 @@ public class InstancedEdgeData extends AbstractEdgeData {
         }
     }
 
+    private void drawSelection(VizEngine engine, GL2ES3 gl, float[] mvpFloats, float[] backgroundColorFloats, float edgeScale, float minWeight, float maxWeight) {
+        final int undirectedCount = drawnSelectionFrame.getUndirectedCount();
+        if (undirectedCount > 0) {
+            setupUndirectedSelectionVertexArrayAttributes(engine, gl);
+            lineModelUndirected.drawInstanced(gl, mvpFloats, backgroundColorFloats, 0, undirectedCount, 0, edgeScale, minWeight, maxWeight);
+            unsetupUndirectedSelectionVertexArrayAttributes(gl);
+        }
+
+        final int directedCount = drawnSelectionFrame.getDirectedCount();
+        if (directedCount > 0) {
+            setupDirectedSelectionVertexArrayAttributes(engine, gl);
+            lineModelDirected.drawInstanced(gl, mvpFloats, backgroundColorFloats, 0, directedCount, undirectedCount, edgeScale, minWeight, maxWeight);
+            unsetupDirectedSelectionVertexArrayAttributes(gl);
+        }
+    }
+
     //Triple buffering to ensure CPU and GPU don't access the same buffer at the same time:
-    private static final int NUM_BUFFERS = 3;
-    private int currentBufferIndex = 0;
+    private static final int NUM_BUFFERS = TripleBufferExchange.SLOTS;
+    private final TripleBufferExchange<RegionEdgesFrame> frames = new TripleBufferExchange<>();
+    private RegionEdgesFrame drawnFrame = RegionEdgesFrame.empty(-1, 0);
+    private final boolean viewDependent;
+    private final DataUpdateTracker updateTracker;
+    private EngineMetrics metrics;
     private final ManagedDirectBuffer[] attributesBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
 
     private float[] attributesBufferBatch;
     private static final int BATCH_EDGES_SIZE = 32768;
 
-    private void initBuffers(GL2ES3 gl) {
-        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
-
-        bufferName = GLBuffers.newDirectIntBuffer(3);
+    //Selected edges, drawn again over all the edges:
+    private static final int SELECTION_BATCH_EDGES_SIZE = 1024;
+    private final boolean selectionOverlay;
+    private final TripleBufferExchange<SelectionEdgesFrame> selectionFrames = new TripleBufferExchange<>();
+    private SelectionEdgesFrame drawnSelectionFrame = SelectionEdgesFrame.empty(-1);
+    private final DataUpdateTracker selectionUpdateTracker = new DataUpdateTracker(false, false);
+    private final SelectedEdgesFiller selectionFiller = new SelectedEdgesFiller();
+    private final ManagedDirectBuffer[] selectionAttributesBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
+    private Edge[] selectedEdgesArray = new Edge[64];
+    private float[] selectionAttributesBatch;
+
+    //Persistent mapped attributes, one region per buffer index, written directly by the world updater when they fit:
+    private GLPersistentBufferRing attributesPersistentRing;
+    private int persistentRingRegionInstances = 0;
+    private int attributesBaseInstance = 0;
+    //Updates too big for the ring, marked with no region instances. Only used in the GL thread:
+    private GLBufferMutable fallbackAttributesGLBuffer;
+
+    private void initBuffers(GL2ES3 gl, boolean persistent) {
+        initCPUBuffers();
+
+        bufferName = GLBuffers.newDirectIntBuffer((persistent ? 2 : 3) + (selectionOverlay ? 1 : 0));
 
         gl.glGenBuffers(bufferName.capacity(), bufferName);
         {
@@ -143,38 +308,166 @@ public class InstancedEdgeData extends AbstractEdgeData {
         }
 
         //Initialize for batch edges size:
-        attributesGLBuffer = new GLBufferMutable(bufferName.get(ATTRIBS_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-        attributesGLBuffer.bind(gl);
-        attributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
-        attributesGLBuffer.unbind(gl);
+        if (persistent) {
+            persistentRingRegionInstances = BATCH_EDGES_SIZE;
+            attributesPersistentRing = new GLPersistentBufferRing(GLBufferMutable.GL_BUFFER_TYPE_ARRAY, NUM_BUFFERS);
+            attributesPersistentRing.init(gl.getGL4(), (long) ATTRIBS_STRIDE * Float.BYTES * persistentRingRegionInstances);
+            attributesGLBuffer = attributesPersistentRing.getBuffer();
+        } else {
+            attributesGLBuffer = new GLBufferMutable(bufferName.get(ATTRIBS_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+            attributesGLBuffer.bind(gl);
+            attributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+            attributesGLBuffer.unbind(gl);
+        }
+
+        if (selectionOverlay) {
+            selectionAttributesGLBuffer = new GLBufferMutable(bufferName.get(bufferName.capacity() - 1), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+            selectionAttributesGLBuffer.bind(gl);
+            selectionAttributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * SELECTION_BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+            selectionAttributesGLBuffer.unbind(gl);
+        }
+    }
+
+    /**
+     * Allocates the CPU side buffers filled by {@link #update(VizEngine, GraphIndexImpl)}. It does not need a GL context.
+     */
+    public void initCPUBuffers() {
+        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
 
         for (int i = 0; i < NUM_BUFFERS; i++) {
             attributesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_EDGES_SIZE);
         }
+
+        if (selectionOverlay) {
+            selectionAttributesBatch = new float[ATTRIBS_STRIDE * SELECTION_BATCH_EDGES_SIZE];
+            for (int i = 0; i < NUM_BUFFERS; i++) {
+                selectionAttributesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * SELECTION_BATCH_EDGES_SIZE);
+            }
+        }
     }
 
     public void updateBuffers(GL2ES3 gl) {
-        attributesGLBuffer.bind(gl);
-        attributesGLBuffer.update(gl, attributesBuffersList[currentBufferIndex].floatBuffer());
-        attributesGLBuffer.unbind(gl);
+        if (selectionOverlay && selectionFrames.acquire()) {
+            drawnSelectionFrame = selectionFrames.getReadFrame();
+
+            final long usedBytes = (long) drawnSelectionFrame.getTotalCount() * ATTRIBS_STRIDE * Float.BYTES;
+            if (usedBytes > 0) {
+                selectionAttributesGLBuffer.bind(gl);
+                selectionAttributesGLBuffer.update(gl, selectionAttributesBuffersList[drawnSelectionFrame.getSlot()].floatBuffer(), usedBytes);
+                selectionAttributesGLBuffer.unbind(gl);
+                metrics.addBytesUploaded(usedBytes);
+            }
+        }
+
+        if (!frames.acquire()) {
+            return;
+        }
+
+        final RegionEdgesFrame previousFrame = drawnFrame;
+        drawnFrame = frames.getReadFrame();
+
+        if (attributesPersistentRing != null) {
+            updatePersistentBuffers(gl.getGL4(), previousFrame);
+        } else {
+            //Only the used part of the buffer:
+            final long usedBytes = (long) drawnFrame.getTotalCount() * ATTRIBS_STRIDE * Float.BYTES;
 
-        undirectedInstanceCounter.promoteCountToDraw();
-        directedInstanceCounter.promoteCountToDraw();
-        //TODO: Persistent buffer if available?
+            attributesGLBuffer.bind(gl);
+            attributesGLBuffer.update(gl, attributesBuffersList[drawnFrame.getSlot()].floatBuffer(), usedBytes);
+            attributesGLBuffer.unbind(gl);
+            metrics.addBytesUploaded(usedBytes);
+        }
     }
-    
-    private void updateData(final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
+
+    /**
+     *
+     * @return Frame of the last uploaded world update
+     */
+    protected EdgesFrame getDrawnFrame() {
+        return drawnFrame;
+    }
+
+    private void updatePersistentBuffers(GL4 gl, RegionEdgesFrame previousFrame) {
+        final int bufferIndex = drawnFrame.getSlot();
+
+        final int regionInstances = drawnFrame.regionInstances;
+        if (regionInstances == 0) {
+            //Too big for the ring, written to the CPU buffer. Upload it to a mutable buffer instead:
+            if (fallbackAttributesGLBuffer == null) {
+                final int[] fallbackBufferName = new int[1];
+                gl.glGenBuffers(1, fallbackBufferName, 0);
+                fallbackAttributesGLBuffer = new GLBufferMutable(fallbackBufferName[0], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+                fallbackAttributesGLBuffer.bind(gl);
+                fallbackAttributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+                fallbackAttributesGLBuffer.unbind(gl);
+            }
+
+            final long usedBytes = (long) drawnFrame.getTotalCount() * ATTRIBS_STRIDE * Float.BYTES;
+            fallbackAttributesGLBuffer.bind(gl);
+            fallbackAttributesGLBuffer.update(gl, attributesBuffersList[bufferIndex].floatBuffer(), usedBytes);
+            fallbackAttributesGLBuffer.unbind(gl);
+            metrics.addBytesUploaded(usedBytes);
+
+            if (attributesGLBuffer != fallbackAttributesGLBuffer) {
+                attributesGLBuffer = fallbackAttributesGLBuffer;
+                resetVertexArrayAttributes(gl);
+            }
+
+            if (previousFrame.getSlot() >= 0) {
+                attributesPersistentRing.fenceRegion(gl, previousFrame.getSlot());
+            }
+            attributesBaseInstance = 0;
+            attributesPersistentRing.waitRegion(gl, frames.getIdleSlot());
+            return;
+        }
+
+        if (regionInstances != persistentRingRegionInstances) {
+            //Last update did not fit and was written to the CPU buffer. Grow the ring and copy it once:
+            attributesPersistentRing.resize(gl, (long) ATTRIBS_STRIDE * Float.BYTES * regionInstances);
+            metrics.addBufferGrowth();
+            persistentRingRegionInstances = regionInstances;
+            attributesGLBuffer = attributesPersistentRing.getBuffer();
+            resetVertexArrayAttributes(gl);
+
+            final FloatBuffer attribsData = attributesBuffersList[bufferIndex].floatBuffer().duplicate();
+            attribsData.limit(drawnFrame.getTotalCount() * ATTRIBS_STRIDE);
+            metrics.addBytesUploaded((long) attribsData.remaining() * Float.BYTES);
+            attributesPersistentRing.floatRegion(bufferIndex).put(attribsData);
+        } else {
+            if (attributesGLBuffer != attributesPersistentRing.getBuffer()) {
+                //Back from the mutable buffer:
+                attributesGLBuffer = attributesPersistentRing.getBuffer();
+                resetVertexArrayAttributes(gl);
+            }
+
+            if (previousFrame.getSlot() >= 0) {
+                //Released by this acquire, the GPU may still be drawing it:
+                attributesPersistentRing.fenceRegion(gl, previousFrame.getSlot());
+            }
+        }
+
+        attributesBaseInstance = bufferIndex * persistentRingRegionInstances;
+
+        //The region of the next update must not be read by the GPU anymore.
+        //There is at most one world update between acquires, so the writer is not using it yet:
+        attributesPersistentRing.waitRegion(gl, frames.getIdleSlot());
+    }
+
+
+    private RegionEdgesFrame updateData(final Rect2D area, final float zoom, final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
+        final int nextBufferIndex = frames.getWriteSlot();
+
         if (!renderingOptions.isShowEdges()) {
             undirectedInstanceCounter.clearCount();
             directedInstanceCounter.clearCount();
-            return;
+            return frames.publish(RegionEdgesFrame.empty(nextBufferIndex, persistentRingRegionInstances));
         }
 
         graphIndex.indexEdges();
 
-        //Selection:
-        final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
-        final boolean someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
+        //Selection, drawn from its own buffer with selection overlay:
+        final boolean someEdgesSelection = !selectionOverlay && graphSelection.getSelectedEdgesCount() > 0;
+        final boolean someNodesSelection = !selectionOverlay && graphSelection.getSelectedNodesCount() > 0;
         final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
         final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
         final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
@@ -184,17 +477,35 @@ public class InstancedEdgeData extends AbstractEdgeData {
 
         final int totalEdges = graphIndex.getEdgeCount();
 
-        final byte nextBufferIndex = (byte) ((currentBufferIndex + 1) % 3);
-        final ManagedDirectBuffer attributesBuffer = attributesBuffersList[nextBufferIndex];
-
-        attributesBuffer.ensureCapacity(totalEdges * ATTRIBS_STRIDE);
+        final FloatBuffer attribsDirectBuffer;
+        final int regionInstances;
+        if (attributesPersistentRing != null && totalEdges <= persistentRingRegionInstances) {
+            regionInstances = persistentRingRegionInstances;
+            attribsDirectBuffer = attributesPersistentRing.floatRegion(nextBufferIndex);
+        } else {
+            if (attributesPersistentRing != null) {
+                //The ring will grow to this region size before drawing, or the edges are drawn from a mutable buffer if it can't:
+                final long nextRegionInstances = GLBufferMutable.getNextPowerOf2(totalEdges);
+                regionInstances = attributesPersistentRing.canHoldRegionSize((long) ATTRIBS_STRIDE * Float.BYTES * nextRegionInstances)
+                        ? (int) nextRegionInstances
+                        : 0;
+            } else {
+                regionInstances = 0;
+            }
 
-        final FloatBuffer attribsDirectBuffer = attributesBuffer.floatBuffer();
+            final ManagedDirectBuffer attributesBuffer = attributesBuffersList[nextBufferIndex];
+            if (attributesBuffer.ensureCapacity(totalEdges * ATTRIBS_STRIDE)) {
+                metrics.addBufferGrowth();
+            }
+            attribsDirectBuffer = attributesBuffer.floatBuffer();
+        }
 
-        graphIndex.getVisibleEdges(edgesCallback);
+        graphIndex.getEdgesInArea(area, edgesCallback);
 
         final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
-        final int visibleEdgesCount = edgesCallback.getCount();
+        final int visibleEdgesCount = viewDependent
+                ? removeShortEdges(visibleEdgesArray, edgesCallback.getCount(), renderingOptions.getEdgeMinScreenLength() / zoom)
+                : edgesCallback.getCount();
 
         final Graph graph = graphIndex.getGraph();
         
@@ -209,11 +520,102 @@ public class InstancedEdgeData extends AbstractEdgeData {
                 attributesBufferBatch, 0, attribsDirectBuffer
         );
 
-        currentBufferIndex = nextBufferIndex;
+        return frames.publish(new RegionEdgesFrame(nextBufferIndex, undirectedInstanceCounter, directedInstanceCounter, regionInstances));
+    }
+
+    /**
+     * Fills the selected edges with its own selection state and instance counters, so the GL thread does not share them with the world updater.
+     */
+    private static class SelectedEdgesFiller extends AbstractEdgeData {
+
+        public SelectedEdgesFiller() {
+            super(true);
+        }
+
+        public int getUndirectedCount() {
+            return undirectedInstanceCounter.total();
+        }
+
+        public int getDirectedCount() {
+            return directedInstanceCounter.total();
+        }
+
+        public int getTotalCount() {
+            return getUndirectedCount() + getDirectedCount();
+        }
+
+        public void clearCounts() {
+            undirectedInstanceCounter.clearCount();
+            directedInstanceCounter.clearCount();
+        }
+    }
+
+    /**
+     * Selected edges written into a slot of the selection buffers, with the selection state of all the edges.
+     */
+    private static class SelectionEdgesFrame extends EdgesFrame {
+
+        private final boolean someEdgesSelection;
+        private final boolean hideNonSelected;
+
+        public SelectionEdgesFrame(int slot, SelectedEdgesFiller filler, boolean someEdgesSelection, boolean hideNonSelected) {
+            this(slot, filler.getUndirectedCount(), filler.getDirectedCount(), someEdgesSelection, hideNonSelected);
+        }
+
+        private SelectionEdgesFrame(int slot, int undirectedCount, int directedCount, boolean someEdgesSelection, boolean hideNonSelected) {
+            super(slot, 0, undirectedCount, 0, directedCount);
+            this.someEdgesSelection = someEdgesSelection;
+            this.hideNonSelected = hideNonSelected;
+        }
+
+        public static SelectionEdgesFrame empty(int slot) {
+            return new SelectionEdgesFrame(slot, 0, 0, false, false);
+        }
+    }
+
+    /**
+     * Edges frame with the persistent ring region size it was written for.
+     */
+    private static class RegionEdgesFrame extends EdgesFrame {
+
+        private final int regionInstances;
+
+        public RegionEdgesFrame(int slot, InstanceCounter undirectedCounter, InstanceCounter directedCounter, int regionInstances) {
+            super(slot, undirectedCounter, directedCounter);
+            this.regionInstances = regionInstances;
+        }
+
+        public static RegionEdgesFrame empty(int slot, int regionInstances) {
+            return new RegionEdgesFrame(slot, new InstanceCounter(), new InstanceCounter(), regionInstances);
+        }
     }
 
     @Override
     public void dispose(GL gl) {
+        updateTracker.reset();
+        selectionUpdateTracker.reset();
+        selectionFiller.clearCounts();
+        selectionFrames.reset();
+        drawnSelectionFrame = SelectionEdgesFrame.empty(-1);
+        selectionAttributesBatch = null;
+        for (int i = 0; i < NUM_BUFFERS; i++) {
+            if (selectionAttributesBuffersList[i] != null) {
+                selectionAttributesBuffersList[i].destroy();
+                selectionAttributesBuffersList[i] = null;
+            }
+        }
+        frames.reset();
+        drawnFrame = RegionEdgesFrame.empty(-1, 0);
+        if (attributesPersistentRing != null) {
+            if (fallbackAttributesGLBuffer != null) {
+                fallbackAttributesGLBuffer.destroy(gl);
+                fallbackAttributesGLBuffer = null;
+            }
+            attributesPersistentRing.destroy(gl.getGL4());
+            attributesPersistentRing = null;
+            attributesGLBuffer = null;
+        }
+
         super.dispose(gl);
         attributesBufferBatch = null;
 
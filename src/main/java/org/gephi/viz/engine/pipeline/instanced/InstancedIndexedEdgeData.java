@@ -0,0 +1,903 @@
+package org.gephi.viz.engine.pipeline.instanced;
+
+import com.jogamp.opengl.GL;
+import static com.jogamp.opengl.GL.GL_FLOAT;
+import static com.jogamp.opengl.GL.GL_UNSIGNED_BYTE;
+import com.jogamp.opengl.GL2ES2;
+import static com.jogamp.opengl.GL2ES2.GL_INT;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL4;
+import com.jogamp.opengl.util.GLBuffers;
+import java.nio.FloatBuffer;
+import java.awt.Color;
+import java.nio.IntBuffer;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.models.EdgeLineModelIndexed;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.pipeline.common.DataUpdateTracker;
+import org.gephi.viz.engine.pipeline.common.EdgesFrame;
+import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.structure.GraphSnapshot;
+import org.gephi.viz.engine.util.BufferUtils;
+import static org.gephi.viz.engine.util.Constants.*;
+import org.gephi.viz.engine.util.ElementFlagsBuffer;
+import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.util.TripleBufferExchange;
+import org.gephi.viz.engine.util.gl.GLBuffer;
+import org.gephi.viz.engine.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.util.gl.GLVertexArrayObject;
+import org.gephi.viz.engine.util.gl.capabilities.GLCapabilities;
+
+/**
+ * Instanced edges that only store the indices of their nodes, their weight and their color. The vertex shader reads the position, size and color of the nodes from a separate nodes buffer.
+ *
+ * <p>
+ * When incremental updates are enabled in {@link GraphIndexImpl}, {@link GraphIndexImpl#invalidateNodes()} after moving nodes only rebuilds and uploads the nodes buffer, which is much smaller than the edges one on dense graphs. Edges are built for the whole world for that reason, and shorter than {@link GraphRenderingOptions#getEdgeMinScreenLength()} are discarded in the vertex shader.</p>
+ *
+ * <p>
+ * Both buffers are filled from the {@link GraphSnapshot} of the graph index, node indices are positions in the snapshot.</p>
+ *
+ * <p>
+ * With selection flags, the edges buffer does not depend on the selection: it is never sorted into non-selected and selected edges and selection changes do not rebuild it. Instead, the selection is one byte of flags per edge in a separate buffer, where only the pages that changed are uploaded, and the shaders apply the selection colors. Both layers draw all the edges, each one discarding the edges of the other. Flags are only drawn with the edges buffer of the same instances order.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class InstancedIndexedEdgeData extends AbstractEdgeData {
+
+    protected static final int INDEXED_ATTRIBS_STRIDE = EdgeLineModelIndexed.TOTAL_ATTRIBUTES_FLOATS;
+
+    private final EdgeLineModelIndexed lineModelIndexedUndirected;
+    private final EdgeLineModelIndexed lineModelIndexedDirected;
+
+    private IntBuffer bufferName;
+
+    private static final int VERT_BUFFER_UNDIRECTED = 0;
+    private static final int VERT_BUFFER_DIRECTED = 1;
+    private static final int ATTRIBS_BUFFER = 2;
+    private static final int NODES_BUFFER = 3;
+    private static final int EDGE_FLAGS_BUFFER = 4;
+
+    private final boolean selectionFlags;
+
+    private GLBufferMutable nodesGLBuffer;
+    private GLBufferMutable edgeFlagsGLBuffer;
+    private GraphSnapshot updatedSnapshot;
+    private int[] visibleEdgeIndices = new int[0];
+
+    public InstancedIndexedEdgeData() {
+        this(false);
+    }
+
+    /**
+     *
+     * @param selectionFlags True to keep the selection in a separate flags buffer, so selection changes do not rebuild the edges buffer
+     */
+    public InstancedIndexedEdgeData(boolean selectionFlags) {
+        super(true);
+        this.selectionFlags = selectionFlags;
+        this.lineModelIndexedUndirected = new EdgeLineModelIndexed(false, selectionFlags);
+        this.lineModelIndexedDirected = new EdgeLineModelIndexed(true, selectionFlags);
+        //Edges are not culled on the CPU and only reference nodes, moving them does not need a rebuild:
+        this.updateTracker = new DataUpdateTracker(false, false, false, !selectionFlags);
+    }
+
+    public boolean isSelectionFlags() {
+        return selectionFlags;
+    }
+
+    public void init(GL2ES3 gl) {
+        lineModelIndexedUndirected.initGLPrograms(gl);
+        lineModelIndexedDirected.initGLPrograms(gl);
+        initBuffers(gl);
+    }
+
+    public void update(VizEngine engine, GraphIndexImpl graphIndex) {
+        metrics = engine.getMetrics();
+
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        if (!renderingOptions.isShowEdges()) {
+            if (undirectedInstanceCounter.total() + directedInstanceCounter.total() > 0) {
+                undirectedInstanceCounter.clearCount();
+                directedInstanceCounter.clearCount();
+                frames.publish(IndexedEdgesFrame.empty(frames.getWriteSlot(), snapshotSerial));
+            }
+            updateTracker.reset();
+            return;
+        }
+
+        final GraphSnapshot snapshot = graphIndex.getSnapshot();
+        if (snapshot != updatedSnapshot) {
+            snapshotSerial++;
+        }
+
+        Rect2D area = updateTracker.nextUpdateArea(engine, graphIndex);
+        if (area == null && snapshot != updatedSnapshot) {
+            //Node indices changed:
+            area = DataUpdateTracker.WHOLE_WORLD_AREA;
+        }
+
+        //Nodes are published first, the GL thread only draws edges with the nodes of their snapshot:
+        final int newNodesVersion = graphIndex.getVersion();
+        if (!graphIndex.isIncrementalUpdates() || snapshot != updatedSnapshot || nodesVersion != newNodesVersion) {
+            updateNodesData(snapshot);
+            nodesVersion = newNodesVersion;
+        }
+
+        if (area != null) {
+            final EdgesFrame frame = updateData(
+                    area,
+                    graphIndex,
+                    snapshot,
+                    renderingOptions,
+                    engine.getLookup().lookup(GraphSelection.class)
+            );
+
+            metrics.setVisibleEdgesCount(frame.getTotalCount());
+        } else if (selectionFlags) {
+            final GraphSelection graphSelection = engine.getLookup().lookup(GraphSelection.class);
+            if (graphSelection.getVersion() != edgeFlagsSelectionVersion) {
+                updateEdgeFlags(renderingOptions, graphSelection);
+            }
+        }
+
+        updatedSnapshot = snapshot;
+    }
+
+    public void drawInstanced(GL2ES3 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
+        final GL4 gl4 = gl.getGL4();
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+
+        final float[] backgroundColorFloats = engine.getBackgroundColor();
+        final float edgeScale = renderingOptions.getEdgeScale();
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final float minLength = renderingOptions.getEdgeMinScreenLength() / engine.getZoom();
+
+        if (drawnFrame.snapshotSerial != drawnNodesSnapshotSerial) {
+            //Node indices of the edges don't match the nodes buffer, wait for the frames of the same snapshot:
+            return;
+        }
+
+        final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
+
+        final float minWeight = graphIndex.getEdgesMinWeight();
+        final float maxWeight = graphIndex.getEdgesMaxWeight();
+
+        gl4.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, EdgeLineModelIndexed.NODES_BUFFER_BINDING, nodesGLBuffer.getId());
+        if (selectionFlags) {
+            drawWithSelectionFlags(engine, layer, gl4, mvpFloats, backgroundColorFloats, lightenNonSelectedFactor, edgeScale, minWeight, maxWeight, minLength, renderingOptions);
+        } else {
+            drawUndirected(engine, layer, gl4, mvpFloats, backgroundColorFloats, lightenNonSelectedFactor, edgeScale, minWeight, maxWeight, minLength);
+            drawDirected(engine, layer, gl4, mvpFloats, backgroundColorFloats, lightenNonSelectedFactor, edgeScale, minWeight, maxWeight, minLength);
+        }
+        gl4.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, EdgeLineModelIndexed.NODES_BUFFER_BINDING, 0);
+    }
+
+    private final float[] selectionColorsFloats = new float[12];
+
+    private void drawWithSelectionFlags(VizEngine engine, RenderingLayer layer, GL4 gl, float[] mvpFloats, float[] backgroundColorFloats, float lightenNonSelectedFactor, float edgeScale, float minWeight, float maxWeight, float minLength, GraphRenderingOptions renderingOptions) {
+        final ElementFlagsBuffer.FlagsFrame flagsFrame = edgeFlags.getReadFrame();
+        if (flagsFrame == null || flagsFrame.getElementsVersion() != drawnFrame.instancesSerial) {
+            //Flags of other edges, wait for the flags of the drawn ones:
+            return;
+        }
+
+        int selectionState = flagsFrame.getState();
+        final float colorLightenFactor;
+        if (layer == RenderingLayer.BACK) {
+            if ((selectionState & EdgeLineModelIndexed.STATE_SOME_EDGES_SELECTION) == 0) {
+                //All edges are drawn above the nodes when there is no selection
+                return;
+            }
+            colorLightenFactor = lightenNonSelectedFactor;
+        } else {
+            selectionState |= EdgeLineModelIndexed.STATE_DRAW_SELECTED;
+            colorLightenFactor = 0;
+        }
+
+        setColorComponents(renderingOptions.getEdgeBothSelectionColor(), 0);
+        setColorComponents(renderingOptions.getEdgeOutSelectionColor(), 4);
+        setColorComponents(renderingOptions.getEdgeInSelectionColor(), 8);
+
+        gl.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, EdgeLineModelIndexed.EDGE_FLAGS_BUFFER_BINDING, edgeFlagsGLBuffer.getId());
+
+        final int undirectedCount = drawnFrame.getUndirectedCount();
+        if (undirectedCount > 0) {
+            setupIndexedVertexArrayAttributes(engine, gl, false);
+            lineModelIndexedUndirected.drawInstancedWithSelectionFlags(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, undirectedCount, 0, edgeScale, minWeight, maxWeight, minLength, selectionState, selectionColorsFloats);
+            unsetupIndexedVertexArrayAttributes(gl, false);
+        }
+
+        final int directedCount = drawnFrame.getDirectedCount();
+        if (directedCount > 0) {
+            setupIndexedVertexArrayAttributes(engine, gl, true);
+            lineModelIndexedDirected.drawInstancedWithSelectionFlags(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, directedCount, undirectedCount, edgeScale, minWeight, maxWeight, minLength, selectionState, selectionColorsFloats);
+            unsetupIndexedVertexArrayAttributes(gl, true);
+        }
+
+        gl.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, EdgeLineModelIndexed.EDGE_FLAGS_BUFFER_BINDING, 0);
+    }
+
+    private void setColorComponents(Color color, int offset) {
+        selectionColorsFloats[offset] = color.getRed() / 255f;
+        selectionColorsFloats[offset + 1] = color.getGreen() / 255f;
+        selectionColorsFloats[offset + 2] = color.getBlue() / 255f;
+        selectionColorsFloats[offset + 3] = color.getAlpha() / 255f;
+    }
+
+    private void drawUndirected(VizEngine engine, RenderingLayer layer, GL2ES3 gl, float[] mvpFloats, float[] backgroundColorFloats, float lightenNonSelectedFactor, float edgeScale, float minWeight, float maxWeight, float minLength) {
+        final int instanceCount;
+        final int instancesOffset;
+        final float colorLightenFactor;
+
+        if (layer == RenderingLayer.BACK) {
+            instanceCount = drawnFrame.getUndirectedUnselectedCount();
+            instancesOffset = 0;
+            colorLightenFactor = lightenNonSelectedFactor;
+        } else {
+            instanceCount = drawnFrame.getUndirectedSelectedCount();
+            instancesOffset = drawnFrame.getUndirectedUnselectedCount();
+            colorLightenFactor = 0;
+        }
+
+        if (instanceCount > 0) {
+            setupIndexedVertexArrayAttributes(engine, gl, false);
+            lineModelIndexedUndirected.drawInstanced(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, instanceCount, instancesOffset, edgeScale, minWeight, maxWeight, minLength);
+            unsetupIndexedVertexArrayAttributes(gl, false);
+        }
+    }
+
+    private void drawDirected(VizEngine engine, RenderingLayer layer, GL2ES3 gl, float[] mvpFloats, float[] backgroundColorFloats, float lightenNonSelectedFactor, float edgeScale, float minWeight, float maxWeight, float minLength) {
+        final int instanceCount;
+        final int instancesOffset;
+        final float colorLightenFactor;
+
+        if (layer == RenderingLayer.BACK) {
+            instanceCount = drawnFrame.getDirectedUnselectedCount();
+            instancesOffset = drawnFrame.getUndirectedCount();
+            colorLightenFactor = lightenNonSelectedFactor;
+        } else {
+            instanceCount = drawnFrame.getDirectedSelectedCount();
+            instancesOffset = drawnFrame.getUndirectedCount() + drawnFrame.getDirectedUnselectedCount();
+            colorLightenFactor = 0;
+        }
+
+        if (instanceCount > 0) {
+            setupIndexedVertexArrayAttributes(engine, gl, true);
+            lineModelIndexedDirected.drawInstanced(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, instanceCount, instancesOffset, edgeScale, minWeight, maxWeight, minLength);
+            unsetupIndexedVertexArrayAttributes(gl, true);
+        }
+    }
+
+    //Triple buffering to ensure CPU and GPU don't access the same buffer at the same time:
+    private static final int NUM_BUFFERS = TripleBufferExchange.SLOTS;
+    private final TripleBufferExchange<IndexedEdgesFrame> frames = new TripleBufferExchange<>();
+    private final TripleBufferExchange<NodesBufferFrame> nodesFrames = new TripleBufferExchange<>();
+    private IndexedEdgesFrame drawnFrame = IndexedEdgesFrame.empty(-1, 0);
+    private int drawnNodesSnapshotSerial = 0;
+    private int nodesVersion;
+    //Changes with every new snapshot, to match edges and nodes frames:
+    private int snapshotSerial = 0;
+    private final DataUpdateTracker updateTracker;
+    private EngineMetrics metrics;
+    private final ManagedDirectBuffer[] attributesBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
+    private final ManagedDirectBuffer[] nodesBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
+
+    private float[] attributesBufferBatch;
+    private float[] nodesBufferBatch;
+    private static final int BATCH_EDGES_SIZE = 32768;
+    private static final int BATCH_NODES_SIZE = 32768;
+
+    //Selection flags:
+    private final ElementFlagsBuffer edgeFlags = new ElementFlagsBuffer();
+    private int[] instanceEdges = new int[0];
+    private int instancesCount = 0;
+    private GraphSnapshot instanceEdgesSnapshot;
+    //Changes with every new order of the instances, to match edges and flags frames:
+    private int instancesSerial = 0;
+    private int edgeFlagsSelectionVersion;
+
+    private void initBuffers(GL2ES3 gl) {
+        initCPUBuffers();
+
+        bufferName = GLBuffers.newDirectIntBuffer(selectionFlags ? 5 : 4);
+
+        gl.glGenBuffers(bufferName.capacity(), bufferName);
+        {
+            final FloatBuffer undirectedVertexData = GLBuffers.newDirectFloatBuffer(lineModelIndexedUndirected.getVertexData());
+            vertexGLBufferUndirected = new GLBufferMutable(bufferName.get(VERT_BUFFER_UNDIRECTED), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+            vertexGLBufferUndirected.bind(gl);
+            vertexGLBufferUndirected.init(gl, undirectedVertexData, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+            vertexGLBufferUndirected.unbind(gl);
+            BufferUtils.destroyDirectBuffer(undirectedVertexData);
+        }
+
+        {
+            final FloatBuffer directedVertexData = GLBuffers.newDirectFloatBuffer(lineModelIndexedDirected.getVertexData());
+            vertexGLBufferDirected = new GLBufferMutable(bufferName.get(VERT_BUFFER_DIRECTED), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+            vertexGLBufferDirected.bind(gl);
+            vertexGLBufferDirected.init(gl, directedVertexData, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+            vertexGLBufferDirected.unbind(gl);
+            BufferUtils.destroyDirectBuffer(directedVertexData);
+        }
+
+        //Initialize for batch edges and nodes size:
+        attributesGLBuffer = new GLBufferMutable(bufferName.get(ATTRIBS_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        attributesGLBuffer.bind(gl);
+        attributesGLBuffer.init(gl, INDEXED_ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBuffer.unbind(gl);
+
+        nodesGLBuffer = new GLBufferMutable(bufferName.get(NODES_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_SHADER_STORAGE);
+        nodesGLBuffer.bind(gl);
+        nodesGLBuffer.init(gl, EdgeLineModelIndexed.NODE_FLOATS * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        nodesGLBuffer.unbind(gl);
+
+        if (selectionFlags) {
+            edgeFlagsGLBuffer = new GLBufferMutable(bufferName.get(EDGE_FLAGS_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_SHADER_STORAGE);
+            edgeFlagsGLBuffer.bind(gl);
+            edgeFlagsGLBuffer.init(gl, ElementFlagsBuffer.PAGE_WORDS * Integer.BYTES, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+            edgeFlagsGLBuffer.unbind(gl);
+        }
+    }
+
+    /**
+     * Allocates the CPU side buffers filled by {@link #update(VizEngine, GraphIndexImpl)}. It does not need a GL context.
+     */
+    public void initCPUBuffers() {
+        attributesBufferBatch = new float[INDEXED_ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
+        nodesBufferBatch = new float[EdgeLineModelIndexed.NODE_FLOATS * BATCH_NODES_SIZE];
+
+        for (int i = 0; i < NUM_BUFFERS; i++) {
+            attributesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, INDEXED_ATTRIBS_STRIDE * BATCH_EDGES_SIZE);
+            nodesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, EdgeLineModelIndexed.NODE_FLOATS * BATCH_NODES_SIZE);
+        }
+    }
+
+    public void updateBuffers(GL2ES3 gl) {
+        if (frames.acquire()) {
+            drawnFrame = frames.getReadFrame();
+
+            //Only the used part of the buffer:
+            final long usedBytes = (long) drawnFrame.getTotalCount() * INDEXED_ATTRIBS_STRIDE * Float.BYTES;
+
+            attributesGLBuffer.bind(gl);
+            attributesGLBuffer.update(gl, attributesBuffersList[drawnFrame.getSlot()].floatBuffer(), usedBytes);
+            attributesGLBuffer.unbind(gl);
+            metrics.addBytesUploaded(usedBytes);
+        }
+
+        if (nodesFrames.acquire()) {
+            final NodesBufferFrame nodesFrame = nodesFrames.getReadFrame();
+            drawnNodesSnapshotSerial = nodesFrame.snapshotSerial;
+            final long usedBytes = (long) nodesFrame.floats * Float.BYTES;
+
+            nodesGLBuffer.bind(gl);
+            nodesGLBuffer.update(gl, nodesBuffersList[nodesFrame.getSlot()].floatBuffer(), usedBytes);
+            nodesGLBuffer.unbind(gl);
+            metrics.addBytesUploaded(usedBytes);
+        }
+
+        if (selectionFlags && edgeFlags.acquire()) {
+            edgeFlagsGLBuffer.bind(gl);
+            metrics.addBytesUploaded(edgeFlags.upload(gl, edgeFlagsGLBuffer));
+            edgeFlagsGLBuffer.unbind(gl);
+        }
+    }
+
+    private void updateNodesData(final GraphSnapshot snapshot) {
+        final int nodesCount = snapshot.getNodeCount();
+        final int nodesFloats = nodesCount * EdgeLineModelIndexed.NODE_FLOATS;
+
+        final int nextBufferIndex = nodesFrames.getWriteSlot();
+        final ManagedDirectBuffer nodesBuffer = nodesBuffersList[nextBufferIndex];
+        if (nodesBuffer.ensureCapacity(nodesFloats)) {
+            metrics.addBufferGrowth();
+        }
+
+        final FloatBuffer nodesData = nodesBuffer.floatBuffer();
+
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] nodesY = snapshot.getNodesY();
+        final float[] nodesSize = snapshot.getNodesSize();
+        final int[] nodesColor = snapshot.getNodesColor();
+        final float[] batch = nodesBufferBatch;
+
+        int index = 0;
+        for (int i = 0; i < nodesCount; i++) {
+            batch[index + 0] = nodesX[i];
+            batch[index + 1] = nodesY[i];
+            batch[index + 2] = nodesSize[i];
+            batch[index + 3] = Float.intBitsToFloat(nodesColor[i]);
+            index += EdgeLineModelIndexed.NODE_FLOATS;
+
+            if (index == batch.length) {
+                nodesData.put(batch, 0, batch.length);
+                index = 0;
+            }
+        }
+
+        //Remaining:
+        if (index > 0) {
+            nodesData.put(batch, 0, index);
+        }
+
+        nodesFrames.publish(new NodesBufferFrame(nextBufferIndex, nodesFloats, snapshotSerial));
+    }
+
+    private EdgesFrame updateData(final Rect2D area, final GraphIndexImpl graphIndex, final GraphSnapshot snapshot, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
+        graphIndex.indexEdges();
+
+        //Selection:
+        final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
+
+        someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
+        edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
+        edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
+        edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
+        edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
+
+        final int totalEdges = snapshot.getEdgeCount();
+
+        final int nextBufferIndex = frames.getWriteSlot();
+        final ManagedDirectBuffer attributesBuffer = attributesBuffersList[nextBufferIndex];
+        if (attributesBuffer.ensureCapacity(totalEdges * INDEXED_ATTRIBS_STRIDE)) {
+            metrics.addBufferGrowth();
+        }
+
+        final FloatBuffer attribs = attributesBuffer.floatBuffer();
+
+        //Snapshot indices of the edges to fill, all of them in order when the whole world is needed:
+        final int[] edgeIndices;
+        final int edgesCount;
+        if (area == DataUpdateTracker.WHOLE_WORLD_AREA) {
+            edgeIndices = null;
+            edgesCount = totalEdges;
+        } else {
+            graphIndex.getEdgesInArea(area, edgesCallback);
+
+            final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
+            final int visibleEdgesCount = edgesCallback.getCount();
+
+            visibleEdgeIndices = ensureCapacity(visibleEdgeIndices, visibleEdgesCount);
+            edgeIndices = visibleEdgeIndices;
+
+            int count = 0;
+            for (int j = 0; j < visibleEdgesCount; j++) {
+                final int edgeIndex = snapshot.getEdgeIndex(visibleEdgesArray[j]);
+                //Not in the snapshot if added since it was built:
+                if (edgeIndex >= 0) {
+                    edgeIndices[count++] = edgeIndex;
+                }
+            }
+            edgesCount = count;
+        }
+
+        final Graph graph = graphIndex.getGraph();
+
+        if (selectionFlags) {
+            //Flags are published first, in the order of the edges buffer:
+            updateInstanceEdges(graph, snapshot, edgeIndices, edgesCount);
+            updateEdgeFlags(renderingOptions, graphSelection);
+
+            //Same order whatever the selection:
+            updateEdgesData(false, undirectedInstanceCounter, graph, snapshot, edgeIndices, edgesCount, false, false, graphSelection, attribs);
+            updateEdgesData(true, directedInstanceCounter, graph, snapshot, edgeIndices, edgesCount, false, false, graphSelection, attribs);
+        } else {
+            updateEdgesData(false, undirectedInstanceCounter, graph, snapshot, edgeIndices, edgesCount, someEdgesSelection, hideNonSelected, graphSelection, attribs);
+            updateEdgesData(true, directedInstanceCounter, graph, snapshot, edgeIndices, edgesCount, someEdgesSelection, hideNonSelected, graphSelection, attribs);
+        }
+
+        return frames.publish(new IndexedEdgesFrame(nextBufferIndex, undirectedInstanceCounter, directedInstanceCounter, snapshotSerial, instancesSerial));
+    }
+
+    /**
+     * Snapshot indices of the edges in the order {@link #updateEdgesData} writes them without selection: undirected edges first, then directed ones.
+     */
+    private void updateInstanceEdges(final Graph graph, final GraphSnapshot snapshot, final int[] edgeIndices, final int edgesCount) {
+        final boolean[] edgesDirected = snapshot.getEdgesDirected();
+
+        instanceEdges = ensureCapacity(instanceEdges, edgesCount);
+
+        int count = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            final boolean directed = pass == 1;
+            if (directed ? graph.isUndirected() : graph.isDirected()) {
+                continue;
+            }
+
+            for (int j = 0; j < edgesCount; j++) {
+                final int edgeIndex = edgeIndices != null ? edgeIndices[j] : j;
+                if (edgesDirected[edgeIndex] == directed) {
+                    instanceEdges[count++] = edgeIndex;
+                }
+            }
+        }
+
+        instancesCount = count;
+        instanceEdgesSnapshot = snapshot;
+        instancesSerial++;
+    }
+
+    private void updateEdgeFlags(final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
+        if (instanceEdgesSnapshot == null) {
+            return;
+        }
+
+        final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
+        final boolean someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
+
+        final Edge[] edges = instanceEdgesSnapshot.getEdges();
+
+        edgeFlags.begin(instancesCount);
+        for (int i = 0; i < instancesCount; i++) {
+            final Edge edge = edges[instanceEdges[i]];
+
+            int flags = 0;
+            if (someEdgesSelection) {
+                if (graphSelection.isEdgeSelected(edge)) {
+                    flags |= EdgeLineModelIndexed.FLAG_SELECTED;
+                } else if (hideNonSelected) {
+                    flags |= EdgeLineModelIndexed.FLAG_HIDDEN;
+                }
+            }
+
+            if (someNodesSelection) {
+                if (graphSelection.isNodeSelected(edge.getSource())) {
+                    flags |= EdgeLineModelIndexed.FLAG_SOURCE_SELECTED;
+                }
+                if (graphSelection.isNodeSelected(edge.getTarget())) {
+                    flags |= EdgeLineModelIndexed.FLAG_TARGET_SELECTED;
+                }
+            }
+
+            edgeFlags.set(i, flags);
+        }
+
+        int selectionState = 0;
+        if (someEdgesSelection) {
+            selectionState |= EdgeLineModelIndexed.STATE_SOME_EDGES_SELECTION;
+        }
+        if (someNodesSelection) {
+            selectionState |= EdgeLineModelIndexed.STATE_SOME_NODES_SELECTION;
+        }
+        if (renderingOptions.isEdgeSelectionColor()) {
+            selectionState |= EdgeLineModelIndexed.STATE_EDGE_SELECTION_COLOR;
+        }
+
+        edgeFlags.publish(selectionState, instancesSerial);
+        edgeFlagsSelectionVersion = graphSelection.getVersion();
+    }
+
+    /**
+     * Edges frame with the snapshot its node indices refer to and, with selection flags, the order of its instances.
+     */
+    private static class IndexedEdgesFrame extends EdgesFrame {
+
+        private final int snapshotSerial;
+        private final int instancesSerial;
+
+        public IndexedEdgesFrame(int slot, InstanceCounter undirectedCounter, InstanceCounter directedCounter, int snapshotSerial, int instancesSerial) {
+            super(slot, undirectedCounter, directedCounter);
+            this.snapshotSerial = snapshotSerial;
+            this.instancesSerial = instancesSerial;
+        }
+
+        public static IndexedEdgesFrame empty(int slot, int snapshotSerial) {
+            return new IndexedEdgesFrame(slot, new InstanceCounter(), new InstanceCounter(), snapshotSerial, 0);
+        }
+    }
+
+    /**
+     * Nodes buffer written for a snapshot.
+     */
+    private static class NodesBufferFrame implements TripleBufferExchange.Frame {
+
+        private final int slot;
+        private final int floats;
+        private final int snapshotSerial;
+
+        public NodesBufferFrame(int slot, int floats, int snapshotSerial) {
+            this.slot = slot;
+            this.floats = floats;
+            this.snapshotSerial = snapshotSerial;
+        }
+
+        @Override
+        public int getSlot() {
+            return slot;
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        if (array.length < size) {
+            return new int[GLBuffers.getNextPowerOf2(size)];
+        }
+        return array;
+    }
+
+    private void updateEdgesData(
+            final boolean directed, final InstanceCounter instanceCounter, final Graph graph,
+            final GraphSnapshot snapshot, final int[] edgeIndices, final int edgesCount,
+            final boolean someEdgesSelection, final boolean hideNonSelected, final GraphSelection graphSelection,
+            final FloatBuffer attribs
+    ) {
+        if (directed ? graph.isUndirected() : graph.isDirected()) {
+            instanceCounter.unselectedCount = 0;
+            instanceCounter.selectedCount = 0;
+            return;
+        }
+
+        final Edge[] edges = snapshot.getEdges();
+        final boolean[] edgesDirected = snapshot.getEdgesDirected();
+        final float[] batch = attributesBufferBatch;
+
+        int newEdgesCountUnselected = 0;
+        int newEdgesCountSelected = 0;
+        int index = 0;
+
+        //First non-selected (bottom):
+        if (someEdgesSelection && !hideNonSelected) {
+            for (int j = 0; j < edgesCount; j++) {
+                final int edgeIndex = edgeIndices != null ? edgeIndices[j] : j;
+                if (edgesDirected[edgeIndex] != directed || graphSelection.isEdgeSelected(edges[edgeIndex])) {
+                    continue;
+                }
+
+                newEdgesCountUnselected++;
+
+                index = fillIndexedEdgeAttributesData(batch, snapshot, edgeIndex, index, false, graphSelection);
+
+                if (index == batch.length) {
+                    attribs.put(batch, 0, batch.length);
+                    index = 0;
+                }
+            }
+        }
+
+        //Then selected ones (up), or all edges when no selection is active:
+        for (int j = 0; j < edgesCount; j++) {
+            final int edgeIndex = edgeIndices != null ? edgeIndices[j] : j;
+            if (edgesDirected[edgeIndex] != directed) {
+                continue;
+            }
+
+            if (someEdgesSelection && !graphSelection.isEdgeSelected(edges[edgeIndex])) {
+                continue;
+            }
+
+            newEdgesCountSelected++;
+
+            index = fillIndexedEdgeAttributesData(batch, snapshot, edgeIndex, index, someEdgesSelection, graphSelection);
+
+            if (index == batch.length) {
+                attribs.put(batch, 0, batch.length);
+                index = 0;
+            }
+        }
+
+        //Remaining:
+        if (index > 0) {
+            attribs.put(batch, 0, index);
+        }
+
+        instanceCounter.unselectedCount = newEdgesCountUnselected;
+        instanceCounter.selectedCount = newEdgesCountSelected;
+    }
+
+    private boolean someNodesSelection;
+    private boolean edgeSelectionColor;
+    private float edgeBothSelectionColor;
+    private float edgeOutSelectionColor;
+    private float edgeInSelectionColor;
+
+    /**
+     * Same colors as the fill methods of {@link AbstractEdgeData}, the rest of the node data is read from the nodes buffer.
+     */
+    private int fillIndexedEdgeAttributesData(final float[] buffer, final GraphSnapshot snapshot, final int edgeIndex, final int index, final boolean highlighted, final GraphSelection graphSelection) {
+        final int edgeColor = snapshot.getEdgesColor()[edgeIndex];
+
+        //Source and target indices, read as integers:
+        buffer[index + 0] = Float.intBitsToFloat(snapshot.getEdgesSource()[edgeIndex]);
+        buffer[index + 1] = Float.intBitsToFloat(snapshot.getEdgesTarget()[edgeIndex]);
+
+        //Size:
+        buffer[index + 2] = snapshot.getEdgesWeight()[edgeIndex];
+
+        //Color, color bias and color multiplier:
+        if (highlighted) {
+            final Edge edge = snapshot.getEdges()[edgeIndex];
+            final Node source = edge.getSource();
+            final Node target = edge.getTarget();
+
+            if (someNodesSelection && edgeSelectionColor) {
+                boolean sourceSelected = graphSelection.isNodeSelected(source);
+                boolean targetSelected = graphSelection.isNodeSelected(target);
+
+                if (sourceSelected && targetSelected) {
+                    buffer[index + 3] = edgeBothSelectionColor;//Color
+                } else if (sourceSelected) {
+                    buffer[index + 3] = edgeOutSelectionColor;//Color
+                } else if (targetSelected) {
+                    buffer[index + 3] = edgeInSelectionColor;//Color
+                } else {
+                    buffer[index + 3] = Float.intBitsToFloat(edgeColor);//Color
+                }
+
+                buffer[index + 4] = 0;//Bias
+                buffer[index + 5] = 1;//Multiplier
+            } else {
+                if (someNodesSelection && (edgeColor >>> 24) == 0) {
+                    if (graphSelection.isNodeSelected(source)) {
+                        buffer[index + 3] = Float.intBitsToFloat(target.getRGBA());//Color
+                    } else {
+                        buffer[index + 3] = Float.intBitsToFloat(source.getRGBA());//Color
+                    }
+                } else {
+                    buffer[index + 3] = Float.intBitsToFloat(edgeColor);//Color
+                }
+
+                buffer[index + 4] = 0.5f;//Bias
+                buffer[index + 5] = 0.5f;//Multiplier
+            }
+        } else {
+            buffer[index + 3] = Float.intBitsToFloat(edgeColor);//Color
+            buffer[index + 4] = 0;//Bias
+            buffer[index + 5] = 1;//Multiplier
+        }
+
+        return index + INDEXED_ATTRIBS_STRIDE;
+    }
+
+    private IndexedEdgesVAO undirectedEdgesVAO;
+    private IndexedEdgesVAO directedEdgesVAO;
+
+    private void setupIndexedVertexArrayAttributes(VizEngine engine, GL2ES3 gl, boolean directed) {
+        if (directed) {
+            if (directedEdgesVAO == null) {
+                directedEdgesVAO = new IndexedEdgesVAO(engine.getCapabilities(), true);
+            }
+            directedEdgesVAO.use(gl);
+        } else {
+            if (undirectedEdgesVAO == null) {
+                undirectedEdgesVAO = new IndexedEdgesVAO(engine.getCapabilities(), false);
+            }
+            undirectedEdgesVAO.use(gl);
+        }
+    }
+
+    private void unsetupIndexedVertexArrayAttributes(GL2ES3 gl, boolean directed) {
+        if (directed) {
+            directedEdgesVAO.stopUsing(gl);
+        } else {
+            undirectedEdgesVAO.stopUsing(gl);
+        }
+    }
+
+    @Override
+    public void dispose(GL gl) {
+        updateTracker.reset();
+        updatedSnapshot = null;
+        visibleEdgeIndices = new int[0];
+        undirectedInstanceCounter.clearCount();
+        directedInstanceCounter.clearCount();
+        frames.reset();
+        nodesFrames.reset();
+        drawnFrame = IndexedEdgesFrame.empty(-1, 0);
+        drawnNodesSnapshotSerial = 0;
+        snapshotSerial = 0;
+        edgeFlags.reset();
+        instanceEdges = new int[0];
+        instancesCount = 0;
+        instanceEdgesSnapshot = null;
+        instancesSerial = 0;
+
+        if (edgeFlagsGLBuffer != null) {
+            edgeFlagsGLBuffer.destroy(gl);
+            edgeFlagsGLBuffer = null;
+        }
+
+        if (nodesGLBuffer != null) {
+            nodesGLBuffer.destroy(gl);
+            nodesGLBuffer = null;
+        }
+
+        if (bufferName != null) {
+            BufferUtils.destroyDirectBuffer(bufferName);
+            bufferName = null;
+        }
+
+        super.dispose(gl);
+        attributesBufferBatch = null;
+        nodesBufferBatch = null;
+
+        for (ManagedDirectBuffer buffer : attributesBuffersList) {
+            if (buffer != null) {
+                buffer.destroy();
+            }
+        }
+
+        for (ManagedDirectBuffer buffer : nodesBuffersList) {
+            if (buffer != null) {
+                buffer.destroy();
+            }
+        }
+    }
+
+    private class IndexedEdgesVAO extends GLVertexArrayObject {
+
+        private final boolean directed;
+
+        public IndexedEdgesVAO(GLCapabilities capabilities, boolean directed) {
+            super(capabilities);
+            this.directed = directed;
+        }
+
+        @Override
+        protected void configure(GL2ES2 gl) {
+            final GLBuffer vertexGLBuffer = directed ? vertexGLBufferDirected : vertexGLBufferUndirected;
+            vertexGLBuffer.bind(gl);
+            {
+                final int vertexFloats = directed ? lineModelIndexedDirected.getVertexFloats() : lineModelIndexedUndirected.getVertexFloats();
+                gl.glVertexAttribPointer(SHADER_VERT_LOCATION, vertexFloats, GL_FLOAT, false, 0, 0);
+            }
+            vertexGLBuffer.unbind(gl);
+
+            attributesGLBuffer.bind(gl);
+            {
+                int stride = INDEXED_ATTRIBS_STRIDE * Float.BYTES;
+                int offset = 0;
+                //Integer attribute, not converted to float:
+                gl.getGL2ES3().glVertexAttribIPointer(SHADER_ENDPOINTS_LOCATION, EdgeLineModelIndexed.ENDPOINTS_FLOATS, GL_INT, stride, offset);
+                offset += EdgeLineModelIndexed.ENDPOINTS_FLOATS * Float.BYTES;
+
+                gl.glVertexAttribPointer(SHADER_SIZE_LOCATION, EdgeLineModelIndexed.SIZE_FLOATS, GL_FLOAT, false, stride, offset);
+                offset += EdgeLineModelIndexed.SIZE_FLOATS * Float.BYTES;
+
+                gl.glVertexAttribPointer(SHADER_COLOR_LOCATION, EdgeLineModelIndexed.COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
+                offset += EdgeLineModelIndexed.COLOR_FLOATS * Float.BYTES;
+
+                gl.glVertexAttribPointer(SHADER_COLOR_BIAS_LOCATION, EdgeLineModelIndexed.COLOR_BIAS_FLOATS, GL_FLOAT, false, stride, offset);
+                offset += EdgeLineModelIndexed.COLOR_BIAS_FLOATS * Float.BYTES;
+
+                gl.glVertexAttribPointer(SHADER_COLOR_MULTIPLIER_LOCATION, EdgeLineModelIndexed.COLOR_MULTIPLIER_FLOATS, GL_FLOAT, false, stride, offset);
+            }
+            attributesGLBuffer.unbind(gl);
+        }
+
+        @Override
+        protected int[] getUsedAttributeLocations() {
+            return new int[]{
+                SHADER_VERT_LOCATION,
+                SHADER_ENDPOINTS_LOCATION,
+                SHADER_SIZE_LOCATION,
+                SHADER_COLOR_LOCATION,
+                SHADER_COLOR_BIAS_LOCATION,
+                SHADER_COLOR_MULTIPLIER_LOCATION
+            };
+        }
+
+        @Override
+        protected int[] getInstancedAttributeLocations() {
+            return new int[]{
+                SHADER_ENDPOINTS_LOCATION,
+                SHADER_SIZE_LOCATION,
+                SHADER_COLOR_LOCATION,
+                SHADER_COLOR_BIAS_LOCATION,
+                SHADER_COLOR_MULTIPLIER_LOCATION
+            };
+        }
+    }
+}
@@ -3,28 +3,41 @@ package org.gephi.viz.engine.pipeline.instanced;
 import com.jogamp.opengl.GL;
 import static com.jogamp.opengl.GL.GL_FLOAT;
 import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL3;
 import com.jogamp.opengl.util.GLBuffers;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.models.NodeDiskModel;
+import org.gephi.viz.engine.models.NodePickingModel;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.AbstractNodeData;
-import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.pipeline.common.DataUpdateTracker;
+import org.gephi.viz.engine.pipeline.common.NodesFrame;
+import org.gephi.viz.engine.pipeline.picking.PickingNodes;
+import org.gephi.viz.engine.pipeline.picking.PickingSource;
+import org.gephi.viz.engine.status.EngineMetrics;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.status.GraphSelectionNeighbours;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 import org.gephi.viz.engine.util.BufferUtils;
 import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.util.TripleBufferExchange;
 import org.gephi.viz.engine.util.gl.GLBufferMutable;
 
 /**
+ * Instanced nodes, grouped in buckets by level of detail so each node is drawn with a disk model fitting its observed size. There is one instanced draw per bucket and layer, ordered from the biggest disk model to the smallest.
+ *
+ * <p>
+ * Also a {@link PickingSource}: the ids of all the drawn nodes are drawn with one more instanced draw of the same buffers.</p>
  *
  * @author Eduardo Ramos
  */
-public class InstancedNodeData extends AbstractNodeData {
+public class InstancedNodeData extends AbstractNodeData implements PickingSource {
 
     private final NodeDiskModel diskModel64;
     private final NodeDiskModel diskModel32;
@@ -36,21 +49,56 @@ public class InstancedNodeData extends AbstractNodeData {
     private final int firstVertex16;
     private final int firstVertex8;
 
-    private final InstanceCounter instanceCounter = new InstanceCounter();
-    private float maxNodeSize = 0;
-    private float maxNodeSizeToDraw = 0;
+    //Levels of detail, from 64 to 8 triangles:
+    private static final int LOD_COUNT = 4;
+    private final NodeDiskModel[] lodDiskModels;
+    private final int[] lodFirstVertices;
+
+    private final int[] lodUnselectedCounts = new int[LOD_COUNT];
+    private final int[] lodSelectedCounts = new int[LOD_COUNT];
+    private final int[] groupCounts = new int[LOD_COUNT * 2];
+
+    private final NodePickingModel pickingModel = new NodePickingModel();
+    private final PickingNodes pickingNodes = new PickingNodes(NUM_BUFFERS);
+
+    private final int instancesPerNode;
+    private final int attribsFloatsPerNode;
 
     public InstancedNodeData() {
-        super(true);
-        diskModel64 = new NodeDiskModel(64);
-        diskModel32 = new NodeDiskModel(32);
-        diskModel16 = new NodeDiskModel(16);
-        diskModel8 = new NodeDiskModel(8);
+        this(false);
+    }
+
+    /**
+     *
+     * @param packedAttributes True to use the packed attributes layout of {@link NodeDiskModel}, with less than half the bytes per node
+     */
+    public InstancedNodeData(boolean packedAttributes) {
+        super(true, packedAttributes);
+        if (packedAttributes) {
+            diskModel64 = new NodeDiskModel(64, INSIDE_CIRCLE_SIZE);
+            diskModel32 = new NodeDiskModel(32, INSIDE_CIRCLE_SIZE);
+            diskModel16 = new NodeDiskModel(16, INSIDE_CIRCLE_SIZE);
+            diskModel8 = new NodeDiskModel(8, INSIDE_CIRCLE_SIZE);
+
+            instancesPerNode = 1;
+            attribsFloatsPerNode = PACKED_ATTRIBS_STRIDE;
+        } else {
+            diskModel64 = new NodeDiskModel(64);
+            diskModel32 = new NodeDiskModel(32);
+            diskModel16 = new NodeDiskModel(16);
+            diskModel8 = new NodeDiskModel(8);
+
+            instancesPerNode = 2;
+            attribsFloatsPerNode = ATTRIBS_STRIDE * 2;
+        }
 
         firstVertex64 = 0;
         firstVertex32 = diskModel64.getVertexCount();
         firstVertex16 = firstVertex32 + diskModel32.getVertexCount();
         firstVertex8 = firstVertex16 + diskModel16.getVertexCount();
+
+        lodDiskModels = new NodeDiskModel[]{diskModel64, diskModel32, diskModel16, diskModel8};
+        lodFirstVertices = new int[]{firstVertex64, firstVertex32, firstVertex16, firstVertex8};
     }
 
     private IntBuffer bufferName;
@@ -67,67 +115,105 @@ public class InstancedNodeData extends AbstractNodeData {
     }
 
     public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
-        updateData(
+        metrics = engine.getMetrics();
+
+        final Rect2D area = updateTracker.nextUpdateArea(engine, spatialIndex);
+        if (area == null) {
+            //Nothing changed since last update
+            return;
+        }
+
+        final NodesFrame frame = updateData(
+                area,
+                engine.getZoom(),
                 spatialIndex,
                 engine.getLookup().lookup(GraphRenderingOptions.class),
                 engine.getLookup().lookup(GraphSelection.class),
                 engine.getLookup().lookup(GraphSelectionNeighbours.class)
         );
+
+        metrics.setVisibleNodesCount(frame.getTotalCount());
     }
 
     public void drawInstanced(GL2ES3 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
         final float[] backgroundColorFloats = engine.getBackgroundColor();
-        final float zoom = engine.getZoom();
 
-        final int instanceCount;
-        final int instancesOffset;
+        final int[] lodCounts;
+        int instancesOffset;
         final float colorLightenFactor;
 
         if (layer == RenderingLayer.BACK) {
-            instanceCount = instanceCounter.unselectedCountToDraw * 2;
+            lodCounts = drawnFrame.lodUnselectedCounts;
             instancesOffset = 0;
             colorLightenFactor = engine.getLookup().lookup(GraphRenderingOptions.class).getLightenNonSelectedFactor();
         } else {
-            instanceCount = instanceCounter.selectedCountToDraw * 2;
-            instancesOffset = instanceCounter.unselectedCountToDraw * 2;
+            lodCounts = drawnFrame.lodSelectedCounts;
+            instancesOffset = drawnFrame.getUnselectedCount() * instancesPerNode;
             colorLightenFactor = 0;
         }
 
-        if (instanceCount > 0) {
-            final float maxObservedSize = maxNodeSizeToDraw * zoom;
-
-            final NodeDiskModel diskModelToRender;
-            final int firstVertex;
-            if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
-                diskModelToRender = diskModel64;
-                firstVertex = firstVertex64;
-            } else if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
-                diskModelToRender = diskModel32;
-                firstVertex = firstVertex32;
-            } else if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
-                diskModelToRender = diskModel16;
-                firstVertex = firstVertex16;
-            } else {
-                diskModelToRender = diskModel8;
-                firstVertex = firstVertex8;
+        boolean setup = false;
+        for (int lod = 0; lod < LOD_COUNT; lod++) {
+            final int instanceCount = lodCounts[lod] * instancesPerNode;
+            if (instanceCount == 0) {
+                continue;
             }
 
-            setupVertexArrayAttributes(engine, gl);
-            diskModelToRender.drawInstanced(gl, firstVertex, mvpFloats, backgroundColorFloats, colorLightenFactor, instanceCount, instancesOffset);
+            if (!setup) {
+                setupVertexArrayAttributes(engine, gl);
+                setup = true;
+            }
+
+            lodDiskModels[lod].drawInstanced(gl, lodFirstVertices[lod], mvpFloats, backgroundColorFloats, colorLightenFactor, instanceCount, instancesOffset);
+            instancesOffset += instanceCount;
+        }
+
+        if (setup) {
             unsetupVertexArrayAttributes(gl);
         }
     }
 
+    @Override
+    public int drawPicking(GL3 gl, VizEngine engine, float[] mvpFloats, int firstId) {
+        final int nodesCount = drawnFrame.getTotalCount();
+        if (drawnFrame.getSlot() < 0 || nodesCount == 0) {
+            return 0;
+        }
+
+        if (!pickingModel.isInitialized()) {
+            pickingModel.initGLPrograms(gl);
+        }
+
+        setupVertexArrayAttributes(engine, gl);
+        pickingModel.drawInstanced(gl, mvpFloats, firstId, instancesPerNode, diskModel64.getTriangleAmount() * 3, nodesCount * instancesPerNode, 0);
+        unsetupVertexArrayAttributes(gl);
+
+        return nodesCount;
+    }
+
+    @Override
+    public long getPickingVersion() {
+        return pickingNodes.getVersion(Math.max(drawnFrame.getSlot(), 0));
+    }
+
+    @Override
+    public Element getPickedElement(long version, int index) {
+        return pickingNodes.getNode(version, index);
+    }
+
     //Triple buffering to ensure CPU and GPU don't access the same buffer at the same time:
-    private static final int NUM_BUFFERS = 3;
-    private int currentBufferIndex = 0;
+    private static final int NUM_BUFFERS = TripleBufferExchange.SLOTS;
+    private final TripleBufferExchange<LodNodesFrame> frames = new TripleBufferExchange<>();
+    private LodNodesFrame drawnFrame = LodNodesFrame.empty(-1);
+    private final DataUpdateTracker updateTracker = new DataUpdateTracker(true);
+    private EngineMetrics metrics;
     private final ManagedDirectBuffer[] attributesBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
 
     private float[] attributesBufferBatch;
     private static final int BATCH_NODES_SIZE = 32768;
 
     private void initBuffers(GL2ES3 gl) {
-        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_NODES_SIZE * 2];
+        initCPUBuffers();
 
         bufferName = GLBuffers.newDirectIntBuffer(2);
 
@@ -154,30 +240,40 @@ public class InstancedNodeData extends AbstractNodeData {
         //Initialize for batch nodes size:
         attributesGLBuffer = new GLBufferMutable(bufferName.get(ATTRIBS_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBuffer.bind(gl);
-        attributesGLBuffer.init(gl, ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE * 2, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBuffer.init(gl, attribsFloatsPerNode * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBuffer.unbind(gl);
+    }
+
+    /**
+     * Allocates the CPU side buffers filled by {@link #update(VizEngine, GraphIndexImpl)}. It does not need a GL context.
+     */
+    public void initCPUBuffers() {
+        attributesBufferBatch = new float[attribsFloatsPerNode * BATCH_NODES_SIZE];
 
         for (int i = 0; i < NUM_BUFFERS; i++) {
-            attributesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_NODES_SIZE * 2);
+            attributesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, attribsFloatsPerNode * BATCH_NODES_SIZE);
         }
     }
 
     public void updateBuffers(GL2ES3 gl) {
-        attributesGLBuffer.bind(gl);
-        attributesGLBuffer.update(gl, attributesBuffersList[currentBufferIndex].floatBuffer());
-        attributesGLBuffer.unbind(gl);
+        if (frames.acquire()) {
+            drawnFrame = frames.getReadFrame();
 
-        instanceCounter.promoteCountToDraw();
-        maxNodeSizeToDraw = maxNodeSize;
+            //Only the used part of the buffer:
+            final long usedBytes = (long) drawnFrame.getTotalCount() * attribsFloatsPerNode * Float.BYTES;
 
-        //TODO: send only changed parts? (glBufferSubData)
-        //Persistent buffer if available?
+            attributesGLBuffer.bind(gl);
+            attributesGLBuffer.update(gl, attributesBuffersList[drawnFrame.getSlot()].floatBuffer(), usedBytes);
+            attributesGLBuffer.unbind(gl);
+            metrics.addBytesUploaded(usedBytes);
+        }
     }
 
-    private void updateData(final GraphIndexImpl spatialIndex, final GraphRenderingOptions renderingOptions, final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection) {
+    private LodNodesFrame updateData(final Rect2D area, final float zoom, final GraphIndexImpl spatialIndex, final GraphRenderingOptions renderingOptions, final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection) {
+        final int writeSlot = frames.getWriteSlot();
+
         if (!renderingOptions.isShowNodes()) {
-            instanceCounter.clearCount();
-            return;
+            return frames.publish(LodNodesFrame.empty(writeSlot));
         }
 
         spatialIndex.indexNodes();
@@ -189,117 +285,80 @@ public class InstancedNodeData extends AbstractNodeData {
 
         final int totalNodes = spatialIndex.getNodeCount();
 
-        final byte nextBufferIndex = (byte) ((currentBufferIndex + 1) % 3);
-        final ManagedDirectBuffer attributesBuffer = attributesBuffersList[nextBufferIndex];
+        final ManagedDirectBuffer attributesBuffer = attributesBuffersList[writeSlot];
 
-        attributesBuffer.ensureCapacity(totalNodes * ATTRIBS_STRIDE * 2);
+        if (attributesBuffer.ensureCapacity(totalNodes * attribsFloatsPerNode)) {
+            metrics.addBufferGrowth();
+        }
 
         final FloatBuffer attribs = attributesBuffer.floatBuffer();
 
-        spatialIndex.getVisibleNodes(nodesCallback);
+        spatialIndex.getNodesInArea(area, nodesCallback);
 
         final Node[] visibleNodesArray = nodesCallback.getNodesArray();
         final int visibleNodesCount = nodesCallback.getCount();
 
-        int newNodesCountUnselected = 0;
-        int newNodesCountSelected = 0;
-
-        float newMaxNodeSize = 0;
-
-        int index = 0;
-        if (someSelection) {
-            if (hideNonSelected) {
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
-
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (!selected) {
-                        continue;
-                    }
-
-                    newNodesCountSelected++;
-                    newMaxNodeSize = Math.max(newMaxNodeSize, node.size());
-
-                    index = fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
-
-                    if (index == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch, 0, attributesBufferBatch.length);
-                        index = 0;
-                    }
-                }
-            } else {
-                //First non-selected (bottom):
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
+        //Nodes in drawing order, also for picking. From biggest to smallest disk model:
+        final Node[] pickingNodesArray = pickingNodes.beginWrite(writeSlot, visibleNodesCount);
+        final int pickingNodesCount = sortNodesForDrawing(visibleNodesArray, visibleNodesCount, pickingNodesArray, groupCounts, zoom, hideNonSelected, selection, neighboursSelection);
+        System.arraycopy(groupCounts, 0, lodUnselectedCounts, 0, LOD_COUNT);
+        System.arraycopy(groupCounts, LOD_COUNT, lodSelectedCounts, 0, LOD_COUNT);
 
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (selected) {
-                        continue;
-                    }
+        final float maxNodeSize = fillSortedNodesData(attribs, attributesBufferBatch, pickingNodesArray, pickingNodesCount, sum(lodUnselectedCounts), someSelection);
 
-                    newNodesCountUnselected++;
-                    newMaxNodeSize = Math.max(newMaxNodeSize, node.size());
+        pickingNodes.endWrite(writeSlot, pickingNodesCount);
 
-                    index = fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, false);
-
-                    if (index == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch, 0, attributesBufferBatch.length);
-                        index = 0;
-                    }
-                }
-
-                //Then selected ones (up):
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
-
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (!selected) {
-                        continue;
-                    }
-
-                    newNodesCountSelected++;
-                    newMaxNodeSize = Math.max(newMaxNodeSize, node.size());
-
-                    index = fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
+        return frames.publish(new LodNodesFrame(writeSlot, lodUnselectedCounts, lodSelectedCounts, maxNodeSize));
+    }
 
-                    if (index == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch, 0, attributesBufferBatch.length);
-                        index = 0;
-                    }
-                }
-            }
+    @Override
+    protected int levelOfDetail(final float observedSize) {
+        if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
+            return 0;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
+            return 1;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
+            return 2;
         } else {
-            //Just all nodes, no selection active:
-            for (int j = 0; j < visibleNodesCount; j++) {
-                final Node node = visibleNodesArray[j];
+            return 3;
+        }
+    }
 
-                newNodesCountSelected++;
-                newMaxNodeSize = Math.max(newMaxNodeSize, node.size());
+    private static int sum(final int[] counts) {
+        int sum = 0;
+        for (int count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
 
-                index = fillNodeAttributesData(attributesBufferBatch, node, index, someSelection, true);
+    /**
+     * Nodes frame with the counts of each level of detail.
+     */
+    private static class LodNodesFrame extends NodesFrame {
 
-                if (index == attributesBufferBatch.length) {
-                    attribs.put(attributesBufferBatch, 0, attributesBufferBatch.length);
-                    index = 0;
-                }
-            }
-        }
+        private final int[] lodUnselectedCounts;
+        private final int[] lodSelectedCounts;
 
-        //Remaining:
-        if (index > 0) {
-            attribs.put(attributesBufferBatch, 0, index);
+        public LodNodesFrame(int slot, int[] lodUnselectedCounts, int[] lodSelectedCounts, float maxNodeSize) {
+            super(slot, sum(lodUnselectedCounts), sum(lodSelectedCounts), maxNodeSize);
+            this.lodUnselectedCounts = lodUnselectedCounts.clone();
+            this.lodSelectedCounts = lodSelectedCounts.clone();
         }
 
-        currentBufferIndex = nextBufferIndex;
-        instanceCounter.unselectedCount = newNodesCountUnselected;
-        instanceCounter.selectedCount = newNodesCountSelected;
-        maxNodeSize = newMaxNodeSize;
+        public static LodNodesFrame empty(int slot) {
+            return new LodNodesFrame(slot, new int[LOD_COUNT], new int[LOD_COUNT], 0);
+        }
     }
 
     @Override
     public void dispose(GL gl) {
+        updateTracker.reset();
         super.dispose(gl);
         attributesBufferBatch = null;
+        pickingNodes.clear();
+        frames.reset();
+        drawnFrame = LodNodesFrame.empty(-1);
         for (ManagedDirectBuffer buffer : attributesBuffersList) {
             if (buffer != null) {
                 buffer.destroy();
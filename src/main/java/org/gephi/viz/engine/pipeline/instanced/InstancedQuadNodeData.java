@@ -0,0 +1,217 @@
+package org.gephi.viz.engine.pipeline.instanced;
+
+import com.jogamp.opengl.GL;
+import static com.jogamp.opengl.GL.GL_FLOAT;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.util.GLBuffers;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.models.NodeQuadModel;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.pipeline.common.AbstractNodeData;
+import org.gephi.viz.engine.pipeline.common.DataUpdateTracker;
+import org.gephi.viz.engine.pipeline.common.NodesFrame;
+import org.gephi.viz.engine.status.EngineMetrics;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.BufferUtils;
+import org.gephi.viz.engine.util.ManagedDirectBuffer;
+import org.gephi.viz.engine.util.TripleBufferExchange;
+import org.gephi.viz.engine.util.gl.GLBufferMutable;
+
+/**
+ * Instanced nodes drawn as one quad per node with {@link NodeQuadModel}. Needs no levels of detail and is anti-aliased without multisampling.
+ *
+ * @author Eduardo Ramos
+ */
+public class InstancedQuadNodeData extends AbstractNodeData {
+
+    private final NodeQuadModel quadModel = new NodeQuadModel(INSIDE_CIRCLE_SIZE);
+
+    //Non-selected and selected nodes, with a single level of detail:
+    private final int[] groupCounts = new int[2];
+    private Node[] sortedNodesArray = new Node[0];
+
+    public InstancedQuadNodeData() {
+        super(true, true);
+    }
+
+    private IntBuffer bufferName;
+
+    private static final int VERT_BUFFER = 0;
+    private static final int ATTRIBS_BUFFER = 1;
+
+    public void init(GL2ES3 gl) {
+        initBuffers(gl);
+        quadModel.initGLPrograms(gl);
+    }
+
+    @Override
+    protected int getVertexFloats() {
+        return NodeQuadModel.VERTEX_FLOATS;
+    }
+
+    public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
+        metrics = engine.getMetrics();
+
+        final Rect2D area = updateTracker.nextUpdateArea(engine, spatialIndex);
+        if (area == null) {
+            //Nothing changed since last update
+            return;
+        }
+
+        final NodesFrame frame = updateData(
+                area,
+                spatialIndex,
+                engine.getLookup().lookup(GraphRenderingOptions.class),
+                engine.getLookup().lookup(GraphSelection.class),
+                engine.getLookup().lookup(GraphSelectionNeighbours.class)
+        );
+
+        metrics.setVisibleNodesCount(frame.getTotalCount());
+    }
+
+    public void drawInstanced(GL2ES3 gl, RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
+        final float[] backgroundColorFloats = engine.getBackgroundColor();
+
+        final int instanceCount;
+        final int instancesOffset;
+        final float colorLightenFactor;
+
+        if (layer == RenderingLayer.BACK) {
+            instanceCount = drawnFrame.getUnselectedCount();
+            instancesOffset = 0;
+            colorLightenFactor = engine.getLookup().lookup(GraphRenderingOptions.class).getLightenNonSelectedFactor();
+        } else {
+            instanceCount = drawnFrame.getSelectedCount();
+            instancesOffset = drawnFrame.getUnselectedCount();
+            colorLightenFactor = 0;
+        }
+
+        if (instanceCount > 0) {
+            setupVertexArrayAttributes(engine, gl);
+            quadModel.drawInstanced(gl, mvpFloats, backgroundColorFloats, colorLightenFactor, engine.getZoom(), instanceCount, instancesOffset);
+            unsetupVertexArrayAttributes(gl);
+        }
+    }
+
+    //Triple buffering to ensure CPU and GPU don't access the same buffer at the same time:
+    private static final int NUM_BUFFERS = TripleBufferExchange.SLOTS;
+    private final TripleBufferExchange<NodesFrame> frames = new TripleBufferExchange<>();
+    private NodesFrame drawnFrame = NodesFrame.empty(-1);
+    private final DataUpdateTracker updateTracker = new DataUpdateTracker(false);
+    private EngineMetrics metrics;
+    private final ManagedDirectBuffer[] attributesBuffersList = new ManagedDirectBuffer[NUM_BUFFERS];
+
+    private float[] attributesBufferBatch;
+    private static final int BATCH_NODES_SIZE = 32768;
+
+    private void initBuffers(GL2ES3 gl) {
+        initCPUBuffers();
+
+        bufferName = GLBuffers.newDirectIntBuffer(2);
+
+        final FloatBuffer quadVertexBuffer = GLBuffers.newDirectFloatBuffer(NodeQuadModel.getVertexData());
+
+        gl.glGenBuffers(bufferName.capacity(), bufferName);
+
+        vertexGLBuffer = new GLBufferMutable(bufferName.get(VERT_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        vertexGLBuffer.bind(gl);
+        vertexGLBuffer.init(gl, quadVertexBuffer, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+        vertexGLBuffer.unbind(gl);
+
+        BufferUtils.destroyDirectBuffer(quadVertexBuffer);
+
+        //Initialize for batch nodes size:
+        attributesGLBuffer = new GLBufferMutable(bufferName.get(ATTRIBS_BUFFER), GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        attributesGLBuffer.bind(gl);
+        attributesGLBuffer.init(gl, PACKED_ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBuffer.unbind(gl);
+    }
+
+    /**
+     * Allocates the CPU side buffers filled by {@link #update(VizEngine, GraphIndexImpl)}. It does not need a GL context.
+     */
+    public void initCPUBuffers() {
+        attributesBufferBatch = new float[PACKED_ATTRIBS_STRIDE * BATCH_NODES_SIZE];
+
+        for (int i = 0; i < NUM_BUFFERS; i++) {
+            attributesBuffersList[i] = new ManagedDirectBuffer(GL_FLOAT, PACKED_ATTRIBS_STRIDE * BATCH_NODES_SIZE);
+        }
+    }
+
+    public void updateBuffers(GL2ES3 gl) {
+        if (frames.acquire()) {
+            drawnFrame = frames.getReadFrame();
+
+            //Only the used part of the buffer:
+            final long usedBytes = (long) drawnFrame.getTotalCount() * PACKED_ATTRIBS_STRIDE * Float.BYTES;
+
+            attributesGLBuffer.bind(gl);
+            attributesGLBuffer.update(gl, attributesBuffersList[drawnFrame.getSlot()].floatBuffer(), usedBytes);
+            attributesGLBuffer.unbind(gl);
+            metrics.addBytesUploaded(usedBytes);
+        }
+    }
+
+    private NodesFrame updateData(final Rect2D area, final GraphIndexImpl spatialIndex, final GraphRenderingOptions renderingOptions, final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection) {
+        final int writeSlot = frames.getWriteSlot();
+
+        if (!renderingOptions.isShowNodes()) {
+            return frames.publish(NodesFrame.empty(writeSlot));
+        }
+
+        spatialIndex.indexNodes();
+
+        //Selection:
+        final boolean someSelection = selection.getSelectedNodesCount() > 0;
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final boolean hideNonSelected = someSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
+
+        final int totalNodes = spatialIndex.getNodeCount();
+
+        final ManagedDirectBuffer attributesBuffer = attributesBuffersList[writeSlot];
+
+        if (attributesBuffer.ensureCapacity(totalNodes * PACKED_ATTRIBS_STRIDE)) {
+            metrics.addBufferGrowth();
+        }
+
+        final FloatBuffer attribs = attributesBuffer.floatBuffer();
+
+        spatialIndex.getNodesInArea(area, nodesCallback);
+
+        final Node[] visibleNodesArray = nodesCallback.getNodesArray();
+        final int visibleNodesCount = nodesCallback.getCount();
+
+        if (sortedNodesArray.length < visibleNodesCount) {
+            sortedNodesArray = new Node[visibleNodesArray.length];
+        }
+
+        final int sortedNodesCount = sortNodesForDrawing(visibleNodesArray, visibleNodesCount, sortedNodesArray, groupCounts, 0, hideNonSelected, selection, neighboursSelection);
+        fillSortedNodesData(attribs, attributesBufferBatch, sortedNodesArray, sortedNodesCount, groupCounts[0], someSelection);
+        Arrays.fill(sortedNodesArray, 0, sortedNodesCount, null);
+
+        return frames.publish(new NodesFrame(writeSlot, groupCounts[0], groupCounts[1], 0));
+    }
+
+    @Override
+    public void dispose(GL gl) {
+        updateTracker.reset();
+        frames.reset();
+        drawnFrame = NodesFrame.empty(-1);
+        super.dispose(gl);
+        attributesBufferBatch = null;
+        sortedNodesArray = new Node[0];
+        for (ManagedDirectBuffer buffer : attributesBuffersList) {
+            if (buffer != null) {
+                buffer.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.gephi.viz.engine.pipeline.instanced.renderers;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.availability.InstancedCulledDraw;
+import org.gephi.viz.engine.pipeline.instanced.InstancedCulledEdgeData;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeRendererInstancedCulled extends EdgeRendererInstanced {
+
+    private final VizEngine engine;
+
+    public EdgeRendererInstancedCulled(VizEngine engine, InstancedCulledEdgeData edgeData) {
+        super(engine, edgeData);
+        this.engine = engine;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return InstancedCulledDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Instanced, GPU culled)";
+    }
+
+    @Override
+    public boolean isAvailable(GLAutoDrawable drawable) {
+        return InstancedCulledDraw.isAvailable(engine, drawable);
+    }
+}
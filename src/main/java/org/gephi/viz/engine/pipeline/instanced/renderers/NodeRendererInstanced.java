@@ -28,6 +28,12 @@ public class NodeRendererInstanced implements Renderer {
     @Override
     public void init(GLAutoDrawable drawable) {
         nodeData.init(drawable.getGL().getGL2ES3());
+        engine.addToLookup(nodeData);
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable drawable) {
+        engine.removeFromLookup(nodeData);
     }
 
     @Override
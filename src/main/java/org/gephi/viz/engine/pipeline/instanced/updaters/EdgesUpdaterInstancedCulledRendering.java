@@ -0,0 +1,36 @@
+package org.gephi.viz.engine.pipeline.instanced.updaters;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.availability.InstancedCulledDraw;
+import org.gephi.viz.engine.pipeline.instanced.InstancedCulledEdgeData;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgesUpdaterInstancedCulledRendering extends EdgesUpdaterInstancedRendering {
+
+    private final VizEngine engine;
+
+    public EdgesUpdaterInstancedCulledRendering(VizEngine engine, InstancedCulledEdgeData edgeData, GraphIndexImpl spatialIndex) {
+        super(engine, edgeData, spatialIndex);
+        this.engine = engine;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return InstancedCulledDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Instanced, GPU culled)";
+    }
+
+    @Override
+    public boolean isAvailable(GLAutoDrawable drawable) {
+        return InstancedCulledDraw.isAvailable(engine, drawable);
+    }
+}
@@ -0,0 +1,67 @@
+package org.gephi.viz.engine.pipeline.instanced.updaters;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.availability.InstancedIndexedDraw;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.pipeline.instanced.InstancedIndexedEdgeData;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgesUpdaterInstancedIndexedRendering implements WorldUpdater {
+
+    private final VizEngine engine;
+    private final InstancedIndexedEdgeData edgeData;
+    private final GraphIndexImpl spatialIndex;
+
+    public EdgesUpdaterInstancedIndexedRendering(VizEngine engine, InstancedIndexedEdgeData edgeData, GraphIndexImpl spatialIndex) {
+        this.engine = engine;
+        this.edgeData = edgeData;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void init(GLAutoDrawable drawable) {
+        edgeData.init(drawable.getGL().getGL2ES3());
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable drawable) {
+        edgeData.dispose(drawable.getGL());
+    }
+
+    @Override
+    public void updateWorld() {
+        edgeData.update(engine, spatialIndex);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.EDGE;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return InstancedIndexedDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Instanced, indexed)";
+    }
+
+    @Override
+    public boolean isAvailable(GLAutoDrawable drawable) {
+        return InstancedIndexedDraw.isAvailable(engine, drawable);
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+}
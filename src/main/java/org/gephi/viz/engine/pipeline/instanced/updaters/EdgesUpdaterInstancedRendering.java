@@ -26,7 +26,7 @@ public class EdgesUpdaterInstancedRendering implements WorldUpdater {
 
     @Override
     public void init(GLAutoDrawable drawable) {
-        edgeData.init(drawable.getGL().getGL2ES3());
+        edgeData.init(drawable.getGL().getGL2ES3(), engine.getCapabilities());
     }
 
     @Override
@@ -36,9 +36,7 @@ public class EdgesUpdaterInstancedRendering implements WorldUpdater {
 
     @Override
     public void updateWorld() {
-        //final long start = System.currentTimeMillis();
         edgeData.update(engine, spatialIndex);
-        //System.out.println("Edges update ms: " + (System.currentTimeMillis() - start));
     }
 
     @Override
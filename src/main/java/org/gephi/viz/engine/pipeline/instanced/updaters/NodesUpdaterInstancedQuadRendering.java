@@ -0,0 +1,67 @@
+package org.gephi.viz.engine.pipeline.instanced.updaters;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.availability.InstancedQuadDraw;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.pipeline.instanced.InstancedQuadNodeData;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NodesUpdaterInstancedQuadRendering implements WorldUpdater {
+
+    private final VizEngine engine;
+    private final InstancedQuadNodeData nodeData;
+    private final GraphIndexImpl spatialIndex;
+
+    public NodesUpdaterInstancedQuadRendering(VizEngine engine, InstancedQuadNodeData nodeData, GraphIndexImpl spatialIndex) {
+        this.engine = engine;
+        this.nodeData = nodeData;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void init(GLAutoDrawable drawable) {
+        nodeData.init(drawable.getGL().getGL2ES3());
+    }
+    
+    @Override
+    public void dispose(GLAutoDrawable drawable) {
+        nodeData.dispose(drawable.getGL().getGL2ES3());
+    }
+
+    @Override
+    public void updateWorld() {
+        nodeData.update(engine, spatialIndex);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.NODE;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return InstancedQuadDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Nodes (Instanced, quads)";
+    }
+
+    @Override
+    public boolean isAvailable(GLAutoDrawable drawable) {
+        return InstancedQuadDraw.isAvailable(engine, drawable);
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+}
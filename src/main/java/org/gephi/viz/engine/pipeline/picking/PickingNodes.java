@@ -0,0 +1,102 @@
+package org.gephi.viz.engine.pipeline.picking;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.gephi.graph.api.Node;
+
+/**
+ * Nodes in drawing order of each world update buffer, so ids read back from the picking framebuffer can be mapped to nodes frames later.
+ *
+ * <p>
+ * The world updater writes a buffer between {@link #beginWrite(int, int)} and {@link #endWrite(int, int)} while the GL thread may read another one. Each write changes the buffer version, so a read with an old version returns null instead of a wrong node.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class PickingNodes {
+
+    private static final int BUFFER_INDEX_BITS = 2;
+    private static final int BUFFER_INDEX_MASK = (1 << BUFFER_INDEX_BITS) - 1;
+
+    private final Node[][] nodes;
+    //Odd while being written:
+    private final AtomicLongArray writeCounts;
+
+    public PickingNodes(int buffersCount) {
+        if (buffersCount > BUFFER_INDEX_MASK + 1) {
+            throw new IllegalArgumentException("At most " + (BUFFER_INDEX_MASK + 1) + " buffers are supported");
+        }
+
+        this.nodes = new Node[buffersCount][];
+        this.writeCounts = new AtomicLongArray(buffersCount);
+        for (int i = 0; i < buffersCount; i++) {
+            nodes[i] = new Node[0];
+        }
+    }
+
+    /**
+     *
+     * @param bufferIndex Buffer index
+     * @param capacity Max nodes that will be written
+     * @return Array to write the nodes of the buffer in drawing order
+     */
+    public Node[] beginWrite(int bufferIndex, int capacity) {
+        writeCounts.incrementAndGet(bufferIndex);
+
+        if (nodes[bufferIndex].length < capacity) {
+            nodes[bufferIndex] = new Node[capacity];
+        }
+
+        return nodes[bufferIndex];
+    }
+
+    /**
+     *
+     * @param bufferIndex Buffer index
+     * @param count Nodes written
+     */
+    public void endWrite(int bufferIndex, int count) {
+        //Don't retain references to removed nodes:
+        final Node[] bufferNodes = nodes[bufferIndex];
+        Arrays.fill(bufferNodes, count, bufferNodes.length, null);
+
+        writeCounts.incrementAndGet(bufferIndex);
+    }
+
+    /**
+     *
+     * @param bufferIndex Buffer index
+     * @return Current version of the buffer
+     */
+    public long getVersion(int bufferIndex) {
+        return (writeCounts.get(bufferIndex) << BUFFER_INDEX_BITS) | bufferIndex;
+    }
+
+    /**
+     *
+     * @param version Version returned by {@link #getVersion(int)}
+     * @param index Node index in drawing order
+     * @return Node or null if the buffer has been written since the version was taken
+     */
+    public Node getNode(long version, int index) {
+        final int bufferIndex = (int) (version & BUFFER_INDEX_MASK);
+        final long writeCount = version >>> BUFFER_INDEX_BITS;
+
+        if (writeCount % 2 != 0 || writeCounts.get(bufferIndex) != writeCount) {
+            return null;
+        }
+
+        final Node[] bufferNodes = nodes[bufferIndex];
+        final Node node = index >= 0 && index < bufferNodes.length ? bufferNodes[index] : null;
+
+        //Check again in case it was written while reading:
+        return writeCounts.get(bufferIndex) == writeCount ? node : null;
+    }
+
+    public void clear() {
+        for (int i = 0; i < nodes.length; i++) {
+            writeCounts.incrementAndGet(i);
+            nodes[i] = new Node[0];
+            writeCounts.incrementAndGet(i);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package org.gephi.viz.engine.pipeline.picking;
+
+import com.jogamp.opengl.GL3;
+import com.jogamp.opengl.GLAutoDrawable;
+import java.util.Collection;
+import java.util.EnumSet;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.availability.IdBufferPicking;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.spi.Renderer;
+import org.gephi.viz.engine.status.GraphPickingImpl;
+import org.gephi.viz.engine.util.Constants;
+import org.gephi.viz.engine.util.gl.GLPickingFramebuffer;
+
+/**
+ * Resolves {@link GraphPickingImpl} requests on the GPU. When a pick is requested, every {@link PickingSource} in the lookup draws its elements ids into an integer offscreen framebuffer and a small region around the position is read back asynchronously. The picked element is the one with the nearest non empty pixel to the position, so picking does not depend on the graph size and is exact for the drawn node shapes.
+ *
+ * <p>
+ * Only node pipelines are picking sources for now. Each edge pipeline draws its own shapes (lines, arrows, indexed or texture fetched positions) with its own shaders, mostly GLSL ES 1.00 ones that can't write integer outputs, so an edge id pass would need a GLSL 3.30 copy of every edge shader. Edges are resolved with {@link org.gephi.viz.engine.structure.GraphIndex} queries instead.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class PickingRenderer implements Renderer {
+
+    //Pixels around the position, in each direction:
+    private static final int REGION_RADIUS = 2;
+    //Max reads in flight:
+    private static final int READ_SLOTS = 3;
+
+    private final VizEngine engine;
+    private final GraphPickingImpl graphPicking;
+    private final GLPickingFramebuffer framebuffer = new GLPickingFramebuffer(REGION_RADIUS, READ_SLOTS);
+    private final PendingPick[] pendingPicks = new PendingPick[READ_SLOTS];
+    private final int[] regionIds;
+
+    public PickingRenderer(VizEngine engine, GraphPickingImpl graphPicking) {
+        this.engine = engine;
+        this.graphPicking = graphPicking;
+        this.regionIds = new int[framebuffer.getMaxRegionPixels()];
+    }
+
+    @Override
+    public void init(GLAutoDrawable drawable) {
+        framebuffer.init(drawable.getGL().getGL3(), engine.getWidth(), engine.getHeight());
+    }
+
+    @Override
+    public void worldUpdated(GLAutoDrawable drawable) {
+        //NOOP
+    }
+
+    private final float[] mvpFloats = new float[16];
+
+    @Override
+    public void render(GLAutoDrawable drawable, RenderingLayer layer) {
+        final GL3 gl = drawable.getGL().getGL3();
+
+        pollPendingPicks(gl);
+        if (framebuffer.hasPendingRegions()) {
+            //Keep drawing frames until the GPU is done, when rendering on demand:
+            engine.requestRender();
+        }
+
+        final Collection<? extends PickingSource> sources = engine.getLookup().lookupAll(PickingSource.class);
+        graphPicking.setAvailable(!sources.isEmpty());
+
+        if (!graphPicking.hasRequest() || sources.isEmpty() || !framebuffer.hasFreeSlot()) {
+            return;
+        }
+
+        final int x = graphPicking.getRequestX();
+        final int y = graphPicking.getRequestY();
+        graphPicking.clearRequest();
+
+        final PendingPick pick = new PendingPick(x, y, sources.size());
+
+        framebuffer.ensureSize(gl, engine.getWidth(), engine.getHeight());
+        framebuffer.bind(gl);
+
+        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+
+        //Id 0 means no element:
+        int nextId = 1;
+        int i = 0;
+        for (PickingSource source : sources) {
+            final int count = source.drawPicking(gl, engine, mvpFloats, nextId);
+
+            pick.sources[i] = source;
+            pick.firstIds[i] = nextId;
+            pick.counts[i] = count;
+            pick.versions[i] = count > 0 ? source.getPickingVersion() : 0;
+
+            nextId += count;
+            i++;
+        }
+
+        final int slot = framebuffer.readRegion(gl, x, y);
+        framebuffer.unbind(gl);
+        gl.glViewport(0, 0, engine.getWidth(), engine.getHeight());
+
+        if (slot == GLPickingFramebuffer.NO_REGION) {
+            //Outside of the viewport:
+            graphPicking.setPickedNode(null);
+        } else {
+            pendingPicks[slot] = pick;
+            engine.requestRender();
+        }
+    }
+
+    private void pollPendingPicks(GL3 gl) {
+        int slot;
+        while ((slot = framebuffer.pollRegion(gl, regionIds)) != GLPickingFramebuffer.NO_REGION) {
+            final PendingPick pick = pendingPicks[slot];
+            pendingPicks[slot] = null;
+
+            final int id = findNearestId(
+                    regionIds,
+                    framebuffer.getRegionWidth(slot),
+                    framebuffer.getRegionHeight(slot),
+                    framebuffer.getRegionCenterX(slot),
+                    framebuffer.getRegionCenterY(slot)
+            );
+
+            if (id == 0) {
+                graphPicking.setPickedNode(null);
+                continue;
+            }
+
+            final Element element = pick.findElement(id);
+            if (element == null) {
+                //The drawn elements changed since, pick again unless there is a newer request:
+                if (!graphPicking.hasRequest()) {
+                    graphPicking.requestPick(pick.x, pick.y);
+                }
+            } else {
+                graphPicking.setPickedNode(element instanceof Node ? (Node) element : null);
+            }
+        }
+    }
+
+    /**
+     * Finds the non zero id nearest to the center of a region, preferring the center itself.
+     *
+     * @param ids Region ids, row by row
+     * @param width Region width
+     * @param height Region height
+     * @param centerX Center X in the region
+     * @param centerY Center Y in the region
+     * @return Nearest id or 0 if the region is empty
+     */
+    public static int findNearestId(int[] ids, int width, int height, int centerX, int centerY) {
+        int nearestId = 0;
+        int nearestDistance = Integer.MAX_VALUE;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int id = ids[y * width + x];
+                if (id == 0) {
+                    continue;
+                }
+
+                final int dx = x - centerX;
+                final int dy = y - centerY;
+                final int distance = dx * dx + dy * dy;
+                if (distance < nearestDistance) {
+                    nearestDistance = distance;
+                    nearestId = id;
+                }
+            }
+        }
+
+        return nearestId;
+    }
+
+    @Override
+    public void dispose(GLAutoDrawable drawable) {
+        if (framebuffer.isInitialized()) {
+            framebuffer.destroy(drawable.getGL().getGL3());
+        }
+    }
+
+    @Override
+    public EnumSet<RenderingLayer> getLayers() {
+        return EnumSet.of(RenderingLayer.FRONT);
+    }
+
+    @Override
+    public int getOrder() {
+        return Constants.RENDERING_ORDER_PICKING;
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.PICKING;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return IdBufferPicking.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Picking (Id buffer)";
+    }
+
+    @Override
+    public boolean isAvailable(GLAutoDrawable drawable) {
+        return IdBufferPicking.isAvailable(engine, drawable);
+    }
+
+    /**
+     * Ids drawn by each source for a read in flight.
+     */
+    private static class PendingPick {
+
+        private final int x;
+        private final int y;
+        private final PickingSource[] sources;
+        private final int[] firstIds;
+        private final int[] counts;
+        private final long[] versions;
+
+        public PendingPick(int x, int y, int sourcesCount) {
+            this.x = x;
+            this.y = y;
+            this.sources = new PickingSource[sourcesCount];
+            this.firstIds = new int[sourcesCount];
+            this.counts = new int[sourcesCount];
+            this.versions = new long[sourcesCount];
+        }
+
+        public Element findElement(int id) {
+            for (int i = 0; i < sources.length; i++) {
+                if (id >= firstIds[i] && id < firstIds[i] + counts[i]) {
+                    return sources[i].getPickedElement(versions[i], id - firstIds[i]);
+                }
+            }
+
+            return null;
+        }
+    }
+}
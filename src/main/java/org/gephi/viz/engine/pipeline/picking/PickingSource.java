@@ -0,0 +1,39 @@
+package org.gephi.viz.engine.pipeline.picking;
+
+import com.jogamp.opengl.GL3;
+import org.gephi.graph.api.Element;
+import org.gephi.viz.engine.VizEngine;
+
+/**
+ * Data of a pipeline that can draw its elements ids for {@link PickingRenderer}. Sources are found in the engine lookup, a renderer should add its source when it is initialized and remove it when disposed.
+ *
+ * @author Eduardo Ramos
+ */
+public interface PickingSource {
+
+    /**
+     * Draws the elements of the last uploaded world update into the bound picking framebuffer, the element <code>i</code> with the id <code>firstId + i</code>.
+     *
+     * @param gl GL
+     * @param engine Engine
+     * @param mvpFloats Model view projection matrix
+     * @param firstId Id of the first element
+     * @return Number of ids used
+     */
+    int drawPicking(GL3 gl, VizEngine engine, float[] mvpFloats, int firstId);
+
+    /**
+     * Version of the elements drawn by the last {@link #drawPicking(GL3, VizEngine, float[], int)}, to find them later with {@link #getPickedElement(long, int)}.
+     *
+     * @return Version
+     */
+    long getPickingVersion();
+
+    /**
+     *
+     * @param version Version returned by {@link #getPickingVersion()} after drawing
+     * @param index Element index, the picked id minus the first id
+     * @return Element or null if the elements drawn with this version have been replaced since
+     */
+    Element getPickedElement(long version, int index);
+}
@@ -0,0 +1,78 @@
+package org.gephi.viz.engine.status;
+
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.spi.Renderer;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.util.TimingRecorder;
+
+/**
+ * Timings and counters of the engine, available in the engine lookup.
+ *
+ * <p>
+ * Timings are CPU wall times in nanoseconds, GL commands may still be executing on the GPU when they are recorded.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public interface EngineMetrics {
+
+    /**
+     *
+     * @return Timings of whole frames, from input processing to the last renderer
+     */
+    TimingRecorder getFrameTimings();
+
+    TimingRecorder getInputTimings();
+
+    /**
+     *
+     * @param renderer Renderer
+     * @return Timings of {@link Renderer#worldUpdated}, where buffers are uploaded
+     */
+    TimingRecorder getWorldUpdatedTimings(Renderer renderer);
+
+    TimingRecorder getRenderTimings(Renderer renderer, RenderingLayer layer);
+
+    TimingRecorder getUpdateWorldTimings(WorldUpdater updater);
+
+    int getVisibleNodesCount();
+
+    void setVisibleNodesCount(int count);
+
+    int getVisibleEdgesCount();
+
+    void setVisibleEdgesCount(int count);
+
+    /**
+     *
+     * @return Total bytes copied to GL buffers. Data written directly into persistent mapped buffers is not counted
+     */
+    long getBytesUploaded();
+
+    void addBytesUploaded(long bytes);
+
+    /**
+     *
+     * @return Total growths of CPU buffers and persistent mapped GL buffers
+     */
+    long getBufferGrowths();
+
+    void addBufferGrowth();
+
+    /**
+     *
+     * @return Total world updates of pipeline data that were skipped because the data built before was still valid, so nothing was filled or uploaded
+     */
+    long getSkippedDataUpdates();
+
+    void addSkippedDataUpdate();
+
+    /**
+     *
+     * @return Total uploads of data that did not fit in one texture of the max texture size, so it was split into several textures drawn in several passes
+     */
+    long getTextureOverflows();
+
+    void addTextureOverflow();
+
+    void reset();
+}
@@ -0,0 +1,148 @@
+package org.gephi.viz.engine.status;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.spi.Renderer;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.util.TimingRecorder;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EngineMetricsImpl implements EngineMetrics {
+
+    private final TimingRecorder frameTimings = new TimingRecorder();
+    private final TimingRecorder inputTimings = new TimingRecorder();
+    private final ConcurrentMap<Renderer, TimingRecorder> worldUpdatedTimings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Renderer, TimingRecorder[]> renderTimings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<WorldUpdater, TimingRecorder> updateWorldTimings = new ConcurrentHashMap<>();
+
+    private volatile int visibleNodesCount = 0;
+    private volatile int visibleEdgesCount = 0;
+    private final AtomicLong bytesUploaded = new AtomicLong();
+    private final AtomicLong bufferGrowths = new AtomicLong();
+    private final AtomicLong skippedDataUpdates = new AtomicLong();
+    private final AtomicLong textureOverflows = new AtomicLong();
+
+    @Override
+    public TimingRecorder getFrameTimings() {
+        return frameTimings;
+    }
+
+    @Override
+    public TimingRecorder getInputTimings() {
+        return inputTimings;
+    }
+
+    @Override
+    public TimingRecorder getWorldUpdatedTimings(Renderer renderer) {
+        final TimingRecorder recorder = worldUpdatedTimings.get(renderer);
+        return recorder != null ? recorder : worldUpdatedTimings.computeIfAbsent(renderer, r -> new TimingRecorder());
+    }
+
+    @Override
+    public TimingRecorder getRenderTimings(Renderer renderer, RenderingLayer layer) {
+        TimingRecorder[] recorders = renderTimings.get(renderer);
+        if (recorders == null) {
+            recorders = renderTimings.computeIfAbsent(renderer, r -> newTimingRecorders(RenderingLayer.values().length));
+        }
+        return recorders[layer.ordinal()];
+    }
+
+    @Override
+    public TimingRecorder getUpdateWorldTimings(WorldUpdater updater) {
+        final TimingRecorder recorder = updateWorldTimings.get(updater);
+        return recorder != null ? recorder : updateWorldTimings.computeIfAbsent(updater, u -> new TimingRecorder());
+    }
+
+    @Override
+    public int getVisibleNodesCount() {
+        return visibleNodesCount;
+    }
+
+    @Override
+    public void setVisibleNodesCount(int count) {
+        this.visibleNodesCount = count;
+    }
+
+    @Override
+    public int getVisibleEdgesCount() {
+        return visibleEdgesCount;
+    }
+
+    @Override
+    public void setVisibleEdgesCount(int count) {
+        this.visibleEdgesCount = count;
+    }
+
+    @Override
+    public long getBytesUploaded() {
+        return bytesUploaded.get();
+    }
+
+    @Override
+    public void addBytesUploaded(long bytes) {
+        bytesUploaded.addAndGet(bytes);
+    }
+
+    @Override
+    public long getBufferGrowths() {
+        return bufferGrowths.get();
+    }
+
+    @Override
+    public void addBufferGrowth() {
+        bufferGrowths.incrementAndGet();
+    }
+
+    @Override
+    public long getSkippedDataUpdates() {
+        return skippedDataUpdates.get();
+    }
+
+    @Override
+    public void addSkippedDataUpdate() {
+        skippedDataUpdates.incrementAndGet();
+    }
+
+    @Override
+    public long getTextureOverflows() {
+        return textureOverflows.get();
+    }
+
+    @Override
+    public void addTextureOverflow() {
+        textureOverflows.incrementAndGet();
+    }
+
+    @Override
+    public void reset() {
+        frameTimings.reset();
+        inputTimings.reset();
+        worldUpdatedTimings.values().forEach(TimingRecorder::reset);
+        renderTimings.values().forEach(recorders -> {
+            for (TimingRecorder recorder : recorders) {
+                recorder.reset();
+            }
+        });
+        updateWorldTimings.values().forEach(TimingRecorder::reset);
+
+        visibleNodesCount = 0;
+        visibleEdgesCount = 0;
+        bytesUploaded.set(0);
+        bufferGrowths.set(0);
+        skippedDataUpdates.set(0);
+        textureOverflows.set(0);
+    }
+
+    private static TimingRecorder[] newTimingRecorders(int count) {
+        final TimingRecorder[] recorders = new TimingRecorder[count];
+        for (int i = 0; i < count; i++) {
+            recorders[i] = new TimingRecorder();
+        }
+        return recorders;
+    }
+}
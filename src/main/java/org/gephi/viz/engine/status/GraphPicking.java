@@ -0,0 +1,41 @@
+package org.gephi.viz.engine.status;
+
+import org.gephi.graph.api.Node;
+
+/**
+ * Asynchronous picking of the node under a screen position, resolved on the GPU by the picking renderer some frames after the request. Only used from the GL thread, for example by input listeners.
+ *
+ * <p>
+ * Only nodes are picked, edges under a position are found with {@link org.gephi.viz.engine.structure.GraphIndex} queries, which take the drawn edge width into account.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public interface GraphPicking {
+
+    /**
+     *
+     * @return True if the current pipeline can resolve picking requests, otherwise {@link org.gephi.viz.engine.structure.GraphIndex} queries should be used
+     */
+    boolean isAvailable();
+
+    /**
+     * Requests picking the node at a screen position. Replaces any previous request that is not being resolved yet.
+     *
+     * @param x Screen X
+     * @param y Screen Y
+     */
+    void requestPick(int x, int y);
+
+    /**
+     * Checks if a pick has been resolved since the last call, then the result is available in {@link #getPickedNode()}.
+     *
+     * @return True if a pick has been resolved
+     */
+    boolean pollPick();
+
+    /**
+     *
+     * @return Node of the last resolved pick or null if there was no node at the position
+     */
+    Node getPickedNode();
+}
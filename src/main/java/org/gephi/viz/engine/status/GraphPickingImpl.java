@@ -0,0 +1,68 @@
+package org.gephi.viz.engine.status;
+
+import org.gephi.graph.api.Node;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class GraphPickingImpl implements GraphPicking {
+
+    private boolean available = false;
+
+    private boolean requested = false;
+    private int requestX;
+    private int requestY;
+
+    private boolean picked = false;
+    private Node pickedNode = null;
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    @Override
+    public void requestPick(int x, int y) {
+        requested = true;
+        requestX = x;
+        requestY = y;
+    }
+
+    public boolean hasRequest() {
+        return requested;
+    }
+
+    public int getRequestX() {
+        return requestX;
+    }
+
+    public int getRequestY() {
+        return requestY;
+    }
+
+    public void clearRequest() {
+        requested = false;
+    }
+
+    public void setPickedNode(Node node) {
+        picked = true;
+        pickedNode = node;
+    }
+
+    @Override
+    public boolean pollPick() {
+        final boolean result = picked;
+        picked = false;
+        return result;
+    }
+
+    @Override
+    public Node getPickedNode() {
+        return pickedNode;
+    }
+}
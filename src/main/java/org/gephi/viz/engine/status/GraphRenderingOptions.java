@@ -16,6 +16,7 @@ public interface GraphRenderingOptions {
 
     //Edges:
     public static final float DEFAULT_EDGE_SCALE = 2f;
+    public static final float DEFAULT_EDGE_MIN_SCREEN_LENGTH = 1f;
     public static final boolean DEFAULT_ENABLE_EDGE_SELECTION_COLOR = false;
     public static final Color DEFAULT_EDGE_IN_SELECTION_COLOR = new Color(32, 95, 154, 255);
     public static final Color DEFAULT_EDGE_OUT_SELECTION_COLOR = new Color(196, 66, 79, 255);
@@ -25,12 +26,22 @@ public interface GraphRenderingOptions {
     public static final boolean DEFAULT_HIDE_NON_SELECTED = false;
     public static final boolean DEFAULT_LIGHTEN_NON_SELECTED = true;
     public static final boolean DEFAULT_AUTO_SELECT_NEIGHBOURS = true;
+    public static final int DEFAULT_AUTO_SELECT_NEIGHBOURS_DEPTH = 1;
     public static final float DEFAULT_LIGHTEN_NON_SELECTED_FACTOR = 0.85f;
 
     float getEdgeScale();
 
     void setEdgeScale(float edgeScale);
 
+    /**
+     * Edges shorter than this length in pixels are not drawn, they would be hidden by their nodes anyway.
+     *
+     * @return Minimum length in pixels, 0 to draw all edges
+     */
+    float getEdgeMinScreenLength();
+
+    void setEdgeMinScreenLength(float edgeMinScreenLength);
+
     boolean isShowNodes();
 
     void setShowNodes(boolean showNodes);
@@ -63,6 +74,14 @@ public interface GraphRenderingOptions {
 
     void setAutoSelectNeighbours(boolean autoSelectNeighbours);
 
+    /**
+     *
+     * @return Maximum number of hops from a selected node to its auto selected neighbours
+     */
+    int getAutoSelectNeighboursDepth();
+
+    void setAutoSelectNeighboursDepth(int autoSelectNeighboursDepth);
+
     boolean isEdgeSelectionColor();
 
     void setEdgeSelectionColor(boolean edgeSelectionColor);
@@ -78,4 +97,11 @@ public interface GraphRenderingOptions {
     Color getEdgeInSelectionColor();
 
     void setEdgeInSelectionColor(Color color);
+
+    /**
+     * Incremented on every change, so world updaters can skip rebuilding their data when nothing changed.
+     *
+     * @return Current version
+     */
+    int getVersion();
 }
@@ -2,6 +2,7 @@ package org.gephi.viz.engine.status;
 
 import java.awt.Color;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
 
@@ -13,6 +14,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
 
     //Edges
     private float edgeScale = DEFAULT_EDGE_SCALE;
+    private float edgeMinScreenLength = DEFAULT_EDGE_MIN_SCREEN_LENGTH;
     private boolean edgeSelectionColor = DEFAULT_ENABLE_EDGE_SELECTION_COLOR;
     private Color edgeBothSelectionColor = DEFAULT_EDGE_BOTH_SELECTION_COLOR;
     private Color edgeInSelectionColor = DEFAULT_EDGE_IN_SELECTION_COLOR;
@@ -20,10 +22,13 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
 
     //Selection:
     private boolean autoSelectNeighbours = DEFAULT_AUTO_SELECT_NEIGHBOURS;
+    private int autoSelectNeighboursDepth = DEFAULT_AUTO_SELECT_NEIGHBOURS_DEPTH;
     private boolean hideNonSelected = DEFAULT_HIDE_NON_SELECTED;
     private boolean lightenNonSelected = DEFAULT_LIGHTEN_NON_SELECTED;
     private float lightenNonSelectedFactor = DEFAULT_LIGHTEN_NON_SELECTED_FACTOR;
 
+    private final AtomicInteger version = new AtomicInteger();
+
     @Override
     public float getEdgeScale() {
         return edgeScale;
@@ -36,6 +41,22 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
         }
 
         this.edgeScale = edgeScale;
+        version.incrementAndGet();
+    }
+
+    @Override
+    public float getEdgeMinScreenLength() {
+        return edgeMinScreenLength;
+    }
+
+    @Override
+    public void setEdgeMinScreenLength(float edgeMinScreenLength) {
+        if (edgeMinScreenLength < 0) {
+            throw new IllegalArgumentException("edgeMinScreenLength should be >= 0");
+        }
+
+        this.edgeMinScreenLength = edgeMinScreenLength;
+        version.incrementAndGet();
     }
 
     @Override
@@ -46,6 +67,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowNodes(boolean showNodes) {
         this.showNodes = showNodes;
+        version.incrementAndGet();
     }
 
     @Override
@@ -56,6 +78,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowEdges(boolean showEdges) {
         this.showEdges = showEdges;
+        version.incrementAndGet();
     }
 
     @Override
@@ -66,6 +89,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowNodeLabels(boolean showNodeLabels) {
         this.showNodeLabels = showNodeLabels;
+        version.incrementAndGet();
     }
 
     @Override
@@ -76,6 +100,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowEdgeLabels(boolean showEdgeLabels) {
         this.showEdgeLabels = showEdgeLabels;
+        version.incrementAndGet();
     }
 
     @Override
@@ -86,6 +111,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setHideNonSelected(boolean hideNonSelected) {
         this.hideNonSelected = hideNonSelected;
+        version.incrementAndGet();
     }
 
     @Override
@@ -96,6 +122,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setLightenNonSelected(boolean lightenNonSelected) {
         this.lightenNonSelected = lightenNonSelected;
+        version.incrementAndGet();
     }
 
     @Override
@@ -114,6 +141,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
         }
 
         this.lightenNonSelectedFactor = lightenNonSelectedFactor;
+        version.incrementAndGet();
     }
 
     @Override
@@ -124,6 +152,21 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setAutoSelectNeighbours(boolean autoSelectNeighbours) {
         this.autoSelectNeighbours = autoSelectNeighbours;
+        version.incrementAndGet();
+    }
+
+    @Override
+    public int getAutoSelectNeighboursDepth() {
+        return autoSelectNeighboursDepth;
+    }
+
+    @Override
+    public void setAutoSelectNeighboursDepth(int autoSelectNeighboursDepth) {
+        if (autoSelectNeighboursDepth < 1) {
+            throw new IllegalArgumentException("autoSelectNeighboursDepth should be >= 1");
+        }
+        this.autoSelectNeighboursDepth = autoSelectNeighboursDepth;
+        version.incrementAndGet();
     }
 
     @Override
@@ -134,6 +177,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setEdgeSelectionColor(boolean edgeSelectionColor) {
         this.edgeSelectionColor = edgeSelectionColor;
+        version.incrementAndGet();
     }
 
     @Override
@@ -145,6 +189,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeBothSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeBothSelectionColor = color;
+        version.incrementAndGet();
     }
 
     @Override
@@ -156,6 +201,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeOutSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeOutSelectionColor = color;
+        version.incrementAndGet();
     }
 
     @Override
@@ -167,6 +213,11 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeInSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeInSelectionColor = color;
+        version.incrementAndGet();
     }
 
+    @Override
+    public int getVersion() {
+        return version.get();
+    }
 }
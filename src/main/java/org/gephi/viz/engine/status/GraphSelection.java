@@ -19,6 +19,14 @@ public interface GraphSelection {
 
     void setSelectedNodes(Collection<Node> nodes);
 
+    /**
+     * Sets the selected nodes from the first <code>count</code> elements of an array, without intermediate collections.
+     *
+     * @param nodes Nodes array, can be reused by the caller after this call
+     * @param count Nodes count
+     */
+    void setSelectedNodes(Node[] nodes, int count);
+
     void addSelectedNodes(Collection<Node> nodes);
 
     void removeSelectedNodes(Collection<Node> nodes);
@@ -39,6 +47,14 @@ public interface GraphSelection {
 
     void setSelectedEdges(Collection<Edge> edges);
 
+    /**
+     * Sets the selected edges from the first <code>count</code> elements of an array, without intermediate collections.
+     *
+     * @param edges Edges array, can be reused by the caller after this call
+     * @param count Edges count
+     */
+    void setSelectedEdges(Edge[] edges, int count);
+
     void addSelectedEdges(Collection<Edge> edges);
 
     void removeSelectedEdges(Collection<Edge> edges);
@@ -51,4 +67,10 @@ public interface GraphSelection {
 
     void clearSelectedEdges();
 
+    /**
+     * Incremented on every change, so world updaters can skip rebuilding their data when nothing changed.
+     *
+     * @return Current version
+     */
+    int getVersion();
 }
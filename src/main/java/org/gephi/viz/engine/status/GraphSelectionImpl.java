@@ -2,17 +2,21 @@ package org.gephi.viz.engine.status;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Node;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.ElementBitSet;
 
 public class GraphSelectionImpl implements GraphSelection {
 
     private final VizEngine engine;
-    private final Set<Node> nodes = new HashSet<>();
-    private final Set<Edge> edges = new HashSet<>();
+    //Replaced as a whole by replaceSelection:
+    private volatile ElementBitSet<Node> nodes = new ElementBitSet<>();
+    private volatile ElementBitSet<Edge> edges = new ElementBitSet<>();
+
+    private final AtomicInteger version = new AtomicInteger();
 
     public GraphSelectionImpl(VizEngine engine) {
         this.engine = engine;
@@ -20,7 +24,7 @@ public class GraphSelectionImpl implements GraphSelection {
 
     @Override
     public boolean isNodeSelected(Node node) {
-        return nodes.contains(node);
+        return nodes.containsElement(node);
     }
 
     @Override
@@ -39,6 +43,16 @@ public class GraphSelectionImpl implements GraphSelection {
         if (nodes != null) {
             this.nodes.addAll(nodes);
         }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void setSelectedNodes(Node[] nodes, int count) {
+        this.nodes.clear();
+        if (nodes != null) {
+            this.nodes.addAll(nodes, count);
+        }
+        version.incrementAndGet();
     }
 
     @Override
@@ -46,6 +60,7 @@ public class GraphSelectionImpl implements GraphSelection {
         if (nodes != null) {
             this.nodes.addAll(nodes);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -53,6 +68,7 @@ public class GraphSelectionImpl implements GraphSelection {
         if (nodes != null) {
             this.nodes.removeAll(nodes);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -63,6 +79,7 @@ public class GraphSelectionImpl implements GraphSelection {
             this.nodes.clear();
             this.nodes.add(node);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -70,6 +87,7 @@ public class GraphSelectionImpl implements GraphSelection {
         if (node != null) {
             this.nodes.add(node);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -77,16 +95,18 @@ public class GraphSelectionImpl implements GraphSelection {
         if (node != null) {
             this.nodes.remove(node);
         }
+        version.incrementAndGet();
     }
 
     @Override
     public void clearSelectedNodes() {
         this.nodes.clear();
+        version.incrementAndGet();
     }
 
     @Override
     public boolean isEdgeSelected(Edge edge) {
-        return edges.contains(edge);
+        return edges.containsElement(edge);
     }
 
     @Override
@@ -105,6 +125,16 @@ public class GraphSelectionImpl implements GraphSelection {
         if (edges != null) {
             this.edges.addAll(edges);
         }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void setSelectedEdges(Edge[] edges, int count) {
+        this.edges.clear();
+        if (edges != null) {
+            this.edges.addAll(edges, count);
+        }
+        version.incrementAndGet();
     }
 
     @Override
@@ -112,6 +142,7 @@ public class GraphSelectionImpl implements GraphSelection {
         if (edges != null) {
             this.edges.addAll(edges);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -119,6 +150,7 @@ public class GraphSelectionImpl implements GraphSelection {
         if (edges != null) {
             this.edges.removeAll(edges);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -129,6 +161,7 @@ public class GraphSelectionImpl implements GraphSelection {
             this.edges.clear();
             this.edges.add(edge);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -136,6 +169,7 @@ public class GraphSelectionImpl implements GraphSelection {
         if (edge != null) {
             this.edges.add(edge);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -143,10 +177,29 @@ public class GraphSelectionImpl implements GraphSelection {
         if (edge != null) {
             this.edges.remove(edge);
         }
+        version.incrementAndGet();
     }
 
     @Override
     public void clearSelectedEdges() {
         this.edges.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Replaces the selected nodes and edges by sets built on another thread, with a single version change. The sets belong to this selection afterwards and must not be changed by the caller.
+     *
+     * @param nodes Selected nodes
+     * @param edges Selected edges
+     */
+    public void replaceSelection(ElementBitSet<Node> nodes, ElementBitSet<Edge> edges) {
+        this.nodes = nodes;
+        this.edges = edges;
+        version.incrementAndGet();
+    }
+
+    @Override
+    public int getVersion() {
+        return version.get();
     }
 }
@@ -18,6 +18,14 @@ public interface GraphSelectionNeighbours {
 
     void setSelectedNodes(Collection<Node> nodes);
 
+    /**
+     * Sets the selected nodes from the first <code>count</code> elements of an array, without intermediate collections.
+     *
+     * @param nodes Nodes array, can be reused by the caller after this call
+     * @param count Nodes count
+     */
+    void setSelectedNodes(Node[] nodes, int count);
+
     void addSelectedNodes(Collection<Node> nodes);
 
     void removeSelectedNodes(Collection<Node> nodes);
@@ -29,4 +37,11 @@ public interface GraphSelectionNeighbours {
     void removeSelectedNode(Node node);
 
     void clearSelectedNodes();
+
+    /**
+     * Incremented on every change, so world updaters can skip rebuilding their data when nothing changed.
+     *
+     * @return Current version
+     */
+    int getVersion();
 }
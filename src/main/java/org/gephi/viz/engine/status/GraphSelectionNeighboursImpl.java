@@ -2,15 +2,19 @@ package org.gephi.viz.engine.status;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.gephi.graph.api.Node;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.ElementBitSet;
 
 public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
 
     private final VizEngine engine;
-    private final Set<Node> nodes = new HashSet<>();
+    //Replaced as a whole by replaceSelectedNodes:
+    private volatile ElementBitSet<Node> nodes = new ElementBitSet<>();
+
+    private final AtomicInteger version = new AtomicInteger();
 
     public GraphSelectionNeighboursImpl(VizEngine engine) {
         this.engine = engine;
@@ -18,7 +22,7 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
 
     @Override
     public boolean isNodeSelected(Node node) {
-        return nodes.contains(node);
+        return nodes.containsElement(node);
     }
 
     @Override
@@ -37,6 +41,16 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
         if (nodes != null) {
             this.nodes.addAll(nodes);
         }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void setSelectedNodes(Node[] nodes, int count) {
+        this.nodes.clear();
+        if (nodes != null) {
+            this.nodes.addAll(nodes, count);
+        }
+        version.incrementAndGet();
     }
 
     @Override
@@ -44,6 +58,7 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
         if (nodes != null) {
             this.nodes.addAll(nodes);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -51,6 +66,7 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
         if (nodes != null) {
             this.nodes.removeAll(nodes);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -61,6 +77,7 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
             this.nodes.clear();
             this.nodes.add(node);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -68,6 +85,7 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
         if (node != null) {
             this.nodes.add(node);
         }
+        version.incrementAndGet();
     }
 
     @Override
@@ -75,11 +93,27 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
         if (node != null) {
             this.nodes.remove(node);
         }
+        version.incrementAndGet();
     }
 
     @Override
     public void clearSelectedNodes() {
         this.nodes.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Replaces the selected nodes by a set built on another thread, with a single version change. The set belongs to this selection afterwards and must not be changed by the caller.
+     *
+     * @param nodes Selected nodes
+     */
+    public void replaceSelectedNodes(ElementBitSet<Node> nodes) {
+        this.nodes = nodes;
+        version.incrementAndGet();
     }
 
+    @Override
+    public int getVersion() {
+        return version.get();
+    }
 }
@@ -0,0 +1,65 @@
+package org.gephi.viz.engine.structure;
+
+import static org.gephi.viz.engine.util.Constants.EDGE_SCALE_MAX;
+import static org.gephi.viz.engine.util.Constants.EDGE_SCALE_MIN;
+import org.gephi.viz.engine.util.NumberUtils;
+
+/**
+ * Half width of the drawn edges in world units, computed from the edge weight the same way as the edge shaders.
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeWidth {
+
+    /**
+     * Edges as segments, without width.
+     */
+    public static final EdgeWidth NONE = new EdgeWidth(0, 1, 0, 0);
+
+    private final float minWeight;
+    private final float weightDifferenceDivisor;
+    private final float minHalfWidth;
+    private final float maxHalfWidth;
+
+    private EdgeWidth(float minWeight, float weightDifferenceDivisor, float minHalfWidth, float maxHalfWidth) {
+        this.minWeight = minWeight;
+        this.weightDifferenceDivisor = weightDifferenceDivisor;
+        this.minHalfWidth = minHalfWidth;
+        this.maxHalfWidth = maxHalfWidth;
+    }
+
+    /**
+     * @param edgeScale Edge scale of the rendering options
+     * @param minWeight Min edge weight
+     * @param maxWeight Max edge weight
+     * @return Widths of the edges as drawn
+     */
+    public static EdgeWidth of(float edgeScale, float minWeight, float maxWeight) {
+        final float weightDifferenceDivisor;
+        if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
+            weightDifferenceDivisor = 1;
+        } else {
+            weightDifferenceDivisor = maxWeight - minWeight;
+        }
+
+        return new EdgeWidth(minWeight, weightDifferenceDivisor, EDGE_SCALE_MIN * edgeScale * 0.5f, EDGE_SCALE_MAX * edgeScale * 0.5f);
+    }
+
+    /**
+     * Half width of an edge. Weights out of the min and max weight, not indexed yet, get the closest width.
+     *
+     * @param weight Edge weight
+     * @return Half width
+     */
+    public float getHalfWidth(float weight) {
+        final float t = Math.max(0, Math.min(1, (weight - minWeight) / weightDifferenceDivisor));
+        return minHalfWidth + (maxHalfWidth - minHalfWidth) * t;
+    }
+
+    /**
+     * @return Half width of the edges with the max weight
+     */
+    public float getMaxHalfWidth() {
+        return maxHalfWidth;
+    }
+}
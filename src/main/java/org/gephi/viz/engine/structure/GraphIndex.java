@@ -9,6 +9,10 @@ import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.api.Rect2D;
 
 /**
+ * Graph queries of the engine.
+ *
+ * <p>
+ * When incremental updates are enabled in {@link GraphIndexImpl}, world updaters only rebuild their data when graphstore reports a structure change or when the view, the selection or the rendering options change. Graphstore does not version node positions, sizes and colors or edge weights and colors, so code that changes them, like layouts, must call {@link #invalidateNodes()} or {@link #invalidate()} afterwards or the changes are not drawn. Skipped rebuilds are counted in {@link org.gephi.viz.engine.status.EngineMetrics#getSkippedDataUpdates()}.</p>
  *
  * @author Eduardo Ramos
  */
@@ -16,6 +20,16 @@ public interface GraphIndex {
     
     Graph getGraph();
 
+    /**
+     * Forces world updaters to rebuild all their data. Call it after changing edge weights or colors, or any node and edge data drawn by the engine. Can be called from any thread.
+     */
+    void invalidate();
+
+    /**
+     * Like {@link #invalidate()}, when only node positions, sizes or colors changed, for example after a layout step. Data that references nodes by index instead of copying them is not rebuilt. Can be called from any thread.
+     */
+    void invalidateNodes();
+
     int getNodeCount();
 
     int getEdgeCount();
@@ -40,8 +54,14 @@ public interface GraphIndex {
 
     NodeIterable getNodesInsideCircle(float x, float y, float radius);
 
+    /**
+     * Edges whose drawn line intersects a rectangle. Lines have the width of the current edge scale and weights, see {@link EdgeWidth}.
+     */
     EdgeIterable getEdgesInsideRectangle(Rect2D rect);
 
+    /**
+     * Edges whose drawn line intersects a circle. Lines have the width of the current edge scale and weights, see {@link EdgeWidth}.
+     */
     EdgeIterable getEdgesInsideCircle(float x, float y, float radius);
 
     public interface ElementsCallback<T> extends Consumer<T> {
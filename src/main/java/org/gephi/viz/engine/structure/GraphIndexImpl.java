@@ -1,5 +1,7 @@
 package org.gephi.viz.engine.structure;
 
+import java.util.Arrays;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 import org.gephi.graph.api.AttributeUtils;
 import org.gephi.graph.api.Column;
@@ -7,13 +9,17 @@ import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphObserver;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.api.Rect2D;
 import org.gephi.graph.impl.GraphStoreConfiguration;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.util.EdgeIterableArrayWrapper;
 import org.gephi.viz.engine.util.EdgeIterableFilteredWrapper;
+import org.gephi.viz.engine.util.NodeIterableArrayWrapper;
 import org.gephi.viz.engine.util.NodeIterableFilteredWrapper;
 import org.joml.Intersectionf;
 
@@ -21,6 +27,8 @@ import org.joml.Intersectionf;
  * <p>
  * TODO: make intersection functions customizable for different shape handling</p>
  * <p>
+ * With incremental updates, area and position queries are answered by the engine {@link SpatialIndex} of the graph snapshot. Otherwise node position changes are not tracked, so they go to the graph spatial context.</p>
+ * <p>
  *
  * @author Eduardo Ramos
  */
@@ -38,6 +46,19 @@ public class GraphIndexImpl implements GraphIndex {
     private float edgesMinWeight = 1;
     private float edgesMaxWeight = 1;
 
+    //Incremental updates:
+    private boolean incrementalUpdates = false;
+    private GraphObserver graphObserver;
+    private int version = 0;
+    private int edgesVersion = 0;
+
+    //Snapshot:
+    private GraphSnapshot snapshot;
+    private int snapshotVersion;
+    private int snapshotEdgesVersion;
+    private SpatialIndex spatialIndex;
+    private int spatialIndexVersion;
+
     private void init() {
         graphModel = engine.getGraphModel();
         graph = graphModel.getGraphVisible();
@@ -55,6 +76,101 @@ public class GraphIndexImpl implements GraphIndex {
         return graph;
     }
 
+    public boolean isIncrementalUpdates() {
+        return incrementalUpdates;
+    }
+
+    /**
+     * When enabled, world updaters only rebuild their data when the graph structure, the selection, the rendering options or the view area change, or after {@link #invalidate()}.
+     *
+     * @param incrementalUpdates Incremental updates
+     */
+    public void setIncrementalUpdates(boolean incrementalUpdates) {
+        this.incrementalUpdates = incrementalUpdates;
+        invalidate();
+    }
+
+    @Override
+    public synchronized void invalidate() {
+        version++;
+        edgesVersion++;
+    }
+
+    @Override
+    public synchronized void invalidateNodes() {
+        version++;
+    }
+
+    /**
+     * Version of the indexed graph, incremented when nodes or edges are added or removed, on {@link #invalidate()} and on {@link #invalidateNodes()}.
+     *
+     * @return Current version
+     */
+    public synchronized int getVersion() {
+        checkGraphChanged();
+        return version;
+    }
+
+    /**
+     * Version of the indexed graph, incremented when nodes or edges are added or removed and on {@link #invalidate()}, but not on {@link #invalidateNodes()}.
+     *
+     * @return Current edges version
+     */
+    public synchronized int getEdgesVersion() {
+        checkGraphChanged();
+        return edgesVersion;
+    }
+
+    /**
+     * Snapshot of the graph geometry in primitive arrays. It is built again when {@link #getEdgesVersion()} changes, node data is copied again when {@link #getVersion()} changes. Without incremental updates node and edge data is copied again on every call, as changes are not tracked.
+     *
+     * @return Current snapshot
+     */
+    public synchronized GraphSnapshot getSnapshot() {
+        final int newVersion = getVersion();
+        final int newEdgesVersion = getEdgesVersion();
+
+        if (snapshot == null || snapshotEdgesVersion != newEdgesVersion) {
+            snapshot = GraphSnapshot.build(graph);
+        } else if (!incrementalUpdates) {
+            snapshot.refreshNodes(graph);
+            snapshot.refreshEdges(graph);
+        } else if (snapshotVersion != newVersion) {
+            snapshot.refreshNodes(graph);
+        }
+
+        snapshotVersion = newVersion;
+        snapshotEdgesVersion = newEdgesVersion;
+        return snapshot;
+    }
+
+    /**
+     * Spatial index of the current {@link #getSnapshot()}, built again when the snapshot changes. Without incremental updates it is built again on every call, as changes are not tracked.
+     *
+     * @return Current spatial index
+     */
+    public synchronized SpatialIndex getSpatialIndex() {
+        final GraphSnapshot currentSnapshot = getSnapshot();
+
+        if (spatialIndex == null || spatialIndex.getSnapshot() != currentSnapshot || spatialIndexVersion != snapshotVersion || !incrementalUpdates) {
+            spatialIndex = SpatialIndex.build(currentSnapshot);
+            spatialIndexVersion = snapshotVersion;
+        }
+
+        return spatialIndex;
+    }
+
+    private void checkGraphChanged() {
+        ensureInitialized();
+
+        if (graphObserver == null) {
+            graphObserver = graphModel.createGraphObserver(graph, false);
+        } else if (graphObserver.hasGraphChanged()) {
+            version++;
+            edgesVersion++;
+        }
+    }
+
     public void indexNodes() {
         //NOOP
     }
@@ -129,15 +245,32 @@ public class GraphIndexImpl implements GraphIndex {
     public NodeIterable getVisibleNodes() {
         ensureInitialized();
 
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final NodesCollector collector = new NodesCollector(index.getSnapshot());
+            index.getNodesInArea(engine.getViewBoundaries(), collector);
+            return collector.toIterable();
+        }
+
         return graph.getSpatialContext().getNodesInArea(engine.getViewBoundaries());
     }
 
     @Override
     public void getVisibleNodes(ElementsCallback<Node> callback) {
+        getNodesInArea(engine.getViewBoundaries(), callback);
+    }
+
+    public void getNodesInArea(Rect2D area, ElementsCallback<Node> callback) {
         ensureInitialized();
 
         callback.start(graph);
-        graph.getSpatialContext().getNodesInArea(engine.getViewBoundaries(), callback);
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final Node[] nodes = index.getSnapshot().getNodes();
+            index.getNodesInArea(area, i -> callback.accept(nodes[i]));
+        } else {
+            graph.getSpatialContext().getNodesInArea(area, callback);
+        }
         callback.end(graph);
     }
 
@@ -145,15 +278,32 @@ public class GraphIndexImpl implements GraphIndex {
     public EdgeIterable getVisibleEdges() {
         ensureInitialized();
 
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final EdgesCollector collector = new EdgesCollector(index.getSnapshot());
+            index.getEdgesInArea(engine.getViewBoundaries(), collector);
+            return collector.toIterable();
+        }
+
         return graph.getSpatialContext().getEdgesInArea(engine.getViewBoundaries());
     }
 
     @Override
     public void getVisibleEdges(ElementsCallback<Edge> callback) {
+        getEdgesInArea(engine.getViewBoundaries(), callback);
+    }
+
+    public void getEdgesInArea(Rect2D area, ElementsCallback<Edge> callback) {
         ensureInitialized();
 
         callback.start(graph);
-        graph.getSpatialContext().getEdgesInArea(engine.getViewBoundaries(), callback);
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final Edge[] edges = index.getSnapshot().getEdges();
+            index.getEdgesInArea(area, i -> callback.accept(edges[i]));
+        } else {
+            graph.getSpatialContext().getEdgesInArea(area, callback);
+        }
         callback.end(graph);
     }
 
@@ -161,6 +311,13 @@ public class GraphIndexImpl implements GraphIndex {
     public NodeIterable getNodesUnderPosition(float x, float y) {
         ensureInitialized();
 
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final NodesCollector collector = new NodesCollector(index.getSnapshot());
+            index.getNodesUnderPosition(x, y, collector);
+            return collector.toIterable();
+        }
+
         return filterNodeIterable(graph.getSpatialContext().getNodesInArea(getCircleRect2D(x, y, 0)), node -> {
             final float size = node.size();
 
@@ -172,8 +329,17 @@ public class GraphIndexImpl implements GraphIndex {
     public NodeIterable getNodesInsideCircle(float centerX, float centerY, float radius) {
         ensureInitialized();
 
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final NodesCollector collector = new NodesCollector(index.getSnapshot());
+            index.getNodesInsideCircle(centerX, centerY, radius, collector);
+            return collector.toIterable();
+        }
+
         return filterNodeIterable(graph.getSpatialContext().getNodesInArea(getCircleRect2D(centerX, centerY, radius)), node -> {
-            return Intersectionf.testCircleCircle(centerX, centerY, radius, node.x(), node.y(), node.size());
+            final float size = node.size();
+
+            return Intersectionf.testCircleCircle(centerX, centerY, radius * radius, node.x(), node.y(), size * size);
         });
     }
 
@@ -181,6 +347,13 @@ public class GraphIndexImpl implements GraphIndex {
     public NodeIterable getNodesInsideRectangle(Rect2D rect) {
         ensureInitialized();
 
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final NodesCollector collector = new NodesCollector(index.getSnapshot());
+            index.getNodesInArea(rect, collector);
+            return collector.toIterable();
+        }
+
         return filterNodeIterable(graph.getSpatialContext().getNodesInArea(rect), node -> {
             final float size = node.size();
 
@@ -191,31 +364,45 @@ public class GraphIndexImpl implements GraphIndex {
     @Override
     public EdgeIterable getEdgesInsideRectangle(Rect2D rect) {
         ensureInitialized();
+        final EdgeWidth edgeWidth = getEdgeWidth();
+
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final EdgesCollector collector = new EdgesCollector(index.getSnapshot());
+            index.getEdgesInArea(rect, edgeWidth, collector);
+            return collector.toIterable();
+        }
 
-        return filterEdgeIterable(graph.getSpatialContext().getEdgesInArea(rect), edge -> {
+        final float maxHalfWidth = edgeWidth.getMaxHalfWidth();
+        final Rect2D area = new Rect2D(rect.minX - maxHalfWidth, rect.minY - maxHalfWidth, rect.maxX + maxHalfWidth, rect.maxY + maxHalfWidth);
+        return filterEdgeIterable(graph.getSpatialContext().getEdgesInArea(area), edge -> {
             final Node source = edge.getSource();
             final Node target = edge.getTarget();
+            final float halfWidth = edgeWidth.getHalfWidth((float) edge.getWeight());
 
-            //TODO: take width into account!
-            return Intersectionf.testAarLine(rect.minX, rect.minY, rect.maxX, rect.maxY, source.x(), source.y(), target.x(), target.y());
+            return SpatialIndex.segmentIntersectsArea(rect.minX - halfWidth, rect.minY - halfWidth, rect.maxX + halfWidth, rect.maxY + halfWidth,
+                    source.x(), source.y(), target.x(), target.y());
         });
     }
 
     @Override
     public EdgeIterable getEdgesInsideCircle(float centerX, float centerY, float radius) {
         ensureInitialized();
+        final EdgeWidth edgeWidth = getEdgeWidth();
+
+        if (incrementalUpdates) {
+            final SpatialIndex index = getSpatialIndex();
+            final EdgesCollector collector = new EdgesCollector(index.getSnapshot());
+            index.getEdgesInsideCircle(centerX, centerY, radius, edgeWidth, collector);
+            return collector.toIterable();
+        }
 
-        return filterEdgeIterable(graph.getSpatialContext().getEdgesInArea(getCircleRect2D(centerX, centerY, radius)), edge -> {
+        return filterEdgeIterable(graph.getSpatialContext().getEdgesInArea(getCircleRect2D(centerX, centerY, radius + edgeWidth.getMaxHalfWidth())), edge -> {
             final Node source = edge.getSource();
             final Node target = edge.getTarget();
+            final float distance = radius + edgeWidth.getHalfWidth((float) edge.getWeight());
 
-            float x0 = source.x();
-            float y0 = source.y();
-            float x1 = target.x();
-            float y1 = target.y();
-
-            //TODO: take width into account!
-            return Intersectionf.testLineCircle(y0 - y1, x1 - x0, (x0 - x1) * y0 + (y1 - y0) * x0, centerX, centerY, radius);
+            return SpatialIndex.distanceToSegmentSquared(centerX, centerY, source.x(), source.y(), target.x(), target.y()) <= distance * distance;
         });
     }
 
@@ -247,7 +434,17 @@ public class GraphIndexImpl implements GraphIndex {
     }
 
     private Rect2D getCircleRect2D(float x, float y, float radius) {
-        return new Rect2D(x - radius, y - radius, x + radius, y - radius);
+        return new Rect2D(x - radius, y - radius, x + radius, y + radius);
+    }
+
+    /**
+     * Width of the edges as drawn with the current rendering options and edge weights.
+     */
+    private EdgeWidth getEdgeWidth() {
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        final float edgeScale = renderingOptions != null ? renderingOptions.getEdgeScale() : 1;
+
+        return EdgeWidth.of(edgeScale, edgesMinWeight, edgesMaxWeight);
     }
 
     private NodeIterable filterNodeIterable(NodeIterable nodesIterable, Predicate<Node> predicate) {
@@ -257,4 +454,50 @@ public class GraphIndexImpl implements GraphIndex {
     private EdgeIterable filterEdgeIterable(EdgeIterable edgesIterable, Predicate<Edge> predicate) {
         return new EdgeIterableFilteredWrapper(edgesIterable, predicate);
     }
+
+    private static final class NodesCollector implements IntConsumer {
+
+        private final Node[] snapshotNodes;
+        private Node[] nodes = new Node[16];
+        private int count = 0;
+
+        NodesCollector(GraphSnapshot snapshot) {
+            this.snapshotNodes = snapshot.getNodes();
+        }
+
+        @Override
+        public void accept(int index) {
+            if (count == nodes.length) {
+                nodes = Arrays.copyOf(nodes, count * 2);
+            }
+            nodes[count++] = snapshotNodes[index];
+        }
+
+        NodeIterable toIterable() {
+            return new NodeIterableArrayWrapper(nodes, count);
+        }
+    }
+
+    private static final class EdgesCollector implements IntConsumer {
+
+        private final Edge[] snapshotEdges;
+        private Edge[] edges = new Edge[16];
+        private int count = 0;
+
+        EdgesCollector(GraphSnapshot snapshot) {
+            this.snapshotEdges = snapshot.getEdges();
+        }
+
+        @Override
+        public void accept(int index) {
+            if (count == edges.length) {
+                edges = Arrays.copyOf(edges, count * 2);
+            }
+            edges[count++] = snapshotEdges[index];
+        }
+
+        EdgeIterable toIterable() {
+            return new EdgeIterableArrayWrapper(edges, count);
+        }
+    }
 }
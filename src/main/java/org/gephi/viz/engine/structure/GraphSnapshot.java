@@ -0,0 +1,288 @@
+package org.gephi.viz.engine.structure;
+
+import java.util.Arrays;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.util.MortonCode;
+
+/**
+ * Copy of the graph geometry in primitive arrays, a structure of arrays that fill loops can read sequentially instead of going through every {@link Node} and {@link Edge} object.
+ *
+ * <p>
+ * Nodes are ordered along a Z-order curve of their positions when the snapshot is built, and edges by source node, so elements close in the world are also close in memory. Node indices are positions in these arrays, use {@link #getNodeIndex(Node)} to find them.</p>
+ *
+ * <p>
+ * A snapshot is built for one graph structure: {@link #refreshNodes(Graph)} and {@link #refreshEdges(Graph)} update node and edge attributes in place, a new snapshot is needed when nodes or edges are added or removed. See {@link GraphIndexImpl#getSnapshot()}.</p>
+ *
+ * <p>
+ * Besides the {@link SpatialIndex}, only the indexed edges pipeline fills its buffers from these arrays. The other pipelines fill from the elements returned by area queries, and with their node positions read once per edge they would not save enough to pay for a snapshot index lookup per element.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GraphSnapshot {
+
+    //Nodes:
+    private final int nodeCount;
+    private final Node[] nodes;
+    private final float[] nodesX;
+    private final float[] nodesY;
+    private final float[] nodesSize;
+    private final int[] nodesColor;
+    private final int[] nodeIndexByStoreId;
+
+    //Edges:
+    private final int edgeCount;
+    private final Edge[] edges;
+    private final int[] edgesSource;
+    private final int[] edgesTarget;
+    private final float[] edgesWeight;
+    private final int[] edgesColor;
+    private final boolean[] edgesDirected;
+    private final int[] edgeIndexByStoreId;
+
+    private GraphSnapshot(Node[] nodes, int nodeCount, Edge[] edges, int edgeCount) {
+        this.nodeCount = nodeCount;
+        this.nodes = nodes;
+        this.nodesX = new float[nodeCount];
+        this.nodesY = new float[nodeCount];
+        this.nodesSize = new float[nodeCount];
+        this.nodesColor = new int[nodeCount];
+
+        this.nodeIndexByStoreId = new int[maxStoreId(nodes, nodeCount) + 1];
+        Arrays.fill(nodeIndexByStoreId, -1);
+        for (int i = 0; i < nodeCount; i++) {
+            nodeIndexByStoreId[nodes[i].getStoreId()] = i;
+        }
+
+        this.edgeCount = edgeCount;
+        this.edges = edges;
+        this.edgesSource = new int[edgeCount];
+        this.edgesTarget = new int[edgeCount];
+        this.edgesWeight = new float[edgeCount];
+        this.edgesColor = new int[edgeCount];
+        this.edgesDirected = new boolean[edgeCount];
+        this.edgeIndexByStoreId = new int[maxStoreId(edges, edgeCount) + 1];
+        Arrays.fill(edgeIndexByStoreId, -1);
+    }
+
+    private static int maxStoreId(Element[] elements, int count) {
+        int maxStoreId = -1;
+        for (int i = 0; i < count; i++) {
+            maxStoreId = Math.max(maxStoreId, elements[i].getStoreId());
+        }
+        return maxStoreId;
+    }
+
+    /**
+     * Builds a snapshot of the nodes and edges of a graph. The graph is read locked while doing it.
+     *
+     * @param graph Graph
+     * @return New snapshot
+     */
+    public static GraphSnapshot build(Graph graph) {
+        graph.readLock();
+        try {
+            final Node[] graphNodes = graph.getNodes().toArray();
+            final Node[] sortedNodes = sortAlongCurve(graphNodes);
+
+            final Edge[] graphEdges = graph.getEdges().toArray();
+
+            final GraphSnapshot snapshot = new GraphSnapshot(sortedNodes, sortedNodes.length, graphEdges, graphEdges.length);
+            snapshot.copyNodes();
+            snapshot.sortEdgesBySource();
+            return snapshot;
+        } finally {
+            graph.readUnlockAll();
+        }
+    }
+
+    /**
+     * Copies again the positions, sizes and colors of the nodes, keeping their order. The graph is read locked while doing it.
+     *
+     * @param graph Graph this snapshot was built from
+     */
+    public void refreshNodes(Graph graph) {
+        graph.readLock();
+        try {
+            copyNodes();
+        } finally {
+            graph.readUnlockAll();
+        }
+    }
+
+    /**
+     * Copies again the weights and colors of the edges, keeping their order. The graph is read locked while doing it.
+     *
+     * @param graph Graph this snapshot was built from
+     */
+    public void refreshEdges(Graph graph) {
+        graph.readLock();
+        try {
+            copyEdges();
+        } finally {
+            graph.readUnlockAll();
+        }
+    }
+
+    private void copyNodes() {
+        for (int i = 0; i < nodeCount; i++) {
+            final Node node = nodes[i];
+            nodesX[i] = node.x();
+            nodesY[i] = node.y();
+            nodesSize[i] = node.size();
+            nodesColor[i] = node.getRGBA();
+        }
+    }
+
+    private void copyEdges() {
+        for (int i = 0; i < edgeCount; i++) {
+            final Edge edge = edges[i];
+            edgesWeight[i] = (float) edge.getWeight();
+            edgesColor[i] = edge.getRGBA();
+        }
+    }
+
+    private void sortEdgesBySource() {
+        final Edge[] graphEdges = edges.clone();
+
+        //Counting sort by source node index:
+        final int[] offsets = new int[nodeCount + 1];
+        for (Edge edge : graphEdges) {
+            offsets[getNodeIndex(edge.getSource()) + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        for (Edge edge : graphEdges) {
+            final int source = getNodeIndex(edge.getSource());
+            final int i = offsets[source]++;
+
+            edges[i] = edge;
+            edgesSource[i] = source;
+            edgesTarget[i] = getNodeIndex(edge.getTarget());
+            edgesWeight[i] = (float) edge.getWeight();
+            edgesColor[i] = edge.getRGBA();
+            edgesDirected[i] = edge.isDirected();
+            edgeIndexByStoreId[edge.getStoreId()] = i;
+        }
+    }
+
+    private static Node[] sortAlongCurve(Node[] graphNodes) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (Node node : graphNodes) {
+            minX = Math.min(minX, node.x());
+            minY = Math.min(minY, node.y());
+            maxX = Math.max(maxX, node.x());
+            maxY = Math.max(maxY, node.y());
+        }
+
+        //Unsigned 32 bits code in the high bits and the original index in the 31 low bits, so sorting keys sorts nodes:
+        final long[] keys = new long[graphNodes.length];
+        for (int i = 0; i < graphNodes.length; i++) {
+            final Node node = graphNodes[i];
+            final int code = MortonCode.encode(node.x(), node.y(), minX, minY, maxX, maxY);
+            keys[i] = (Integer.toUnsignedLong(code) << 31) | i;
+        }
+        Arrays.parallelSort(keys);
+
+        final Node[] sortedNodes = new Node[graphNodes.length];
+        for (int i = 0; i < keys.length; i++) {
+            sortedNodes[i] = graphNodes[(int) (keys[i] & Integer.MAX_VALUE)];
+        }
+        return sortedNodes;
+    }
+
+    /**
+     *
+     * @param node Node
+     * @return Index of the node in this snapshot or -1 if it was not in the graph when built
+     */
+    public int getNodeIndex(Node node) {
+        final int storeId = node.getStoreId();
+        return storeId >= 0 && storeId < nodeIndexByStoreId.length ? nodeIndexByStoreId[storeId] : -1;
+    }
+
+    /**
+     *
+     * @param edge Edge
+     * @return Index of the edge in this snapshot or -1 if it was not in the graph when built
+     */
+    public int getEdgeIndex(Edge edge) {
+        final int storeId = edge.getStoreId();
+        return storeId >= 0 && storeId < edgeIndexByStoreId.length ? edgeIndexByStoreId[storeId] : -1;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public Node[] getNodes() {
+        return nodes;
+    }
+
+    public float[] getNodesX() {
+        return nodesX;
+    }
+
+    public float[] getNodesY() {
+        return nodesY;
+    }
+
+    public float[] getNodesSize() {
+        return nodesSize;
+    }
+
+    /**
+     *
+     * @return Node colors as returned by {@link Node#getRGBA()}
+     */
+    public int[] getNodesColor() {
+        return nodesColor;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public Edge[] getEdges() {
+        return edges;
+    }
+
+    /**
+     *
+     * @return Index of the source node of each edge
+     */
+    public int[] getEdgesSource() {
+        return edgesSource;
+    }
+
+    /**
+     *
+     * @return Index of the target node of each edge
+     */
+    public int[] getEdgesTarget() {
+        return edgesTarget;
+    }
+
+    public float[] getEdgesWeight() {
+        return edgesWeight;
+    }
+
+    /**
+     *
+     * @return Edge colors as returned by {@link Edge#getRGBA()}
+     */
+    public int[] getEdgesColor() {
+        return edgesColor;
+    }
+
+    public boolean[] getEdgesDirected() {
+        return edgesDirected;
+    }
+}
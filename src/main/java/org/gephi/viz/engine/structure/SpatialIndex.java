@@ -0,0 +1,474 @@
+package org.gephi.viz.engine.structure;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import org.gephi.graph.api.Rect2D;
+import org.joml.Intersectionf;
+
+/**
+ * Spatial index of the nodes and edges of a {@link GraphSnapshot}, as packed uniform grids of snapshot indices.
+ *
+ * <p>
+ * Nodes are bucketed by the bounds of their circle and edges by the bounds of their segment, in every cell they overlap, so queries are exact for long edges too. Grids have coarser levels, each with cells twice as large as the previous one: elements are bucketed in the finest level where they overlap at most {@link #MAX_ITEM_CELLS} cells, so big nodes and long edges neither fill many cells nor end up in a list checked by every query. Queries report snapshot indices to an {@link IntConsumer} in snapshot order inside each cell, without allocating for each element.</p>
+ *
+ * <p>
+ * An index is immutable once built, but it reads positions from its snapshot, so it must be built again after node positions change. See {@link GraphIndexImpl#getSpatialIndex()}.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class SpatialIndex {
+
+    private static final int ITEMS_PER_CELL = 8;
+    private static final int MAX_CELLS_PER_AXIS = 4096;
+    private static final int MAX_ITEM_CELLS = 16;
+
+    private final GraphSnapshot snapshot;
+    private final Grid nodesGrid;
+    private final Grid edgesGrid;
+
+    private SpatialIndex(GraphSnapshot snapshot, Grid nodesGrid, Grid edgesGrid) {
+        this.snapshot = snapshot;
+        this.nodesGrid = nodesGrid;
+        this.edgesGrid = edgesGrid;
+    }
+
+    /**
+     * Builds the index of the current positions of a snapshot. Element bounds are computed in parallel.
+     *
+     * @param snapshot Snapshot
+     * @return New index
+     */
+    public static SpatialIndex build(GraphSnapshot snapshot) {
+        final int nodeCount = snapshot.getNodeCount();
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] nodesY = snapshot.getNodesY();
+        final float[] nodesSize = snapshot.getNodesSize();
+
+        final Bounds nodeBounds = new Bounds(nodeCount);
+        IntStream.range(0, nodeCount).parallel().forEach(i -> {
+            final float size = nodesSize[i];
+            nodeBounds.set(i, nodesX[i] - size, nodesY[i] - size, nodesX[i] + size, nodesY[i] + size);
+        });
+
+        final int edgeCount = snapshot.getEdgeCount();
+        final int[] edgesSource = snapshot.getEdgesSource();
+        final int[] edgesTarget = snapshot.getEdgesTarget();
+
+        final Bounds edgeBounds = new Bounds(edgeCount);
+        IntStream.range(0, edgeCount).parallel().forEach(i -> {
+            final int source = edgesSource[i];
+            final int target = edgesTarget[i];
+            edgeBounds.set(i,
+                    Math.min(nodesX[source], nodesX[target]),
+                    Math.min(nodesY[source], nodesY[target]),
+                    Math.max(nodesX[source], nodesX[target]),
+                    Math.max(nodesY[source], nodesY[target])
+            );
+        });
+
+        return new SpatialIndex(snapshot, new Grid(nodeBounds), new Grid(edgeBounds));
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Nodes whose circle intersects an area.
+     *
+     * @param area Area
+     * @param consumer Receives snapshot node indices
+     */
+    public void getNodesInArea(Rect2D area, IntConsumer consumer) {
+        getNodesInArea(area.minX, area.minY, area.maxX, area.maxY, consumer);
+    }
+
+    public void getNodesInArea(float minX, float minY, float maxX, float maxY, IntConsumer consumer) {
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] nodesY = snapshot.getNodesY();
+        final float[] nodesSize = snapshot.getNodesSize();
+
+        nodesGrid.query(minX, minY, maxX, maxY, i -> {
+            final float size = nodesSize[i];
+            return Intersectionf.testAarCircle(minX, minY, maxX, maxY, nodesX[i], nodesY[i], size * size);
+        }, consumer);
+    }
+
+    /**
+     * Nodes that contain a position.
+     *
+     * @param x X
+     * @param y Y
+     * @param consumer Receives snapshot node indices
+     */
+    public void getNodesUnderPosition(float x, float y, IntConsumer consumer) {
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] nodesY = snapshot.getNodesY();
+        final float[] nodesSize = snapshot.getNodesSize();
+
+        nodesGrid.query(x, y, x, y, i -> {
+            final float size = nodesSize[i];
+            return Intersectionf.testPointCircle(x, y, nodesX[i], nodesY[i], size * size);
+        }, consumer);
+    }
+
+    /**
+     * Nodes whose circle intersects a circle.
+     *
+     * @param centerX Center x
+     * @param centerY Center y
+     * @param radius Radius
+     * @param consumer Receives snapshot node indices
+     */
+    public void getNodesInsideCircle(float centerX, float centerY, float radius, IntConsumer consumer) {
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] nodesY = snapshot.getNodesY();
+        final float[] nodesSize = snapshot.getNodesSize();
+
+        nodesGrid.query(centerX - radius, centerY - radius, centerX + radius, centerY + radius, i -> {
+            final float size = nodesSize[i];
+            return Intersectionf.testCircleCircle(centerX, centerY, radius * radius, nodesX[i], nodesY[i], size * size);
+        }, consumer);
+    }
+
+    /**
+     * Edges whose segment intersects an area. Edge width is not taken into account.
+     *
+     * @param area Area
+     * @param consumer Receives snapshot edge indices
+     */
+    public void getEdgesInArea(Rect2D area, IntConsumer consumer) {
+        getEdgesInArea(area.minX, area.minY, area.maxX, area.maxY, EdgeWidth.NONE, consumer);
+    }
+
+    public void getEdgesInArea(float minX, float minY, float maxX, float maxY, IntConsumer consumer) {
+        getEdgesInArea(minX, minY, maxX, maxY, EdgeWidth.NONE, consumer);
+    }
+
+    /**
+     * Edges whose drawn line intersects an area. Lines are tested against the area grown by their half width, with square corners.
+     *
+     * @param area Area
+     * @param width Width of the drawn edges
+     * @param consumer Receives snapshot edge indices
+     */
+    public void getEdgesInArea(Rect2D area, EdgeWidth width, IntConsumer consumer) {
+        getEdgesInArea(area.minX, area.minY, area.maxX, area.maxY, width, consumer);
+    }
+
+    public void getEdgesInArea(float minX, float minY, float maxX, float maxY, EdgeWidth width, IntConsumer consumer) {
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] nodesY = snapshot.getNodesY();
+        final int[] edgesSource = snapshot.getEdgesSource();
+        final int[] edgesTarget = snapshot.getEdgesTarget();
+        final float[] edgesWeight = snapshot.getEdgesWeight();
+        final float maxHalfWidth = width.getMaxHalfWidth();
+
+        edgesGrid.query(minX - maxHalfWidth, minY - maxHalfWidth, maxX + maxHalfWidth, maxY + maxHalfWidth, i -> {
+            final int source = edgesSource[i];
+            final int target = edgesTarget[i];
+            final float halfWidth = width.getHalfWidth(edgesWeight[i]);
+
+            return segmentIntersectsArea(minX - halfWidth, minY - halfWidth, maxX + halfWidth, maxY + halfWidth,
+                    nodesX[source], nodesY[source], nodesX[target], nodesY[target]);
+        }, consumer);
+    }
+
+    /**
+     * Edges whose segment intersects a circle. Edge width is not taken into account.
+     *
+     * @param centerX Center x
+     * @param centerY Center y
+     * @param radius Radius
+     * @param consumer Receives snapshot edge indices
+     */
+    public void getEdgesInsideCircle(float centerX, float centerY, float radius, IntConsumer consumer) {
+        getEdgesInsideCircle(centerX, centerY, radius, EdgeWidth.NONE, consumer);
+    }
+
+    /**
+     * Edges whose drawn line intersects a circle.
+     *
+     * @param centerX Center x
+     * @param centerY Center y
+     * @param radius Radius
+     * @param width Width of the drawn edges
+     * @param consumer Receives snapshot edge indices
+     */
+    public void getEdgesInsideCircle(float centerX, float centerY, float radius, EdgeWidth width, IntConsumer consumer) {
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] nodesY = snapshot.getNodesY();
+        final int[] edgesSource = snapshot.getEdgesSource();
+        final int[] edgesTarget = snapshot.getEdgesTarget();
+        final float[] edgesWeight = snapshot.getEdgesWeight();
+        final float queryRadius = radius + width.getMaxHalfWidth();
+
+        edgesGrid.query(centerX - queryRadius, centerY - queryRadius, centerX + queryRadius, centerY + queryRadius, i -> {
+            final int source = edgesSource[i];
+            final int target = edgesTarget[i];
+            final float distance = radius + width.getHalfWidth(edgesWeight[i]);
+
+            return distanceToSegmentSquared(centerX, centerY, nodesX[source], nodesY[source], nodesX[target], nodesY[target]) <= distance * distance;
+        }, consumer);
+    }
+
+    static boolean segmentIntersectsArea(float minX, float minY, float maxX, float maxY, float x0, float y0, float x1, float y1) {
+        if (Math.min(x0, x1) > maxX || Math.max(x0, x1) < minX || Math.min(y0, y1) > maxY || Math.max(y0, y1) < minY) {
+            return false;
+        }
+
+        //Bounds overlap, so the segment intersects when its line does:
+        return Intersectionf.testAarLine(minX, minY, maxX, maxY, x0, y0, x1, y1);
+    }
+
+    static float distanceToSegmentSquared(float x, float y, float x0, float y0, float x1, float y1) {
+        final float dx = x1 - x0;
+        final float dy = y1 - y0;
+        final float lengthSquared = dx * dx + dy * dy;
+
+        float t = 0;
+        if (lengthSquared > 0) {
+            t = Math.max(0, Math.min(1, ((x - x0) * dx + (y - y0) * dy) / lengthSquared));
+        }
+
+        final float px = x0 + t * dx - x;
+        final float py = y0 + t * dy - y;
+        return px * px + py * py;
+    }
+
+    private interface ItemTest {
+
+        boolean test(int item);
+    }
+
+    private static final class Bounds {
+
+        private final int count;
+        private final float[] minX;
+        private final float[] minY;
+        private final float[] maxX;
+        private final float[] maxY;
+
+        Bounds(int count) {
+            this.count = count;
+            this.minX = new float[count];
+            this.minY = new float[count];
+            this.maxX = new float[count];
+            this.maxY = new float[count];
+        }
+
+        void set(int i, float minX, float minY, float maxX, float maxY) {
+            this.minX[i] = minX;
+            this.minY[i] = minY;
+            this.maxX[i] = maxX;
+            this.maxY[i] = maxY;
+        }
+    }
+
+    private static final class Grid {
+
+        private final float minX;
+        private final float minY;
+        private final float maxX;
+        private final float maxY;
+        private final int columns;
+        private final int rows;
+        private final float columnsPerUnit;
+        private final float rowsPerUnit;
+
+        //Levels of cells, each with cells twice as large as the previous one, until a single cell:
+        private final int levels;
+        private final int[] levelColumns;
+        private final int[] levelRows;
+        private final int[] levelFirstCell;
+        private final int[] levelItemCounts;
+
+        //Items of each cell of all levels, cell i goes from cellStarts[i] to cellStarts[i + 1]:
+        private final int[] cellStarts;
+        private final int[] cellItems;
+
+        //First cell of the bounds of each item in the finest level, as column | row << 16:
+        private final int[] itemFirstCells;
+        private final Bounds bounds;
+
+        Grid(Bounds bounds) {
+            final int count = bounds.count;
+
+            float gridMinX = Float.MAX_VALUE;
+            float gridMinY = Float.MAX_VALUE;
+            float gridMaxX = -Float.MAX_VALUE;
+            float gridMaxY = -Float.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                gridMinX = Math.min(gridMinX, bounds.minX[i]);
+                gridMinY = Math.min(gridMinY, bounds.minY[i]);
+                gridMaxX = Math.max(gridMaxX, bounds.maxX[i]);
+                gridMaxY = Math.max(gridMaxY, bounds.maxY[i]);
+            }
+
+            if (count == 0) {
+                gridMinX = gridMinY = gridMaxX = gridMaxY = 0;
+            }
+
+            final float width = Math.max(gridMaxX - gridMinX, Float.MIN_NORMAL);
+            final float height = Math.max(gridMaxY - gridMinY, Float.MIN_NORMAL);
+
+            //Around ITEMS_PER_CELL items per cell, with cells as square as possible:
+            final double cells = Math.max(1, count / ITEMS_PER_CELL);
+            final double aspect = width / height;
+
+            this.minX = gridMinX;
+            this.minY = gridMinY;
+            this.maxX = gridMaxX;
+            this.maxY = gridMaxY;
+            this.columns = (int) Math.max(1, Math.min(MAX_CELLS_PER_AXIS, Math.round(Math.sqrt(cells * aspect))));
+            this.rows = (int) Math.max(1, Math.min(MAX_CELLS_PER_AXIS, Math.round(Math.sqrt(cells / aspect))));
+            this.columnsPerUnit = columns / width;
+            this.rowsPerUnit = rows / height;
+
+            int levelsCount = 1;
+            while ((columns - 1) >> (levelsCount - 1) > 0 || (rows - 1) >> (levelsCount - 1) > 0) {
+                levelsCount++;
+            }
+            this.levels = levelsCount;
+            this.levelColumns = new int[levels];
+            this.levelRows = new int[levels];
+            this.levelFirstCell = new int[levels + 1];
+            this.levelItemCounts = new int[levels];
+            for (int level = 0; level < levels; level++) {
+                levelColumns[level] = ((columns - 1) >> level) + 1;
+                levelRows[level] = ((rows - 1) >> level) + 1;
+                levelFirstCell[level + 1] = levelFirstCell[level] + levelColumns[level] * levelRows[level];
+            }
+
+            //Cell ranges of each item in the finest level, and the finest level where they cover few enough cells, in parallel:
+            final int[] firstCells = new int[count];
+            final int[] lastCells = new int[count];
+            final byte[] itemLevels = new byte[count];
+            IntStream.range(0, count).parallel().forEach(i -> {
+                final int column0 = column(bounds.minX[i]);
+                final int row0 = row(bounds.minY[i]);
+                final int column1 = column(bounds.maxX[i]);
+                final int row1 = row(bounds.maxY[i]);
+
+                int level = 0;
+                while (((column1 >> level) - (column0 >> level) + 1) * ((row1 >> level) - (row0 >> level) + 1) > MAX_ITEM_CELLS) {
+                    level++;
+                }
+
+                firstCells[i] = column0 | row0 << 16;
+                lastCells[i] = column1 | row1 << 16;
+                itemLevels[i] = (byte) level;
+            });
+
+            //Count items per cell:
+            final int[] starts = new int[levelFirstCell[levels] + 1];
+            for (int i = 0; i < count; i++) {
+                final int level = itemLevels[i];
+                levelItemCounts[level]++;
+
+                final int first = firstCells[i];
+                final int last = lastCells[i];
+                final int column0 = (first & 0xFFFF) >> level;
+                final int row0 = (first >>> 16) >> level;
+                final int column1 = (last & 0xFFFF) >> level;
+                final int row1 = (last >>> 16) >> level;
+
+                for (int row = row0; row <= row1; row++) {
+                    for (int column = column0; column <= column1; column++) {
+                        starts[cell(level, column, row) + 1]++;
+                    }
+                }
+            }
+
+            for (int i = 1; i < starts.length; i++) {
+                starts[i] += starts[i - 1];
+            }
+
+            //Fill cells in item order:
+            final int[] items = new int[starts[starts.length - 1]];
+            final int[] offsets = new int[starts.length - 1];
+            System.arraycopy(starts, 0, offsets, 0, offsets.length);
+
+            for (int i = 0; i < count; i++) {
+                final int level = itemLevels[i];
+                final int first = firstCells[i];
+                final int last = lastCells[i];
+                final int column0 = (first & 0xFFFF) >> level;
+                final int row0 = (first >>> 16) >> level;
+                final int column1 = (last & 0xFFFF) >> level;
+                final int row1 = (last >>> 16) >> level;
+
+                for (int row = row0; row <= row1; row++) {
+                    for (int column = column0; column <= column1; column++) {
+                        items[offsets[cell(level, column, row)]++] = i;
+                    }
+                }
+            }
+
+            this.cellStarts = starts;
+            this.cellItems = items;
+            this.itemFirstCells = firstCells;
+            this.bounds = bounds;
+        }
+
+        private int cell(int level, int column, int row) {
+            return levelFirstCell[level] + row * levelColumns[level] + column;
+        }
+
+        private int column(float x) {
+            return Math.max(0, Math.min(columns - 1, (int) ((x - minX) * columnsPerUnit)));
+        }
+
+        private int row(float y) {
+            return Math.max(0, Math.min(rows - 1, (int) ((y - minY) * rowsPerUnit)));
+        }
+
+        void query(float queryMinX, float queryMinY, float queryMaxX, float queryMaxY, ItemTest test, IntConsumer consumer) {
+            if (queryMaxX < minX || queryMaxY < minY || queryMinX > maxX || queryMinY > maxY) {
+                return;
+            }
+
+            final int queryColumn0 = column(queryMinX);
+            final int queryRow0 = row(queryMinY);
+            final int queryColumn1 = column(queryMaxX);
+            final int queryRow1 = row(queryMaxY);
+
+            for (int level = 0; level < levels; level++) {
+                if (levelItemCounts[level] == 0) {
+                    continue;
+                }
+
+                final int column0 = queryColumn0 >> level;
+                final int row0 = queryRow0 >> level;
+                final int column1 = queryColumn1 >> level;
+                final int row1 = queryRow1 >> level;
+
+                for (int row = row0; row <= row1; row++) {
+                    for (int column = column0; column <= column1; column++) {
+                        final int cell = cell(level, column, row);
+                        final int end = cellStarts[cell + 1];
+
+                        for (int j = cellStarts[cell]; j < end; j++) {
+                            final int item = cellItems[j];
+
+                            //Items in several cells are only reported from the first cell they share with the query:
+                            final int first = itemFirstCells[item];
+                            if (Math.max((first & 0xFFFF) >> level, column0) != column || Math.max((first >>> 16) >> level, row0) != row) {
+                                continue;
+                            }
+
+                            if (overlaps(item, queryMinX, queryMinY, queryMaxX, queryMaxY) && test.test(item)) {
+                                consumer.accept(item);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean overlaps(int item, float queryMinX, float queryMinY, float queryMaxX, float queryMaxY) {
+            return bounds.minX[item] <= queryMaxX && bounds.maxX[item] >= queryMinX
+                    && bounds.minY[item] <= queryMaxY && bounds.maxY[item] >= queryMinY;
+        }
+    }
+}
@@ -17,6 +17,8 @@ public class Constants {
     public static final String ATTRIB_NAME_TARGET_COLOR = "targetColor";
     public static final String ATTRIB_NAME_SOURCE_SIZE = "sourceSize";
     public static final String ATTRIB_NAME_TARGET_SIZE = "targetSize";
+    public static final String ATTRIB_NAME_FLAGS = "flags";
+    public static final String ATTRIB_NAME_ENDPOINTS = "endpoints";
 
     public static final int SHADER_VERT_LOCATION = 0;
     public static final int SHADER_POSITION_LOCATION = 1;
@@ -30,6 +32,8 @@ public class Constants {
     public static final int SHADER_SOURCE_SIZE_LOCATION = 8;
     public static final int SHADER_TARGET_SIZE_LOCATION = 9;
     public static final int SHADER_POSITION_TARGET_LOCATION = 10;
+    public static final int SHADER_FLAGS_LOCATION = 11;
+    public static final int SHADER_ENDPOINTS_LOCATION = 12;
 
     public static final String UNIFORM_NAME_MODEL_VIEW_PROJECTION = "mvp";
     public static final String UNIFORM_NAME_EDGE_SCALE = "edgeScale";
@@ -41,10 +45,24 @@ public class Constants {
     
     public static final String UNIFORM_NAME_BACKGROUND_COLOR = "backgroundColor";
     public static final String UNIFORM_NAME_COLOR_LIGHTEN_FACTOR = "colorLightenFactor";
+    public static final String UNIFORM_NAME_BORDER_DARKEN_FACTOR = "borderDarkenFactor";
+    public static final String UNIFORM_NAME_INSIDE_CIRCLE_SIZE = "insideCircleSize";
+    public static final String UNIFORM_NAME_PIXEL_WORLD_SIZE = "pixelWorldSize";
+    public static final String UNIFORM_NAME_MIN_LENGTH = "minLength";
+    public static final String UNIFORM_NAME_FIRST_ID = "firstId";
+    public static final String UNIFORM_NAME_INSTANCES_PER_NODE = "instancesPerNode";
+    public static final String UNIFORM_NAME_EDGES_TEXTURE = "edgesTexture";
+    public static final String UNIFORM_NAME_EDGES_TEXTURE_LAYOUT = "edgesTextureLayout";
+    public static final String UNIFORM_NAME_FIRST_EDGE = "firstEdge";
+    public static final String UNIFORM_NAME_SELECTION_STATE = "selectionState";
+    public static final String UNIFORM_NAME_EDGE_BOTH_SELECTION_COLOR = "edgeBothSelectionColor";
+    public static final String UNIFORM_NAME_EDGE_OUT_SELECTION_COLOR = "edgeOutSelectionColor";
+    public static final String UNIFORM_NAME_EDGE_IN_SELECTION_COLOR = "edgeInSelectionColor";
 
     //Rendering order:
     public static final int RENDERING_ORDER_NODES = 100;
     public static final int RENDERING_ORDER_EDGES = 50;
+    public static final int RENDERING_ORDER_PICKING = 1000;//After everything visible
 
     public static final float NODER_BORDER_DARKEN_FACTOR = 0.498f;//Configurable?
 
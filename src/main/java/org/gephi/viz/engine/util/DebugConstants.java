@@ -8,6 +8,10 @@ public class DebugConstants {
     public static final boolean DEBUG_DISABLE_INDIRECT_DRAWING = false;
     public static final boolean DEBUG_DISABLE_INSTANCED_DRAWING = false;
     public static final boolean DEBUG_DISABLE_VERTEX_ARRAY_DRAWING = false;
+    public static final boolean DEBUG_DISABLE_VERTEX_TEXTURE_DRAWING = false;
     
     public static final boolean DEBUG_DISABLE_VAOS = false;
+    public static final boolean DEBUG_DISABLE_PERSISTENT_BUFFERS = false;
+    public static final boolean DEBUG_DISABLE_GPU_CULLING = false;
+    public static final boolean DEBUG_DISABLE_GPU_PICKING = false;
 }
@@ -0,0 +1,43 @@
+package org.gephi.viz.engine.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeIterable;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeIterableArrayWrapper implements EdgeIterable {
+
+    private final Edge[] edges;
+    private final int count;
+
+    public EdgeIterableArrayWrapper(Edge[] edges, int count) {
+        this.edges = edges;
+        this.count = count;
+    }
+
+    @Override
+    public Iterator<Edge> iterator() {
+        return Arrays.asList(edges).subList(0, count).iterator();
+    }
+
+    @Override
+    public Edge[] toArray() {
+        return Arrays.copyOf(edges, count);
+    }
+
+    @Override
+    public Collection<Edge> toCollection() {
+        return new ArrayList<>(Arrays.asList(edges).subList(0, count));
+    }
+
+    @Override
+    public void doBreak() {
+        //NOOP
+    }
+}
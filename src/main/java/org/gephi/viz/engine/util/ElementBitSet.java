@@ -0,0 +1,325 @@
+package org.gephi.viz.engine.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.gephi.graph.api.Element;
+
+/**
+ * Set of graph elements indexed by their graphstore store id. Membership is a bit test, without hashing or allocation for elements not in the set.
+ *
+ * <p>
+ * The elements themselves are kept in a small open addressing table by store id, sized by the set and not by the biggest store id. It is used to iterate them, since the graphstore API can't resolve a store id, and to avoid false positives when graphstore reuses the store id of a removed element.</p>
+ *
+ * <p>
+ * Writes are not thread safe, like the {@link java.util.HashSet} it replaces. {@link #containsElement(Element)} can be called from other threads while the set is written: it may see the set before or after a concurrent change, but never fails.</p>
+ *
+ * @author Eduardo Ramos
+ * @param <T> Element type
+ */
+public class ElementBitSet<T extends Element> extends AbstractSet<T> {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int DEFAULT_TABLE_CAPACITY = 16;
+    //Tables bigger than this are replaced by a small one when the set is cleared:
+    private static final int MAX_KEPT_TABLE_CAPACITY = 1024;
+    private static final int EMPTY_KEY = -1;
+
+    //Replaced as a whole when growing, so other threads never see arrays that don't go together:
+    private volatile Storage storage = new Storage(new long[DEFAULT_CAPACITY >>> 6], DEFAULT_TABLE_CAPACITY);
+    private int size = 0;
+    private int maxStoreId = -1;
+
+    public boolean containsElement(T element) {
+        final Storage current = storage;
+        final int storeId = element.getStoreId();
+        if (storeId < 0 || (storeId >>> 6) >= current.bits.length) {
+            return false;
+        }
+
+        return (current.bits[storeId >>> 6] & (1L << storeId)) != 0 && current.get(storeId) == element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        if (!(o instanceof Element)) {
+            return false;
+        }
+
+        return containsElement((T) o);
+    }
+
+    @Override
+    public boolean add(T element) {
+        final int storeId = element.getStoreId();
+        if (storeId < 0) {
+            //Not in a graph store
+            return false;
+        }
+
+        ensureBitsCapacity(storeId);
+
+        final int word = storeId >>> 6;
+        final long mask = 1L << storeId;
+        if ((storage.bits[word] & mask) != 0) {
+            if (storage.get(storeId) == element) {
+                return false;
+            }
+
+            //Store id reused by a new element
+            storage.put(storeId, element);
+            return true;
+        }
+
+        ensureTableCapacity(size + 1);
+
+        //Element first, so readers seeing the bit also see the element:
+        final Storage current = storage;
+        current.put(storeId, element);
+        current.bits[word] |= mask;
+        size++;
+        if (storeId > maxStoreId) {
+            maxStoreId = storeId;
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the first <code>count</code> elements of the array.
+     *
+     * @param array Elements
+     * @param count Elements count to add
+     * @return True if the set changed
+     */
+    public boolean addAll(T[] array, int count) {
+        ensureTableCapacity(size + count);
+
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            changed |= add(array[i]);
+        }
+
+        return changed;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        if (!(o instanceof Element) || !containsElement((T) o)) {
+            return false;
+        }
+
+        final Storage current = storage;
+        final int storeId = ((Element) o).getStoreId();
+        current.bits[storeId >>> 6] &= ~(1L << storeId);
+        current.remove(storeId);
+        size--;
+
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+
+        final Storage current = storage;
+        if (current.tableStoreIds.length > MAX_KEPT_TABLE_CAPACITY) {
+            //Don't keep the memory of a big selection:
+            final Storage cleared = new Storage(current.bits, DEFAULT_TABLE_CAPACITY);
+            storage = cleared;
+            Arrays.fill(cleared.bits, 0, (maxStoreId >>> 6) + 1, 0L);
+        } else {
+            Arrays.fill(current.bits, 0, (maxStoreId >>> 6) + 1, 0L);
+            Arrays.fill(current.tableStoreIds, EMPTY_KEY);
+            Arrays.fill(current.tableElements, null);
+        }
+
+        size = 0;
+        maxStoreId = -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new ElementBitSetIterator();
+    }
+
+    private void ensureBitsCapacity(int storeId) {
+        final Storage current = storage;
+        if ((storeId >>> 6) < current.bits.length) {
+            return;
+        }
+
+        final int newCapacity = nextPowerOf2(storeId + 1);
+        storage = new Storage(Arrays.copyOf(current.bits, (newCapacity + 63) >>> 6), current.tableStoreIds, current.tableElements);
+    }
+
+    private void ensureTableCapacity(int elementsCount) {
+        final Storage current = storage;
+        //Load factor of at most 0.5:
+        if (elementsCount * 2 <= current.tableStoreIds.length) {
+            return;
+        }
+
+        final Storage grown = new Storage(current.bits, nextPowerOf2(elementsCount * 2));
+        for (int i = 0; i < current.tableStoreIds.length; i++) {
+            if (current.tableStoreIds[i] != EMPTY_KEY) {
+                grown.put(current.tableStoreIds[i], current.tableElements[i]);
+            }
+        }
+        storage = grown;
+    }
+
+    private static int nextPowerOf2(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    private int nextSetBit(int fromIndex) {
+        if (fromIndex > maxStoreId) {
+            return -1;
+        }
+
+        final long[] bits = storage.bits;
+        int word = fromIndex >>> 6;
+        long bitsWord = bits[word] & (-1L << fromIndex);
+
+        final int lastWord = maxStoreId >>> 6;
+        while (true) {
+            if (bitsWord != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bitsWord);
+            }
+            if (++word > lastWord) {
+                return -1;
+            }
+            bitsWord = bits[word];
+        }
+    }
+
+    /**
+     * Membership bits by store id and elements table, with linear probing.
+     */
+    private static class Storage {
+
+        private final long[] bits;
+        private final int[] tableStoreIds;
+        private final Element[] tableElements;
+
+        private Storage(long[] bits, int tableCapacity) {
+            this.bits = bits;
+            this.tableStoreIds = new int[tableCapacity];
+            this.tableElements = new Element[tableCapacity];
+            Arrays.fill(tableStoreIds, EMPTY_KEY);
+        }
+
+        private Storage(long[] bits, int[] tableStoreIds, Element[] tableElements) {
+            this.bits = bits;
+            this.tableStoreIds = tableStoreIds;
+            this.tableElements = tableElements;
+        }
+
+        private int slot(int storeId) {
+            //Spread consecutive store ids:
+            final int hash = storeId * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & (tableStoreIds.length - 1);
+        }
+
+        private Element get(int storeId) {
+            final int mask = tableStoreIds.length - 1;
+            //Bounded, readers on other threads may see the table in the middle of a change:
+            for (int i = slot(storeId), probes = 0; probes < tableStoreIds.length; i = (i + 1) & mask, probes++) {
+                final int key = tableStoreIds[i];
+                if (key == storeId) {
+                    return tableElements[i];
+                }
+                if (key == EMPTY_KEY) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private void put(int storeId, Element element) {
+            final int mask = tableStoreIds.length - 1;
+            int i = slot(storeId);
+            while (tableStoreIds[i] != EMPTY_KEY && tableStoreIds[i] != storeId) {
+                i = (i + 1) & mask;
+            }
+            tableElements[i] = element;
+            tableStoreIds[i] = storeId;
+        }
+
+        private void remove(int storeId) {
+            final int mask = tableStoreIds.length - 1;
+            int i = slot(storeId);
+            while (tableStoreIds[i] != storeId) {
+                if (tableStoreIds[i] == EMPTY_KEY) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+
+            //Shift back the following entries of the probe sequence, so lookups don't stop at the hole:
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                final int key = tableStoreIds[j];
+                if (key == EMPTY_KEY) {
+                    break;
+                }
+
+                final int home = slot(key);
+                final boolean inPlace = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (!inPlace) {
+                    tableStoreIds[i] = key;
+                    tableElements[i] = tableElements[j];
+                    i = j;
+                }
+            }
+
+            tableStoreIds[i] = EMPTY_KEY;
+            tableElements[i] = null;
+        }
+    }
+
+    private class ElementBitSetIterator implements Iterator<T> {
+
+        private int next = nextSetBit(0);
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+
+            last = next;
+            next = nextSetBit(next + 1);
+            return (T) storage.get(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            ElementBitSet.this.remove(storage.get(last));
+            last = -1;
+        }
+    }
+}
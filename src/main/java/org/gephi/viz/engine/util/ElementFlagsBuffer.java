@@ -0,0 +1,311 @@
+package org.gephi.viz.engine.util;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import org.gephi.viz.engine.util.gl.GLBufferMutable;
+
+/**
+ * One byte of flags per element, packed in integers, handed from a writer thread to a reader thread that keeps a copy in a GL buffer.
+ *
+ * <p>
+ * The flags are split in pages of {@link #PAGE_WORDS} integers, and every page remembers the version of the last frame that changed it. The reader only uploads the pages changed since its previous upload, so changing the flags of a few elements uploads a few kilobytes whatever the elements count.</p>
+ *
+ * <p>
+ * The writer calls {@link #begin(int)}, sets the flags of every element with {@link #set(int, int)} and then calls {@link #publish(int, int)}. The reader calls {@link #acquire()} and then {@link #upload(GL, GLBufferMutable)}.</p>
+ *
+ * <p>
+ * Flags are published separately from the data of the elements they apply to, so each frame carries the version of the elements order it was written for. The reader should only use the flags with data of the same elements version.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class ElementFlagsBuffer {
+
+    public static final int FLAGS_PER_WORD = 4;
+    public static final int PAGE_WORDS = 1024;
+
+    private static final int SLOTS = TripleBufferExchange.SLOTS;
+
+    private final TripleBufferExchange<FlagsFrame> frames = new TripleBufferExchange<>();
+
+    //Writer side:
+    private int[] words = new int[0];
+    private int[] pageVersions = new int[0];
+    private int count = 0;
+    private int version = 0;
+    private final ManagedDirectBuffer[] slotWords = new ManagedDirectBuffer[SLOTS];
+    private final int[] slotVersions = new int[SLOTS];
+
+    //Reader side:
+    private int uploadedVersion = 0;
+
+    /**
+     * Starts the flags of a new frame, keeping the flags of the previous one if the elements count did not change. Only for the writer thread.
+     *
+     * @param count Elements count
+     */
+    public void begin(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count should be positive");
+        }
+
+        version++;
+
+        if (count != this.count) {
+            final int wordsCount = wordsCount(count);
+            final int pagesCount = pagesCount(wordsCount);
+            if (words.length < wordsCount) {
+                words = new int[wordsCount];
+                pageVersions = new int[pagesCount];
+            } else {
+                Arrays.fill(words, 0, wordsCount, 0);
+            }
+
+            //Everything changes with the count:
+            Arrays.fill(pageVersions, 0, pagesCount, version);
+            this.count = count;
+        }
+    }
+
+    /**
+     * Only for the writer thread, between {@link #begin(int)} and {@link #publish(int, int)}.
+     *
+     * @param index Element index
+     * @param flags Flags, only the lowest byte is kept
+     */
+    public void set(int index, int flags) {
+        final int word = index / FLAGS_PER_WORD;
+        final int shift = (index % FLAGS_PER_WORD) * Byte.SIZE;
+        final int value = (words[word] & ~(0xFF << shift)) | ((flags & 0xFF) << shift);
+
+        if (value != words[word]) {
+            words[word] = value;
+            pageVersions[word / PAGE_WORDS] = version;
+        }
+    }
+
+    /**
+     * Only for the writer thread.
+     *
+     * @param index Element index
+     * @return Flags of the element in the current frame
+     */
+    public int get(int index) {
+        return (words[index / FLAGS_PER_WORD] >>> ((index % FLAGS_PER_WORD) * Byte.SIZE)) & 0xFF;
+    }
+
+    /**
+     * Like {@link #publish(int, int)}, for elements that are always in the same order.
+     *
+     * @param state Value that applies to all the elements of the frame, like global selection bits
+     * @return The published frame
+     */
+    public FlagsFrame publish(int state) {
+        return publish(state, 0);
+    }
+
+    /**
+     * Publishes the flags set since {@link #begin(int)}. Only the pages changed since the write slot was last published are copied to it. Only for the writer thread.
+     *
+     * @param state Value that applies to all the elements of the frame, like global selection bits
+     * @param elementsVersion Version of the elements order the flags were set for
+     * @return The published frame
+     */
+    public FlagsFrame publish(int state, int elementsVersion) {
+        final int slot = frames.getWriteSlot();
+        final int wordsCount = wordsCount(count);
+        final int pagesCount = pagesCount(wordsCount);
+
+        if (slotWords[slot] == null) {
+            slotWords[slot] = new ManagedDirectBuffer(GL2ES2.GL_INT, Math.max(wordsCount, PAGE_WORDS));
+        } else {
+            slotWords[slot].ensureCapacity(wordsCount);
+        }
+
+        final IntBuffer data = slotWords[slot].intBuffer();
+        final int slotVersion = slotVersions[slot];
+        for (int page = 0; page < pagesCount; page++) {
+            if (pageVersions[page] > slotVersion) {
+                final int firstWord = page * PAGE_WORDS;
+                data.position(firstWord);
+                data.put(words, firstWord, Math.min(PAGE_WORDS, wordsCount - firstWord));
+            }
+        }
+        data.rewind();
+        slotVersions[slot] = version;
+
+        return frames.publish(new FlagsFrame(slot, version, count, state, elementsVersion, Arrays.copyOf(pageVersions, pagesCount)));
+    }
+
+    /**
+     * Takes the latest published frame if it was not acquired yet. Only for the reader thread.
+     *
+     * @return True if a new frame was acquired
+     */
+    public boolean acquire() {
+        return frames.acquire();
+    }
+
+    /**
+     * Only for the reader thread.
+     *
+     * @return Last acquired frame or null if no frame was acquired yet
+     */
+    public FlagsFrame getReadFrame() {
+        return frames.getReadFrame();
+    }
+
+    /**
+     * Only for the reader thread.
+     *
+     * @return Flags of the last acquired frame, packed in integers
+     */
+    public IntBuffer getReadWords() {
+        final FlagsFrame frame = frames.getReadFrame();
+        return frame != null ? slotWords[frame.getSlot()].intBuffer() : null;
+    }
+
+    /**
+     * Only for the reader thread.
+     *
+     * @param fromPage First page to look at
+     * @return First page of the last acquired frame, from the given one, that changed since the previous upload, or -1 if none
+     */
+    public int nextChangedPage(int fromPage) {
+        final FlagsFrame frame = frames.getReadFrame();
+        if (frame == null) {
+            return -1;
+        }
+
+        final int[] versions = frame.pageVersions;
+        for (int page = fromPage; page < versions.length; page++) {
+            if (versions[page] > uploadedVersion) {
+                return page;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Uploads to a bound buffer the pages of the last acquired frame changed since the previous upload, with one call per run of consecutive changed pages. Everything is uploaded again if the buffer has to grow. Only for the reader thread.
+     *
+     * @param gl GL
+     * @param buffer Bound buffer, only used for these flags
+     * @return Uploaded bytes
+     */
+    public long upload(GL gl, GLBufferMutable buffer) {
+        final FlagsFrame frame = frames.getReadFrame();
+        if (frame == null || frame.getVersion() == uploadedVersion) {
+            return 0;
+        }
+
+        final int wordsCount = frame.getWordsCount();
+        final long neededBytes = (long) wordsCount * Integer.BYTES;
+        if (buffer.size() < neededBytes) {
+            buffer.ensureCapacity(gl, neededBytes);
+            uploadedVersion = 0;
+        }
+
+        final IntBuffer data = slotWords[frame.getSlot()].intBuffer();
+
+        long uploadedBytes = 0;
+        int page = nextChangedPage(0);
+        while (page >= 0) {
+            int endPage = page + 1;
+            while (endPage < frame.pageVersions.length && frame.pageVersions[endPage] > uploadedVersion) {
+                endPage++;
+            }
+
+            final int firstWord = page * PAGE_WORDS;
+            final int endWord = Math.min(endPage * PAGE_WORDS, wordsCount);
+            final long bytes = (long) (endWord - firstWord) * Integer.BYTES;
+
+            data.position(firstWord);
+            buffer.update(gl, data, (long) firstWord * Integer.BYTES, bytes);
+            uploadedBytes += bytes;
+
+            page = nextChangedPage(endPage);
+        }
+        data.rewind();
+
+        uploadedVersion = frame.getVersion();
+        return uploadedBytes;
+    }
+
+    /**
+     * Forgets all frames and frees the buffers. Only call it when neither the writer nor the reader are using this buffer.
+     */
+    public void reset() {
+        frames.reset();
+        words = new int[0];
+        pageVersions = new int[0];
+        count = 0;
+        version = 0;
+        uploadedVersion = 0;
+
+        for (int i = 0; i < SLOTS; i++) {
+            if (slotWords[i] != null) {
+                slotWords[i].destroy();
+                slotWords[i] = null;
+            }
+            slotVersions[i] = 0;
+        }
+    }
+
+    private static int wordsCount(int count) {
+        return (count + FLAGS_PER_WORD - 1) / FLAGS_PER_WORD;
+    }
+
+    private static int pagesCount(int wordsCount) {
+        return (wordsCount + PAGE_WORDS - 1) / PAGE_WORDS;
+    }
+
+    /**
+     * Flags written to a slot.
+     */
+    public static class FlagsFrame implements TripleBufferExchange.Frame {
+
+        private final int slot;
+        private final int version;
+        private final int count;
+        private final int state;
+        private final int elementsVersion;
+        private final int[] pageVersions;
+
+        private FlagsFrame(int slot, int version, int count, int state, int elementsVersion, int[] pageVersions) {
+            this.slot = slot;
+            this.version = version;
+            this.count = count;
+            this.state = state;
+            this.elementsVersion = elementsVersion;
+            this.pageVersions = pageVersions;
+        }
+
+        @Override
+        public int getSlot() {
+            return slot;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getState() {
+            return state;
+        }
+
+        public int getElementsVersion() {
+            return elementsVersion;
+        }
+
+        public int getWordsCount() {
+            return wordsCount(count);
+        }
+    }
+}
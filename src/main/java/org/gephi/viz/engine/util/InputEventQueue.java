@@ -0,0 +1,151 @@
+package org.gephi.viz.engine.util;
+
+import com.jogamp.newt.event.MouseEvent;
+import com.jogamp.newt.event.NEWTEvent;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free queue of input events, offered from any number of event threads and drained once per frame by the GL thread.
+ *
+ * <p>
+ * Draining coalesces runs of consecutive events where only the latest one matters: mouse moves, drags with the same modifiers, and wheel moves with the same modifiers, whose rotation is accumulated. Drained events are kept in a reused array, so draining does not allocate unless wheel moves are merged.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class InputEventQueue {
+
+    //Producers append at the head, the consumer reads from the tail, which is always an already consumed node:
+    private final AtomicReference<QueueNode> head;
+    private QueueNode tail;
+
+    //Consumer side:
+    private NEWTEvent[] drained = new NEWTEvent[64];
+    private int drainedCount = 0;
+
+    public InputEventQueue() {
+        final QueueNode stub = new QueueNode(null);
+        head = new AtomicReference<>(stub);
+        tail = stub;
+    }
+
+    /**
+     * Adds an event to the queue. Can be called from any thread.
+     *
+     * @param event Event
+     */
+    public void offer(NEWTEvent event) {
+        if (event == null) {
+            throw new IllegalArgumentException("event can't be null");
+        }
+
+        final QueueNode node = new QueueNode(event);
+        final QueueNode previous = head.getAndSet(node);
+        //Until this is set the consumer stops at previous, node is seen in the next drain:
+        previous.next = node;
+    }
+
+    /**
+     * Takes the events offered so far, coalescing consecutive moves, drags and wheel moves. Then they are available with {@link #getDrainedEvent(int)} until the next call. Only for the consumer thread.
+     *
+     * @return Number of drained events
+     */
+    public int drain() {
+        Arrays.fill(drained, 0, drainedCount, null);
+        drainedCount = 0;
+
+        QueueNode next = tail.next;
+        while (next != null) {
+            final NEWTEvent event = next.event;
+            next.event = null;
+            tail = next;
+
+            append(event);
+
+            next = tail.next;
+        }
+
+        return drainedCount;
+    }
+
+    /**
+     * Only for the consumer thread.
+     *
+     * @param index Index, lower than the count returned by {@link #drain()}
+     * @return Drained event
+     */
+    public NEWTEvent getDrainedEvent(int index) {
+        if (index < 0 || index >= drainedCount) {
+            throw new IllegalArgumentException("index should be >= 0 and < " + drainedCount);
+        }
+        return drained[index];
+    }
+
+    /**
+     * Only for the consumer thread.
+     *
+     * @return True if no event has been offered since the last drain
+     */
+    public boolean isEmpty() {
+        return tail.next == null;
+    }
+
+    private void append(NEWTEvent event) {
+        if (drainedCount > 0 && event instanceof MouseEvent && drained[drainedCount - 1] instanceof MouseEvent) {
+            final MouseEvent last = (MouseEvent) drained[drainedCount - 1];
+            final MouseEvent mouseEvent = (MouseEvent) event;
+
+            if (last.getEventType() == mouseEvent.getEventType() && last.getModifiers() == mouseEvent.getModifiers()) {
+                switch (mouseEvent.getEventType()) {
+                    case MouseEvent.EVENT_MOUSE_MOVED:
+                    case MouseEvent.EVENT_MOUSE_DRAGGED:
+                        //Only the latest position matters:
+                        drained[drainedCount - 1] = mouseEvent;
+                        return;
+                    case MouseEvent.EVENT_MOUSE_WHEEL_MOVED:
+                        drained[drainedCount - 1] = mergeWheelMoves(last, mouseEvent);
+                        return;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        if (drainedCount == drained.length) {
+            drained = Arrays.copyOf(drained, drained.length * 2);
+        }
+        drained[drainedCount++] = event;
+    }
+
+    /**
+     * Wheel move at the position of the latest one, with the rotation of both.
+     */
+    private static MouseEvent mergeWheelMoves(MouseEvent previous, MouseEvent latest) {
+        final float[] previousRotation = previous.getRotation();
+        final float[] latestRotation = latest.getRotation();
+        final float scale = latest.getRotationScale();
+
+        //Rotations are expressed in the scale of the latest event:
+        final float previousFactor = scale != 0 ? previous.getRotationScale() / scale : 1;
+        final float[] rotation = new float[3];
+        for (int i = 0; i < rotation.length; i++) {
+            rotation[i] = previousRotation[i] * previousFactor + latestRotation[i];
+        }
+
+        return new MouseEvent(
+                MouseEvent.EVENT_MOUSE_WHEEL_MOVED, latest.getSource(), latest.getWhen(), latest.getModifiers(),
+                latest.getX(), latest.getY(), latest.getClickCount(), latest.getButton(),
+                rotation, scale
+        );
+    }
+
+    private static class QueueNode {
+
+        private NEWTEvent event;
+        private volatile QueueNode next;
+
+        private QueueNode(NEWTEvent event) {
+            this.event = event;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.jogamp.opengl.util.GLBuffers;
 import java.nio.Buffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 
 /**
  *
@@ -33,7 +34,16 @@ public class ManagedDirectBuffer {
         return (IntBuffer) buffer.rewind();
     }
 
-    public void ensureCapacity(int elements) {
+    public ShortBuffer shortBuffer() {
+        return (ShortBuffer) buffer.rewind();
+    }
+
+    /**
+     *
+     * @param elements Needed elements capacity
+     * @return True if the buffer had to grow
+     */
+    public boolean ensureCapacity(int elements) {
         if (elementsCapacity < elements) {
             int newElementsCapacity = GLBuffers.getNextPowerOf2(elements);
 
@@ -46,7 +56,10 @@ public class ManagedDirectBuffer {
 
             this.buffer = newBuffer;
             this.elementsCapacity = newElementsCapacity;
+            return true;
         }
+
+        return false;
     }
 
     public int getElementsCapacity() {
@@ -0,0 +1,51 @@
+package org.gephi.viz.engine.util;
+
+/**
+ * Z-order (Morton) curve codes, which keep elements close in 2D space close in memory when sorted by code.
+ *
+ * @author Eduardo Ramos
+ */
+public class MortonCode {
+
+    public static final int BITS_PER_AXIS = 16;
+    private static final int MAX_CELL = (1 << BITS_PER_AXIS) - 1;
+
+    /**
+     * Interleaves the bits of both cell coordinates, x in the even bits and y in the odd ones.
+     *
+     * @param x Cell x, only the lower {@link #BITS_PER_AXIS} bits are used
+     * @param y Cell y, only the lower {@link #BITS_PER_AXIS} bits are used
+     * @return Code
+     */
+    public static int encode(int x, int y) {
+        return spreadBits(x) | (spreadBits(y) << 1);
+    }
+
+    /**
+     * Code of a position inside the given bounds, divided in 2^{@link #BITS_PER_AXIS} cells per axis. Positions outside the bounds are clamped.
+     *
+     * @return Code
+     */
+    public static int encode(float x, float y, float minX, float minY, float maxX, float maxY) {
+        return encode(cell(x, minX, maxX), cell(y, minY, maxY));
+    }
+
+    private static int cell(float value, float min, float max) {
+        final float range = max - min;
+        if (!(range > 0)) {
+            return 0;
+        }
+
+        final int cell = (int) ((value - min) / range * MAX_CELL);
+        return Math.max(0, Math.min(MAX_CELL, cell));
+    }
+
+    private static int spreadBits(int value) {
+        value &= MAX_CELL;
+        value = (value | (value << 8)) & 0x00FF00FF;
+        value = (value | (value << 4)) & 0x0F0F0F0F;
+        value = (value | (value << 2)) & 0x33333333;
+        value = (value | (value << 1)) & 0x55555555;
+        return value;
+    }
+}
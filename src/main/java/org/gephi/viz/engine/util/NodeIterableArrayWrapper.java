@@ -0,0 +1,43 @@
+package org.gephi.viz.engine.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NodeIterableArrayWrapper implements NodeIterable {
+
+    private final Node[] nodes;
+    private final int count;
+
+    public NodeIterableArrayWrapper(Node[] nodes, int count) {
+        this.nodes = nodes;
+        this.count = count;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return Arrays.asList(nodes).subList(0, count).iterator();
+    }
+
+    @Override
+    public Node[] toArray() {
+        return Arrays.copyOf(nodes, count);
+    }
+
+    @Override
+    public Collection<Node> toCollection() {
+        return new ArrayList<>(Arrays.asList(nodes).subList(0, count));
+    }
+
+    @Override
+    public void doBreak() {
+        //NOOP
+    }
+}
@@ -0,0 +1,92 @@
+package org.gephi.viz.engine.util;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last {@link #WINDOW_SIZE} durations of an operation and gives rolling percentiles over them.
+ *
+ * <p>
+ * Recording and reading percentiles do not allocate: samples are kept in a ring and sorted into a preallocated array, small enough for {@link Arrays#sort(long[], int, int)} to work in place.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class TimingRecorder {
+
+    public static final int WINDOW_SIZE = 256;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+    private final long[] sortedSamples = new long[WINDOW_SIZE];
+    private int samplesCount = 0;
+    private int nextSample = 0;
+    private long lastNanos = 0;
+    private long totalCount = 0;
+
+    public synchronized void record(long nanos) {
+        samples[nextSample] = nanos;
+        nextSample = (nextSample + 1) % WINDOW_SIZE;
+        if (samplesCount < WINDOW_SIZE) {
+            samplesCount++;
+        }
+
+        lastNanos = nanos;
+        totalCount++;
+    }
+
+    /**
+     * Nearest rank percentile of the samples in the window.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public synchronized long percentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile should be between 0 and 100");
+        }
+        if (samplesCount == 0) {
+            return 0;
+        }
+
+        System.arraycopy(samples, 0, sortedSamples, 0, samplesCount);
+        Arrays.sort(sortedSamples, 0, samplesCount);
+
+        final int rank = (int) Math.ceil(percentile / 100 * samplesCount);
+        return sortedSamples[Math.max(rank - 1, 0)];
+    }
+
+    public long getP50Nanos() {
+        return percentileNanos(50);
+    }
+
+    public long getP95Nanos() {
+        return percentileNanos(95);
+    }
+
+    public long getP99Nanos() {
+        return percentileNanos(99);
+    }
+
+    public synchronized long getLastNanos() {
+        return lastNanos;
+    }
+
+    /**
+     *
+     * @return Samples recorded since creation or last reset, including the ones out of the window
+     */
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    public synchronized void reset() {
+        samplesCount = 0;
+        nextSample = 0;
+        lastNanos = 0;
+        totalCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("p50=%.3fms p95=%.3fms p99=%.3fms",
+                getP50Nanos() / 1e6, getP95Nanos() / 1e6, getP99Nanos() / 1e6);
+    }
+}
@@ -0,0 +1,148 @@
+package org.gephi.viz.engine.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free handoff of frames from one writer thread to one reader thread, over 3 buffer slots.
+ *
+ * <p>
+ * The writer fills the slot of {@link #getWriteSlot()} and then calls {@link #publish(Frame)} with an immutable description of it. The reader calls {@link #acquire()} to take the latest published frame, which stays its own until the next acquire: the writer never gets the slot of the acquired frame nor the slot of the published frame that is waiting to be acquired. Frames published while the reader does not acquire are replaced by newer ones.</p>
+ *
+ * <p>
+ * Publishing is an atomic swap of the write and ready slots and acquiring an atomic swap of the ready and read slots, so everything written to a slot and its frame before publishing is visible to the reader after acquiring it.</p>
+ *
+ * @author Eduardo Ramos
+ * @param <F> Frame type
+ */
+public class TripleBufferExchange<F extends TripleBufferExchange.Frame> {
+
+    public static final int SLOTS = 3;
+
+    /**
+     * Immutable description of the content of a slot.
+     */
+    public interface Frame {
+
+        /**
+         *
+         * @return Slot described by this frame
+         */
+        int getSlot();
+    }
+
+    //State: ready slot in the lowest 2 bits, fresh bit and generation of the ready frame in the rest:
+    private static final long SLOT_MASK = 0b11;
+    private static final long FRESH_BIT = 0b100;
+    private static final int GENERATION_SHIFT = 3;
+
+    private final AtomicLong state = new AtomicLong();
+    private final Object[] frames = new Object[SLOTS];
+
+    //Writer side:
+    private int writeSlot;
+    private long writeGeneration;
+
+    //Reader side:
+    private int readSlot;
+    private long readGeneration;
+    private F readFrame;
+
+    public TripleBufferExchange() {
+        reset();
+    }
+
+    /**
+     * Only for the writer thread.
+     *
+     * @return Slot that the writer can fill
+     */
+    public int getWriteSlot() {
+        return writeSlot;
+    }
+
+    /**
+     * Publishes the frame of the write slot, which becomes the frame the reader will acquire next. Only for the writer thread.
+     *
+     * @param frame Frame of the write slot
+     * @return The published frame
+     */
+    public F publish(F frame) {
+        if (frame.getSlot() != writeSlot) {
+            throw new IllegalArgumentException("Frame of slot " + frame.getSlot() + " published instead of write slot " + writeSlot);
+        }
+
+        frames[writeSlot] = frame;
+        writeGeneration++;
+
+        final long previous = state.getAndSet((writeGeneration << GENERATION_SHIFT) | FRESH_BIT | writeSlot);
+        writeSlot = (int) (previous & SLOT_MASK);
+
+        return frame;
+    }
+
+    /**
+     * Takes the latest published frame if it was not acquired yet. Only for the reader thread.
+     *
+     * @return True if a new frame was acquired, false if the read frame did not change
+     */
+    @SuppressWarnings("unchecked")
+    public boolean acquire() {
+        long current = state.get();
+        while ((current & FRESH_BIT) != 0) {
+            //The current read slot becomes the ready one, not fresh:
+            if (state.compareAndSet(current, (current & ~(SLOT_MASK | FRESH_BIT)) | readSlot)) {
+                readSlot = (int) (current & SLOT_MASK);
+                readGeneration = current >>> GENERATION_SHIFT;
+                readFrame = (F) frames[readSlot];
+                return true;
+            }
+
+            current = state.get();
+        }
+
+        return false;
+    }
+
+    /**
+     * Only for the reader thread.
+     *
+     * @return Last acquired frame or null if no frame was acquired yet
+     */
+    public F getReadFrame() {
+        return readFrame;
+    }
+
+    /**
+     * Only for the reader thread.
+     *
+     * @return Generation of the last acquired frame, counting published frames from 1, or 0 if no frame was acquired yet
+     */
+    public long getReadGeneration() {
+        return readGeneration;
+    }
+
+    /**
+     * Slot that the writer will fill next, that is neither acquired nor ready to be acquired. Only meaningful for the reader when no write is in progress.
+     *
+     * @return Slot
+     */
+    public int getIdleSlot() {
+        final int readySlot = (int) (state.get() & SLOT_MASK);
+        return SLOTS - readSlot - readySlot;
+    }
+
+    /**
+     * Forgets all frames. Only call it when neither the writer nor the reader are using this exchange.
+     */
+    public void reset() {
+        writeSlot = 0;
+        writeGeneration = 0;
+        state.set(1);
+        readSlot = 2;
+        readGeneration = 0;
+        readFrame = null;
+        for (int i = 0; i < SLOTS; i++) {
+            frames[i] = null;
+        }
+    }
+}
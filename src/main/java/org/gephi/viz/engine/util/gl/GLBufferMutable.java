@@ -3,6 +3,7 @@ package org.gephi.viz.engine.util.gl;
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2ES2;
 import com.jogamp.opengl.GL3ES3;
+import com.jogamp.opengl.GL4;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
@@ -21,6 +22,7 @@ public class GLBufferMutable implements GLBuffer {
     public static final int GL_BUFFER_TYPE_ARRAY = GL.GL_ARRAY_BUFFER;
     public static final int GL_BUFFER_TYPE_ELEMENT_INDICES = GL.GL_ELEMENT_ARRAY_BUFFER;
     public static final int GL_BUFFER_TYPE_DRAW_INDIRECT = GL3ES3.GL_DRAW_INDIRECT_BUFFER;
+    public static final int GL_BUFFER_TYPE_SHADER_STORAGE = GL4.GL_SHADER_STORAGE_BUFFER;
     public static final int GL_BUFFER_USAGE_STATIC_DRAW = GL.GL_STATIC_DRAW;
     public static final int GL_BUFFER_USAGE_STREAM_DRAW = GL2ES2.GL_STREAM_DRAW;
     public static final int GL_BUFFER_USAGE_DYNAMIC_DRAW = GL.GL_DYNAMIC_DRAW;
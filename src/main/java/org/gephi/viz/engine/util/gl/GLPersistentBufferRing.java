@@ -0,0 +1,197 @@
+package org.gephi.viz.engine.util.gl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL4;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Persistent mapped and coherent buffer split in regions, usually one per world update buffer index.
+ *
+ * <p>
+ * The CPU writes into a region through {@link #floatRegion(int)} or {@link #intRegion(int)} directly, from any thread, while the GPU reads from another region. The GL thread must call {@link #fenceRegion(GL4, int)} when a region stops being used for drawing and {@link #waitRegion(GL4, int)} before a region is written again.</p>
+ *
+ * <p>
+ * Needs GL 4.4 or ARB_buffer_storage.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLPersistentBufferRing {
+
+    public static final int STORAGE_FLAGS = GL.GL_MAP_WRITE_BIT | GL4.GL_MAP_PERSISTENT_BIT | GL4.GL_MAP_COHERENT_BIT;
+    public static final int MAP_FLAGS = GL.GL_MAP_WRITE_BIT | GL4.GL_MAP_PERSISTENT_BIT | GL4.GL_MAP_COHERENT_BIT;
+
+    //Mapped buffers are addressed with a ByteBuffer:
+    public static final long MAX_SIZE_BYTES = Integer.MAX_VALUE;
+
+    private static final long FENCE_WAIT_TIMEOUT_NANOS = 1000000;
+
+    private final int type;
+    private final int regionsCount;
+    private final long[] fences;
+    private final FloatBuffer[] floatRegions;
+    private final IntBuffer[] intRegions;
+
+    private GLBufferImmutable buffer;
+    private long regionSizeBytes = -1;
+
+    public GLPersistentBufferRing(int type, int regionsCount) {
+        if (regionsCount < 2) {
+            throw new IllegalArgumentException("regionsCount should be at least 2");
+        }
+
+        this.type = type;
+        this.regionsCount = regionsCount;
+        this.fences = new long[regionsCount];
+        this.floatRegions = new FloatBuffer[regionsCount];
+        this.intRegions = new IntBuffer[regionsCount];
+    }
+
+    public void init(GL4 gl, long regionSizeBytes) {
+        if (isInitialized()) {
+            throw new IllegalStateException("Already initialized, use resize instead");
+        }
+
+        final long sizeBytes = regionSizeBytes * regionsCount;
+        if (!canHoldRegionSize(regionSizeBytes)) {
+            throw new IllegalArgumentException("Persistent buffer ring too big: " + sizeBytes + " bytes");
+        }
+
+        final int[] bufferName = new int[1];
+        gl.glGenBuffers(1, bufferName, 0);
+
+        buffer = new GLBufferImmutable(bufferName[0], type);
+        buffer.bind(gl);
+        buffer.init(gl, sizeBytes, STORAGE_FLAGS);
+        final ByteBuffer mappedBuffer = gl.glMapBufferRange(type, 0, sizeBytes, MAP_FLAGS);
+        buffer.unbind(gl);
+
+        if (mappedBuffer == null) {
+            throw new IllegalStateException("Could not map persistent buffer of " + sizeBytes + " bytes");
+        }
+
+        for (int i = 0; i < regionsCount; i++) {
+            final ByteBuffer region = mappedBuffer.duplicate();
+            region.limit((int) ((i + 1) * regionSizeBytes));
+            region.position((int) (i * regionSizeBytes));
+
+            final ByteBuffer regionSlice = region.slice().order(ByteOrder.nativeOrder());
+            floatRegions[i] = regionSlice.asFloatBuffer();
+            intRegions[i] = regionSlice.asIntBuffer();
+        }
+
+        this.regionSizeBytes = regionSizeBytes;
+    }
+
+    public void resize(GL4 gl, long regionSizeBytes) {
+        System.out.println("Growing persistent GL buffer ring from " + this.regionSizeBytes + " to " + regionSizeBytes + " bytes per region");
+        destroy(gl);
+        init(gl, regionSizeBytes);
+    }
+
+    public boolean hasRegionCapacity(long bytes) {
+        return regionSizeBytes >= bytes;
+    }
+
+    /**
+     * Checks if the ring can be initialized or resized to the given region size. Bigger data should be uploaded to a mutable buffer instead.
+     *
+     * @param regionSizeBytes Region size
+     * @return True if all the regions fit in {@link #MAX_SIZE_BYTES}
+     */
+    public boolean canHoldRegionSize(long regionSizeBytes) {
+        return regionSizeBytes * regionsCount <= MAX_SIZE_BYTES;
+    }
+
+    public FloatBuffer floatRegion(int region) {
+        return (FloatBuffer) floatRegions[region].rewind();
+    }
+
+    public IntBuffer intRegion(int region) {
+        return (IntBuffer) intRegions[region].rewind();
+    }
+
+    /**
+     * Marks the point after which the GPU does not read the region anymore. Call it from the GL thread after the last draw command that uses the region.
+     *
+     * @param gl GL
+     * @param region Region index
+     */
+    public void fenceRegion(GL4 gl, int region) {
+        deleteFence(gl, region);
+        fences[region] = gl.glFenceSync(GL4.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    /**
+     * Blocks until the GPU is done with the region, if it was fenced. Call it from the GL thread before the region is written again.
+     *
+     * @param gl GL
+     * @param region Region index
+     */
+    public void waitRegion(GL4 gl, int region) {
+        final long fence = fences[region];
+        if (fence == 0) {
+            return;
+        }
+
+        int result;
+        do {
+            result = gl.glClientWaitSync(fence, GL4.GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_WAIT_TIMEOUT_NANOS);
+        } while (result == GL4.GL_TIMEOUT_EXPIRED);
+
+        if (result == GL4.GL_WAIT_FAILED) {
+            System.out.println("Waiting for persistent buffer region " + region + " failed");
+        }
+
+        deleteFence(gl, region);
+    }
+
+    private void deleteFence(GL4 gl, int region) {
+        if (fences[region] != 0) {
+            gl.glDeleteSync(fences[region]);
+            fences[region] = 0;
+        }
+    }
+
+    public void destroy(GL4 gl) {
+        if (!isInitialized()) {
+            throw new IllegalStateException("You should initialize the buffer first!");
+        }
+
+        for (int i = 0; i < regionsCount; i++) {
+            deleteFence(gl, i);
+            floatRegions[i] = null;
+            intRegions[i] = null;
+        }
+
+        buffer.bind(gl);
+        gl.glUnmapBuffer(type);
+        buffer.unbind(gl);
+        buffer.destroy(gl);
+
+        buffer = null;
+        regionSizeBytes = -1;
+    }
+
+    public boolean isInitialized() {
+        return regionSizeBytes != -1;
+    }
+
+    public GLBuffer getBuffer() {
+        return buffer;
+    }
+
+    public long getRegionSizeBytes() {
+        return regionSizeBytes;
+    }
+
+    public int getRegionsCount() {
+        return regionsCount;
+    }
+
+    public int getType() {
+        return type;
+    }
+}
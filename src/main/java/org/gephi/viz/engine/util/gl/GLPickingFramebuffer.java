@@ -0,0 +1,307 @@
+package org.gephi.viz.engine.util.gl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL3;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Offscreen framebuffer with a single unsigned integer color attachment, where elements are drawn with their ids for picking.
+ *
+ * <p>
+ * Small regions around a position are read back asynchronously into a ring of pixel buffer objects: {@link #readRegion(GL3, int, int)} only queues the copy and {@link #pollRegion(GL3, int[])} returns it some frames later, when the GPU is done, without stalling the pipeline.</p>
+ *
+ * <p>
+ * Needs GL 3.0.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLPickingFramebuffer {
+
+    public static final int NO_REGION = -1;
+
+    private final int regionRadius;
+    private final int regionSize;
+    private final int slotsCount;
+
+    private int framebufferName = 0;
+    private int renderbufferName = 0;
+    private int width = 0;
+    private int height = 0;
+
+    //Pixel buffers ring, read in order:
+    private final int[] pixelBufferNames;
+    private final long[] fences;
+    private final int[] regionWidths;
+    private final int[] regionHeights;
+    private final int[] regionCenterX;
+    private final int[] regionCenterY;
+    private int firstPendingSlot = 0;
+    private int pendingCount = 0;
+
+    private final int[] clearValue = new int[]{0, 0, 0, 0};
+
+    /**
+     *
+     * @param regionRadius Pixels read around the position in each direction
+     * @param slotsCount Max reads in flight
+     */
+    public GLPickingFramebuffer(int regionRadius, int slotsCount) {
+        if (regionRadius < 0) {
+            throw new IllegalArgumentException("regionRadius should be positive");
+        }
+        if (slotsCount < 1) {
+            throw new IllegalArgumentException("slotsCount should be at least 1");
+        }
+
+        this.regionRadius = regionRadius;
+        this.regionSize = regionRadius * 2 + 1;
+        this.slotsCount = slotsCount;
+        this.pixelBufferNames = new int[slotsCount];
+        this.fences = new long[slotsCount];
+        this.regionWidths = new int[slotsCount];
+        this.regionHeights = new int[slotsCount];
+        this.regionCenterX = new int[slotsCount];
+        this.regionCenterY = new int[slotsCount];
+    }
+
+    public void init(GL3 gl, int width, int height) {
+        if (isInitialized()) {
+            throw new IllegalStateException("Already initialized");
+        }
+
+        final int[] names = new int[1];
+        gl.glGenFramebuffers(1, names, 0);
+        framebufferName = names[0];
+        gl.glGenRenderbuffers(1, names, 0);
+        renderbufferName = names[0];
+
+        allocateRenderbuffer(gl, Math.max(width, 1), Math.max(height, 1));
+
+        gl.glBindFramebuffer(GL.GL_FRAMEBUFFER, framebufferName);
+        gl.glFramebufferRenderbuffer(GL.GL_FRAMEBUFFER, GL.GL_COLOR_ATTACHMENT0, GL.GL_RENDERBUFFER, renderbufferName);
+        final int status = gl.glCheckFramebufferStatus(GL.GL_FRAMEBUFFER);
+        bindDefaultFramebuffer(gl);
+
+        if (status != GL.GL_FRAMEBUFFER_COMPLETE) {
+            destroy(gl);
+            throw new IllegalStateException("Picking framebuffer is not complete: 0x" + Integer.toHexString(status));
+        }
+
+        gl.glGenBuffers(slotsCount, pixelBufferNames, 0);
+        for (int i = 0; i < slotsCount; i++) {
+            gl.glBindBuffer(GL3.GL_PIXEL_PACK_BUFFER, pixelBufferNames[i]);
+            gl.glBufferData(GL3.GL_PIXEL_PACK_BUFFER, (long) regionSize * regionSize * Integer.BYTES, null, GL3.GL_STREAM_READ);
+        }
+        gl.glBindBuffer(GL3.GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    private void allocateRenderbuffer(GL3 gl, int width, int height) {
+        gl.glBindRenderbuffer(GL.GL_RENDERBUFFER, renderbufferName);
+        gl.glRenderbufferStorage(GL.GL_RENDERBUFFER, GL3.GL_R32UI, width, height);
+        gl.glBindRenderbuffer(GL.GL_RENDERBUFFER, 0);
+
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Resizes the attachment if the viewport size changed. Pending reads are not affected.
+     *
+     * @param gl GL
+     * @param width Viewport width
+     * @param height Viewport height
+     */
+    public void ensureSize(GL3 gl, int width, int height) {
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        if (width != this.width || height != this.height) {
+            allocateRenderbuffer(gl, width, height);
+        }
+    }
+
+    /**
+     * Binds the framebuffer for drawing and clears it to id 0, meaning no element.
+     *
+     * @param gl GL
+     */
+    public void bind(GL3 gl) {
+        gl.glBindFramebuffer(GL.GL_FRAMEBUFFER, framebufferName);
+        gl.glViewport(0, 0, width, height);
+        gl.glClearBufferuiv(GL3.GL_COLOR, 0, clearValue, 0);
+    }
+
+    /**
+     * Binds back the default framebuffer of the drawable.
+     *
+     * @param gl GL
+     */
+    public void unbind(GL3 gl) {
+        bindDefaultFramebuffer(gl);
+    }
+
+    private void bindDefaultFramebuffer(GL3 gl) {
+        gl.glBindFramebuffer(GL3.GL_DRAW_FRAMEBUFFER, gl.getDefaultDrawFramebuffer());
+        gl.glBindFramebuffer(GL3.GL_READ_FRAMEBUFFER, gl.getDefaultReadFramebuffer());
+    }
+
+    public boolean hasFreeSlot() {
+        return pendingCount < slotsCount;
+    }
+
+    public boolean hasPendingRegions() {
+        return pendingCount > 0;
+    }
+
+    /**
+     * Queues the copy of the region around a position, clamped to the framebuffer. Call it after drawing, while the framebuffer is bound.
+     *
+     * @param gl GL
+     * @param x Position X, from the left
+     * @param y Position Y, from the top, as in window coordinates
+     * @return Slot of the read or {@link #NO_REGION} if the position is outside of the framebuffer
+     */
+    public int readRegion(GL3 gl, int x, int y) {
+        if (!hasFreeSlot()) {
+            throw new IllegalStateException("No free slot, poll pending regions first");
+        }
+
+        //GL origin is bottom left:
+        final int glY = height - 1 - y;
+        if (x < 0 || x >= width || glY < 0 || glY >= height) {
+            return NO_REGION;
+        }
+
+        final int minX = Math.max(x - regionRadius, 0);
+        final int minY = Math.max(glY - regionRadius, 0);
+        final int maxX = Math.min(x + regionRadius, width - 1);
+        final int maxY = Math.min(glY + regionRadius, height - 1);
+
+        final int slot = (firstPendingSlot + pendingCount) % slotsCount;
+        regionWidths[slot] = maxX - minX + 1;
+        regionHeights[slot] = maxY - minY + 1;
+        regionCenterX[slot] = x - minX;
+        regionCenterY[slot] = glY - minY;
+
+        gl.glBindFramebuffer(GL3.GL_READ_FRAMEBUFFER, framebufferName);
+        gl.glReadBuffer(GL.GL_COLOR_ATTACHMENT0);
+        gl.glBindBuffer(GL3.GL_PIXEL_PACK_BUFFER, pixelBufferNames[slot]);
+        gl.glReadPixels(minX, minY, regionWidths[slot], regionHeights[slot], GL3.GL_RED_INTEGER, GL.GL_UNSIGNED_INT, 0);
+        gl.glBindBuffer(GL3.GL_PIXEL_PACK_BUFFER, 0);
+
+        fences[slot] = gl.glFenceSync(GL3.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        pendingCount++;
+
+        return slot;
+    }
+
+    /**
+     * Copies the oldest pending region if the GPU is done with it. Never blocks.
+     *
+     * @param gl GL
+     * @param dest Destination of the ids, row by row from the bottom, of at least {@link #getMaxRegionPixels()} length
+     * @return Slot of the copied region or {@link #NO_REGION} if no region is ready
+     */
+    public int pollRegion(GL3 gl, int[] dest) {
+        if (pendingCount == 0) {
+            return NO_REGION;
+        }
+
+        final int slot = firstPendingSlot;
+        final int result = gl.glClientWaitSync(fences[slot], GL3.GL_SYNC_FLUSH_COMMANDS_BIT, 0);
+        if (result == GL3.GL_TIMEOUT_EXPIRED) {
+            return NO_REGION;
+        }
+
+        gl.glDeleteSync(fences[slot]);
+        fences[slot] = 0;
+        firstPendingSlot = (firstPendingSlot + 1) % slotsCount;
+        pendingCount--;
+
+        if (result == GL3.GL_WAIT_FAILED) {
+            System.out.println("Waiting for picking region " + slot + " failed");
+            return NO_REGION;
+        }
+
+        final int pixels = regionWidths[slot] * regionHeights[slot];
+
+        gl.glBindBuffer(GL3.GL_PIXEL_PACK_BUFFER, pixelBufferNames[slot]);
+        final ByteBuffer mapped = gl.glMapBufferRange(GL3.GL_PIXEL_PACK_BUFFER, 0, (long) pixels * Integer.BYTES, GL.GL_MAP_READ_BIT);
+        if (mapped != null) {
+            mapped.order(ByteOrder.nativeOrder()).asIntBuffer().get(dest, 0, pixels);
+            gl.glUnmapBuffer(GL3.GL_PIXEL_PACK_BUFFER);
+        }
+        gl.glBindBuffer(GL3.GL_PIXEL_PACK_BUFFER, 0);
+
+        return mapped != null ? slot : NO_REGION;
+    }
+
+    public int getRegionWidth(int slot) {
+        return regionWidths[slot];
+    }
+
+    public int getRegionHeight(int slot) {
+        return regionHeights[slot];
+    }
+
+    /**
+     *
+     * @param slot Slot
+     * @return X of the requested position in the region
+     */
+    public int getRegionCenterX(int slot) {
+        return regionCenterX[slot];
+    }
+
+    /**
+     *
+     * @param slot Slot
+     * @return Y of the requested position in the region, from the bottom
+     */
+    public int getRegionCenterY(int slot) {
+        return regionCenterY[slot];
+    }
+
+    public int getMaxRegionPixels() {
+        return regionSize * regionSize;
+    }
+
+    public void destroy(GL3 gl) {
+        if (!isInitialized()) {
+            throw new IllegalStateException("You should initialize the framebuffer first!");
+        }
+
+        for (int i = 0; i < slotsCount; i++) {
+            if (fences[i] != 0) {
+                gl.glDeleteSync(fences[i]);
+                fences[i] = 0;
+            }
+        }
+        firstPendingSlot = 0;
+        pendingCount = 0;
+
+        if (pixelBufferNames[0] != 0) {
+            gl.glDeleteBuffers(slotsCount, pixelBufferNames, 0);
+        }
+        gl.glDeleteRenderbuffers(1, new int[]{renderbufferName}, 0);
+        gl.glDeleteFramebuffers(1, new int[]{framebufferName}, 0);
+
+        framebufferName = 0;
+        renderbufferName = 0;
+        for (int i = 0; i < slotsCount; i++) {
+            pixelBufferNames[i] = 0;
+        }
+    }
+
+    public boolean isInitialized() {
+        return framebufferName != 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -3,6 +3,7 @@ package org.gephi.viz.engine.util.gl;
 import com.jogamp.opengl.GL2ES2;
 import static com.jogamp.opengl.GL2ES2.GL_FRAGMENT_SHADER;
 import static com.jogamp.opengl.GL2ES2.GL_VERTEX_SHADER;
+import static com.jogamp.opengl.GL3ES3.GL_COMPUTE_SHADER;
 import com.jogamp.opengl.util.glsl.ShaderCode;
 import com.jogamp.opengl.util.glsl.ShaderProgram;
 import java.util.HashMap;
@@ -17,6 +18,7 @@ public class GLShaderProgram {
     private final String srcRoot;
     private final String vertBasename;
     private final String fragBasename;
+    private final String computeBasename;
     private int id = -1;
 
     private final Map<String, Integer> uniformLocations;
@@ -28,13 +30,29 @@ public class GLShaderProgram {
     }
 
     public GLShaderProgram(String srcRoot, String vertBasename, String fragBasename) {
+        this(srcRoot, vertBasename, fragBasename, null);
+    }
+
+    private GLShaderProgram(String srcRoot, String vertBasename, String fragBasename, String computeBasename) {
         this.srcRoot = srcRoot;
         this.vertBasename = vertBasename;
         this.fragBasename = fragBasename;
+        this.computeBasename = computeBasename;
         this.uniformLocations = new HashMap<>();
         this.attribLocations = new HashMap<>();
     }
 
+    /**
+     * Program with only a compute shader. Needs GL 4.3 or ARB_compute_shader.
+     *
+     * @param srcRoot Sources root
+     * @param computeBasename Compute shader basename, with <code>comp</code> extension
+     * @return Program
+     */
+    public static GLShaderProgram newComputeProgram(String srcRoot, String computeBasename) {
+        return new GLShaderProgram(srcRoot, null, null, computeBasename);
+    }
+
     public GLShaderProgram addUniformName(String name) {
         uniformLocations.put(name, null);
         return this;
@@ -57,12 +75,22 @@ public class GLShaderProgram {
 
         ShaderProgram shaderProgram = new ShaderProgram();
 
-        ShaderCode vertShaderCode = ShaderCode.create(
-                gl, GL_VERTEX_SHADER, this.getClass(), srcRoot, null,
-                vertBasename, "vert", null, true
-        );
+        if (computeBasename != null) {
+            ShaderCode computeShaderCode = ShaderCode.create(
+                    gl, GL_COMPUTE_SHADER, this.getClass(), srcRoot, null,
+                    computeBasename, "comp", null, true
+            );
 
-        shaderProgram.add(vertShaderCode);
+            shaderProgram.add(computeShaderCode);
+        }
+        if (vertBasename != null) {
+            ShaderCode vertShaderCode = ShaderCode.create(
+                    gl, GL_VERTEX_SHADER, this.getClass(), srcRoot, null,
+                    vertBasename, "vert", null, true
+            );
+
+            shaderProgram.add(vertShaderCode);
+        }
         if (fragBasename != null) {
             ShaderCode fragShaderCode = ShaderCode.create(
                     gl, GL_FRAGMENT_SHADER, this.getClass(), srcRoot, null,
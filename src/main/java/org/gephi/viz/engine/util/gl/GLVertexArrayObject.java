@@ -64,6 +64,25 @@ public abstract class GLVertexArrayObject {
         }
     }
 
+    /**
+     * Discards the current configuration so it's done again on next {@link #use(GL2ES2)}. Needed when the buffers used in {@link #configure(GL2ES2)} are recreated.
+     *
+     * @param gl GL
+     */
+    public void reset(GL2ES2 gl) {
+        if (vaoSupported && arrayId != -1) {
+            IntBuffer vertexArrayName = GLBuffers.newDirectIntBuffer(new int[]{arrayId});
+
+            GLFunctions.glDeleteVertexArrays(gl, 1, vertexArrayName);
+
+            BufferUtils.destroyDirectBuffer(vertexArrayName);
+        }
+
+        arrayId = -1;
+        attributeLocations = null;
+        instancedAttributeLocations = null;
+    }
+
     public void stopUsing(GL2ES2 gl) {
         if (vaoSupported) {
             unbind(gl);
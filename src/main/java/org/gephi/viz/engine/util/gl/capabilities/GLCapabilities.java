@@ -2,9 +2,11 @@ package org.gephi.viz.engine.util.gl.capabilities;
 
 import com.jogamp.opengl.GL;
 import static com.jogamp.opengl.GL.GL_EXTENSIONS;
+import static com.jogamp.opengl.GL.GL_MAX_TEXTURE_SIZE;
 import static com.jogamp.opengl.GL.GL_RENDERER;
 import static com.jogamp.opengl.GL.GL_VENDOR;
 import static com.jogamp.opengl.GL.GL_VERSION;
+import static com.jogamp.opengl.GL2ES2.GL_MAX_VERTEX_TEXTURE_IMAGE_UNITS;
 import static com.jogamp.opengl.GL2ES2.GL_SHADING_LANGUAGE_VERSION;
 import static com.jogamp.opengl.GL2ES3.GL_CONTEXT_FLAGS;
 import static com.jogamp.opengl.GL2ES3.GL_MAJOR_VERSION;
@@ -63,6 +65,13 @@ public class GLCapabilities {
         version.VENDOR = gl.glGetString(GL_VENDOR);
         version.VERSION = gl.glGetString(GL_VERSION);
         version.SHADING_LANGUAGE_VERSION = gl.glGetString(GL_SHADING_LANGUAGE_VERSION);
+
+        gl.glGetIntegerv(GL_MAX_TEXTURE_SIZE, data);
+        version.MAX_TEXTURE_SIZE = data.get(0);
+        if (gl.isGL2ES2()) {
+            gl.glGetIntegerv(GL_MAX_VERTEX_TEXTURE_IMAGE_UNITS, data);
+            version.MAX_VERTEX_TEXTURE_IMAGE_UNITS = data.get(0);
+        }
     }
 
     private void initExtensions(GL gl) {
@@ -682,6 +691,9 @@ public class GLCapabilities {
                 case "GL_INTEL_performance_query":
                     extensions.INTEL_performance_query = true;
                     break;
+                case "GL_OES_texture_float":
+                    extensions.OES_texture_float = true;
+                    break;
             }
         }
     }
@@ -697,4 +709,25 @@ public class GLCapabilities {
     public boolean isIndirectDrawSupported() {
         return extensions.ARB_multi_draw_indirect;
     }
+
+    public boolean isComputeCullingSupported() {
+        return extensions.ARB_compute_shader && extensions.ARB_shader_storage_buffer_object && extensions.ARB_draw_indirect && extensions.ARB_base_instance;
+    }
+
+    public boolean isVertexPullingSupported() {
+        return extensions.ARB_shader_storage_buffer_object && extensions.ARB_base_instance;
+    }
+
+    /**
+     * Float textures that vertex shaders can read, so vertices can pull their data from textures without instancing.
+     *
+     * @return True if supported
+     */
+    public boolean isVertexTextureFetchSupported() {
+        return version.MAX_VERTEX_TEXTURE_IMAGE_UNITS > 0 && (check(3, 0) || extensions.ARB_texture_float || extensions.OES_texture_float);
+    }
+
+    public boolean isPersistentBufferSupported() {
+        return extensions.ARB_buffer_storage && extensions.ARB_sync && extensions.ARB_base_instance && !DebugConstants.DEBUG_DISABLE_PERSISTENT_BUFFERS;
+    }
 }
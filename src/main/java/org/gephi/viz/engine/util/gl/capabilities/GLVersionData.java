@@ -19,9 +19,11 @@ public class GLVersionData {
     public String VENDOR;
     public String VERSION;
     public String SHADING_LANGUAGE_VERSION;
+    public int MAX_TEXTURE_SIZE;
+    public int MAX_VERTEX_TEXTURE_IMAGE_UNITS;
 
     @Override
     public String toString() {
-        return "GLVersionData{" + "PROFILE=" + PROFILE + ", MAJOR_VERSION=" + MAJOR_VERSION + ", MINOR_VERSION=" + MINOR_VERSION + ", CONTEXT_FLAGS=" + CONTEXT_FLAGS + ", NUM_EXTENSIONS=" + NUM_EXTENSIONS + ", RENDERER=" + RENDERER + ", VENDOR=" + VENDOR + ", VERSION=" + VERSION + ", SHADING_LANGUAGE_VERSION=" + SHADING_LANGUAGE_VERSION + '}';
+        return "GLVersionData{" + "PROFILE=" + PROFILE + ", MAJOR_VERSION=" + MAJOR_VERSION + ", MINOR_VERSION=" + MINOR_VERSION + ", CONTEXT_FLAGS=" + CONTEXT_FLAGS + ", NUM_EXTENSIONS=" + NUM_EXTENSIONS + ", RENDERER=" + RENDERER + ", VENDOR=" + VENDOR + ", VERSION=" + VERSION + ", SHADING_LANGUAGE_VERSION=" + SHADING_LANGUAGE_VERSION + ", MAX_TEXTURE_SIZE=" + MAX_TEXTURE_SIZE + ", MAX_VERTEX_TEXTURE_IMAGE_UNITS=" + MAX_VERTEX_TEXTURE_IMAGE_UNITS + '}';
     }
 }
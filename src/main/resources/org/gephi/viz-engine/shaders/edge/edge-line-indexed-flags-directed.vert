@@ -0,0 +1,130 @@
+#version 430
+#define ARROW_HEIGHT 1.1
+
+//Edge flags:
+#define FLAG_SELECTED 1u
+#define FLAG_SOURCE_SELECTED 2u
+#define FLAG_TARGET_SELECTED 4u
+#define FLAG_HIDDEN 8u
+
+//Selection state bits:
+#define STATE_SOME_EDGES_SELECTION 1
+#define STATE_SOME_NODES_SELECTION 2
+#define STATE_EDGE_SELECTION_COLOR 4
+#define STATE_DRAW_SELECTED 8
+
+uniform mat4 mvp;
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+uniform float minWeight;
+uniform float weightDifferenceDivisor;
+uniform float edgeScaleMin;
+uniform float edgeScaleMax;
+uniform float minLength;//world units
+uniform int firstEdge;//Position of the first instance in the edges buffer
+uniform int selectionState;
+uniform vec4 edgeBothSelectionColor;
+uniform vec4 edgeOutSelectionColor;
+uniform vec4 edgeInSelectionColor;
+
+//x, y, size and color bits of each node, by snapshot index:
+layout(std430, binding = 0) readonly buffer Nodes {
+    vec4 nodes[];
+};
+
+//One byte of flags per edge, in the order of the edges buffer:
+layout(std430, binding = 1) readonly buffer EdgeFlags {
+    uint edgeFlags[];
+};
+
+in vec3 vert;
+in ivec2 endpoints;//source and target snapshot indices
+in float size;//It's the weight
+in vec4 elementColor;
+
+out vec4 fragColor;
+
+void main() {
+    int edgeIndex = firstEdge + gl_InstanceID;
+    uint flags = bitfieldExtract(edgeFlags[edgeIndex >> 2], (edgeIndex & 3) * 8, 8);
+
+    bool someEdgesSelection = (selectionState & STATE_SOME_EDGES_SELECTION) != 0;
+    bool highlighted = someEdgesSelection && (flags & FLAG_SELECTED) != 0u;
+
+    //Non selected edges are drawn below the nodes and selected ones above them, all edges when there is no selection:
+    bool drawSelected = (selectionState & STATE_DRAW_SELECTED) != 0;
+    if ((flags & FLAG_HIDDEN) != 0u || (highlighted || !someEdgesSelection) != drawSelected) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);//Outside of the clip volume
+        fragColor = vec4(0.0);
+        return;
+    }
+
+    vec4 source = nodes[endpoints.x];
+    vec4 target = nodes[endpoints.y];
+
+    vec2 position = source.xy;
+    vec2 direction = target.xy - position;
+
+    //Level of detail, shorter edges would be hidden by their nodes:
+    if (dot(direction, direction) < minLength * minLength) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);//Outside of the clip volume
+        fragColor = vec4(0.0);
+        return;
+    }
+
+    float thickness = mix(edgeScaleMin, edgeScaleMax, (size - minWeight) / weightDifferenceDivisor);
+
+    vec2 directionNormalized = normalize(direction);
+
+    vec2 sideVector = vec2(-directionNormalized.y, directionNormalized.x) * thickness * 0.5;
+    vec2 arrowHeight = directionNormalized * thickness * ARROW_HEIGHT * 2.0;
+
+    float targetSize = target.z;
+    vec2 lineEnd = direction - directionNormalized * targetSize;
+
+    vec2 edgeVert = lineEnd * vert.x + sideVector * vert.y + arrowHeight * vert.z;
+
+    gl_Position = mvp * vec4(edgeVert + position, 0.0, 1.0);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 sourceColor = unpackUnorm4x8(floatBitsToUint(source.w)).bgra;
+    vec4 targetColor = unpackUnorm4x8(floatBitsToUint(target.w)).bgra;
+
+    vec4 color;
+    if(elementColor.a <= 0.0) {
+        color = sourceColor;
+    } else {
+        color = elementColor.bgra / 255.0;
+    }
+
+    float colorBias = 0.0;
+    float colorMultiplier = 1.0;
+
+    if (highlighted) {
+        bool someNodesSelection = (selectionState & STATE_SOME_NODES_SELECTION) != 0;
+        bool sourceSelected = (flags & FLAG_SOURCE_SELECTED) != 0u;
+        bool targetSelected = (flags & FLAG_TARGET_SELECTED) != 0u;
+
+        if (someNodesSelection && (selectionState & STATE_EDGE_SELECTION_COLOR) != 0) {
+            if (sourceSelected && targetSelected) {
+                color = edgeBothSelectionColor;
+            } else if (sourceSelected) {
+                color = edgeOutSelectionColor;
+            } else if (targetSelected) {
+                color = edgeInSelectionColor;
+            }
+        } else {
+            if (someNodesSelection && elementColor.a <= 0.0) {
+                color = sourceSelected ? targetColor : sourceColor;
+            }
+
+            colorBias = 0.5;
+            colorMultiplier = 0.5;
+        }
+    }
+
+    color.rgb = min(colorBias + color.rgb * colorMultiplier, 1.0);
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+
+    fragColor = color;
+}
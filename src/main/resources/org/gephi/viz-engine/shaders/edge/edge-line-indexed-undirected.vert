@@ -0,0 +1,63 @@
+#version 430
+
+uniform mat4 mvp;
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+uniform float minWeight;
+uniform float weightDifferenceDivisor;
+uniform float edgeScaleMin;
+uniform float edgeScaleMax;
+uniform float minLength;//world units
+
+//x, y, size and color bits of each node, by snapshot index:
+layout(std430, binding = 0) readonly buffer Nodes {
+    vec4 nodes[];
+};
+
+in vec2 vert;
+in ivec2 endpoints;//source and target snapshot indices
+in float size;//It's the weight
+in vec4 elementColor;
+in float colorBias;
+in float colorMultiplier;
+
+out vec4 fragColor;
+
+void main() {
+    vec4 source = nodes[endpoints.x];
+    vec4 target = nodes[endpoints.y];
+
+    vec2 position = source.xy;
+    vec2 direction = target.xy - position;
+
+    //Level of detail, shorter edges would be hidden by their nodes:
+    if (dot(direction, direction) < minLength * minLength) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);//Outside of the clip volume
+        fragColor = vec4(0.0);
+        return;
+    }
+
+    float thickness = mix(edgeScaleMin, edgeScaleMax, (size - minWeight) / weightDifferenceDivisor);
+
+    vec2 directionNormalized = normalize(direction);
+
+    vec2 sideVector = vec2(-directionNormalized.y, directionNormalized.x) * thickness * 0.5;
+
+    vec2 lineEnd = direction;
+    vec2 edgeVert = lineEnd * vert.x + sideVector * vert.y;
+
+    gl_Position = mvp * vec4(edgeVert + position, 0.0, 1.0);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color;
+    if(elementColor.a <= 0.0) {
+        color = (unpackUnorm4x8(floatBitsToUint(source.w)) + unpackUnorm4x8(floatBitsToUint(target.w))).bgra * 0.5;//Average the colors
+    } else {
+        color = elementColor.bgra / 255.0;
+    }
+
+    color.rgb = colorBias + color.rgb * colorMultiplier;
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+
+    fragColor = color;
+}
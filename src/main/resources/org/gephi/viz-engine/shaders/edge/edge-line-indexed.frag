@@ -0,0 +1,9 @@
+#version 430
+
+in vec4 fragColor;
+
+out vec4 outColor;
+
+void main() {
+    outColor = fragColor;
+}
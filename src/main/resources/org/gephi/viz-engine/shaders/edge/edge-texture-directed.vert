@@ -0,0 +1,76 @@
+#version 100
+#define ARROW_HEIGHT 1.1
+
+#ifdef GL_ES
+precision highp float;
+precision highp sampler2D;
+#endif
+
+uniform mat4 mvp;
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+uniform float minWeight;
+uniform float weightDifferenceDivisor;
+uniform float edgeScaleMin;
+uniform float edgeScaleMax;
+uniform sampler2D edgesTexture;
+uniform vec3 edgesTextureLayout;//Edges per row, 1 / width, 1 / height
+uniform float firstEdge;
+
+attribute vec4 vert;//w is the edge index in the batch
+
+varying vec4 fragColor;
+
+vec4 edgeTexel(float edge, float texel) {
+    float row = floor(edge / edgesTextureLayout.x);
+    float column = edge - row * edgesTextureLayout.x;
+    vec2 coords = vec2((column * 3.0 + texel + 0.5) * edgesTextureLayout.y, (row + 0.5) * edgesTextureLayout.z);
+    return texture2DLod(edgesTexture, coords, 0.0);
+}
+
+//3 bytes packed in an exact integer float, from the highest:
+vec3 unpackBytes(float value) {
+    float high = floor(value / 65536.0);
+    float middle = floor((value - high * 65536.0) / 256.0);
+    return vec3(high, middle, value - high * 65536.0 - middle * 256.0);
+}
+
+void main() {
+    float edge = firstEdge + vert.w;
+    vec4 positions = edgeTexel(edge, 0.0);//source and target positions
+    vec4 attributes = edgeTexel(edge, 1.0);//size, color bias, color multiplier, target size
+    vec4 colors = edgeTexel(edge, 2.0);//source, target and element rgb, then their alphas
+
+    vec2 position = positions.xy;
+    vec2 targetPosition = positions.zw;
+    float size = attributes.x;//It's the weight
+    float targetSize = attributes.w;
+
+    float thickness = mix(edgeScaleMin, edgeScaleMax, (size - minWeight) / weightDifferenceDivisor);
+
+    vec2 direction = targetPosition - position;
+    vec2 directionNormalized = normalize(direction);
+
+    vec2 sideVector = vec2(-directionNormalized.y, directionNormalized.x) * thickness * 0.5;
+    vec2 arrowHeight = directionNormalized * thickness * ARROW_HEIGHT * 2.0;
+
+    vec2 lineEnd = direction - directionNormalized * targetSize;
+
+    vec2 edgeVert = lineEnd * vert.x + sideVector * vert.y + arrowHeight * vert.z;
+
+    gl_Position = mvp * vec4(edgeVert + position, 0.0, 1.0);
+
+    vec3 alphas = unpackBytes(colors.w);
+    vec4 color;
+    if(alphas.z <= 0.0) {
+        color = vec4(unpackBytes(colors.x), alphas.x);
+    } else {
+        color = vec4(unpackBytes(colors.z), alphas.z);
+    }
+    color = color / 255.0;
+
+    color.rgb = min(attributes.y + color.rgb * attributes.z, 1.0);
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+
+    fragColor = color;
+}
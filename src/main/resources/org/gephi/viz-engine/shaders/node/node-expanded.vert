@@ -0,0 +1,30 @@
+#version 100
+
+uniform mat4 mvp;
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+uniform float borderDarkenFactor;
+
+attribute vec2 vert;//Already in world coordinates
+attribute vec4 elementColor;
+attribute float flags;
+
+varying vec4 fragColor;
+
+void main() {
+    gl_Position = mvp * vec4(vert, 0.0, 1.0);
+
+    float selected = mod(flags, 2.0);//FLAG_SELECTED bit
+    float inside = mod(floor(flags / 2.0), 2.0);//FLAG_INSIDE bit
+
+    //Border is darkened unless selected, inside is lightened when selected:
+    float colorBias = inside * selected * 0.5;
+    float colorMultiplier = mix(mix(borderDarkenFactor, 1.0, selected), 1.0 - colorBias, inside);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color = elementColor.bgra / 255.0;
+    color.rgb = colorBias + color.rgb * colorMultiplier;
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+
+    fragColor = color;
+}
@@ -0,0 +1,34 @@
+#version 100
+
+uniform mat4 mvp;
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+uniform float borderDarkenFactor;
+uniform float insideCircleSize;
+
+attribute vec3 vert;//z is 1 for the inside circle
+attribute vec2 position;
+attribute vec4 elementColor;
+attribute float size;
+attribute float flags;
+
+varying vec4 fragColor;
+
+void main() {
+    float inside = vert.z;
+    float selected = mod(flags, 2.0);//FLAG_SELECTED bit
+
+    vec2 instancePosition = size * mix(1.0, insideCircleSize, inside) * vert.xy + position;
+    gl_Position = mvp * vec4(instancePosition, 0.0, 1.0);
+
+    //Border is darkened unless selected, inside is lightened when selected:
+    float colorBias = inside * selected * 0.5;
+    float colorMultiplier = mix(mix(borderDarkenFactor, 1.0, selected), 1.0 - colorBias, inside);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color = elementColor.bgra / 255.0;
+    color.rgb = colorBias + color.rgb * colorMultiplier;
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+
+    fragColor = color;
+}
@@ -0,0 +1,27 @@
+#version 100
+
+#ifdef GL_ES
+precision mediump float;
+#endif
+
+uniform float insideCircleSize;
+
+varying vec2 localPosition;
+varying vec4 borderColor;
+varying vec4 insideColor;
+varying float smoothing;
+
+void main() {
+    float distance = length(localPosition);
+
+    //Disk edge, anti-aliased over one pixel:
+    float alpha = 1.0 - smoothstep(1.0 - smoothing, 1.0, distance);
+    if (alpha <= 0.0) {
+        discard;
+    }
+
+    float inside = 1.0 - smoothstep(insideCircleSize - smoothing, insideCircleSize, distance);
+    vec4 color = mix(borderColor, insideColor, inside);
+
+    gl_FragColor = vec4(color.rgb, color.a * alpha);
+}
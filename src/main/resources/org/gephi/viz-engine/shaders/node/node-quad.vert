@@ -0,0 +1,38 @@
+#version 100
+
+uniform mat4 mvp;
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+uniform float borderDarkenFactor;
+uniform float pixelWorldSize;
+
+attribute vec2 vert;
+attribute vec2 position;
+attribute vec4 elementColor;
+attribute float size;
+attribute float flags;
+
+varying vec2 localPosition;
+varying vec4 borderColor;
+varying vec4 insideColor;
+varying float smoothing;
+
+void main() {
+    localPosition = vert;
+    gl_Position = mvp * vec4(size * vert + position, 0.0, 1.0);
+
+    //Width of one pixel relative to the node radius:
+    smoothing = pixelWorldSize / max(size, 0.000001);
+
+    float selected = mod(flags, 2.0);//FLAG_SELECTED bit
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color = elementColor.bgra / 255.0;
+
+    //Border is darkened unless selected, inside is lightened when selected:
+    vec3 border = color.rgb * mix(borderDarkenFactor, 1.0, selected);
+    vec3 inside = selected * 0.5 + color.rgb * (1.0 - selected * 0.5);
+
+    borderColor = vec4(mix(border, backgroundColor.rgb, colorLightenFactor), color.a);
+    insideColor = vec4(mix(inside, backgroundColor.rgb, colorLightenFactor), color.a);
+}
@@ -0,0 +1,9 @@
+#version 330
+
+flat in uint pickingId;
+
+out uint outPickingId;
+
+void main() {
+    outPickingId = pickingId;
+}
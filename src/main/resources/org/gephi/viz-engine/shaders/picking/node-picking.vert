@@ -0,0 +1,19 @@
+#version 330
+
+uniform mat4 mvp;
+uniform uint firstId;
+uniform int instancesPerNode;
+
+in vec2 vert;
+in vec2 position;
+in float size;
+
+flat out uint pickingId;
+
+void main() {
+    vec2 instancePosition = size * vert + position;
+    gl_Position = mvp * vec4(instancePosition, 0.0, 1.0);
+
+    //All the instances of a node have its id:
+    pickingId = firstId + uint(gl_InstanceID / instancesPerNode);
+}
@@ -0,0 +1,265 @@
+package org.gephi.viz.engine;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class WorldUpdateSchedulerTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long BUDGET = WorldUpdateScheduler.DEFAULT_FRAME_BUDGET_NANOS;
+
+    private VizEngine engine;
+    private WorldUpdateScheduler scheduler;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        engine = new VizEngine(GraphModel.Factory.newInstance());
+        //One update per second, so intervals are never elapsed during a test:
+        engine.setMaxWorldUpdatesPerSecond(1);
+
+        //State changes are tracked:
+        final GraphIndexImpl graphIndex = new GraphIndexImpl(engine);
+        graphIndex.setIncrementalUpdates(true);
+        engine.addToLookup(graphIndex);
+
+        scheduler = new WorldUpdateScheduler(engine);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testCheapUpdatesUseMinInterval() {
+        Assert.assertEquals(33 * MS, WorldUpdateScheduler.computeIntervalNanos(33 * MS, 1 * MS, 0, 5 * MS, BUDGET));
+    }
+
+    @Test
+    public void testUnlimitedRate() {
+        Assert.assertEquals(0, WorldUpdateScheduler.computeIntervalNanos(0, 0, 0, 5 * MS, BUDGET));
+    }
+
+    @Test
+    public void testSlowUpdater() {
+        Assert.assertEquals(80 * MS, WorldUpdateScheduler.computeIntervalNanos(33 * MS, 40 * MS, 0, 5 * MS, BUDGET));
+    }
+
+    @Test
+    public void testUploadsShareFrameBudget() {
+        //Idle frames, uploads can take half of the frames:
+        Assert.assertEquals(20 * MS, WorldUpdateScheduler.computeIntervalNanos(0, 0, 10 * MS, 0, BUDGET));
+
+        //Frames over budget, uploads still get a minimum share:
+        Assert.assertEquals(100 * MS, WorldUpdateScheduler.computeIntervalNanos(0, 0, 10 * MS, 2 * BUDGET, BUDGET));
+    }
+
+    @Test
+    public void testAdaptiveIntervalIsBounded() {
+        Assert.assertEquals(500 * MS, WorldUpdateScheduler.computeIntervalNanos(0, 10_000 * MS, 0, 0, BUDGET));
+
+        //The max world updates per second are always respected:
+        Assert.assertEquals(1000 * MS, WorldUpdateScheduler.computeIntervalNanos(1000 * MS, 10_000 * MS, 0, 0, BUDGET));
+    }
+
+    @Test
+    public void testRunningUpdaterNotStartedAgain() throws Exception {
+        final StubUpdater updater = new StubUpdater();
+        scheduler.start(Arrays.asList(updater), executor);
+
+        scheduler.scheduleUpdates();
+        Assert.assertTrue(updater.started.await(5, TimeUnit.SECONDS));
+
+        //Changes while running:
+        scheduler.requestUpdate();
+        scheduler.scheduleUpdates();
+        scheduler.requestUpdate();
+        scheduler.scheduleUpdates();
+        Assert.assertEquals(1, updater.runs.get());
+
+        updater.release.countDown();
+        scheduler.scheduleAllUpdates().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, updater.runs.get());
+    }
+
+    @Test
+    public void testNotStartedAgainBeforeDelivery() throws Exception {
+        final StubUpdater updater = new StubUpdater();
+        updater.release.countDown();
+        scheduler.start(Arrays.asList(updater), executor);
+
+        scheduler.scheduleUpdates();
+        scheduler.scheduleAllUpdates().get(5, TimeUnit.SECONDS);
+
+        //Completed, but the renderers did not get it yet:
+        scheduler.requestUpdate();
+        scheduler.scheduleUpdates();
+        Assert.assertEquals(1, updater.runs.get());
+    }
+
+    @Test
+    public void testSupersededUpdaterRunsAgainRightAway() throws Exception {
+        final StubUpdater updater = new StubUpdater();
+        scheduler.start(Arrays.asList(updater), executor);
+
+        scheduler.scheduleUpdates();
+        Assert.assertTrue(updater.started.await(5, TimeUnit.SECONDS));
+
+        //The state changes while it runs, so its data is stale:
+        scheduler.requestUpdate();
+        updater.release.countDown();
+        scheduler.scheduleAllUpdates().get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(scheduler.pollCompletedUpdates());
+
+        //Without waiting for the interval:
+        Assert.assertFalse(scheduler.scheduleUpdates());
+        scheduler.scheduleAllUpdates().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(2, updater.runs.get());
+    }
+
+    @Test
+    public void testUpToDateUpdaterWaitsForInterval() throws Exception {
+        final StubUpdater updater = new StubUpdater();
+        updater.release.countDown();
+        scheduler.start(Arrays.asList(updater), executor);
+
+        scheduler.scheduleUpdates();
+        scheduler.scheduleAllUpdates().get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(scheduler.pollCompletedUpdates());
+
+        //Nothing changed:
+        Assert.assertFalse(scheduler.scheduleUpdates());
+        Assert.assertEquals(1, updater.runs.get());
+
+        //Changed after it started, the interval is not elapsed yet:
+        scheduler.requestUpdate();
+        Assert.assertTrue(scheduler.scheduleUpdates());
+        Assert.assertEquals(1, updater.runs.get());
+    }
+
+    @Test
+    public void testDelivery() throws Exception {
+        final StubUpdater updater = new StubUpdater();
+        scheduler.start(Arrays.asList(updater), executor);
+        final long generation = scheduler.getGeneration();
+
+        scheduler.scheduleUpdates();
+        Assert.assertTrue(updater.started.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(scheduler.pollCompletedUpdates());
+        Assert.assertFalse(scheduler.isDeliveredSince(generation));
+
+        updater.release.countDown();
+        scheduler.scheduleAllUpdates().get(5, TimeUnit.SECONDS);
+
+        //Delivered once:
+        Assert.assertTrue(scheduler.pollCompletedUpdates());
+        Assert.assertFalse(scheduler.pollCompletedUpdates());
+        Assert.assertTrue(scheduler.isDeliveredSince(generation));
+    }
+
+    @Test
+    public void testUpdatersDeliveredIndependently() throws Exception {
+        final StubUpdater fast = new StubUpdater();
+        fast.release.countDown();
+        final StubUpdater slow = new StubUpdater();
+        executor.shutdown();
+        executor = Executors.newFixedThreadPool(2);
+        scheduler.start(Arrays.asList(fast, slow), executor);
+        final long generation = scheduler.getGeneration();
+
+        scheduler.scheduleUpdates();
+        Assert.assertTrue(slow.started.await(5, TimeUnit.SECONDS));
+        waitForCompletion();
+        Assert.assertFalse(scheduler.isDeliveredSince(generation));
+
+        slow.release.countDown();
+        waitForCompletion();
+        Assert.assertTrue(scheduler.isDeliveredSince(generation));
+    }
+
+    @Test
+    public void testFailedUpdaterIsDelivered() throws Exception {
+        final StubUpdater updater = new StubUpdater();
+        updater.fail = true;
+        updater.release.countDown();
+        scheduler.start(Arrays.asList(updater), executor);
+
+        scheduler.scheduleUpdates();
+        scheduler.scheduleAllUpdates().get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(scheduler.pollCompletedUpdates());
+    }
+
+    private void waitForCompletion() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!scheduler.pollCompletedUpdates()) {
+            Assert.assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static class StubUpdater implements WorldUpdater {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger runs = new AtomicInteger();
+        private volatile boolean fail = false;
+
+        @Override
+        public void updateWorld() {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (fail) {
+                throw new IllegalStateException("Failed update");
+            }
+        }
+
+        @Override
+        public String getCategory() {
+            return "Stub";
+        }
+
+        @Override
+        public int getPreferenceInCategory() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "Stub";
+        }
+
+        @Override
+        public void init(GLAutoDrawable drawable) {
+            //NOOP
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.gephi.viz.engine.pipeline;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.status.GraphSelectionImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class SelectionServiceTest {
+
+    @Test
+    public void testOneHop() {
+        final Graph graph = newChain(5);
+        final Node node = graph.getNode("2");
+
+        final SelectionService.Selection selection = SelectionService.collectNeighbourhood(1, graph, node, 1, true, () -> false);
+
+        Assert.assertSame(node, selection.node);
+        Assert.assertEquals(new HashSet<>(graph.getEdges(node).toCollection()), asSet(selection.edges));
+        Assert.assertEquals(new HashSet<>(graph.getNeighbors(node).toCollection()), asSet(selection.neighbours));
+    }
+
+    @Test
+    public void testTwoHops() {
+        final Graph graph = newChain(7);
+
+        final SelectionService.Selection selection = SelectionService.collectNeighbourhood(1, graph, graph.getNode("3"), 2, true, () -> false);
+
+        Assert.assertEquals(4, selection.edges.length);
+        Assert.assertEquals(4, selection.neighbours.length);
+        Assert.assertEquals(nodes(graph, "1", "2", "4", "5"), asSet(selection.neighbours));
+    }
+
+    @Test
+    public void testWithoutNeighbours() {
+        final Graph graph = newChain(5);
+        final Node node = graph.getNode("2");
+
+        final SelectionService.Selection selection = SelectionService.collectNeighbourhood(1, graph, node, 1, false, () -> false);
+
+        Assert.assertEquals(2, selection.edges.length);
+        Assert.assertEquals(0, selection.neighbours.length);
+    }
+
+    @Test
+    public void testParallelFrontierEdgesCollectedOnce() {
+        //Hub with many leaves, and every leaf linked to the next one:
+        final int leaves = 2000;
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getUndirectedGraph();
+
+        final Node hub = factory.newNode("hub");
+        graph.addNode(hub);
+
+        final Node[] nodes = new Node[leaves];
+        for (int i = 0; i < leaves; i++) {
+            nodes[i] = factory.newNode(String.valueOf(i));
+            graph.addNode(nodes[i]);
+            graph.addEdge(factory.newEdge(hub, nodes[i], false));
+        }
+        for (int i = 0; i + 1 < leaves; i++) {
+            graph.addEdge(factory.newEdge(nodes[i], nodes[i + 1], false));
+        }
+
+        final SelectionService.Selection selection = SelectionService.collectNeighbourhood(1, graph, hub, 2, true, () -> false);
+
+        Assert.assertEquals(graph.getEdgeCount(), selection.edges.length);
+        Assert.assertEquals(graph.getEdgeCount(), asSet(selection.edges).size());
+        Assert.assertEquals(leaves, selection.neighbours.length);
+    }
+
+    @Test
+    public void testReadLockReleased() {
+        final Graph graph = newChain(5);
+
+        SelectionService.collectNeighbourhood(1, graph, graph.getNode("2"), 2, true, () -> false);
+
+        //A writer is not blocked once collected:
+        graph.writeLock();
+        graph.writeUnlock();
+    }
+
+    @Test
+    public void testSuperseded() {
+        final Graph graph = newChain(5);
+
+        Assert.assertNull(SelectionService.collectNeighbourhood(1, graph, graph.getNode("2"), 2, true, () -> true));
+    }
+
+    @Test
+    public void testSetsSwappedWithOneVersion() {
+        final Graph graph = newChain(5);
+        final Node node = graph.getNode("2");
+
+        final SelectionService.Selection selection = SelectionService.collectNeighbourhood(1, graph, node, 1, true, () -> false);
+        selection.buildSets();
+
+        Assert.assertEquals(asSet(selection.edges), selection.edgesSet);
+        Assert.assertEquals(asSet(selection.neighbours), selection.neighboursSet);
+
+        final GraphSelectionImpl graphSelection = new GraphSelectionImpl(null);
+        final int version = graphSelection.getVersion();
+        graphSelection.replaceSelection(selection.nodesSet, selection.edgesSet);
+
+        Assert.assertEquals(version + 1, graphSelection.getVersion());
+        Assert.assertTrue(graphSelection.isNodeSelected(node));
+        Assert.assertEquals(2, graphSelection.getSelectedEdgesCount());
+        for (Edge edge : selection.edges) {
+            Assert.assertTrue(graphSelection.isEdgeSelected(edge));
+        }
+    }
+
+    private static Graph newChain(int count) {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getUndirectedGraph();
+
+        Node previous = null;
+        for (int i = 0; i < count; i++) {
+            final Node node = factory.newNode(String.valueOf(i));
+            graph.addNode(node);
+            if (previous != null) {
+                graph.addEdge(factory.newEdge(previous, node, false));
+            }
+            previous = node;
+        }
+
+        return graph;
+    }
+
+    private static Set<Node> nodes(Graph graph, String... ids) {
+        final Set<Node> nodes = new HashSet<>();
+        for (String id : ids) {
+            nodes.add(graph.getNode(id));
+        }
+        return nodes;
+    }
+
+    private static <T> Set<T> asSet(T[] elements) {
+        return new HashSet<>(Arrays.asList(elements));
+    }
+}
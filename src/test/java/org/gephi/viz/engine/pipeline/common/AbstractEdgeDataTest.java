@@ -0,0 +1,164 @@
+package org.gephi.viz.engine.pipeline.common;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class AbstractEdgeDataTest {
+
+    private static final int NODES = 20000;
+    private static final int EDGES = 100000;
+
+    public AbstractEdgeDataTest() {
+    }
+
+    @Test
+    public void testParallelFillNoSelection() {
+        assertParallelFillEqualsSerial(false, false);
+    }
+
+    @Test
+    public void testParallelFillSelection() {
+        assertParallelFillEqualsSerial(true, false);
+    }
+
+    @Test
+    public void testParallelFillSelectionHideNonSelected() {
+        assertParallelFillEqualsSerial(true, true);
+    }
+
+    @Test
+    public void testRemoveShortEdges() {
+        final Graph graph = newGraph();
+        final Edge[] edges = graph.getEdges().toArray();
+        final float minLength = 300;
+
+        final List<Edge> expected = new ArrayList<>();
+        for (Edge edge : edges) {
+            final float dx = edge.getTarget().x() - edge.getSource().x();
+            final float dy = edge.getTarget().y() - edge.getSource().y();
+            if (dx * dx + dy * dy >= minLength * minLength) {
+                expected.add(edge);
+            }
+        }
+
+        Assert.assertEquals(edges.length, AbstractEdgeData.removeShortEdges(edges, edges.length, 0));
+
+        final int count = AbstractEdgeData.removeShortEdges(edges, edges.length, minLength);
+        Assert.assertEquals(expected, Arrays.asList(edges).subList(0, count));
+    }
+
+    private void assertParallelFillEqualsSerial(boolean someSelection, boolean hideNonSelected) {
+        final Graph graph = newGraph();
+        final Edge[] edges = graph.getEdges().toArray();
+
+        final GraphSelection selection = new GraphSelectionImpl(null);
+        if (someSelection) {
+            final List<Node> selectedNodes = new ArrayList<>();
+            final List<Edge> selectedEdges = new ArrayList<>();
+            for (int i = 0; i < edges.length; i += 7) {
+                selectedNodes.add(edges[i].getSource());
+                selectedEdges.add(edges[i]);
+            }
+            selection.setSelectedNodes(selectedNodes);
+            selection.setSelectedEdges(selectedEdges);
+        }
+
+        final AbstractEdgeData serial = new AbstractEdgeData(true);
+        serial.setParallelFill(false);
+        final AbstractEdgeData parallel = new AbstractEdgeData(true);
+        parallel.setParallelFill(true);
+
+        //Array:
+        Assert.assertArrayEquals(
+                fillArray(serial, graph, edges, selection, hideNonSelected),
+                fillArray(parallel, graph, edges, selection, hideNonSelected),
+                0
+        );
+        assertCountsEqual(serial, parallel);
+
+        //Direct buffer with batches:
+        Assert.assertArrayEquals(
+                fillBuffer(serial, graph, edges, selection, hideNonSelected),
+                fillBuffer(parallel, graph, edges, selection, hideNonSelected),
+                0
+        );
+        assertCountsEqual(serial, parallel);
+    }
+
+    private float[] fillArray(AbstractEdgeData data, Graph graph, Edge[] edges, GraphSelection selection, boolean hideNonSelected) {
+        final float[] attribs = new float[edges.length * AbstractEdgeData.ATTRIBS_STRIDE];
+
+        int index = data.updateUndirectedData(graph, selection.getSelectedEdgesCount() > 0, hideNonSelected, edges.length, edges, selection, selection.getSelectedNodesCount() > 0, true, 1, 2, 3, attribs, 0);
+        index = data.updateDirectedData(graph, selection.getSelectedEdgesCount() > 0, hideNonSelected, edges.length, edges, selection, selection.getSelectedNodesCount() > 0, true, 1, 2, 3, attribs, index);
+
+        Assert.assertEquals(
+                (data.undirectedInstanceCounter.total() + data.directedInstanceCounter.total()) * AbstractEdgeData.ATTRIBS_STRIDE,
+                index
+        );
+
+        return attribs;
+    }
+
+    private float[] fillBuffer(AbstractEdgeData data, Graph graph, Edge[] edges, GraphSelection selection, boolean hideNonSelected) {
+        final float[] batch = new float[1000 * AbstractEdgeData.ATTRIBS_STRIDE];
+        final FloatBuffer buffer = FloatBuffer.allocate(edges.length * AbstractEdgeData.ATTRIBS_STRIDE);
+
+        data.updateUndirectedData(graph, selection.getSelectedEdgesCount() > 0, hideNonSelected, edges.length, edges, selection, selection.getSelectedNodesCount() > 0, false, 1, 2, 3, batch, 0, buffer);
+        data.updateDirectedData(graph, selection.getSelectedEdgesCount() > 0, hideNonSelected, edges.length, edges, selection, selection.getSelectedNodesCount() > 0, false, 1, 2, 3, batch, 0, buffer);
+
+        Assert.assertEquals(
+                (data.undirectedInstanceCounter.total() + data.directedInstanceCounter.total()) * AbstractEdgeData.ATTRIBS_STRIDE,
+                buffer.position()
+        );
+
+        return buffer.array();
+    }
+
+    private void assertCountsEqual(AbstractEdgeData expected, AbstractEdgeData actual) {
+        Assert.assertEquals(expected.undirectedInstanceCounter.unselectedCount, actual.undirectedInstanceCounter.unselectedCount);
+        Assert.assertEquals(expected.undirectedInstanceCounter.selectedCount, actual.undirectedInstanceCounter.selectedCount);
+        Assert.assertEquals(expected.directedInstanceCounter.unselectedCount, actual.directedInstanceCounter.unselectedCount);
+        Assert.assertEquals(expected.directedInstanceCounter.selectedCount, actual.directedInstanceCounter.selectedCount);
+    }
+
+    private Graph newGraph() {
+        final Random random = new Random(7);
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getGraph();
+
+        final Node[] nodes = new Node[NODES];
+        for (int i = 0; i < NODES; i++) {
+            nodes[i] = factory.newNode();
+            nodes[i].setX(random.nextFloat() * 1000);
+            nodes[i].setY(random.nextFloat() * 1000);
+            nodes[i].setSize(1 + random.nextFloat() * 10);
+            nodes[i].setR(random.nextFloat());
+            graph.addNode(nodes[i]);
+        }
+
+        for (int i = 0; i < EDGES; i++) {
+            final Node source = nodes[i % NODES];
+            final Node target = nodes[(i % NODES + 1 + i / NODES) % NODES];
+            graph.addEdge(factory.newEdge(source, target, 0, 1 + random.nextInt(5), random.nextBoolean()));
+        }
+
+        return graph;
+    }
+}
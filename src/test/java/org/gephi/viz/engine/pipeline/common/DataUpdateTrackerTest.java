@@ -0,0 +1,80 @@
+package org.gephi.viz.engine.pipeline.common;
+
+import org.gephi.graph.api.GraphModel;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class DataUpdateTrackerTest {
+
+    private VizEngine engine;
+    private GraphIndexImpl graphIndex;
+
+    @Before
+    public void setUp() {
+        engine = new VizEngine(GraphModel.Factory.newInstance());
+        graphIndex = new GraphIndexImpl(engine);
+        engine.addToLookup(graphIndex);
+    }
+
+    @Test
+    public void testWithoutIncrementalUpdates() {
+        final DataUpdateTracker tracker = new DataUpdateTracker(false);
+
+        Assert.assertNotNull(tracker.nextUpdateArea(engine, graphIndex));
+        Assert.assertNotNull(tracker.nextUpdateArea(engine, graphIndex));
+        Assert.assertEquals(0, engine.getMetrics().getSkippedDataUpdates());
+    }
+
+    @Test
+    public void testSkippedWhenUnchanged() {
+        graphIndex.setIncrementalUpdates(true);
+        //Whole world data, so the test does not depend on the view:
+        final DataUpdateTracker tracker = new DataUpdateTracker(false, false);
+
+        Assert.assertNotNull(tracker.nextUpdateArea(engine, graphIndex));
+        Assert.assertNull(tracker.nextUpdateArea(engine, graphIndex));
+        Assert.assertNull(tracker.nextUpdateArea(engine, graphIndex));
+        Assert.assertEquals(2, engine.getMetrics().getSkippedDataUpdates());
+
+        graphIndex.invalidate();
+        Assert.assertNotNull(tracker.nextUpdateArea(engine, graphIndex));
+        Assert.assertEquals(2, engine.getMetrics().getSkippedDataUpdates());
+    }
+
+    @Test
+    public void testInvalidateNodes() {
+        graphIndex.setIncrementalUpdates(true);
+        final DataUpdateTracker nodesTracker = new DataUpdateTracker(false, false, true);
+        final DataUpdateTracker indexedTracker = new DataUpdateTracker(false, false, false);
+
+        nodesTracker.nextUpdateArea(engine, graphIndex);
+        indexedTracker.nextUpdateArea(engine, graphIndex);
+
+        graphIndex.invalidateNodes();
+
+        //Only data that copies node positions is rebuilt:
+        Assert.assertNotNull(nodesTracker.nextUpdateArea(engine, graphIndex));
+        Assert.assertNull(indexedTracker.nextUpdateArea(engine, graphIndex));
+    }
+
+    @Test
+    public void testGraphChange() {
+        graphIndex.setIncrementalUpdates(true);
+        //Whole world data, so the test does not depend on the view:
+        final DataUpdateTracker tracker = new DataUpdateTracker(false, false);
+
+        tracker.nextUpdateArea(engine, graphIndex);
+        Assert.assertNull(tracker.nextUpdateArea(engine, graphIndex));
+
+        final GraphModel graphModel = engine.getGraphModel();
+        graphModel.getGraphVisible().addNode(graphModel.factory().newNode());
+        Assert.assertNotNull(tracker.nextUpdateArea(engine, graphIndex));
+    }
+}
@@ -0,0 +1,68 @@
+package org.gephi.viz.engine.pipeline.picking;
+
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class PickingNodesTest {
+
+    @Test
+    public void testGetNode() {
+        final Node[] nodes = newNodes(3);
+        final PickingNodes pickingNodes = new PickingNodes(3);
+
+        write(pickingNodes, 1, nodes);
+        final long version = pickingNodes.getVersion(1);
+
+        Assert.assertSame(nodes[0], pickingNodes.getNode(version, 0));
+        Assert.assertSame(nodes[2], pickingNodes.getNode(version, 2));
+        Assert.assertNull(pickingNodes.getNode(version, 3));
+        Assert.assertNull(pickingNodes.getNode(version, -1));
+    }
+
+    @Test
+    public void testStaleVersion() {
+        final Node[] nodes = newNodes(2);
+        final PickingNodes pickingNodes = new PickingNodes(3);
+
+        write(pickingNodes, 0, nodes);
+        final long version = pickingNodes.getVersion(0);
+
+        //Other buffers don't change the version:
+        write(pickingNodes, 1, nodes);
+        Assert.assertSame(nodes[1], pickingNodes.getNode(version, 1));
+
+        write(pickingNodes, 0, new Node[]{nodes[1], nodes[0]});
+        Assert.assertNull(pickingNodes.getNode(version, 1));
+    }
+
+    @Test
+    public void testBeingWritten() {
+        final Node[] nodes = newNodes(2);
+        final PickingNodes pickingNodes = new PickingNodes(3);
+
+        pickingNodes.beginWrite(0, nodes.length);
+        Assert.assertNull(pickingNodes.getNode(pickingNodes.getVersion(0), 0));
+    }
+
+    private static void write(PickingNodes pickingNodes, int bufferIndex, Node[] nodes) {
+        final Node[] array = pickingNodes.beginWrite(bufferIndex, nodes.length);
+        System.arraycopy(nodes, 0, array, 0, nodes.length);
+        pickingNodes.endWrite(bufferIndex, nodes.length);
+    }
+
+    private static Node[] newNodes(int count) {
+        final GraphFactory factory = GraphModel.Factory.newInstance().factory();
+        final Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = factory.newNode();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,78 @@
+package org.gephi.viz.engine.pipeline.picking;
+
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.VizEngineFactory;
+import org.gephi.viz.engine.status.GraphPicking;
+import org.joml.Vector2f;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Picks on an offscreen engine, for example on Mesa llvmpipe with LIBGL_ALWAYS_SOFTWARE=1. Skipped when there is no GL or the profile can't pick on the GPU.
+ *
+ * @author Eduardo Ramos
+ */
+public class PickingRendererHeadlessTest {
+
+    private static final int SIZE = 200;
+    private static final int MAX_FRAMES = 10;
+
+    private GraphModel graphModel;
+    private Node node;
+    private VizEngine engine;
+
+    @Before
+    public void setUp() {
+        graphModel = GraphModel.Factory.newInstance();
+        node = graphModel.factory().newNode();
+        node.setSize(10);
+        graphModel.getGraph().addNode(node);
+
+        try {
+            engine = VizEngineFactory.newOffscreenEngine(graphModel, SIZE, SIZE);
+            engine.renderFrames(1);
+        } catch (RuntimeException | LinkageError ex) {
+            Assume.assumeNoException("No offscreen GL", ex);
+        }
+
+        engine.centerOn(new Vector2f(0, 0), 100, 100);
+        Assume.assumeTrue("GPU picking not available", engine.getLookup().lookup(GraphPicking.class).isAvailable());
+    }
+
+    @After
+    public void tearDown() {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    public void testPickNode() {
+        Assert.assertSame(node, pick(SIZE / 2, SIZE / 2));
+    }
+
+    @Test
+    public void testPickEmptyArea() {
+        Assert.assertNull(pick(5, 5));
+    }
+
+    private Node pick(int x, int y) {
+        final GraphPicking graphPicking = engine.getLookup().lookup(GraphPicking.class);
+        graphPicking.requestPick(x, y);
+
+        for (int i = 0; i < MAX_FRAMES; i++) {
+            engine.renderFrames(1);
+            if (graphPicking.pollPick()) {
+                return graphPicking.getPickedNode();
+            }
+        }
+
+        Assert.fail("Pick not resolved after " + MAX_FRAMES + " frames");
+        return null;
+    }
+}
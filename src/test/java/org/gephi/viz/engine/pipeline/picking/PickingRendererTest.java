@@ -0,0 +1,52 @@
+package org.gephi.viz.engine.pipeline.picking;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class PickingRendererTest {
+
+    @Test
+    public void testFindNearestId() {
+        final int[] ids = new int[]{
+            0, 0, 0, 0, 7,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 5, 0,
+            0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0
+        };
+
+        Assert.assertEquals(5, PickingRenderer.findNearestId(ids, 5, 5, 2, 2));
+        Assert.assertEquals(7, PickingRenderer.findNearestId(ids, 5, 5, 4, 0));
+    }
+
+    @Test
+    public void testFindNearestIdCenter() {
+        final int[] ids = new int[]{
+            3, 3, 3,
+            3, 9, 3,
+            3, 3, 3
+        };
+
+        Assert.assertEquals(9, PickingRenderer.findNearestId(ids, 3, 3, 1, 1));
+    }
+
+    @Test
+    public void testFindNearestIdEmpty() {
+        Assert.assertEquals(0, PickingRenderer.findNearestId(new int[9], 3, 3, 1, 1));
+    }
+
+    @Test
+    public void testFindNearestIdClampedRegion() {
+        //Region clamped at a corner, the position is not at its center:
+        final int[] ids = new int[]{
+            0, 0, 4,
+            0, 0, 0
+        };
+
+        Assert.assertEquals(4, PickingRenderer.findNearestId(ids, 3, 2, 0, 0));
+    }
+}
@@ -0,0 +1,147 @@
+package org.gephi.viz.engine.structure;
+
+import java.awt.Color;
+import java.util.Random;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.util.MortonCode;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class GraphSnapshotTest {
+
+    private static final int NODES = 2000;
+    private static final int EDGES = 6000;
+
+    @Test
+    public void testBuildOrder() {
+        final Graph graph = newGraph();
+        final GraphSnapshot snapshot = GraphSnapshot.build(graph);
+
+        Assert.assertEquals(graph.getNodeCount(), snapshot.getNodeCount());
+        Assert.assertEquals(graph.getEdgeCount(), snapshot.getEdgeCount());
+
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (Node node : graph.getNodes()) {
+            minX = Math.min(minX, node.x());
+            minY = Math.min(minY, node.y());
+            maxX = Math.max(maxX, node.x());
+            maxY = Math.max(maxY, node.y());
+        }
+
+        //Nodes along the curve:
+        long previousCode = -1;
+        for (int i = 0; i < snapshot.getNodeCount(); i++) {
+            final long code = Integer.toUnsignedLong(MortonCode.encode(snapshot.getNodesX()[i], snapshot.getNodesY()[i], minX, minY, maxX, maxY));
+            Assert.assertTrue(code >= previousCode);
+            previousCode = code;
+        }
+
+        //Edges by source node:
+        for (int i = 1; i < snapshot.getEdgeCount(); i++) {
+            Assert.assertTrue(snapshot.getEdgesSource()[i] >= snapshot.getEdgesSource()[i - 1]);
+        }
+    }
+
+    @Test
+    public void testIndices() {
+        final Graph graph = newGraph();
+        final GraphSnapshot snapshot = GraphSnapshot.build(graph);
+
+        for (int i = 0; i < snapshot.getNodeCount(); i++) {
+            final Node node = snapshot.getNodes()[i];
+            Assert.assertEquals(i, snapshot.getNodeIndex(node));
+            Assert.assertEquals(node.x(), snapshot.getNodesX()[i], 0);
+            Assert.assertEquals(node.y(), snapshot.getNodesY()[i], 0);
+            Assert.assertEquals(node.size(), snapshot.getNodesSize()[i], 0);
+        }
+
+        for (int i = 0; i < snapshot.getEdgeCount(); i++) {
+            final Edge edge = snapshot.getEdges()[i];
+            Assert.assertEquals(i, snapshot.getEdgeIndex(edge));
+            Assert.assertEquals(snapshot.getNodeIndex(edge.getSource()), snapshot.getEdgesSource()[i]);
+            Assert.assertEquals(snapshot.getNodeIndex(edge.getTarget()), snapshot.getEdgesTarget()[i]);
+            Assert.assertEquals(edge.isDirected(), snapshot.getEdgesDirected()[i]);
+        }
+
+        //Added after building:
+        final GraphFactory factory = graph.getModel().factory();
+        final Node added = factory.newNode();
+        graph.addNode(added);
+        final Edge addedEdge = factory.newEdge(added, snapshot.getNodes()[0], 0, 1, true);
+        graph.addEdge(addedEdge);
+
+        Assert.assertEquals(-1, snapshot.getNodeIndex(added));
+        Assert.assertEquals(-1, snapshot.getEdgeIndex(addedEdge));
+    }
+
+    @Test
+    public void testRefreshInPlace() {
+        final Graph graph = newGraph();
+        final GraphSnapshot snapshot = GraphSnapshot.build(graph);
+
+        final float[] nodesX = snapshot.getNodesX();
+        final float[] edgesWeight = snapshot.getEdgesWeight();
+
+        final Node node = snapshot.getNodes()[10];
+        node.setX(-5);
+        node.setSize(42);
+        node.setColor(Color.RED);
+
+        final Edge edge = snapshot.getEdges()[20];
+        edge.setWeight(7);
+        edge.setColor(Color.BLUE);
+
+        //Not copied until refreshed:
+        Assert.assertNotEquals(-5, snapshot.getNodesX()[10], 0);
+
+        snapshot.refreshNodes(graph);
+        snapshot.refreshEdges(graph);
+
+        //Same arrays and order:
+        Assert.assertSame(nodesX, snapshot.getNodesX());
+        Assert.assertSame(edgesWeight, snapshot.getEdgesWeight());
+        Assert.assertEquals(10, snapshot.getNodeIndex(node));
+        Assert.assertEquals(20, snapshot.getEdgeIndex(edge));
+
+        Assert.assertEquals(-5, snapshot.getNodesX()[10], 0);
+        Assert.assertEquals(42, snapshot.getNodesSize()[10], 0);
+        Assert.assertEquals(node.getRGBA(), snapshot.getNodesColor()[10]);
+        Assert.assertEquals(7, snapshot.getEdgesWeight()[20], 0);
+        Assert.assertEquals(edge.getRGBA(), snapshot.getEdgesColor()[20]);
+    }
+
+    private Graph newGraph() {
+        final Random random = new Random(11);
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getGraph();
+
+        final Node[] nodes = new Node[NODES];
+        for (int i = 0; i < NODES; i++) {
+            nodes[i] = factory.newNode();
+            nodes[i].setX(random.nextFloat() * 1000);
+            nodes[i].setY(random.nextFloat() * 1000);
+            nodes[i].setSize(1 + random.nextFloat() * 10);
+            graph.addNode(nodes[i]);
+        }
+
+        for (int i = 0; i < EDGES; i++) {
+            final Node source = nodes[random.nextInt(NODES)];
+            final Node target = nodes[random.nextInt(NODES)];
+            graph.addEdge(factory.newEdge(source, target, 0, 1, true));
+        }
+
+        return graph;
+    }
+}
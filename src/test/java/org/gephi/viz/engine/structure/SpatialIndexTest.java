@@ -0,0 +1,194 @@
+package org.gephi.viz.engine.structure;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.joml.Intersectionf;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class SpatialIndexTest {
+
+    private static final int NODES = 5000;
+    private static final int EDGES = 20000;
+    private static final int QUERIES = 200;
+
+    @Test
+    public void testNodesInArea() {
+        final GraphSnapshot snapshot = GraphSnapshot.build(newGraph());
+        final SpatialIndex index = SpatialIndex.build(snapshot);
+        final Random random = new Random(3);
+
+        for (int q = 0; q < QUERIES; q++) {
+            final float minX = random.nextFloat() * 1200 - 100;
+            final float minY = random.nextFloat() * 1200 - 100;
+            final float maxX = minX + random.nextFloat() * 300;
+            final float maxY = minY + random.nextFloat() * 300;
+
+            final Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < snapshot.getNodeCount(); i++) {
+                final float size = snapshot.getNodesSize()[i];
+                if (Intersectionf.testAarCircle(minX, minY, maxX, maxY, snapshot.getNodesX()[i], snapshot.getNodesY()[i], size * size)) {
+                    expected.add(i);
+                }
+            }
+
+            assertReportedOnce(expected, consumer -> index.getNodesInArea(minX, minY, maxX, maxY, consumer));
+        }
+    }
+
+    @Test
+    public void testEdgesInArea() {
+        final GraphSnapshot snapshot = GraphSnapshot.build(newGraph());
+        final SpatialIndex index = SpatialIndex.build(snapshot);
+        final Random random = new Random(5);
+
+        for (int q = 0; q < QUERIES; q++) {
+            final float minX = random.nextFloat() * 1200 - 100;
+            final float minY = random.nextFloat() * 1200 - 100;
+            final float maxX = minX + random.nextFloat() * 100;
+            final float maxY = minY + random.nextFloat() * 100;
+
+            final Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < snapshot.getEdgeCount(); i++) {
+                final int source = snapshot.getEdgesSource()[i];
+                final int target = snapshot.getEdgesTarget()[i];
+                final float x0 = snapshot.getNodesX()[source];
+                final float y0 = snapshot.getNodesY()[source];
+                final float x1 = snapshot.getNodesX()[target];
+                final float y1 = snapshot.getNodesY()[target];
+
+                final boolean boundsOverlap = Math.min(x0, x1) <= maxX && Math.max(x0, x1) >= minX
+                        && Math.min(y0, y1) <= maxY && Math.max(y0, y1) >= minY;
+                if (boundsOverlap && Intersectionf.testAarLine(minX, minY, maxX, maxY, x0, y0, x1, y1)) {
+                    expected.add(i);
+                }
+            }
+
+            assertReportedOnce(expected, consumer -> index.getEdgesInArea(minX, minY, maxX, maxY, consumer));
+        }
+    }
+
+    @Test
+    public void testEdgesInsideCircleWithWidth() {
+        final GraphSnapshot snapshot = GraphSnapshot.build(newGraph());
+        final SpatialIndex index = SpatialIndex.build(snapshot);
+        final EdgeWidth width = EdgeWidth.of(2, 1, 10);
+        final Random random = new Random(11);
+
+        for (int q = 0; q < QUERIES; q++) {
+            final float centerX = random.nextFloat() * 1200 - 100;
+            final float centerY = random.nextFloat() * 1200 - 100;
+            final float radius = random.nextFloat() * 5;
+
+            final Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < snapshot.getEdgeCount(); i++) {
+                final int source = snapshot.getEdgesSource()[i];
+                final int target = snapshot.getEdgesTarget()[i];
+                final float distance = radius + width.getHalfWidth(snapshot.getEdgesWeight()[i]);
+
+                if (SpatialIndex.distanceToSegmentSquared(centerX, centerY,
+                        snapshot.getNodesX()[source], snapshot.getNodesY()[source],
+                        snapshot.getNodesX()[target], snapshot.getNodesY()[target]) <= distance * distance) {
+                    expected.add(i);
+                }
+            }
+
+            assertReportedOnce(expected, consumer -> index.getEdgesInsideCircle(centerX, centerY, radius, width, consumer));
+        }
+    }
+
+    @Test
+    public void testEdgeHalfWidth() {
+        final EdgeWidth width = EdgeWidth.of(2, 1, 10);
+
+        Assert.assertEquals(0.4f, width.getHalfWidth(1), 1e-5f);
+        Assert.assertEquals(8f, width.getHalfWidth(10), 1e-5f);
+        Assert.assertEquals(8f, width.getMaxHalfWidth(), 1e-5f);
+        //Weights out of the indexed range:
+        Assert.assertEquals(0.4f, width.getHalfWidth(-5), 1e-5f);
+        Assert.assertEquals(8f, width.getHalfWidth(50), 1e-5f);
+
+        //Same weight for every edge:
+        Assert.assertEquals(0.4f, EdgeWidth.of(2, 3, 3).getHalfWidth(3), 1e-5f);
+    }
+
+    @Test
+    public void testEdgeWidthOnlyGrowsQueries() {
+        final GraphSnapshot snapshot = GraphSnapshot.build(newGraph());
+        final SpatialIndex index = SpatialIndex.build(snapshot);
+        final EdgeWidth width = EdgeWidth.of(1, 1, 10);
+        final Random random = new Random(13);
+
+        for (int q = 0; q < QUERIES; q++) {
+            final float minX = random.nextFloat() * 1200 - 100;
+            final float minY = random.nextFloat() * 1200 - 100;
+            final float maxX = minX + random.nextFloat() * 20;
+            final float maxY = minY + random.nextFloat() * 20;
+
+            final Set<Integer> segments = new HashSet<>();
+            index.getEdgesInArea(minX, minY, maxX, maxY, segments::add);
+            final Set<Integer> lines = new HashSet<>();
+            index.getEdgesInArea(minX, minY, maxX, maxY, width, lines::add);
+
+            Assert.assertTrue(lines.containsAll(segments));
+        }
+    }
+
+    @Test
+    public void testNodesUnderPosition() {
+        final GraphSnapshot snapshot = GraphSnapshot.build(newGraph());
+        final SpatialIndex index = SpatialIndex.build(snapshot);
+
+        for (int i = 0; i < snapshot.getNodeCount(); i += 50) {
+            final int nodeIndex = i;
+            final Set<Integer> reported = new HashSet<>();
+            index.getNodesUnderPosition(snapshot.getNodesX()[i], snapshot.getNodesY()[i], reported::add);
+
+            Assert.assertTrue(reported.contains(nodeIndex));
+        }
+    }
+
+    private void assertReportedOnce(Set<Integer> expected, Consumer<IntConsumer> query) {
+        final Set<Integer> reported = new HashSet<>();
+        query.accept(i -> Assert.assertTrue("Reported twice: " + i, reported.add(i)));
+
+        Assert.assertEquals(expected, reported);
+    }
+
+    private Graph newGraph() {
+        final Random random = new Random(7);
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getGraph();
+
+        final Node[] nodes = new Node[NODES];
+        for (int i = 0; i < NODES; i++) {
+            nodes[i] = factory.newNode();
+            nodes[i].setX(random.nextFloat() * 1000);
+            nodes[i].setY(random.nextFloat() * 1000);
+            //Some big nodes, covering many cells:
+            nodes[i].setSize(i % 500 == 0 ? 200 : 1 + random.nextFloat() * 10);
+            graph.addNode(nodes[i]);
+        }
+
+        //Long edges between random nodes:
+        for (int i = 0; i < EDGES; i++) {
+            final Node source = nodes[random.nextInt(NODES)];
+            final Node target = nodes[random.nextInt(NODES)];
+            graph.addEdge(factory.newEdge(source, target, 0, 1 + random.nextInt(10), true));
+        }
+
+        return graph;
+    }
+}
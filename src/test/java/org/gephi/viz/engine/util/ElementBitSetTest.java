@@ -0,0 +1,155 @@
+package org.gephi.viz.engine.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class ElementBitSetTest {
+
+    public ElementBitSetTest() {
+    }
+
+    @Test
+    public void testAddContainsRemove() {
+        final Node[] nodes = newNodes(200);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+
+        for (int i = 0; i < nodes.length; i += 3) {
+            Assert.assertTrue(set.add(nodes[i]));
+            Assert.assertFalse(set.add(nodes[i]));
+        }
+
+        final Set<Node> expected = new HashSet<>();
+        for (int i = 0; i < nodes.length; i += 3) {
+            expected.add(nodes[i]);
+        }
+
+        Assert.assertEquals(expected.size(), set.size());
+        for (Node node : nodes) {
+            Assert.assertEquals(expected.contains(node), set.containsElement(node));
+        }
+        Assert.assertEquals(expected, new HashSet<>(set));
+
+        Assert.assertTrue(set.remove(nodes[0]));
+        Assert.assertFalse(set.remove(nodes[0]));
+        Assert.assertFalse(set.containsElement(nodes[0]));
+        Assert.assertEquals(expected.size() - 1, set.size());
+    }
+
+    @Test
+    public void testAddAllArrayAndClear() {
+        final Node[] nodes = newNodes(1000);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+
+        set.addAll(nodes, 500);
+        Assert.assertEquals(500, set.size());
+        Assert.assertTrue(set.containsElement(nodes[499]));
+        Assert.assertFalse(set.containsElement(nodes[500]));
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.iterator().hasNext());
+        for (Node node : nodes) {
+            Assert.assertFalse(set.containsElement(node));
+        }
+    }
+
+    @Test
+    public void testReusedStoreId() {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Graph graph = graphModel.getGraph();
+
+        final Node removed = graphModel.factory().newNode();
+        graph.addNode(removed);
+
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+        set.add(removed);
+
+        graph.removeNode(removed);
+        final Node added = graphModel.factory().newNode();
+        graph.addNode(added);
+
+        Assert.assertFalse(set.containsElement(added));
+    }
+
+    @Test
+    public void testRemoveKeepsOtherElements() {
+        final Node[] nodes = newNodes(5000);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+        set.addAll(nodes, nodes.length);
+
+        for (int i = 0; i < nodes.length; i += 2) {
+            Assert.assertTrue(set.remove(nodes[i]));
+        }
+
+        Assert.assertEquals(nodes.length / 2, set.size());
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(i % 2 == 1, set.containsElement(nodes[i]));
+        }
+
+        int iterated = 0;
+        for (Node node : set) {
+            Assert.assertTrue(node.getStoreId() % 2 == 1);
+            iterated++;
+        }
+        Assert.assertEquals(nodes.length / 2, iterated);
+    }
+
+    @Test
+    public void testContainsWhileGrowing() throws InterruptedException {
+        final Node[] nodes = newNodes(100000);
+        final ElementBitSet<Node> set = new ElementBitSet<>();
+        set.add(nodes[0]);
+
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    for (int i = 0; i < nodes.length; i += 97) {
+                        set.containsElement(nodes[i]);
+                    }
+                    //Never removed, always seen:
+                    if (!set.containsElement(nodes[0])) {
+                        throw new AssertionError("First element not found");
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+
+        for (int i = 1; i < nodes.length; i++) {
+            set.add(nodes[i]);
+        }
+        done.set(true);
+        reader.join();
+
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(nodes.length, set.size());
+    }
+
+    private Node[] newNodes(int count) {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Graph graph = graphModel.getGraph();
+
+        final Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = graphModel.factory().newNode();
+            graph.addNode(nodes[i]);
+        }
+
+        return nodes;
+    }
+}
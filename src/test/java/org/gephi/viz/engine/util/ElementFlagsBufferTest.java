@@ -0,0 +1,117 @@
+package org.gephi.viz.engine.util;
+
+import java.nio.IntBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class ElementFlagsBufferTest {
+
+    private static final int PAGE_ELEMENTS = ElementFlagsBuffer.PAGE_WORDS * ElementFlagsBuffer.FLAGS_PER_WORD;
+
+    @Test
+    public void testFlagsPacking() {
+        final ElementFlagsBuffer buffer = new ElementFlagsBuffer();
+
+        buffer.begin(6);
+        buffer.set(0, 1);
+        buffer.set(1, 2);
+        buffer.set(3, 0xFF);
+        buffer.set(5, 0x108);//Only the lowest byte
+
+        Assert.assertEquals(1, buffer.get(0));
+        Assert.assertEquals(0, buffer.get(2));
+        Assert.assertEquals(0xFF, buffer.get(3));
+        Assert.assertEquals(8, buffer.get(5));
+
+        buffer.publish(7);
+        Assert.assertTrue(buffer.acquire());
+
+        final IntBuffer words = buffer.getReadWords();
+        Assert.assertEquals(0xFF000201, words.get(0));
+        Assert.assertEquals(0x0800, words.get(1));
+        Assert.assertEquals(6, buffer.getReadFrame().getCount());
+        Assert.assertEquals(2, buffer.getReadFrame().getWordsCount());
+        Assert.assertEquals(7, buffer.getReadFrame().getState());
+    }
+
+    @Test
+    public void testAllPagesChangedOnFirstFrame() {
+        final ElementFlagsBuffer buffer = new ElementFlagsBuffer();
+
+        buffer.begin(PAGE_ELEMENTS * 2 + 1);
+        buffer.publish(0);
+        Assert.assertTrue(buffer.acquire());
+
+        Assert.assertEquals(0, buffer.nextChangedPage(0));
+        Assert.assertEquals(1, buffer.nextChangedPage(1));
+        Assert.assertEquals(2, buffer.nextChangedPage(2));
+        Assert.assertEquals(-1, buffer.nextChangedPage(3));
+    }
+
+    @Test
+    public void testFlagsKeptBetweenFrames() {
+        final ElementFlagsBuffer buffer = new ElementFlagsBuffer();
+        final int count = PAGE_ELEMENTS * 3;
+
+        buffer.begin(count);
+        buffer.set(10, 1);
+        buffer.publish(0);
+
+        //Every slot is written once, then reused with only the pages that changed since:
+        for (int i = 0; i < 6; i++) {
+            buffer.begin(count);
+            buffer.set(PAGE_ELEMENTS * (i % 3) + i, 2);
+            buffer.publish(0);
+        }
+
+        Assert.assertTrue(buffer.acquire());
+
+        final IntBuffer words = buffer.getReadWords();
+        Assert.assertEquals(1, flagsOf(words, 10));
+        for (int i = 0; i < 6; i++) {
+            Assert.assertEquals(2, flagsOf(words, PAGE_ELEMENTS * (i % 3) + i));
+        }
+    }
+
+    @Test
+    public void testCountChangeClearsFlags() {
+        final ElementFlagsBuffer buffer = new ElementFlagsBuffer();
+
+        buffer.begin(8);
+        buffer.set(2, 4);
+        buffer.publish(0);
+
+        buffer.begin(9);
+        Assert.assertEquals(0, buffer.get(2));
+        buffer.publish(0);
+
+        Assert.assertTrue(buffer.acquire());
+        Assert.assertEquals(0, flagsOf(buffer.getReadWords(), 2));
+        Assert.assertEquals(9, buffer.getReadFrame().getCount());
+    }
+
+    @Test
+    public void testElementsVersion() {
+        final ElementFlagsBuffer buffer = new ElementFlagsBuffer();
+
+        buffer.begin(8);
+        buffer.publish(0, 3);
+        Assert.assertTrue(buffer.acquire());
+        Assert.assertEquals(3, buffer.getReadFrame().getElementsVersion());
+
+        //Same count, other elements:
+        buffer.begin(8);
+        buffer.publish(0, 4);
+        Assert.assertTrue(buffer.acquire());
+        Assert.assertEquals(4, buffer.getReadFrame().getElementsVersion());
+        Assert.assertEquals(8, buffer.getReadFrame().getCount());
+    }
+
+    private static int flagsOf(IntBuffer words, int index) {
+        return (words.get(index / ElementFlagsBuffer.FLAGS_PER_WORD) >>> ((index % ElementFlagsBuffer.FLAGS_PER_WORD) * Byte.SIZE)) & 0xFF;
+    }
+}
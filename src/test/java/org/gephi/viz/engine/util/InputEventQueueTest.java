@@ -0,0 +1,119 @@
+package org.gephi.viz.engine.util;
+
+import com.jogamp.newt.event.InputEvent;
+import com.jogamp.newt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class InputEventQueueTest {
+
+    private static final Object SOURCE = new Object();
+
+    @Test
+    public void testCoalesceMoves() {
+        final InputEventQueue queue = new InputEventQueue();
+
+        queue.offer(mouseEvent(MouseEvent.EVENT_MOUSE_MOVED, 0, 1, 0));
+        queue.offer(mouseEvent(MouseEvent.EVENT_MOUSE_MOVED, 0, 2, 0));
+        final MouseEvent pressed = mouseEvent(MouseEvent.EVENT_MOUSE_PRESSED, InputEvent.BUTTON1_MASK, 2, 0);
+        queue.offer(pressed);
+        queue.offer(mouseEvent(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 3, 0));
+        final MouseEvent lastDragged = mouseEvent(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 4, 0);
+        queue.offer(lastDragged);
+
+        Assert.assertEquals(3, queue.drain());
+        Assert.assertEquals(2, ((MouseEvent) queue.getDrainedEvent(0)).getX());
+        Assert.assertSame(pressed, queue.getDrainedEvent(1));
+        Assert.assertSame(lastDragged, queue.getDrainedEvent(2));
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testDifferentModifiersNotCoalesced() {
+        final InputEventQueue queue = new InputEventQueue();
+
+        queue.offer(mouseEvent(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK, 1, 0));
+        queue.offer(mouseEvent(MouseEvent.EVENT_MOUSE_DRAGGED, InputEvent.BUTTON1_MASK | InputEvent.BUTTON3_MASK, 2, 0));
+
+        Assert.assertEquals(2, queue.drain());
+    }
+
+    @Test
+    public void testAccumulateWheelRotation() {
+        final InputEventQueue queue = new InputEventQueue();
+
+        queue.offer(wheelEvent(5, 1, 1));
+        queue.offer(wheelEvent(6, 2, 1));
+        queue.offer(wheelEvent(7, -0.5f, 2));
+
+        Assert.assertEquals(1, queue.drain());
+
+        final MouseEvent wheel = (MouseEvent) queue.getDrainedEvent(0);
+        Assert.assertEquals(MouseEvent.EVENT_MOUSE_WHEEL_MOVED, wheel.getEventType());
+        Assert.assertEquals(7, wheel.getX());
+        Assert.assertEquals(2, wheel.getRotation()[1] * wheel.getRotationScale(), 1e-6);
+    }
+
+    @Test
+    public void testDrainIsEmptyAfterwards() {
+        final InputEventQueue queue = new InputEventQueue();
+
+        queue.offer(mouseEvent(MouseEvent.EVENT_MOUSE_CLICKED, 0, 1, 1));
+        Assert.assertEquals(1, queue.drain());
+        Assert.assertEquals(0, queue.drain());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        final InputEventQueue queue = new InputEventQueue();
+        final int producers = 4;
+        final int eventsPerProducer = 10000;
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    //Clicks are never coalesced, y tells the producer:
+                    queue.offer(mouseEvent(MouseEvent.EVENT_MOUSE_CLICKED, 0, i, producer));
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+
+        final int[] lastSeen = new int[producers];
+        Arrays.fill(lastSeen, -1);
+        int total = 0;
+        while (total < producers * eventsPerProducer) {
+            final int count = queue.drain();
+            for (int i = 0; i < count; i++) {
+                final MouseEvent event = (MouseEvent) queue.getDrainedEvent(i);
+                //Events of each producer keep their order:
+                Assert.assertEquals(lastSeen[event.getY()] + 1, event.getX());
+                lastSeen[event.getY()] = event.getX();
+            }
+            total += count;
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, queue.drain());
+    }
+
+    private static MouseEvent mouseEvent(short type, int modifiers, int x, int y) {
+        return new MouseEvent(type, SOURCE, 0, modifiers, x, y, (short) 1, MouseEvent.BUTTON1, new float[3], 1);
+    }
+
+    private static MouseEvent wheelEvent(int x, float verticalRotation, float scale) {
+        return new MouseEvent(MouseEvent.EVENT_MOUSE_WHEEL_MOVED, SOURCE, 0, 0, x, 0, (short) 0, (short) 0, new float[]{0, verticalRotation, 0}, scale);
+    }
+}
@@ -0,0 +1,41 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class MortonCodeTest {
+
+    @Test
+    public void testEncode() {
+        Assert.assertEquals(0, MortonCode.encode(0, 0));
+        Assert.assertEquals(1, MortonCode.encode(1, 0));
+        Assert.assertEquals(2, MortonCode.encode(0, 1));
+        Assert.assertEquals(3, MortonCode.encode(1, 1));
+        Assert.assertEquals(0b1100, MortonCode.encode(2, 2));
+        Assert.assertEquals(0xFFFFFFFF, MortonCode.encode(0xFFFF, 0xFFFF));
+    }
+
+    @Test
+    public void testEncodePositionClamped() {
+        Assert.assertEquals(0, MortonCode.encode(-10f, -10f, 0, 0, 1, 1));
+        Assert.assertEquals(0xFFFFFFFF, MortonCode.encode(10f, 10f, 0, 0, 1, 1));
+        Assert.assertEquals(0, MortonCode.encode(5f, 5f, 5, 5, 5, 5));
+    }
+
+    @Test
+    public void testEncodePositionLocality() {
+        //Quadrants are visited in order: bottom left, bottom right, top left, top right
+        final int bottomLeft = MortonCode.encode(0.1f, 0.1f, 0, 0, 1, 1);
+        final int bottomRight = MortonCode.encode(0.9f, 0.1f, 0, 0, 1, 1);
+        final int topLeft = MortonCode.encode(0.1f, 0.9f, 0, 0, 1, 1);
+        final int topRight = MortonCode.encode(0.9f, 0.9f, 0, 0, 1, 1);
+
+        Assert.assertTrue(Integer.compareUnsigned(bottomLeft, bottomRight) < 0);
+        Assert.assertTrue(Integer.compareUnsigned(bottomRight, topLeft) < 0);
+        Assert.assertTrue(Integer.compareUnsigned(topLeft, topRight) < 0);
+    }
+}
@@ -0,0 +1,54 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class TimingRecorderTest {
+
+    public TimingRecorderTest() {
+    }
+
+    @Test
+    public void testPercentiles() {
+        final TimingRecorder recorder = new TimingRecorder();
+        for (int i = 100; i >= 1; i--) {
+            recorder.record(i);
+        }
+
+        Assert.assertEquals(50, recorder.getP50Nanos());
+        Assert.assertEquals(95, recorder.getP95Nanos());
+        Assert.assertEquals(99, recorder.getP99Nanos());
+        Assert.assertEquals(100, recorder.percentileNanos(100));
+        Assert.assertEquals(1, recorder.percentileNanos(0));
+        Assert.assertEquals(1, recorder.getLastNanos());
+    }
+
+    @Test
+    public void testRollingWindow() {
+        final TimingRecorder recorder = new TimingRecorder();
+        for (int i = 0; i < TimingRecorder.WINDOW_SIZE; i++) {
+            recorder.record(1000);
+        }
+        for (int i = 0; i < TimingRecorder.WINDOW_SIZE; i++) {
+            recorder.record(10);
+        }
+
+        Assert.assertEquals(10, recorder.getP99Nanos());
+        Assert.assertEquals(TimingRecorder.WINDOW_SIZE * 2, recorder.getTotalCount());
+    }
+
+    @Test
+    public void testEmptyAndReset() {
+        final TimingRecorder recorder = new TimingRecorder();
+        Assert.assertEquals(0, recorder.getP50Nanos());
+
+        recorder.record(5);
+        recorder.reset();
+        Assert.assertEquals(0, recorder.getP50Nanos());
+        Assert.assertEquals(0, recorder.getTotalCount());
+    }
+}
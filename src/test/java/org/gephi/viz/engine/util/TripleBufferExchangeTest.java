@@ -0,0 +1,140 @@
+package org.gephi.viz.engine.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class TripleBufferExchangeTest {
+
+    @Test
+    public void testNothingPublished() {
+        final TripleBufferExchange<TestFrame> exchange = new TripleBufferExchange<>();
+
+        Assert.assertFalse(exchange.acquire());
+        Assert.assertNull(exchange.getReadFrame());
+        Assert.assertEquals(0, exchange.getReadGeneration());
+    }
+
+    @Test
+    public void testPublishAcquire() {
+        final TripleBufferExchange<TestFrame> exchange = new TripleBufferExchange<>();
+
+        final TestFrame frame = publish(exchange, 10);
+
+        Assert.assertTrue(exchange.acquire());
+        Assert.assertSame(frame, exchange.getReadFrame());
+        Assert.assertEquals(1, exchange.getReadGeneration());
+
+        //Same frame until a new one is published:
+        Assert.assertFalse(exchange.acquire());
+        Assert.assertSame(frame, exchange.getReadFrame());
+    }
+
+    @Test
+    public void testLatestFrameWins() {
+        final TripleBufferExchange<TestFrame> exchange = new TripleBufferExchange<>();
+
+        publish(exchange, 1);
+        publish(exchange, 2);
+        final TestFrame last = publish(exchange, 3);
+
+        Assert.assertTrue(exchange.acquire());
+        Assert.assertSame(last, exchange.getReadFrame());
+        Assert.assertEquals(3, exchange.getReadGeneration());
+    }
+
+    @Test
+    public void testWriteSlotNeverRead() {
+        final TripleBufferExchange<TestFrame> exchange = new TripleBufferExchange<>();
+
+        for (int i = 0; i < 20; i++) {
+            publish(exchange, i);
+            if (i % 3 != 1) {
+                exchange.acquire();
+            }
+
+            Assert.assertNotEquals(exchange.getReadFrame().getSlot(), exchange.getWriteSlot());
+            Assert.assertEquals(exchange.getWriteSlot(), exchange.getIdleSlot());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPublishOtherSlot() {
+        final TripleBufferExchange<TestFrame> exchange = new TripleBufferExchange<>();
+
+        exchange.publish(new TestFrame((exchange.getWriteSlot() + 1) % TripleBufferExchange.SLOTS, 0));
+    }
+
+    @Test
+    public void testReset() {
+        final TripleBufferExchange<TestFrame> exchange = new TripleBufferExchange<>();
+
+        publish(exchange, 1);
+        exchange.reset();
+
+        Assert.assertFalse(exchange.acquire());
+        Assert.assertNull(exchange.getReadFrame());
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final TripleBufferExchange<TestFrame> exchange = new TripleBufferExchange<>();
+        final int[][] slots = new int[TripleBufferExchange.SLOTS][1];
+        final int frames = 100000;
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread writer = new Thread(() -> {
+            try {
+                for (int i = 1; i <= frames; i++) {
+                    final int slot = exchange.getWriteSlot();
+                    slots[slot][0] = i;
+                    exchange.publish(new TestFrame(slot, i));
+                }
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+        writer.start();
+
+        int lastValue = 0;
+        while (lastValue < frames) {
+            if (exchange.acquire()) {
+                final TestFrame frame = exchange.getReadFrame();
+
+                //The slot content is the one described by the frame and is not overwritten while it is acquired:
+                Assert.assertEquals(frame.value, slots[frame.getSlot()][0]);
+                Assert.assertTrue(frame.value > lastValue);
+                Assert.assertEquals(frame.value, exchange.getReadGeneration());
+                Assert.assertEquals(frame.value, slots[frame.getSlot()][0]);
+                lastValue = frame.value;
+            }
+        }
+
+        writer.join();
+        Assert.assertNull(error.get());
+    }
+
+    private static TestFrame publish(TripleBufferExchange<TestFrame> exchange, int value) {
+        return exchange.publish(new TestFrame(exchange.getWriteSlot(), value));
+    }
+
+    private static class TestFrame implements TripleBufferExchange.Frame {
+
+        private final int slot;
+        private final int value;
+
+        public TestFrame(int slot, int value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        public int getSlot() {
+            return slot;
+        }
+    }
+}